@@ -0,0 +1,317 @@
+package hr.fer.zemris.java.fractals;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+/**
+ * {@code FrameProfile} class records how the work of one fractal frame was
+ * spread over pixels, jobs and threads.
+ * <p>
+ * A producer creates a profile for a frame, stores the number of iterations
+ * of every pixel with {@link #setIterations(int, int)} and reports every job
+ * with {@link #recordJob(int, int, int, long, long)} from the thread that ran
+ * it. Different jobs must use different indexes and pixels; the profile can
+ * be read once all jobs are finished. The profile can then be exported as an
+ * iteration heatmap and a timeline of jobs and threads which shows how long
+ * every thread was busy and idle during the frame.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class FrameProfile {
+
+    /** Number of the request. */
+    private final long requestNo;
+    /** Width of the frame. */
+    private final int width;
+    /** Height of the frame. */
+    private final int height;
+    /** Number of iterations of every pixel. */
+    private final int[] iterations;
+
+    /** Minimum y of every job. */
+    private final int[] jobYMin;
+    /** Maximum y of every job. */
+    private final int[] jobYMax;
+    /** Start of every job in nanoseconds. */
+    private final long[] jobStart;
+    /** End of every job in nanoseconds. */
+    private final long[] jobEnd;
+    /** Name of the thread that ran every job. */
+    private final String[] jobThread;
+
+    /** Start of the frame in nanoseconds. */
+    private long frameStart;
+    /** End of the frame in nanoseconds. */
+    private long frameEnd;
+
+    /**
+     * Constructs a new {@code FrameProfile} of the frame of specified size.
+     *
+     * @param requestNo
+     *            number of the request
+     * @param width
+     *            width of the frame
+     * @param height
+     *            height of the frame
+     * @param numOfJobs
+     *            number of jobs computing the frame
+     * @throws IllegalArgumentException
+     *             if any of the sizes is not a positive number
+     */
+    public FrameProfile(long requestNo, int width, int height, int numOfJobs) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Width and height must be positive numbers!");
+        if (numOfJobs <= 0)
+            throw new IllegalArgumentException("Number of jobs must be a positive number!");
+
+        this.requestNo = requestNo;
+        this.width = width;
+        this.height = height;
+        this.iterations = new int[width * height];
+        this.jobYMin = new int[numOfJobs];
+        this.jobYMax = new int[numOfJobs];
+        this.jobStart = new long[numOfJobs];
+        this.jobEnd = new long[numOfJobs];
+        this.jobThread = new String[numOfJobs];
+    }
+
+    /**
+     * Marks the start of the frame.
+     */
+    public void start() {
+        frameStart = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of the frame, after all jobs are finished.
+     */
+    public void finish() {
+        frameEnd = System.nanoTime();
+    }
+
+    /**
+     * Stores the number of iterations of a pixel.
+     *
+     * @param offset
+     *            offset of the pixel, {@code y * width + x}
+     * @param n
+     *            number of iterations
+     */
+    public void setIterations(int offset, int n) {
+        iterations[offset] = n;
+    }
+
+    /**
+     * Records a finished job, which ran in the current thread.
+     *
+     * @param index
+     *            index of the job
+     * @param yMin
+     *            minimum y of the job
+     * @param yMax
+     *            maximum y of the job
+     * @param start
+     *            start of the job in nanoseconds
+     * @param end
+     *            end of the job in nanoseconds
+     */
+    public void recordJob(int index, int yMin, int yMax, long start, long end) {
+        jobYMin[index] = yMin;
+        jobYMax[index] = yMax;
+        jobStart[index] = start;
+        jobEnd[index] = end;
+        jobThread[index] = Thread.currentThread().getName();
+    }
+
+    /**
+     * Returns the number of the request.
+     *
+     * @return number of the request
+     */
+    public long getRequestNo() {
+        return requestNo;
+    }
+
+    /**
+     * Returns the number of iterations of the pixel at specified position.
+     *
+     * @param x
+     *            x coordinate of the pixel
+     * @param y
+     *            y coordinate of the pixel
+     * @return number of iterations
+     */
+    public int getIterations(int x, int y) {
+        return iterations[y * width + x];
+    }
+
+    /**
+     * Returns the number of jobs.
+     *
+     * @return number of jobs
+     */
+    public int getNumOfJobs() {
+        return jobStart.length;
+    }
+
+    /**
+     * Returns the total number of iterations of the specified job.
+     *
+     * @param index
+     *            index of the job
+     * @return number of iterations
+     */
+    public long getJobIterations(int index) {
+        long sum = 0;
+        for (int i = jobYMin[index] * width, end = (jobYMax[index] + 1) * width; i < end; i++) {
+            sum += iterations[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the wall time of the specified job in nanoseconds.
+     *
+     * @param index
+     *            index of the job
+     * @return wall time of the job
+     */
+    public long getJobNanos(int index) {
+        return jobEnd[index] - jobStart[index];
+    }
+
+    /**
+     * Returns the time every thread spent running jobs in nanoseconds.
+     *
+     * @return busy time by thread names, in order of first job
+     */
+    public Map<String, Long> getBusyNanos() {
+        Map<String, Long> busy = new LinkedHashMap<>();
+        for (int i = 0; i < jobStart.length; i++) {
+            if (jobThread[i] != null)
+                busy.merge(jobThread[i], getJobNanos(i), Long::sum);
+        }
+        return busy;
+    }
+
+    /**
+     * Returns the wall time of the frame in nanoseconds.
+     *
+     * @return wall time of the frame
+     */
+    public long getFrameNanos() {
+        return frameEnd - frameStart;
+    }
+
+    /**
+     * Returns the ratio of the longest job to the mean job by iterations.
+     * A perfectly balanced frame has imbalance of 1.
+     *
+     * @return the imbalance
+     */
+    public double getImbalance() {
+        long max = 0;
+        long sum = 0;
+        for (int i = 0; i < jobStart.length; i++) {
+            long n = getJobIterations(i);
+            max = Math.max(max, n);
+            sum += n;
+        }
+        return sum == 0 ? 1 : (double) max * jobStart.length / sum;
+    }
+
+    /**
+     * Returns the heatmap of iterations. Pixels with few iterations are dark
+     * blue and pixels with the most iterations of the frame are bright red.
+     *
+     * @return the heatmap
+     */
+    public BufferedImage toHeatmap() {
+        int max = 1;
+        for (int n : iterations) {
+            max = Math.max(max, n);
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        double scale = Math.log1p(max);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                float t = (float) (Math.log1p(iterations[y * width + x]) / scale);
+                image.setRGB(x, y, Color.HSBtoRGB(2f / 3 * (1 - t), 1, 0.25f + 0.75f * t));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Writes the timeline of the frame: every job with its rows, thread,
+     * start, duration and iterations, and every thread with its busy and
+     * idle time.
+     *
+     * @param writer
+     *            the writer
+     * @throws IOException
+     *             if writing fails
+     */
+    public void writeTimeline(Writer writer) throws IOException {
+        writer.write(String.format("Frame %d: %dx%d, %.3f ms, %d jobs, imbalance %.2f%n", requestNo, width, height,
+                millis(getFrameNanos()), jobStart.length, getImbalance()));
+
+        writer.write(String.format("%n%5s %11s %-24s %10s %10s %12s%n", "Job", "Rows", "Thread", "Start ms",
+                "Time ms", "Iterations"));
+        for (int i = 0; i < jobStart.length; i++) {
+            writer.write(String.format("%5d %5d-%-5d %-24s %10.3f %10.3f %12d%n", i, jobYMin[i], jobYMax[i],
+                    jobThread[i], millis(jobStart[i] - frameStart), millis(getJobNanos(i)), getJobIterations(i)));
+        }
+
+        writer.write(String.format("%n%-24s %10s %10s %7s%n", "Thread", "Busy ms", "Idle ms", "Busy %"));
+        for (Map.Entry<String, Long> entry : getBusyNanos().entrySet()) {
+            long busy = entry.getValue();
+            writer.write(String.format("%-24s %10.3f %10.3f %6.1f%%%n", entry.getKey(), millis(busy),
+                    millis(Math.max(0, getFrameNanos() - busy)), 100.0 * busy / Math.max(1, getFrameNanos())));
+        }
+    }
+
+    /**
+     * Writes the heatmap as {@code newton-<requestNo>-heatmap.png} and the
+     * timeline as {@code newton-<requestNo>-timeline.txt} into specified
+     * directory.
+     *
+     * @param dir
+     *            the directory; created if it doesn't exist
+     * @throws IOException
+     *             if files cannot be written
+     */
+    public void export(Path dir) throws IOException {
+        Files.createDirectories(dir);
+
+        ImageIO.write(toHeatmap(), "png", dir.resolve("newton-" + requestNo + "-heatmap.png").toFile());
+        try (Writer writer = Files.newBufferedWriter(dir.resolve("newton-" + requestNo + "-timeline.txt"),
+                StandardCharsets.UTF_8)) {
+            writeTimeline(writer);
+        }
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     *
+     * @param nanos
+     *            nanoseconds
+     * @return milliseconds
+     */
+    private static double millis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+}
@@ -0,0 +1,51 @@
+package hr.fer.zemris.java.fractals;
+
+/**
+ * {@code IterationMethod} enumeration lists root-finding iterations which can
+ * be used for drawing the fractal of a polynomial.
+ * <p>
+ * Every iteration moves {@code z} by a step computed from {@code p(z)} and
+ * its derivatives, which {@link NewtonRenderer} evaluates together in one
+ * pass. Methods of higher order converge in fewer iterations and draw
+ * different borders between basins of roots.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see NewtonRenderer
+ */
+public enum IterationMethod {
+
+    /** Newton-Raphson iteration, {@code z - p/p'}, of quadratic convergence. */
+    NEWTON(2),
+    /** Halley iteration, {@code z - 2pp'/(2p'^2 - pp'')}, of cubic convergence. */
+    HALLEY(3),
+    /**
+     * Householder iteration of the third order,
+     * {@code z - 6p(p'^2 - pp''/2)/(6p'^3 - 6pp'p'' + p^2p''')}, of quartic
+     * convergence.
+     */
+    HOUSEHOLDER(4);
+
+    /** Order of convergence. */
+    private final int order;
+
+    /**
+     * Constructs a new {@code IterationMethod} of specified order.
+     *
+     * @param order
+     *            order of convergence
+     */
+    private IterationMethod(int order) {
+        this.order = order;
+    }
+
+    /**
+     * Returns the order of convergence of this method near a simple root.
+     *
+     * @return the order of convergence
+     */
+    public int getOrder() {
+        return order;
+    }
+
+}
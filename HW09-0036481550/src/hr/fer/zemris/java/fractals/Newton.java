@@ -1,20 +1,30 @@
 package hr.fer.zemris.java.fractals;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import hr.fer.zemris.java.fractals.complex.Complex;
-import hr.fer.zemris.java.fractals.complex.ComplexPolynomial;
 import hr.fer.zemris.java.fractals.complex.ComplexRootedPolynomial;
 import hr.fer.zemris.java.fractals.viewer.FractalViewer;
 import hr.fer.zemris.java.fractals.viewer.IFractalProducer;
 import hr.fer.zemris.java.fractals.viewer.IFractalResultObserver;
+import hr.fer.zemris.java.metrics.RenderMetrics;
+import hr.fer.zemris.java.metrics.RenderTrace;
 
 /**
  * 
@@ -24,19 +34,70 @@ import hr.fer.zemris.java.fractals.viewer.IFractalResultObserver;
  */
 public class Newton {
 
+    /** Prefix of the command-line argument that turns on profiling. */
+    private static final String PROFILE = "-profile=";
+    /** Prefix of the command-line argument that selects the iteration. */
+    private static final String METHOD = "-method=";
+    /** Command-line argument that allows the {@code float} kernel. */
+    private static final String FLOAT = "-float";
+
     /**
      * Starting point of a program.
      * 
      * @param args
-     *            Command-line argument
+     *            Command-line arguments; {@value #PROFILE} followed by a
+     *            directory exports the {@link FrameProfile} of every frame
+     *            into that directory, {@value #METHOD} followed by the
+     *            name of an {@link IterationMethod} selects the iteration
+     *            and {@value #FLOAT} computes frames in {@code float} where
+     *            it is precise enough
      */
     public static void main(String[] args) {
+        Path profileDir = null;
+        IterationMethod method = IterationMethod.NEWTON;
+        boolean floatAllowed = false;
+
+        for (String arg : args) {
+            if (arg.equals(FLOAT)) {
+                floatAllowed = true;
+                continue;
+            }
+            if (arg.startsWith(METHOD)) {
+                try {
+                    method = IterationMethod.valueOf(arg.substring(METHOD.length()).toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Unknown iteration method: " + arg.substring(METHOD.length()));
+                    return;
+                }
+                continue;
+            }
+            if (!arg.startsWith(PROFILE)) {
+                System.out.println("Unknown argument: " + arg);
+                return;
+            }
+
+            try {
+                profileDir = Paths.get(arg.substring(PROFILE.length()));
+            } catch (InvalidPathException e) {
+                System.out.println("Invalid profile directory: " + e.getMessage());
+                return;
+            }
+        }
 
         Complex[] roots = getUserInput();
 
         ComplexRootedPolynomial polynom = new ComplexRootedPolynomial(roots);
 
-        FractalViewer.show(new MyProducer(polynom));
+        Path dir = profileDir;
+        MyProducer producer = new MyProducer(polynom, dir == null ? null : profile -> {
+            try {
+                profile.export(dir);
+            } catch (IOException e) {
+                System.out.println("Profile cannot be exported: " + e.getMessage());
+            }
+        }, MyProducer.DEFAULT_MAX_IN_FLIGHT, method, floatAllowed);
+        producer.start();
+        FractalViewer.show(producer);
     }
 
     /**
@@ -87,28 +148,57 @@ public class Newton {
      * fractal.
      * <p>
      * This class is an impementation of the {@link IFractalProducer} interface.
+     * Requests are reported to the {@link RenderMetrics} named
+     * {@code Newton}. If a profiler is given, iterations of every pixel and
+     * times of every job are recorded into a {@link FrameProfile} which is
+     * passed to the profiler after the result is delivered. Stages of every
+     * request are recorded by {@link RenderTrace}. The iteration is
+     * Newton-Raphson unless another {@link IterationMethod} is given, and
+     * frames are computed in {@code double} unless the {@code float} kernel
+     * of {@link NewtonRenderer} is allowed.
+     * <p>
+     * Viewers call {@link #produce} from a new thread for every request, so
+     * requests are admitted before they are rendered. At most
+     * {@code maxInFlight} requests are rendered at once and the newest request
+     * wins: requests waiting for admission and requests being rendered are
+     * cancelled as soon as a newer request arrives, without delivering a
+     * result. The thread pool is created by {@link #start()}, or by the first
+     * request, and shut down by {@link #close()}.
      * 
      * @author Karlo Vrbić
      * @version 1.0
      * @see IFractalProducer
      */
-    static class MyProducer implements IFractalProducer {
+    static class MyProducer implements IFractalProducer, Closeable {
 
         /** Number of threads that will handle calculation. */
         private static final int NUM_OF_THREADS = Runtime.getRuntime().availableProcessors();
         /** Number of jobs that will be handed to threads. */
         private static final int NUM_OF_JOBS = NUM_OF_THREADS * 8;
-        /** Convergence threshold */
-        private static final double CONVERGENCE_THRESHOLD = 0.001;
-        /** Root threshold. */
-        private static final double ROOT_THRESHOLD = 0.002;
-        /** Maximum number of iterations. */
-        private static final int MAX_ITERATIONS = 16 * 16;
-
-        /** Thread pool. */
+        /** Name of producers of this class in metrics and traces. */
+        private static final String NAME = "Newton";
+        /** Metrics of producers of this class. */
+        private static final RenderMetrics METRICS = RenderMetrics.forProducer(NAME);
+        /** Default number of requests rendered at once. */
+        public static final int DEFAULT_MAX_IN_FLIGHT = 1;
+
+        /** Thread pool; {@code null} until the producer is started. */
         private ExecutorService pool;
-        /** Polynom that will be used for iteration. */
-        private ComplexRootedPolynomial polynom;
+        /** Renderer computing pixels of the fractal. */
+        private NewtonRenderer renderer;
+        /** Consumer of profiles of frames; {@code null} if profiling is off. */
+        private Consumer<FrameProfile> profiler;
+        /** Maximum number of requests rendered at once. */
+        private final int maxInFlight;
+
+        /** Lock guarding admission of requests and the lifecycle. */
+        private final Object lock = new Object();
+        /** Ticket of the newest request; older requests are cancelled. */
+        private volatile long latest;
+        /** Number of requests being rendered. */
+        private int inFlight;
+        /** Flag showing whether the producer is closed. */
+        private boolean closed;
 
         /**
          * Constructs a new {@code MyProducer} object from specified polynom.
@@ -117,18 +207,188 @@ public class Newton {
          *            polynom that will be used for iteration
          */
         public MyProducer(ComplexRootedPolynomial polynom) {
-            this.pool = Executors.newFixedThreadPool(NUM_OF_THREADS, new ThreadFactory() {
+            this(polynom, null);
+        }
 
-                @Override
-                public Thread newThread(Runnable r) {
-                    Thread t = new Thread(r);
-                    t.setDaemon(true);
+        /**
+         * Constructs a new {@code MyProducer} object from specified polynom
+         * which profiles every frame.
+         * 
+         * @param polynom
+         *            polynom that will be used for iteration
+         * @param profiler
+         *            consumer of profiles of frames; {@code null} turns
+         *            profiling off
+         */
+        public MyProducer(ComplexRootedPolynomial polynom, Consumer<FrameProfile> profiler) {
+            this(polynom, profiler, DEFAULT_MAX_IN_FLIGHT);
+        }
+
+        /**
+         * Constructs a new {@code MyProducer} object from specified arguments.
+         * 
+         * @param polynom
+         *            polynom that will be used for iteration
+         * @param profiler
+         *            consumer of profiles of frames; {@code null} turns
+         *            profiling off
+         * @param maxInFlight
+         *            maximum number of requests rendered at once
+         * @throws IllegalArgumentException
+         *             if {@code maxInFlight} is not a positive number
+         */
+        public MyProducer(ComplexRootedPolynomial polynom, Consumer<FrameProfile> profiler, int maxInFlight) {
+            this(polynom, profiler, maxInFlight, IterationMethod.NEWTON);
+        }
+
+        /**
+         * Constructs a new {@code MyProducer} object from specified arguments
+         * which uses specified method of iteration.
+         * 
+         * @param polynom
+         *            polynom that will be used for iteration
+         * @param profiler
+         *            consumer of profiles of frames; {@code null} turns
+         *            profiling off
+         * @param maxInFlight
+         *            maximum number of requests rendered at once
+         * @param method
+         *            method of the iteration
+         * @throws IllegalArgumentException
+         *             if {@code maxInFlight} is not a positive number
+         * @throws NullPointerException
+         *             if {@code method} is a null reference
+         */
+        public MyProducer(ComplexRootedPolynomial polynom, Consumer<FrameProfile> profiler, int maxInFlight,
+                IterationMethod method) {
+            this(polynom, profiler, maxInFlight, method, false);
+        }
+
+        /**
+         * Constructs a new {@code MyProducer} object from specified arguments
+         * which uses specified method of iteration and may compute frames in
+         * {@code float}.
+         * 
+         * @param polynom
+         *            polynom that will be used for iteration
+         * @param profiler
+         *            consumer of profiles of frames; {@code null} turns
+         *            profiling off
+         * @param maxInFlight
+         *            maximum number of requests rendered at once
+         * @param method
+         *            method of the iteration
+         * @param floatAllowed
+         *            {@code true} computes frames that are precise enough in
+         *            {@code float}, {@code false} computes all frames in
+         *            {@code double}
+         * @throws IllegalArgumentException
+         *             if {@code maxInFlight} is not a positive number
+         * @throws NullPointerException
+         *             if {@code method} is a null reference
+         */
+        public MyProducer(ComplexRootedPolynomial polynom, Consumer<FrameProfile> profiler, int maxInFlight,
+                IterationMethod method, boolean floatAllowed) {
+            if (maxInFlight <= 0)
+                throw new IllegalArgumentException("Number of requests in flight must be a positive number!");
+
+            this.renderer = new NewtonRenderer(polynom, method, floatAllowed);
+            this.profiler = profiler;
+            this.maxInFlight = maxInFlight;
+        }
+
+        /**
+         * Starts the thread pool of this producer. Calling this method on a
+         * started producer has no effect.
+         * <p>
+         * The queue of the pool holds jobs of {@code maxInFlight} requests,
+         * which is all the work that can be admitted at once.
+         * 
+         * @throws IllegalStateException
+         *             if the producer is closed
+         */
+        public void start() {
+            synchronized (lock) {
+                if (closed)
+                    throw new IllegalStateException("Producer is closed!");
+                if (pool != null)
+                    return;
+
+                pool = new ThreadPoolExecutor(NUM_OF_THREADS, NUM_OF_THREADS, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(maxInFlight * NUM_OF_JOBS), r -> {
+                            Thread t = new Thread(r);
+                            t.setDaemon(true);
+
+                            return t;
+                        });
+            }
+        }
 
-                    return t;
+        /**
+         * Closes this producer. Requests waiting for admission and requests
+         * being rendered are cancelled and threads of the pool are stopped.
+         */
+        @Override
+        public void close() {
+            synchronized (lock) {
+                closed = true;
+                latest++;
+                if (pool != null) {
+                    for (Runnable job : pool.shutdownNow()) {
+                        ((Future<?>) job).cancel(false);
+                    }
+                }
+                lock.notifyAll();
+            }
+        }
+
+        /**
+         * Registers a new request, which cancels all older requests.
+         * 
+         * @return ticket of the request
+         * @throws IllegalStateException
+         *             if the producer is closed
+         */
+        private long arrive() {
+            start();
+            synchronized (lock) {
+                long ticket = ++latest;
+                lock.notifyAll();
+                return ticket;
+            }
+        }
+
+        /**
+         * Waits until the request with specified ticket can be rendered.
+         * 
+         * @param ticket
+         *            ticket of the request
+         * @return {@code true} if the request is admitted, {@code false} if it
+         *         was cancelled while waiting
+         * @throws InterruptedException
+         *             if the thread is interrupted while waiting
+         */
+        private boolean admit(long ticket) throws InterruptedException {
+            synchronized (lock) {
+                while (ticket == latest && inFlight >= maxInFlight) {
+                    lock.wait();
                 }
-            });
+                if (ticket != latest)
+                    return false;
+
+                inFlight++;
+                return true;
+            }
+        }
 
-            this.polynom = polynom;
+        /**
+         * Marks an admitted request as finished.
+         */
+        private void leave() {
+            synchronized (lock) {
+                inFlight--;
+                lock.notifyAll();
+            }
         }
 
         @Override
@@ -141,15 +401,68 @@ public class Newton {
                 int height,
                 long requestNo,
                 IFractalResultObserver observer) {
+            long ticket = arrive();
+            long start = METRICS.start();
+            long queueStart = RenderTrace.begin();
+
+            try {
+                if (!admit(ticket)) {
+                    METRICS.cancel(start);
+                    return;
+                }
+            } catch (InterruptedException e) {
+                METRICS.cancel(start);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            RenderTrace.end(RenderTrace.Stage.QUEUE, NAME, requestNo, queueStart);
+
+            try {
+                render(reMin, reMax, imMin, imMax, width, height, requestNo, observer, ticket, start);
+            } finally {
+                leave();
+            }
+        }
+
+        /**
+         * Renders an admitted request and delivers the result unless the
+         * request is cancelled.
+         * 
+         * @param reMin
+         *            minimum real part
+         * @param reMax
+         *            maximum real part
+         * @param imMin
+         *            minimum imaginary part
+         * @param imMax
+         *            maximum imaginary part
+         * @param width
+         *            width of the frame
+         * @param height
+         *            height of the frame
+         * @param requestNo
+         *            number of the request
+         * @param observer
+         *            observer receiving the result
+         * @param ticket
+         *            ticket of the request
+         * @param start
+         *            start of the request returned by the metrics
+         */
+        private void render(double reMin, double reMax, double imMin, double imMax, int width, int height,
+                long requestNo, IFractalResultObserver observer, long ticket, long start) {
+            FrameProfile profile = profiler == null ? null : new FrameProfile(requestNo, width, height, NUM_OF_JOBS);
 
             class Job implements Runnable {
 
+                int index;
                 int yMin;
                 int yMax;
                 short[] data;
 
-                public Job(int yMin, int yMax, short[] data) {
+                public Job(int index, int yMin, int yMax, short[] data) {
                     super();
+                    this.index = index;
                     this.yMin = yMin;
                     this.yMax = yMax;
                     this.data = data;
@@ -157,46 +470,26 @@ public class Newton {
 
                 @Override
                 public void run() {
-                    ComplexPolynomial derived = polynom.toComplexPolynom().derive();
-
-                    for (int y = yMin; y <= yMax; y++) {
-                        int offset = y * width;
-                        for (int x = 0; x < width; x++) {
-                            double real = x / (width - 1.0) * (reMax - reMin) + reMin;
-                            double imag = (height - 1.0 - y) / (height - 1) * (imMax - imMin) + imMin;
-
-                            Complex zn = Complex.valueOf(real, imag);
-                            Complex zn1 = null;
-
-                            int iter = 0;
-                            double module = 0.0;
-                            do {
-                                Complex numerator = polynom.apply(zn);
-                                Complex denominator = derived.apply(zn);
-
-                                Complex fraction = numerator.divide(denominator);
+                    long start = System.nanoTime();
+                    long traceStart = RenderTrace.begin();
+                    long iterations = 0;
 
-                                zn1 = zn.sub(fraction);
-                                iter++;
-
-                                module = zn1.sub(zn).module();
-
-                                zn = zn1;
-                            } while (module > CONVERGENCE_THRESHOLD && iter < MAX_ITERATIONS);
-
-                            int index = polynom.indexOfClosestRootFor(zn1, ROOT_THRESHOLD);
-
-                            if (index == -1) {
-                                data[offset + x] = 0;
-                            } else {
-                                data[offset + x] = (short) index;
-                            }
-                        }
+                    for (int y = yMin; y <= yMax && ticket == latest; y++) {
+                        iterations += renderer.renderRow(reMin, reMax, imMin, imMax, width, height, y, data, profile);
                     }
+
+                    METRICS.addIterations(iterations);
+                    if (profile != null)
+                        profile.recordJob(index, yMin, yMax, start, System.nanoTime());
+                    RenderTrace.end(RenderTrace.Stage.JOB, NAME, requestNo, traceStart, 0, yMin, width,
+                            yMax - yMin + 1);
                 }
 
             }
 
+            long frameStart = RenderTrace.begin();
+            if (profile != null)
+                profile.start();
             List<Future<?>> rezultati = new ArrayList<>();
 
             int numOfYPerThread = height / NUM_OF_JOBS;
@@ -210,18 +503,52 @@ public class Newton {
                     yMax = height - 1;
                 }
 
-                Job job = new Job(yMin, yMax, data);
-                rezultati.add(pool.submit(job));
+                Job job = new Job(i, yMin, yMax, data);
+                try {
+                    rezultati.add(pool.submit(job));
+                } catch (RejectedExecutionException e) {
+                    METRICS.cancel(start);
+                    return;
+                }
             }
 
+            long waitStart = RenderTrace.begin();
             for (Future<?> posao : rezultati) {
                 try {
                     posao.get();
-                } catch (InterruptedException | ExecutionException e) {
+                } catch (InterruptedException e) {
+                    for (Future<?> f : rezultati) {
+                        f.cancel(true);
+                    }
+                    METRICS.cancel(start);
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (CancellationException e) {
+                    METRICS.cancel(start);
+                    return;
+                } catch (ExecutionException e) {
+                    METRICS.fail(start);
+                    System.out.println("Izračuni nisu uspjeli: " + e.getCause());
+                    return;
                 }
             }
 
-            observer.acceptResult(data, (short) (polynom.toComplexPolynom().order() + 1), requestNo);
+            RenderTrace.end(RenderTrace.Stage.WAIT, NAME, requestNo, waitStart);
+            if (ticket != latest) {
+                METRICS.cancel(start);
+                return;
+            }
+            if (profile != null)
+                profile.finish();
+
+            long deliveryStart = RenderTrace.begin();
+            observer.acceptResult(data, renderer.getLimit(), requestNo);
+            RenderTrace.end(RenderTrace.Stage.DELIVERY, NAME, requestNo, deliveryStart);
+            METRICS.finish(start, (long) width * height);
+            RenderTrace.end(RenderTrace.Stage.FRAME, NAME, requestNo, frameStart);
+
+            if (profile != null)
+                profiler.accept(profile);
         }
     }
 
@@ -0,0 +1,532 @@
+package hr.fer.zemris.java.fractals;
+
+import hr.fer.zemris.java.fractals.complex.Complex;
+import hr.fer.zemris.java.fractals.complex.ComplexPolynomial;
+import hr.fer.zemris.java.fractals.complex.ComplexRootedPolynomial;
+
+/**
+ * {@code NewtonRenderer} class computes pixels of the Newton fractal of a
+ * polynomial.
+ * <p>
+ * Starting from the complex number of a pixel, Newton-Raphson iteration, or
+ * another {@link IterationMethod}, is run until it converges or the maximum
+ * number of iterations is reached, and the pixel gets the index of the root
+ * the iteration converged to, or {@code 0} if it isn't close to any root or
+ * the iteration hits a critical point of the polynomial. A frame spans the
+ * region from {@code reMin} to {@code reMax} and from {@code imMin} to
+ * {@code imMax}, both inclusive, with {@code imMax} in the first row. Rows
+ * can be computed independently, so frames can be split between threads.
+ * <p>
+ * Frames are computed in {@code double} unless the {@code float} kernel is
+ * allowed when the renderer is constructed. Then frames whose pixels are far
+ * enough apart for {@code float} to tell them apart are computed by a
+ * {@code float} kernel on primitive values, which needs no {@link Complex}
+ * objects and is several times faster. Pixels of such frames land in the
+ * same basins as with {@code double} except for a few pixels on basin
+ * borders, where the iteration is chaotic, so the kernel is opt-in. Deeper
+ * zoomed frames fall back to {@code double}; see
+ * {@link #isFloatPrecise(double, double, double, double, int, int)}.
+ * <p>
+ * Methods of higher order evaluate {@code p}, {@code p'}, {@code p''} and
+ * {@code p'''} in one Horner pass over the factors of the polynomial, on
+ * primitive {@code double} values, and classify pixels the same way.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class NewtonRenderer {
+
+    /** Convergence threshold */
+    public static final double CONVERGENCE_THRESHOLD = 0.001;
+    /** Root threshold. */
+    public static final double ROOT_THRESHOLD = 0.002;
+    /** Maximum number of iterations. */
+    public static final int MAX_ITERATIONS = 16 * 16;
+    /**
+     * Minimum distance of neighbouring pixels relative to the largest
+     * coordinate of the frame for the {@code float} kernel, which keeps
+     * pixels thousands of {@code float} steps apart.
+     */
+    public static final double MIN_FLOAT_SPACING = 1.0 / (1 << 12);
+
+    /** Polynom that will be used for iteration. */
+    private final ComplexRootedPolynomial polynom;
+    /** Derivation of the polynom. */
+    private final ComplexPolynomial derived;
+    /** Method of the iteration. */
+    private final IterationMethod method;
+    /** Flag showing whether the {@code float} kernel may be used. */
+    private final boolean floatAllowed;
+
+    /** Real parts of roots for the {@code float} kernel. */
+    private final float[] rootRe;
+    /** Imaginary parts of roots for the {@code float} kernel. */
+    private final float[] rootIm;
+    /** Real parts of factors of the derivation for the {@code float} kernel. */
+    private final float[] derivedRe;
+    /** Imaginary parts of factors of the derivation for the {@code float} kernel. */
+    private final float[] derivedIm;
+    /** Real parts of factors of the polynom for methods of higher order. */
+    private final double[] factorRe;
+    /** Imaginary parts of factors of the polynom for methods of higher order. */
+    private final double[] factorIm;
+
+    /**
+     * Constructs a new {@code NewtonRenderer} of specified polynom which
+     * computes all frames in {@code double}.
+     *
+     * @param polynom
+     *            polynom that will be used for iteration
+     * @throws NullPointerException
+     *             if argument {@code polynom} is a null reference
+     */
+    public NewtonRenderer(ComplexRootedPolynomial polynom) {
+        this(polynom, IterationMethod.NEWTON, false);
+    }
+
+    /**
+     * Constructs a new {@code NewtonRenderer} of specified polynom.
+     *
+     * @param polynom
+     *            polynom that will be used for iteration
+     * @param floatAllowed
+     *            {@code true} computes frames that are precise enough in
+     *            {@code float}, {@code false} computes all frames in
+     *            {@code double}
+     * @throws NullPointerException
+     *             if argument {@code polynom} is a null reference
+     */
+    public NewtonRenderer(ComplexRootedPolynomial polynom, boolean floatAllowed) {
+        this(polynom, IterationMethod.NEWTON, floatAllowed);
+    }
+
+    /**
+     * Constructs a new {@code NewtonRenderer} of specified polynom which uses
+     * specified method of iteration and computes all frames in
+     * {@code double}.
+     *
+     * @param polynom
+     *            polynom that will be used for iteration
+     * @param method
+     *            method of the iteration
+     * @throws NullPointerException
+     *             if either of arguments is a null reference
+     */
+    public NewtonRenderer(ComplexRootedPolynomial polynom, IterationMethod method) {
+        this(polynom, method, false);
+    }
+
+    /**
+     * Constructs a new {@code NewtonRenderer} from specified arguments.
+     *
+     * @param polynom
+     *            polynom that will be used for iteration
+     * @param method
+     *            method of the iteration
+     * @param floatAllowed
+     *            {@code true} computes frames that are precise enough in
+     *            {@code float}, {@code false} computes all frames in
+     *            {@code double}
+     * @throws NullPointerException
+     *             if either of arguments is a null reference
+     */
+    public NewtonRenderer(ComplexRootedPolynomial polynom, IterationMethod method, boolean floatAllowed) {
+        if (polynom == null || method == null)
+            throw new NullPointerException("Polynom or method cannot be a null reference!");
+
+        this.polynom = polynom;
+        this.derived = polynom.toComplexPolynom().derive();
+        this.method = method;
+        this.floatAllowed = floatAllowed;
+
+        Complex[] roots = polynom.getRoots();
+        this.rootRe = new float[roots.length];
+        this.rootIm = new float[roots.length];
+        for (int i = 0; i < roots.length; i++) {
+            rootRe[i] = (float) roots[i].getRe();
+            rootIm[i] = (float) roots[i].getIm();
+        }
+
+        Complex[] factors = derived.getFactors();
+        this.derivedRe = new float[factors.length];
+        this.derivedIm = new float[factors.length];
+        for (int i = 0; i < factors.length; i++) {
+            derivedRe[i] = (float) factors[i].getRe();
+            derivedIm[i] = (float) factors[i].getIm();
+        }
+
+        factors = polynom.toComplexPolynom().getFactors();
+        this.factorRe = new double[factors.length];
+        this.factorIm = new double[factors.length];
+        for (int i = 0; i < factors.length; i++) {
+            factorRe[i] = factors[i].getRe();
+            factorIm[i] = factors[i].getIm();
+        }
+    }
+
+    /**
+     * Returns {@code true} if pixels of specified frame are far enough apart
+     * to be computed in {@code float}.
+     *
+     * @param reMin
+     *            minimum real part
+     * @param reMax
+     *            maximum real part
+     * @param imMin
+     *            minimum imaginary part
+     * @param imMax
+     *            maximum imaginary part
+     * @param width
+     *            width of the frame
+     * @param height
+     *            height of the frame
+     * @return {@code true} if the {@code float} kernel is precise enough
+     */
+    public static boolean isFloatPrecise(double reMin, double reMax, double imMin, double imMax, int width,
+            int height) {
+        double scale = Math.max(1, Math.max(Math.max(Math.abs(reMin), Math.abs(reMax)),
+                Math.max(Math.abs(imMin), Math.abs(imMax))));
+        double spacing = Math.min(width > 1 ? (reMax - reMin) / (width - 1) : Double.POSITIVE_INFINITY,
+                height > 1 ? (imMax - imMin) / (height - 1) : Double.POSITIVE_INFINITY);
+
+        return spacing >= scale * MIN_FLOAT_SPACING && scale < Float.MAX_VALUE;
+    }
+
+    /**
+     * Returns the method of the iteration.
+     *
+     * @return the method of the iteration
+     */
+    public IterationMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the number of distinct values of pixels, which is the number of
+     * roots increased by one.
+     *
+     * @return the number of values of pixels
+     */
+    public short getLimit() {
+        return (short) (polynom.toComplexPolynom().order() + 1);
+    }
+
+    /**
+     * Computes a row of a frame.
+     *
+     * @param reMin
+     *            minimum real part
+     * @param reMax
+     *            maximum real part
+     * @param imMin
+     *            minimum imaginary part
+     * @param imMax
+     *            maximum imaginary part
+     * @param width
+     *            width of the frame
+     * @param height
+     *            height of the frame
+     * @param y
+     *            index of the row
+     * @param data
+     *            pixels of the frame; the row is stored from
+     *            {@code y * width}
+     * @param profile
+     *            profile receiving the number of iterations of every pixel;
+     *            {@code null} if the frame isn't profiled
+     * @return total number of iterations of the row
+     */
+    public long renderRow(double reMin, double reMax, double imMin, double imMax, int width, int height, int y,
+            short[] data, FrameProfile profile) {
+        if (method != IterationMethod.NEWTON)
+            return renderRowHigher(reMin, reMax, imMin, imMax, width, height, y, data, profile);
+        if (floatAllowed && isFloatPrecise(reMin, reMax, imMin, imMax, width, height))
+            return renderRowFloat(reMin, reMax, imMin, imMax, width, height, y, data, profile);
+
+        long iterations = 0;
+        int offset = y * width;
+
+        for (int x = 0; x < width; x++) {
+            double real = x / (width - 1.0) * (reMax - reMin) + reMin;
+            double imag = (height - 1.0 - y) / (height - 1) * (imMax - imMin) + imMin;
+
+            Complex zn = Complex.valueOf(real, imag);
+            Complex zn1 = null;
+
+            int iter = 0;
+            double module = 0.0;
+            do {
+                Complex numerator = polynom.apply(zn);
+                Complex denominator = derived.apply(zn);
+                if (denominator.equals(Complex.ZERO)) {
+                    // iteration cannot leave a critical point of the polynom
+                    zn1 = zn;
+                    iter++;
+                    break;
+                }
+
+                Complex fraction = numerator.divide(denominator);
+
+                zn1 = zn.sub(fraction);
+                iter++;
+
+                module = zn1.sub(zn).module();
+
+                zn = zn1;
+            } while (module > CONVERGENCE_THRESHOLD && iter < MAX_ITERATIONS);
+            iterations += iter;
+            if (profile != null)
+                profile.setIterations(offset + x, iter);
+
+            int index = polynom.indexOfClosestRootFor(zn1, ROOT_THRESHOLD);
+
+            if (index == -1) {
+                data[offset + x] = 0;
+            } else {
+                data[offset + x] = (short) index;
+            }
+        }
+
+        return iterations;
+    }
+
+    /**
+     * Computes a row of a frame in {@code float}, with the same iteration,
+     * thresholds and classification as
+     * {@link #renderRow(double, double, double, double, int, int, int, short[], FrameProfile)}.
+     *
+     * @param reMin
+     *            minimum real part
+     * @param reMax
+     *            maximum real part
+     * @param imMin
+     *            minimum imaginary part
+     * @param imMax
+     *            maximum imaginary part
+     * @param width
+     *            width of the frame
+     * @param height
+     *            height of the frame
+     * @param y
+     *            index of the row
+     * @param data
+     *            pixels of the frame
+     * @param profile
+     *            profile receiving the number of iterations of every pixel;
+     *            {@code null} if the frame isn't profiled
+     * @return total number of iterations of the row
+     */
+    private long renderRowFloat(double reMin, double reMax, double imMin, double imMax, int width, int height,
+            int y, short[] data, FrameProfile profile) {
+        final float convergence = (float) (CONVERGENCE_THRESHOLD * CONVERGENCE_THRESHOLD);
+        final float root = (float) (ROOT_THRESHOLD * ROOT_THRESHOLD);
+        float imag = (float) ((height - 1.0 - y) / (height - 1) * (imMax - imMin) + imMin);
+        long iterations = 0;
+        int offset = y * width;
+
+        for (int x = 0; x < width; x++) {
+            float zr = (float) (x / (width - 1.0) * (reMax - reMin) + reMin);
+            float zi = imag;
+
+            int iter = 0;
+            float module;
+            do {
+                float pr = 1;
+                float pi = 0;
+                for (int i = 0; i < rootRe.length; i++) {
+                    float ar = zr - rootRe[i];
+                    float ai = zi - rootIm[i];
+                    float t = pr * ar - pi * ai;
+                    pi = pr * ai + pi * ar;
+                    pr = t;
+                }
+
+                int last = derivedRe.length - 1;
+                float dr = derivedRe[last];
+                float di = derivedIm[last];
+                for (int i = last - 1; i >= 0; i--) {
+                    float t = dr * zr - di * zi + derivedRe[i];
+                    di = dr * zi + di * zr + derivedIm[i];
+                    dr = t;
+                }
+
+                iter++;
+                if (dr == 0 && di == 0) {
+                    // iteration cannot leave a critical point of the polynom
+                    module = 0;
+                    break;
+                }
+
+                // scaled so the square of the divisor doesn't overflow
+                float scale = Math.max(Math.abs(dr), Math.abs(di));
+                dr /= scale;
+                di /= scale;
+                pr /= scale;
+                pi /= scale;
+                float divisor = dr * dr + di * di;
+                float fr = (pr * dr + pi * di) / divisor;
+                float fi = (pi * dr - pr * di) / divisor;
+
+                zr -= fr;
+                zi -= fi;
+                module = fr * fr + fi * fi;
+            } while (module > convergence && iter < MAX_ITERATIONS);
+            iterations += iter;
+            if (profile != null)
+                profile.setIterations(offset + x, iter);
+
+            int index = 0;
+            float min = Float.MAX_VALUE;
+            for (int i = 0; i < rootRe.length; i++) {
+                float dx = zr - rootRe[i];
+                float dy = zi - rootIm[i];
+                float distance = dx * dx + dy * dy;
+
+                if (distance <= root && distance < min) {
+                    index = i + 1;
+                    min = distance;
+                }
+            }
+            data[offset + x] = (short) index;
+        }
+
+        return iterations;
+    }
+
+    /**
+     * Computes a row of a frame with a method of higher order, with the same
+     * thresholds and classification as
+     * {@link #renderRow(double, double, double, double, int, int, int, short[], FrameProfile)}.
+     *
+     * @param reMin
+     *            minimum real part
+     * @param reMax
+     *            maximum real part
+     * @param imMin
+     *            minimum imaginary part
+     * @param imMax
+     *            maximum imaginary part
+     * @param width
+     *            width of the frame
+     * @param height
+     *            height of the frame
+     * @param y
+     *            index of the row
+     * @param data
+     *            pixels of the frame
+     * @param profile
+     *            profile receiving the number of iterations of every pixel;
+     *            {@code null} if the frame isn't profiled
+     * @return total number of iterations of the row
+     */
+    private long renderRowHigher(double reMin, double reMax, double imMin, double imMax, int width, int height,
+            int y, short[] data, FrameProfile profile) {
+        double imag = (height - 1.0 - y) / (height - 1) * (imMax - imMin) + imMin;
+        int last = factorRe.length - 1;
+        long iterations = 0;
+        int offset = y * width;
+
+        for (int x = 0; x < width; x++) {
+            double zr = x / (width - 1.0) * (reMax - reMin) + reMin;
+            double zi = imag;
+
+            int iter = 0;
+            double module;
+            do {
+                // p, p', p''/2 and p'''/6 in one pass
+                double pr = factorRe[last];
+                double pi = factorIm[last];
+                double d1r = 0, d1i = 0, d2r = 0, d2i = 0, d3r = 0, d3i = 0;
+                for (int i = last - 1; i >= 0; i--) {
+                    double t = d3r * zr - d3i * zi + d2r;
+                    d3i = d3r * zi + d3i * zr + d2i;
+                    d3r = t;
+                    t = d2r * zr - d2i * zi + d1r;
+                    d2i = d2r * zi + d2i * zr + d1i;
+                    d2r = t;
+                    t = d1r * zr - d1i * zi + pr;
+                    d1i = d1r * zi + d1i * zr + pi;
+                    d1r = t;
+                    t = pr * zr - pi * zi + factorRe[i];
+                    pi = pr * zi + pi * zr + factorIm[i];
+                    pr = t;
+                }
+
+                // h = p'^2 - p p''/2
+                double hr = d1r * d1r - d1i * d1i - (pr * d2r - pi * d2i);
+                double hi = 2 * d1r * d1i - (pr * d2i + pi * d2r);
+                double nr, ni, dr, di;
+                if (method == IterationMethod.HALLEY) {
+                    // p p' / h
+                    nr = pr * d1r - pi * d1i;
+                    ni = pr * d1i + pi * d1r;
+                    dr = hr;
+                    di = hi;
+                } else {
+                    // p h / (p' h - p (p' p''/2 - p p'''/6))
+                    double kr = d1r * d2r - d1i * d2i - (pr * d3r - pi * d3i);
+                    double ki = d1r * d2i + d1i * d2r - (pr * d3i + pi * d3r);
+                    nr = pr * hr - pi * hi;
+                    ni = pr * hi + pi * hr;
+                    dr = d1r * hr - d1i * hi - (pr * kr - pi * ki);
+                    di = d1r * hi + d1i * hr - (pr * ki + pi * kr);
+                }
+
+                iter++;
+                if (dr == 0 && di == 0) {
+                    // iteration cannot leave a point where the step is undefined
+                    module = 0;
+                    break;
+                }
+
+                // scaled so the square of the divisor doesn't overflow
+                double scale = Math.max(Math.abs(dr), Math.abs(di));
+                dr /= scale;
+                di /= scale;
+                nr /= scale;
+                ni /= scale;
+                double divisor = dr * dr + di * di;
+                double fr = (nr * dr + ni * di) / divisor;
+                double fi = (ni * dr - nr * di) / divisor;
+
+                zr -= fr;
+                zi -= fi;
+                module = Math.hypot(fr, fi);
+            } while (module > CONVERGENCE_THRESHOLD && iter < MAX_ITERATIONS);
+            iterations += iter;
+            if (profile != null)
+                profile.setIterations(offset + x, iter);
+
+            int index = polynom.indexOfClosestRootFor(Complex.valueOf(zr, zi), ROOT_THRESHOLD);
+            data[offset + x] = (short) Math.max(index, 0);
+        }
+
+        return iterations;
+    }
+
+    /**
+     * Computes a whole frame in the current thread.
+     *
+     * @param reMin
+     *            minimum real part
+     * @param reMax
+     *            maximum real part
+     * @param imMin
+     *            minimum imaginary part
+     * @param imMax
+     *            maximum imaginary part
+     * @param width
+     *            width of the frame
+     * @param height
+     *            height of the frame
+     * @return pixels of the frame, row by row
+     */
+    public short[] render(double reMin, double reMax, double imMin, double imMax, int width, int height) {
+        short[] data = new short[width * height];
+        for (int y = 0; y < height; y++) {
+            renderRow(reMin, reMax, imMin, imMax, width, height, y, data, null);
+        }
+        return data;
+    }
+
+}
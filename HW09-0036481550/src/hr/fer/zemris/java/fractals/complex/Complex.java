@@ -183,6 +183,24 @@ public class Complex {
         return output;
     }
 
+    /**
+     * Returns the real part of this complex number.
+     * 
+     * @return the real part
+     */
+    public double getRe() {
+        return re;
+    }
+
+    /**
+     * Returns the imaginary part of this complex number.
+     * 
+     * @return the imaginary part
+     */
+    public double getIm() {
+        return im;
+    }
+
     /**
      * Returns the absolute value of a complex value.
      * 
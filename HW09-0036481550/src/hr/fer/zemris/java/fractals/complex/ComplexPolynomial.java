@@ -57,6 +57,16 @@ public class ComplexPolynomial {
         return (short) factors.length;
     }
 
+    /**
+     * Returns the factors of this polynomial. Factor at index i is factor of
+     * z^i.
+     * 
+     * @return copy of the factors of this polynomial
+     */
+    public Complex[] getFactors() {
+        return factors.clone();
+    }
+
     /**
      * Returns a {@code ComplexPolynomial} object whose value is (this × c).
      * 
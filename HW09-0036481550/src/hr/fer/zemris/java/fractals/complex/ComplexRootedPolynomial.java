@@ -63,6 +63,15 @@ public class ComplexRootedPolynomial {
         return result;
     }
 
+    /**
+     * Returns the roots of this polynomial.
+     * 
+     * @return copy of the roots of this polynomial
+     */
+    public Complex[] getRoots() {
+        return roots.clone();
+    }
+
     /**
      * Converts this {@code ComplexRootedPolynomial} to
      * {@link ComplexPolynomial} type.
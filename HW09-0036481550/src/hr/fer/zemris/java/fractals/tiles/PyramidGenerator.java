@@ -0,0 +1,186 @@
+package hr.fer.zemris.java.fractals.tiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import hr.fer.zemris.java.fractals.NewtonRenderer;
+
+/**
+ * {@code PyramidGenerator} class fills a {@link TileStore} with all tiles of
+ * its pyramid.
+ * <p>
+ * Tiles are rendered in parallel by a {@link ForkJoinPool}, which splits the
+ * pyramid into ranges of tiles. Tiles which are already stored are skipped,
+ * so an interrupted generation can be continued.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TileStore
+ */
+public class PyramidGenerator {
+
+    /**
+     * Private constructor used to prevent instantiation.
+     */
+    private PyramidGenerator() {
+    }
+
+    /**
+     * Renders all missing tiles of specified store on a new pool with one
+     * thread per available processor.
+     *
+     * @param store
+     *            the store
+     * @return number of rendered tiles
+     * @throws IOException
+     *             if tiles cannot be stored
+     */
+    public static int generate(TileStore store) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            return generate(store, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Renders all missing tiles of specified store on specified pool.
+     *
+     * @param store
+     *            the store
+     * @param pool
+     *            pool rendering tiles
+     * @return number of rendered tiles
+     * @throws NullPointerException
+     *             if either of arguments is a null reference
+     * @throws IOException
+     *             if tiles cannot be stored
+     */
+    public static int generate(TileStore store, ForkJoinPool pool) throws IOException {
+        if (store == null || pool == null)
+            throw new NullPointerException("Store or pool cannot be a null reference!");
+
+        NewtonRenderer renderer = new NewtonRenderer(TileServer.parseRoots(store.getRoots()));
+        AtomicInteger rendered = new AtomicInteger();
+        try {
+            pool.invoke(new Job(store, renderer, 0, TileStore.tileCount(store.getMaxZoom()), rendered));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rendered.get();
+    }
+
+    /**
+     * {@code Job} class renders a range of tiles of a pyramid.
+     * <p>
+     * This class is the implementation of the {@link RecursiveAction}.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     * @see RecursiveAction
+     */
+    static class Job extends RecursiveAction {
+
+        /**
+         * Serialization ID.
+         */
+        private static final long serialVersionUID = 2846307126549155913L;
+
+        /** Maximum number of tiles rendered by one thread. */
+        private static final int MAX_TILES = 4;
+
+        /** The store. */
+        private final TileStore store;
+        /** Renderer of the fractal. */
+        private final NewtonRenderer renderer;
+        /** Position of the first tile, inclusive. */
+        private final int from;
+        /** Position of the last tile, exclusive. */
+        private final int to;
+        /** Number of rendered tiles. */
+        private final AtomicInteger rendered;
+
+        /**
+         * Constructs a new {@code Job} from specified arguments.
+         *
+         * @param store
+         *            the store
+         * @param renderer
+         *            renderer of the fractal
+         * @param from
+         *            position of the first tile, inclusive
+         * @param to
+         *            position of the last tile, exclusive
+         * @param rendered
+         *            number of rendered tiles
+         */
+        Job(TileStore store, NewtonRenderer renderer, int from, int to, AtomicInteger rendered) {
+            this.store = store;
+            this.renderer = renderer;
+            this.from = from;
+            this.to = to;
+            this.rendered = rendered;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > MAX_TILES) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Job(store, renderer, from, middle, rendered),
+                        new Job(store, renderer, middle, to, rendered));
+                return;
+            }
+
+            for (int i = from; i < to; i++) {
+                Tile tile = TileStore.tileAt(i);
+                if (store.contains(tile))
+                    continue;
+
+                try {
+                    if (store.put(tile, tile.render(renderer)))
+                        rendered.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starting point of a program.
+     *
+     * @param args
+     *            Command-line arguments; directory of the store, roots and
+     *            maximum zoom level. Roots and zoom level are needed only
+     *            when the store is created.
+     */
+    public static void main(String[] args) {
+        if (args.length != 1 && args.length != 3) {
+            System.out.println("Usage: PyramidGenerator <dir> [<roots> <maxZoom>]");
+            return;
+        }
+
+        try {
+            if (args.length == 3)
+                TileServer.parseRoots(args[1]);
+
+            try (TileStore store = args.length == 1 ? TileStore.open(Paths.get(args[0]))
+                    : TileStore.create(Paths.get(args[0]), args[1], Integer.parseInt(args[2]))) {
+                long start = System.nanoTime();
+                int rendered = generate(store);
+                System.out.println("Rendered " + rendered + " tiles of " + store.getRoots() + " in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms, "
+                        + store.getStoredCount() + " tiles stored.");
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Pyramid cannot be generated: " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package hr.fer.zemris.java.fractals.tiles;
+
+import hr.fer.zemris.java.fractals.NewtonRenderer;
+
+/**
+ * {@code Tile} class is the address of one tile of a fractal pyramid.
+ * <p>
+ * At zoom level {@code z} the square from {@code -2 - 2i} to {@code 2 + 2i}
+ * is split into {@code 2^z} by {@code 2^z} tiles of {@value #SIZE}x
+ * {@value #SIZE} pixels. Tile {@code (0, 0)} is the upper left one. Pixels
+ * of neighbouring tiles are evenly spaced across the border, so tiles put
+ * side by side make one seamless image.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public final class Tile {
+
+    /** Width and height of a tile in pixels. */
+    public static final int SIZE = 256;
+    /** Maximum zoom level. */
+    public static final int MAX_ZOOM = 24;
+
+    /** Minimum real and imaginary part of level 0. */
+    private static final double MIN = -2;
+    /** Width and height of level 0 in the complex plane. */
+    private static final double SPAN = 4;
+
+    /** Zoom level. */
+    private final int z;
+    /** Column of the tile. */
+    private final int x;
+    /** Row of the tile. */
+    private final int y;
+
+    /**
+     * Constructs a new {@code Tile} from specified arguments.
+     *
+     * @param z
+     *            zoom level
+     * @param x
+     *            column of the tile
+     * @param y
+     *            row of the tile
+     * @throws IllegalArgumentException
+     *             if zoom level isn't between {@code 0} and
+     *             {@value #MAX_ZOOM} or the tile isn't on that level
+     */
+    public Tile(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM)
+            throw new IllegalArgumentException("Zoom level must be between 0 and " + MAX_ZOOM + "!");
+        if (x < 0 || y < 0 || x >= 1 << z || y >= 1 << z)
+            throw new IllegalArgumentException("Tile " + x + "/" + y + " is not on zoom level " + z + "!");
+
+        this.z = z;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Returns the zoom level.
+     *
+     * @return the zoom level
+     */
+    public int getZ() {
+        return z;
+    }
+
+    /**
+     * Returns the column of the tile.
+     *
+     * @return the column
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Returns the row of the tile.
+     *
+     * @return the row
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Computes pixels of the tile.
+     *
+     * @param renderer
+     *            renderer of the fractal
+     * @return root indexes of pixels, row by row
+     */
+    public short[] render(NewtonRenderer renderer) {
+        double step = SPAN / ((long) SIZE << z);
+        double reMin = MIN + (double) x * SIZE * step;
+        double imMax = MIN + SPAN - (double) y * SIZE * step;
+
+        return renderer.render(reMin, reMin + (SIZE - 1) * step, imMax - (SIZE - 1) * step, imMax, SIZE, SIZE);
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + x;
+        result = prime * result + y;
+        result = prime * result + z;
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        Tile other = (Tile) obj;
+        if (x != other.x || y != other.y || z != other.z)
+            return false;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return z + "/" + x + "/" + y;
+    }
+
+}
@@ -0,0 +1,255 @@
+package hr.fer.zemris.java.fractals.tiles;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@code TilePng} class encodes root indexes of a tile as a PNG image with a
+ * palette and decodes them back.
+ * <p>
+ * Every pixel of the image is one byte with the root index, which selects
+ * its color from a palette of one color per root. Pixels not close to any
+ * root are black and roots get evenly spaced hues. The image is therefore
+ * both a compressed payload of a {@link TileStore} and a response of a
+ * {@link TileServer}, so stored tiles are served without any conversion.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+final class TilePng {
+
+    /** Maximum number of colors of a palette. */
+    static final int MAX_COLORS = 256;
+
+    /** Signature of PNG files. */
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    /** Bytes of a chunk besides its data: length, type and checksum. */
+    private static final int CHUNK_OVERHEAD = 12;
+    /** Size of the data of the header chunk. */
+    private static final int HEADER_SIZE = 13;
+    /** Bit depth of pixels. */
+    private static final int BIT_DEPTH = 8;
+    /** Color type of images with a palette. */
+    private static final int INDEXED = 3;
+    /** Filter type of rows that are not filtered. */
+    private static final int NO_FILTER = 0;
+
+    /**
+     * Disables creation of instances.
+     */
+    private TilePng() {
+    }
+
+    /**
+     * Encodes root indexes of a tile as a PNG image.
+     *
+     * @param data
+     *            root indexes of pixels, row by row
+     * @param colors
+     *            number of colors, the limit of root indexes
+     * @return the PNG image
+     * @throws IllegalArgumentException
+     *             if there are more than {@value #MAX_COLORS} colors or an
+     *             index has no color
+     */
+    static byte[] encode(short[] data, int colors) {
+        if (colors < 1 || colors > MAX_COLORS)
+            throw new IllegalArgumentException("Palette cannot have " + colors + " colors!");
+
+        int height = data.length / Tile.SIZE;
+        byte[] raw = new byte[height * (Tile.SIZE + 1)];
+        for (int y = 0, i = 0; y < height; y++) {
+            int row = y * (Tile.SIZE + 1);
+            raw[row] = NO_FILTER;
+
+            for (int x = 1; x <= Tile.SIZE; x++, i++) {
+                if (data[i] < 0 || data[i] >= colors)
+                    throw new IllegalArgumentException("Root index " + data[i] + " has no color!");
+                raw[row + x] = (byte) data[i];
+            }
+        }
+
+        ByteBuffer png = ByteBuffer.allocate(maxSize(height, colors));
+        png.put(SIGNATURE);
+
+        int chunk = begin(png, "IHDR");
+        png.putInt(Tile.SIZE).putInt(height);
+        png.put((byte) BIT_DEPTH).put((byte) INDEXED).put((byte) 0).put((byte) 0).put((byte) 0);
+        end(png, chunk);
+
+        chunk = begin(png, "PLTE");
+        for (int i = 0; i < colors; i++) {
+            int rgb = i == 0 ? 0 : Color.HSBtoRGB((float) (i - 1) / (colors - 1), 0.8f, 1);
+            png.put((byte) (rgb >> 16)).put((byte) (rgb >> 8)).put((byte) rgb);
+        }
+        end(png, chunk);
+
+        chunk = begin(png, "IDAT");
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+
+            int position = png.position();
+            while (!deflater.finished()) {
+                position += deflater.deflate(png.array(), position, png.capacity() - position);
+            }
+            png.position(position);
+        } finally {
+            deflater.end();
+        }
+        end(png, chunk);
+
+        end(png, begin(png, "IEND"));
+        return Arrays.copyOf(png.array(), png.position());
+    }
+
+    /**
+     * Decodes root indexes of a tile from a PNG image made by
+     * {@link #encode(short[], int)}.
+     *
+     * @param png
+     *            the PNG image
+     * @return root indexes of pixels, row by row
+     * @throws IOException
+     *             if the image is corrupted or wasn't made by this class
+     */
+    static short[] decode(ByteBuffer png) throws IOException {
+        ByteBuffer buffer = png.duplicate();
+        byte[] raw = new byte[Tile.SIZE * (Tile.SIZE + 1)];
+        Inflater inflater = new Inflater();
+
+        try {
+            byte[] signature = new byte[SIGNATURE.length];
+            buffer.get(signature);
+            if (!Arrays.equals(SIGNATURE, signature))
+                throw new IOException("Tile payload is not a PNG image!");
+
+            int length = 0;
+            boolean header = false;
+            while (true) {
+                int size = buffer.getInt();
+                byte[] type = new byte[4];
+                buffer.get(type);
+                if (size < 0 || size > buffer.remaining() - 4)
+                    throw new IOException("Tile payload is corrupted!");
+
+                byte[] chunk = new byte[size];
+                buffer.get(chunk);
+                CRC32 crc = new CRC32();
+                crc.update(type);
+                crc.update(chunk);
+                if (buffer.getInt() != (int) crc.getValue())
+                    throw new IOException("Tile payload is corrupted!");
+
+                String name = new String(type, StandardCharsets.US_ASCII);
+                if (name.equals("IHDR")) {
+                    ByteBuffer ihdr = ByteBuffer.wrap(chunk);
+                    header = size == HEADER_SIZE && ihdr.getInt() == Tile.SIZE && ihdr.getInt() == Tile.SIZE
+                            && ihdr.get() == BIT_DEPTH && ihdr.get() == INDEXED && ihdr.get() == 0
+                            && ihdr.get() == 0 && ihdr.get() == 0;
+                } else if (name.equals("IDAT")) {
+                    inflater.setInput(chunk);
+                    while (length < raw.length && !inflater.needsInput()) {
+                        int n = inflater.inflate(raw, length, raw.length - length);
+                        if (n == 0 && (inflater.finished() || inflater.needsDictionary()))
+                            break;
+                        length += n;
+                    }
+                    // reads the checksum after the last pixel, more pixels are an error
+                    if (length == raw.length && !inflater.finished() && inflater.inflate(new byte[1]) != 0)
+                        throw new IOException("Tile payload is corrupted!");
+                } else if (name.equals("IEND")) {
+                    break;
+                }
+            }
+
+            if (!header || length != raw.length || !inflater.finished())
+                throw new IOException("Tile payload is corrupted!");
+        } catch (DataFormatException | RuntimeException e) {
+            throw new IOException("Tile payload is corrupted!", e);
+        } finally {
+            inflater.end();
+        }
+
+        short[] data = new short[Tile.SIZE * Tile.SIZE];
+        for (int y = 0, i = 0; y < Tile.SIZE; y++) {
+            int row = y * (Tile.SIZE + 1);
+            if (raw[row] != NO_FILTER)
+                throw new IOException("Tile payload is corrupted!");
+
+            for (int x = 1; x <= Tile.SIZE; x++, i++) {
+                data[i] = (short) (raw[row + x] & 0xFF);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Returns the upper bound of the size of a PNG image of a tile with the
+     * largest palette.
+     *
+     * @return maximum size of an image
+     */
+    static int maxSize() {
+        return maxSize(Tile.SIZE, MAX_COLORS);
+    }
+
+    /**
+     * Returns the upper bound of the size of a PNG image.
+     *
+     * @param height
+     *            height of the image
+     * @param colors
+     *            number of colors of the palette
+     * @return maximum size of an image
+     */
+    private static int maxSize(int height, int colors) {
+        // bound of zlib compressed data, as in zlib's deflateBound
+        int raw = height * (Tile.SIZE + 1);
+        int compressed = raw + (raw >> 12) + (raw >> 14) + (raw >> 25) + 13 + 6;
+
+        return SIGNATURE.length + 4 * CHUNK_OVERHEAD + HEADER_SIZE + 3 * colors + compressed;
+    }
+
+    /**
+     * Begins a chunk of specified type. The length is written by
+     * {@link #end(ByteBuffer, int)}.
+     *
+     * @param png
+     *            the image
+     * @param type
+     *            type of the chunk
+     * @return position of the type of the chunk
+     */
+    private static int begin(ByteBuffer png, String type) {
+        png.putInt(0);
+        int start = png.position();
+        png.put(type.getBytes(StandardCharsets.US_ASCII));
+        return start;
+    }
+
+    /**
+     * Ends a chunk by writing its length and checksum.
+     *
+     * @param png
+     *            the image
+     * @param start
+     *            position of the type of the chunk
+     */
+    private static void end(ByteBuffer png, int start) {
+        png.putInt(start - 4, png.position() - start - 4);
+
+        CRC32 crc = new CRC32();
+        crc.update(png.array(), start, png.position() - start);
+        png.putInt((int) crc.getValue());
+    }
+
+}
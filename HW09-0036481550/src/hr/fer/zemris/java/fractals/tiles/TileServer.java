@@ -0,0 +1,469 @@
+package hr.fer.zemris.java.fractals.tiles;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import hr.fer.zemris.java.fractals.NewtonRenderer;
+import hr.fer.zemris.java.fractals.complex.Complex;
+import hr.fer.zemris.java.fractals.complex.ComplexRootedPolynomial;
+import hr.fer.zemris.java.metrics.RenderMetrics;
+
+/**
+ * {@code TileServer} class is an HTTP server which serves tiles of Newton
+ * fractals as PNG images.
+ * <p>
+ * A tile is requested as {@code GET /{roots}/{z}/{x}/{y}.png}, where
+ * {@code roots} are comma-separated roots of the polynomial in the format of
+ * {@link Complex#valueOf(String)}, for example {@code /1,-1,i,-i/0/0/0.png},
+ * and {@code z}, {@code x} and {@code y} are the address of a {@link Tile}.
+ * <p>
+ * Connections are handled by a cached pool and tiles are rendered by a
+ * bounded pool, one tile per task. A handler thread only parses the request
+ * and the response is sent when the tile is rendered, so waiting clients
+ * hold no threads. Identical requests for a tile that is being rendered
+ * share that rendering. Requests which don't fit into the queue of the
+ * rendering pool are refused with status 503. Rendered tiles are reported
+ * to the {@link RenderMetrics} named {@code TileServer}.
+ * <p>
+ * Tiles of fractals with a pre-rendered pyramid are read from its
+ * {@link TileStore}, which is added by {@link #addStore(TileStore)}, and
+ * are rendered only above the maximum zoom level of the store. Payloads of
+ * stored tiles are PNG images already, so the handler thread sends them
+ * straight from the store, without waiting in the queue of the rendering
+ * pool.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see Tile
+ */
+public class TileServer implements Closeable {
+
+    /** Default number of tiles waiting to be rendered. */
+    public static final int DEFAULT_MAX_QUEUED = 1024;
+
+    /** Number of rendering threads. */
+    private static final int NUM_OF_THREADS = Runtime.getRuntime().availableProcessors();
+    /** Metrics of tile servers. */
+    private static final RenderMetrics METRICS = RenderMetrics.forProducer("TileServer");
+    /** Pattern of paths of tiles. */
+    private static final Pattern PATH = Pattern.compile("/([^/]+)/(\\d{1,2})/(\\d{1,8})/(\\d{1,8})\\.png");
+    /** Seconds clients may cache a tile, which never changes. */
+    private static final int MAX_AGE = 365 * 24 * 60 * 60;
+
+    /** HTTP server. */
+    private final HttpServer server;
+    /** Pool handling connections. */
+    private final ExecutorService handlers;
+    /** Pool rendering tiles. */
+    private final ExecutorService renderers;
+    /** Flag showing whether the rendering pool is owned by this server. */
+    private final boolean ownsRenderers;
+    /** Tiles being rendered by their paths. */
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    /** Stores of pre-rendered pyramids by their roots. */
+    private final ConcurrentMap<String, TileStore> stores = new ConcurrentHashMap<>();
+
+    /** Number of tile requests. */
+    private final AtomicLong requestCount = new AtomicLong();
+    /** Number of rendered tiles. */
+    private final AtomicLong renderedCount = new AtomicLong();
+
+    /**
+     * Constructs a new {@code TileServer} listening on specified port, which
+     * renders tiles on a pool with one thread per available processor and
+     * {@value #DEFAULT_MAX_QUEUED} waiting tiles. Requests are not accepted
+     * before {@link #start()} is called.
+     *
+     * @param port
+     *            the port; {@code 0} picks a free port
+     * @throws IOException
+     *             if port cannot be bound
+     */
+    public TileServer(int port) throws IOException {
+        this(port, new ThreadPoolExecutor(NUM_OF_THREADS, NUM_OF_THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(DEFAULT_MAX_QUEUED), r -> {
+                    Thread thread = new Thread(r, "tile-renderer");
+                    thread.setDaemon(true);
+                    return thread;
+                }), true);
+    }
+
+    /**
+     * Constructs a new {@code TileServer} listening on specified port, which
+     * renders tiles on specified pool. The pool is not shut down by the
+     * server, so its threads and queue are under control of the caller.
+     *
+     * @param port
+     *            the port; {@code 0} picks a free port
+     * @param renderers
+     *            pool rendering tiles
+     * @throws NullPointerException
+     *             if argument {@code renderers} is a null reference
+     * @throws IOException
+     *             if port cannot be bound
+     */
+    public TileServer(int port, ExecutorService renderers) throws IOException {
+        this(port, renderers, false);
+    }
+
+    /**
+     * Constructs a new {@code TileServer} from specified arguments.
+     *
+     * @param port
+     *            the port; {@code 0} picks a free port
+     * @param renderers
+     *            pool rendering tiles
+     * @param ownsRenderers
+     *            {@code true} if the pool is shut down with the server
+     * @throws IOException
+     *             if port cannot be bound
+     */
+    private TileServer(int port, ExecutorService renderers, boolean ownsRenderers) throws IOException {
+        if (renderers == null)
+            throw new NullPointerException("Rendering pool cannot be a null reference!");
+
+        this.renderers = renderers;
+        this.ownsRenderers = ownsRenderers;
+        this.handlers = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "tile-server-handler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.setExecutor(handlers);
+        this.server.createContext("/", this::handle);
+    }
+
+    /**
+     * Returns the port this server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of tile requests received so far.
+     *
+     * @return number of requests
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the number of tiles rendered so far. Identical requests served
+     * by the same rendering count once.
+     *
+     * @return number of rendered tiles
+     */
+    public long getRenderedCount() {
+        return renderedCount.get();
+    }
+
+    /**
+     * Adds a store of pre-rendered tiles. Tiles are read from the store when
+     * their roots are written in a path exactly as in the store.
+     *
+     * @param store
+     *            the store
+     * @throws NullPointerException
+     *             if argument {@code store} is a null reference
+     */
+    public void addStore(TileStore store) {
+        if (store == null)
+            throw new NullPointerException("Store cannot be a null reference!");
+
+        stores.put(store.getRoots(), store);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and closes open connections.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+        if (ownsRenderers)
+            renderers.shutdownNow();
+    }
+
+    /**
+     * Handles a request. A stored tile is sent at once, otherwise the
+     * response is sent by {@link #respond(HttpExchange, CompletableFuture)}
+     * once the tile is rendered.
+     *
+     * @param exchange
+     *            the request
+     */
+    private void handle(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            exchange.getResponseHeaders().set("Allow", "GET");
+            sendError(exchange, 405, "Only GET is supported.");
+            return;
+        }
+
+        Matcher matcher = PATH.matcher(exchange.getRequestURI().getPath());
+        if (!matcher.matches()) {
+            sendError(exchange, 404, "Tiles are requested as /{roots}/{z}/{x}/{y}.png");
+            return;
+        }
+
+        ComplexRootedPolynomial polynom;
+        Tile tile;
+        try {
+            polynom = parseRoots(matcher.group(1));
+            tile = new Tile(Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)),
+                    Integer.parseInt(matcher.group(4)));
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+
+        requestCount.incrementAndGet();
+        String key = matcher.group(1) + "/" + tile;
+        TileStore store = stores.get(matcher.group(1));
+        ByteBuffer stored = store == null ? null : store.getPayload(tile);
+        if (stored != null) {
+            byte[] png = new byte[stored.remaining()];
+            stored.get(png);
+            sendTile(exchange, png);
+            return;
+        }
+
+        respond(exchange, tileOf(key, () -> render(polynom, tile)));
+    }
+
+    /**
+     * Returns the PNG image of specified tile, which is made on the rendering
+     * pool unless the same tile is already being made.
+     *
+     * @param key
+     *            path of the tile
+     * @param maker
+     *            renders or reads the tile and encodes it
+     * @return the PNG image of the tile
+     */
+    private CompletableFuture<byte[]> tileOf(String key, Callable<byte[]> maker) {
+        CompletableFuture<byte[]> rendering = new CompletableFuture<>();
+        CompletableFuture<byte[]> png = inFlight.putIfAbsent(key, rendering);
+        if (png != null)
+            return png;
+
+        // submitted only by the request that inserted the future, outside of
+        // the map, so a full queue doesn't block or reject inside the map
+        try {
+            renderers.execute(() -> {
+                try {
+                    rendering.complete(maker.call());
+                } catch (Throwable e) {
+                    rendering.completeExceptionally(e);
+                    if (e instanceof Error)
+                        throw (Error) e;
+                } finally {
+                    inFlight.remove(key, rendering);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, rendering);
+            rendering.completeExceptionally(e);
+        }
+        return rendering;
+    }
+
+    /**
+     * Renders a tile into a PNG image.
+     *
+     * @param polynom
+     *            polynom of the fractal
+     * @param tile
+     *            the tile
+     * @return the PNG image
+     */
+    private byte[] render(ComplexRootedPolynomial polynom, Tile tile) {
+        long start = METRICS.start();
+        try {
+            NewtonRenderer renderer = new NewtonRenderer(polynom);
+            byte[] png = encode(tile.render(renderer), renderer.getLimit());
+
+            renderedCount.incrementAndGet();
+            METRICS.finish(start, (long) Tile.SIZE * Tile.SIZE);
+            return png;
+        } catch (RuntimeException | Error e) {
+            METRICS.fail(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Sends the tile to the client when it is rendered.
+     *
+     * @param exchange
+     *            the request
+     * @param png
+     *            rendering of the tile
+     */
+    private void respond(HttpExchange exchange, CompletableFuture<byte[]> png) {
+        png.whenCompleteAsync((image, error) -> {
+            if (error == null) {
+                sendTile(exchange, image);
+                return;
+            }
+
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, "Too many tiles are being rendered.");
+            } else {
+                sendError(exchange, 500, "Tile cannot be rendered: " + cause);
+            }
+        }, handlers);
+    }
+
+    /**
+     * Sends the PNG image of a tile, which clients may cache.
+     *
+     * @param exchange
+     *            the request
+     * @param png
+     *            the PNG image
+     */
+    private static void sendTile(HttpExchange exchange, byte[] png) {
+        exchange.getResponseHeaders().set("Content-Type", "image/png");
+        exchange.getResponseHeaders().set("Cache-Control", "public, max-age=" + MAX_AGE + ", immutable");
+        send(exchange, 200, png);
+    }
+
+    /**
+     * Sends a plain text error message.
+     *
+     * @param exchange
+     *            the request
+     * @param status
+     *            status code
+     * @param message
+     *            the message
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, (message + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a response and closes the exchange. Failures of the connection
+     * are ignored since the client is gone.
+     *
+     * @param exchange
+     *            the request
+     * @param status
+     *            status code
+     * @param body
+     *            body of the response
+     */
+    private static void send(HttpExchange exchange, int status, byte[] body) {
+        try {
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Parses comma-separated roots of a polynomial.
+     *
+     * @param roots
+     *            the roots
+     * @return the polynomial
+     * @throws IllegalArgumentException
+     *             if a root is invalid or there are less than two roots
+     */
+    static ComplexRootedPolynomial parseRoots(String roots) {
+        String[] parts = roots.split(",");
+        if (parts.length < 2)
+            throw new IllegalArgumentException("At least two roots are needed!");
+
+        Complex[] complex = new Complex[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            complex[i] = Complex.valueOf(parts[i]);
+        }
+        return new ComplexRootedPolynomial(complex);
+    }
+
+    /**
+     * Encodes root indexes of a tile as a PNG image, the same one a
+     * {@link TileStore} keeps. Pixels not close to any root are black and
+     * roots get evenly spaced hues.
+     *
+     * @param data
+     *            root indexes of pixels, row by row
+     * @param limit
+     *            number of roots increased by one
+     * @return the PNG image
+     */
+    static byte[] encode(short[] data, short limit) {
+        return TilePng.encode(data, limit);
+    }
+
+    /**
+     * Starting point of a program.
+     *
+     * @param args
+     *            Command-line arguments; port to listen on, followed by
+     *            directories of {@link TileStore}s to serve tiles from
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: TileServer <port> [<store>...]");
+            return;
+        }
+
+        try {
+            TileServer server = new TileServer(Integer.parseInt(args[0]));
+            for (int i = 1; i < args.length; i++) {
+                TileStore store = TileStore.open(Paths.get(args[i]));
+                server.addStore(store);
+                System.out.println("Serving " + store.getStoredCount() + " stored tiles of " + store.getRoots()
+                        + ".");
+            }
+
+            server.start();
+            System.out.println("Tile server listening on port " + server.getPort() + ".");
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Tile server cannot be started: " + e.getMessage());
+        }
+    }
+
+}
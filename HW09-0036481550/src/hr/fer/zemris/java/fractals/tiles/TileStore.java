@@ -0,0 +1,476 @@
+package hr.fer.zemris.java.fractals.tiles;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import hr.fer.zemris.java.fractals.NewtonRenderer;
+
+/**
+ * {@code TileStore} class is a persistent store of pre-rendered tiles of one
+ * fractal, from zoom level {@code 0} up to a maximum level.
+ * <p>
+ * A store is a directory with an index file and segment files, which are
+ * all memory-mapped. The index has one entry for every tile of the pyramid,
+ * so a tile is found in constant time, and the entry points to the payload
+ * of the tile in a segment. A payload is the PNG image of the tile with a
+ * palette of one color per root, so it holds one compressed byte per pixel
+ * with the root index and {@link TileServer} sends it as it is. Payloads are
+ * only appended, so a tile is stored once. Payloads are read without copying
+ * and a reopened store is ready at once, since the operating system pages
+ * mapped files in on demand.
+ * <p>
+ * Tiles can be stored and read by many threads at once. The index and
+ * segments are not synchronized with the disk before {@link #close()}.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see PyramidGenerator
+ */
+public class TileStore implements Closeable {
+
+    /** Maximum zoom level of a store, so the index fits into one mapping. */
+    public static final int MAX_ZOOM = 12;
+    /** Default size of a segment file in bytes. */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    /** Name of the index file. */
+    private static final String INDEX = "index";
+    /** Format of names of segment files. */
+    private static final String SEGMENT = "segment-%04d";
+    /** Magic number of index files, whose payloads are PNG images. */
+    private static final int MAGIC = 0x4E545332;
+    /** Size of the header of the index file. */
+    private static final int HEADER_SIZE = 512;
+    /** Maximum length of encoded roots in the header. */
+    private static final int MAX_ROOTS_LENGTH = HEADER_SIZE - 32;
+    /** Size of an entry of the index. */
+    private static final int ENTRY_SIZE = 16;
+
+    /** Offset of the maximum zoom level in the header. */
+    private static final int MAX_ZOOM_OFFSET = 4;
+    /** Offset of the segment size in the header. */
+    private static final int SEGMENT_SIZE_OFFSET = 8;
+    /** Offset of the number of segments in the header. */
+    private static final int SEGMENTS_OFFSET = 12;
+    /** Offset of the end of the last segment in the header. */
+    private static final int END_OFFSET = 16;
+    /** Offset of the number of stored tiles in the header. */
+    private static final int COUNT_OFFSET = 20;
+    /** Offset of the length of roots in the header. */
+    private static final int ROOTS_OFFSET = 24;
+
+    /** Directory of the store. */
+    private final Path dir;
+    /** Roots of the fractal. */
+    private final String roots;
+    /** Number of colors of tiles, the limit of root indexes of the fractal. */
+    private final int colors;
+    /** Maximum zoom level. */
+    private final int maxZoom;
+    /** Size of a segment file. */
+    private final int segmentSize;
+    /** Mapped index file. */
+    private final MappedByteBuffer index;
+    /** Mapped segment files. */
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    /** Lock guarding the index and appending to segments. */
+    private final Object lock = new Object();
+
+    /**
+     * Constructs a new {@code TileStore} from the mapped index file of
+     * specified directory.
+     *
+     * @param dir
+     *            directory of the store
+     * @param index
+     *            mapped index file
+     * @throws IOException
+     *             if the index is invalid or segments cannot be mapped
+     */
+    private TileStore(Path dir, MappedByteBuffer index) throws IOException {
+        if (index.capacity() < HEADER_SIZE || index.getInt(0) != MAGIC)
+            throw new IOException("Not a tile store index: " + dir.resolve(INDEX));
+
+        int rootsLength = index.getInt(ROOTS_OFFSET);
+        int segmentSize = index.getInt(SEGMENT_SIZE_OFFSET);
+        int numOfSegments = index.getInt(SEGMENTS_OFFSET);
+        int end = index.getInt(END_OFFSET);
+        if (rootsLength < 0 || rootsLength > MAX_ROOTS_LENGTH || segmentSize < TilePng.maxSize()
+                || numOfSegments < 0 || end < 0 || end > segmentSize)
+            throw new IOException("Tile store index header is corrupted: " + dir.resolve(INDEX));
+
+        byte[] encoded = new byte[rootsLength];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = index.get(ROOTS_OFFSET + 4 + i);
+        }
+
+        this.dir = dir;
+        this.index = index;
+        this.roots = new String(encoded, StandardCharsets.UTF_8);
+        try {
+            this.colors = colorsOf(roots);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Tile store roots are corrupted: " + dir.resolve(INDEX), e);
+        }
+        this.maxZoom = index.getInt(MAX_ZOOM_OFFSET);
+        this.segmentSize = segmentSize;
+
+        if (maxZoom < 0 || maxZoom > MAX_ZOOM
+                || index.capacity() != HEADER_SIZE + (long) tileCount(maxZoom) * ENTRY_SIZE)
+            throw new IOException("Tile store index is truncated: " + dir.resolve(INDEX));
+
+        for (int i = 0; i < numOfSegments; i++) {
+            segments.add(map(segment(i), segmentSize));
+        }
+    }
+
+    /**
+     * Creates an empty store in specified directory with default segment
+     * size.
+     *
+     * @param dir
+     *            directory of the store; created if it doesn't exist
+     * @param roots
+     *            roots of the fractal, as in paths served by
+     *            {@link TileServer}
+     * @param maxZoom
+     *            maximum zoom level
+     * @return the store
+     * @throws IOException
+     *             if the store already exists or cannot be written
+     */
+    public static TileStore create(Path dir, String roots, int maxZoom) throws IOException {
+        return create(dir, roots, maxZoom, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates an empty store in specified directory.
+     *
+     * @param dir
+     *            directory of the store; created if it doesn't exist
+     * @param roots
+     *            roots of the fractal, as in paths served by
+     *            {@link TileServer}
+     * @param maxZoom
+     *            maximum zoom level
+     * @param segmentSize
+     *            size of a segment file in bytes
+     * @return the store
+     * @throws NullPointerException
+     *             if argument {@code dir} or {@code roots} is a null
+     *             reference
+     * @throws IllegalArgumentException
+     *             if zoom level isn't between {@code 0} and
+     *             {@value #MAX_ZOOM}, roots are invalid, too long or too
+     *             many or segments can't hold a tile
+     * @throws IOException
+     *             if the store already exists or cannot be written
+     */
+    public static TileStore create(Path dir, String roots, int maxZoom, int segmentSize) throws IOException {
+        if (dir == null || roots == null)
+            throw new NullPointerException("Directory or roots cannot be a null reference!");
+        if (maxZoom < 0 || maxZoom > MAX_ZOOM)
+            throw new IllegalArgumentException("Zoom level must be between 0 and " + MAX_ZOOM + "!");
+
+        byte[] encoded = roots.getBytes(StandardCharsets.UTF_8);
+        if (encoded.length > MAX_ROOTS_LENGTH)
+            throw new IllegalArgumentException("Roots cannot be longer than " + MAX_ROOTS_LENGTH + " bytes!");
+        if (colorsOf(roots) > TilePng.MAX_COLORS)
+            throw new IllegalArgumentException("Roots need more than " + TilePng.MAX_COLORS + " colors!");
+        if (segmentSize < TilePng.maxSize())
+            throw new IllegalArgumentException("Segment must hold at least one tile!");
+
+        Files.createDirectories(dir);
+        MappedByteBuffer index;
+        try (FileChannel channel = FileChannel.open(dir.resolve(INDEX), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            index = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE + (long) tileCount(maxZoom) * ENTRY_SIZE);
+        }
+
+        index.putInt(MAX_ZOOM_OFFSET, maxZoom);
+        index.putInt(SEGMENT_SIZE_OFFSET, segmentSize);
+        index.putInt(ROOTS_OFFSET, encoded.length);
+        for (int i = 0; i < encoded.length; i++) {
+            index.put(ROOTS_OFFSET + 4 + i, encoded[i]);
+        }
+        index.putInt(0, MAGIC);
+
+        return new TileStore(dir, index);
+    }
+
+    /**
+     * Opens an existing store.
+     *
+     * @param dir
+     *            directory of the store
+     * @return the store
+     * @throws IOException
+     *             if the store doesn't exist or is invalid
+     */
+    public static TileStore open(Path dir) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.resolve(INDEX), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return new TileStore(dir, channel.map(MapMode.READ_WRITE, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the roots of the fractal.
+     *
+     * @return the roots
+     */
+    public String getRoots() {
+        return roots;
+    }
+
+    /**
+     * Returns the maximum zoom level.
+     *
+     * @return the maximum zoom level
+     */
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    /**
+     * Returns the number of stored tiles.
+     *
+     * @return number of stored tiles
+     */
+    public int getStoredCount() {
+        synchronized (lock) {
+            return index.getInt(COUNT_OFFSET);
+        }
+    }
+
+    /**
+     * Returns {@code true} if specified tile is stored.
+     *
+     * @param tile
+     *            the tile
+     * @return {@code true} if the tile is stored
+     */
+    public boolean contains(Tile tile) {
+        if (tile.getZ() > maxZoom)
+            return false;
+
+        synchronized (lock) {
+            return index.getInt(entry(tile) + 12) != 0;
+        }
+    }
+
+    /**
+     * Returns the payload of specified tile, which is its PNG image. The
+     * payload is a read-only view of the mapped segment, so nothing is
+     * copied.
+     *
+     * @param tile
+     *            the tile
+     * @return the payload or {@code null} if the tile isn't stored
+     */
+    public ByteBuffer getPayload(Tile tile) {
+        if (tile.getZ() > maxZoom)
+            return null;
+
+        ByteBuffer segment;
+        int offset;
+        int length;
+        synchronized (lock) {
+            int entry = entry(tile);
+            length = index.getInt(entry + 12);
+            if (length == 0)
+                return null;
+
+            segment = segments.get(index.getInt(entry + 8)).asReadOnlyBuffer();
+            offset = (int) index.getLong(entry);
+        }
+
+        segment.position(offset).limit(offset + length);
+        return segment.slice();
+    }
+
+    /**
+     * Returns root indexes of pixels of specified tile.
+     *
+     * @param tile
+     *            the tile
+     * @return root indexes of pixels, row by row, or {@code null} if the tile
+     *         isn't stored
+     * @throws IOException
+     *             if the payload is corrupted
+     */
+    public short[] get(Tile tile) throws IOException {
+        ByteBuffer payload = getPayload(tile);
+        return payload == null ? null : TilePng.decode(payload);
+    }
+
+    /**
+     * Stores specified tile. A tile that is already stored is not replaced.
+     *
+     * @param tile
+     *            the tile
+     * @param data
+     *            root indexes of pixels, row by row
+     * @return {@code true} if the tile is stored by this call
+     * @throws IllegalArgumentException
+     *             if the tile is above the maximum zoom level, data doesn't
+     *             have one index per pixel or an index isn't an index of a
+     *             root or {@code 0}
+     * @throws IOException
+     *             if a new segment cannot be created
+     */
+    public boolean put(Tile tile, short[] data) throws IOException {
+        if (tile.getZ() > maxZoom)
+            throw new IllegalArgumentException("Tile " + tile + " is above zoom level " + maxZoom + "!");
+        if (data.length != Tile.SIZE * Tile.SIZE)
+            throw new IllegalArgumentException("Tile must have " + Tile.SIZE * Tile.SIZE + " pixels!");
+
+        byte[] payload = TilePng.encode(data, colors);
+
+        synchronized (lock) {
+            int entry = entry(tile);
+            if (index.getInt(entry + 12) != 0)
+                return false;
+
+            int numOfSegments = segments.size();
+            int end = index.getInt(END_OFFSET);
+            if (numOfSegments == 0 || end + payload.length > segmentSize) {
+                segments.add(map(segment(numOfSegments), segmentSize));
+                index.putInt(SEGMENTS_OFFSET, ++numOfSegments);
+                end = 0;
+            }
+
+            ByteBuffer segment = segments.get(numOfSegments - 1).duplicate();
+            segment.position(end);
+            segment.put(payload);
+
+            index.putLong(entry, end);
+            index.putInt(entry + 8, numOfSegments - 1);
+            index.putInt(entry + 12, payload.length);
+            index.putInt(END_OFFSET, end + payload.length);
+            index.putInt(COUNT_OFFSET, index.getInt(COUNT_OFFSET) + 1);
+            return true;
+        }
+    }
+
+    /**
+     * Writes the index and segments to the disk.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            index.force();
+        }
+    }
+
+    /**
+     * Returns the number of tiles of a pyramid from level {@code 0} up to
+     * specified level.
+     *
+     * @param maxZoom
+     *            maximum zoom level
+     * @return number of tiles
+     */
+    public static int tileCount(int maxZoom) {
+        return (int) (((1L << 2 * (maxZoom + 1)) - 1) / 3);
+    }
+
+    /**
+     * Returns the position of specified tile in a pyramid. Tiles are ordered
+     * by zoom level, then by row and then by column.
+     *
+     * @param tile
+     *            the tile
+     * @return position of the tile
+     */
+    public static int indexOf(Tile tile) {
+        return tileCount(tile.getZ() - 1) + (tile.getY() << tile.getZ()) + tile.getX();
+    }
+
+    /**
+     * Returns the tile at specified position of a pyramid.
+     *
+     * @param index
+     *            position of the tile
+     * @return the tile
+     * @see #indexOf(Tile)
+     */
+    public static Tile tileAt(int index) {
+        int z = 0;
+        while (tileCount(z) <= index) {
+            z++;
+        }
+
+        int offset = index - tileCount(z - 1);
+        return new Tile(z, offset & (1 << z) - 1, offset >>> z);
+    }
+
+    /**
+     * Returns the number of colors of tiles of a fractal, which is the limit
+     * of its root indexes.
+     *
+     * @param roots
+     *            roots of the fractal
+     * @return number of colors
+     * @throws IllegalArgumentException
+     *             if roots are invalid
+     */
+    private static int colorsOf(String roots) {
+        return new NewtonRenderer(TileServer.parseRoots(roots)).getLimit();
+    }
+
+    /**
+     * Returns the offset of the index entry of specified tile.
+     *
+     * @param tile
+     *            the tile
+     * @return offset of the entry
+     */
+    private static int entry(Tile tile) {
+        return HEADER_SIZE + indexOf(tile) * ENTRY_SIZE;
+    }
+
+    /**
+     * Returns the path of the segment file with specified number.
+     *
+     * @param segment
+     *            number of the segment
+     * @return path of the segment file
+     */
+    private Path segment(int segment) {
+        return dir.resolve(String.format(SEGMENT, segment));
+    }
+
+    /**
+     * Maps a segment file, which is created if it doesn't exist.
+     *
+     * @param file
+     *            the segment file
+     * @param size
+     *            size of the segment
+     * @return mapped segment
+     * @throws IOException
+     *             if the segment cannot be mapped
+     */
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+}
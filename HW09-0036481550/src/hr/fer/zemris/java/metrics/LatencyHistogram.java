@@ -0,0 +1,171 @@
+package hr.fer.zemris.java.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code LatencyHistogram} class counts latencies in buckets whose upper
+ * limits grow as powers of two.
+ * <p>
+ * Bucket {@code i} counts latencies shorter than {@code 2^i} milliseconds
+ * that don't fit into bucket {@code i - 1}; the last bucket counts all
+ * latencies that don't fit anywhere else. Latencies can be recorded from
+ * many threads at once without locking. Percentiles are estimated by the
+ * upper limit of the bucket they fall into, so they are accurate to a factor
+ * of two.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+    /** Number of buckets. */
+    public static final int NUM_OF_BUCKETS = 24;
+
+    /** Number of latencies in every bucket. */
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_OF_BUCKETS);
+    /** Sum of all latencies in nanoseconds. */
+    private final LongAdder sum = new LongAdder();
+    /** Longest latency in nanoseconds. */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos
+     *            latency in nanoseconds
+     * @throws IllegalArgumentException
+     *             if {@code nanos} is negative
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            throw new IllegalArgumentException("Latency cannot be negative!");
+
+        buckets.incrementAndGet(bucketOf(nanos));
+        sum.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the number of recorded latencies
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the mean of recorded latencies in nanoseconds or {@code 0} if
+     * there are none.
+     *
+     * @return the mean latency
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : sum.doubleValue() / count;
+    }
+
+    /**
+     * Returns the longest recorded latency in nanoseconds.
+     *
+     * @return the longest latency
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the estimate of the specified percentile in nanoseconds or
+     * {@code 0} if there are no recorded latencies. The estimate is never
+     * longer than the longest recorded latency.
+     *
+     * @param percentile
+     *            the percentile, from 0 to 100
+     * @return estimate of the percentile
+     * @throws IllegalArgumentException
+     *             if {@code percentile} is not in range [0, 100]
+     */
+    public long getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100))
+            throw new IllegalArgumentException("Percentile must be in range [0, 100]!");
+
+        long[] counts = getCounts();
+        long count = 0;
+        for (long c : counts) {
+            count += c;
+        }
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        for (int i = 0; i < NUM_OF_BUCKETS - 1; i++) {
+            rank -= counts[i];
+            if (rank <= 0)
+                return Math.min(getUpperLimit(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the number of latencies in every bucket.
+     *
+     * @return numbers of latencies
+     */
+    public long[] getCounts() {
+        long[] counts = new long[NUM_OF_BUCKETS];
+        for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * Removes all recorded latencies.
+     */
+    public void reset() {
+        for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Returns the upper limit of the bucket at specified index in
+     * nanoseconds, exclusive. The limit of the last bucket is
+     * {@link Long#MAX_VALUE}.
+     *
+     * @param bucket
+     *            index of the bucket
+     * @return the upper limit
+     * @throws IndexOutOfBoundsException
+     *             if there is no bucket at specified index
+     */
+    public static long getUpperLimit(int bucket) {
+        if (bucket < 0 || bucket >= NUM_OF_BUCKETS)
+            throw new IndexOutOfBoundsException("Bucket index out of range: " + bucket);
+
+        return bucket == NUM_OF_BUCKETS - 1 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(1L << bucket);
+    }
+
+    /**
+     * Returns the index of the bucket counting specified latency.
+     *
+     * @param nanos
+     *            latency in nanoseconds
+     * @return index of the bucket
+     */
+    private static int bucketOf(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = millis == 0 ? 0 : 64 - Long.numberOfLeadingZeros(millis);
+        return Math.min(bucket, NUM_OF_BUCKETS - 1);
+    }
+
+}
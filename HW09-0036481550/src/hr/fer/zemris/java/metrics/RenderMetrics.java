@@ -0,0 +1,317 @@
+package hr.fer.zemris.java.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * {@code RenderMetrics} class collects metrics of a producer of images:
+ * latencies of requests, throughput and the amount of work done per pixel
+ * and ray.
+ * <p>
+ * A producer calls {@link #start()} when a request arrives and exactly one of
+ * {@link #finish(long, long)}, {@link #cancel(long)} and {@link #fail(long)}
+ * when it is done with it. Work is added with {@link #addRays(long)},
+ * {@link #addIntersectionTests(long)} and {@link #addIterations(long)},
+ * preferably once per batch of pixels since every call updates a shared
+ * counter. All methods can be called from many threads at once.
+ * <p>
+ * Metrics obtained through {@link #forProducer(String)} are registered with
+ * the platform MBean server as
+ * {@code hr.fer.zemris.java.metrics:type=RenderMetrics,name=<producer>} and
+ * can be watched with {@code jconsole} or any other JMX client.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class RenderMetrics implements RenderMetricsMBean {
+
+    /** Domain of registered metrics. */
+    public static final String DOMAIN = "hr.fer.zemris.java.metrics";
+
+    /** Metrics obtained by {@link #forProducer(String)}. */
+    private static final Map<String, RenderMetrics> REGISTERED = new ConcurrentHashMap<>();
+
+    /** Latencies of completed requests. */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    /** Number of started requests. */
+    private final LongAdder requests = new LongAdder();
+    /** Number of completed requests. */
+    private final LongAdder completed = new LongAdder();
+    /** Number of cancelled requests. */
+    private final LongAdder cancelled = new LongAdder();
+    /** Number of failed requests. */
+    private final LongAdder failed = new LongAdder();
+    /** Number of unfinished requests. */
+    private final LongAdder queueDepth = new LongAdder();
+    /** Number of pixels of completed requests. */
+    private final LongAdder pixels = new LongAdder();
+    /** Time spent rendering by all requests in nanoseconds. */
+    private final LongAdder busyNanos = new LongAdder();
+    /** Number of traced rays. */
+    private final LongAdder rays = new LongAdder();
+    /** Number of ray-object intersection tests. */
+    private final LongAdder intersectionTests = new LongAdder();
+    /** Number of iterations. */
+    private final LongAdder iterations = new LongAdder();
+
+    /**
+     * Returns the metrics of the producer with specified name, registering
+     * them with the platform MBean server when they are first requested.
+     * If registration is not possible the metrics are still collected.
+     *
+     * @param name
+     *            name of the producer
+     * @return metrics of the producer
+     * @throws NullPointerException
+     *             if argument {@code name} is a null reference
+     */
+    public static RenderMetrics forProducer(String name) {
+        if (name == null)
+            throw new NullPointerException("Name cannot be a null reference!");
+
+        return REGISTERED.computeIfAbsent(name, n -> {
+            RenderMetrics metrics = new RenderMetrics();
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName(n));
+            } catch (JMException | SecurityException e) {
+                // metrics are usable without JMX
+            }
+            return metrics;
+        });
+    }
+
+    /**
+     * Returns the name under which metrics of specified producer are
+     * registered.
+     *
+     * @param name
+     *            name of the producer
+     * @return the object name
+     * @throws IllegalArgumentException
+     *             if the name cannot be a part of an object name
+     */
+    public static ObjectName objectName(String name) {
+        try {
+            return new ObjectName(DOMAIN + ":type=RenderMetrics,name=" + ObjectName.quote(name));
+        } catch (JMException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Marks the start of a request.
+     *
+     * @return start time of the request, which must be passed to the method
+     *         marking its end
+     */
+    public long start() {
+        requests.increment();
+        queueDepth.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks the request started at specified time as completed.
+     *
+     * @param start
+     *            start time returned by {@link #start()}
+     * @param numOfPixels
+     *            number of pixels of the request
+     */
+    public void finish(long start, long numOfPixels) {
+        long nanos = Math.max(0, System.nanoTime() - start);
+
+        latencies.record(nanos);
+        busyNanos.add(nanos);
+        pixels.add(numOfPixels);
+        completed.increment();
+        queueDepth.decrement();
+    }
+
+    /**
+     * Marks the request started at specified time as cancelled.
+     *
+     * @param start
+     *            start time returned by {@link #start()}
+     */
+    public void cancel(long start) {
+        busyNanos.add(Math.max(0, System.nanoTime() - start));
+        cancelled.increment();
+        queueDepth.decrement();
+    }
+
+    /**
+     * Marks the request started at specified time as failed.
+     *
+     * @param start
+     *            start time returned by {@link #start()}
+     */
+    public void fail(long start) {
+        busyNanos.add(Math.max(0, System.nanoTime() - start));
+        failed.increment();
+        queueDepth.decrement();
+    }
+
+    /**
+     * Adds traced rays.
+     *
+     * @param n
+     *            number of rays
+     */
+    public void addRays(long n) {
+        rays.add(n);
+    }
+
+    /**
+     * Adds ray-object intersection tests.
+     *
+     * @param n
+     *            number of tests
+     */
+    public void addIntersectionTests(long n) {
+        intersectionTests.add(n);
+    }
+
+    /**
+     * Adds iterations.
+     *
+     * @param n
+     *            number of iterations
+     */
+    public void addIterations(long n) {
+        iterations.add(n);
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getCancelledCount() {
+        return cancelled.sum();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return queueDepth.sum();
+    }
+
+    @Override
+    public double getLatencyMeanMillis() {
+        return toMillis(latencies.getMean());
+    }
+
+    @Override
+    public double getLatency50thMillis() {
+        return toMillis(latencies.getPercentile(50));
+    }
+
+    @Override
+    public double getLatency95thMillis() {
+        return toMillis(latencies.getPercentile(95));
+    }
+
+    @Override
+    public double getLatency99thMillis() {
+        return toMillis(latencies.getPercentile(99));
+    }
+
+    @Override
+    public double getLatencyMaxMillis() {
+        return toMillis(latencies.getMax());
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        return latencies.getCounts();
+    }
+
+    @Override
+    public double getPixelsPerSecond() {
+        return perSecond(pixels.sum());
+    }
+
+    @Override
+    public double getRaysPerSecond() {
+        return perSecond(rays.sum());
+    }
+
+    @Override
+    public double getIntersectionTestsPerRay() {
+        return ratio(intersectionTests.sum(), rays.sum());
+    }
+
+    @Override
+    public double getIterationsPerPixel() {
+        return ratio(iterations.sum(), pixels.sum());
+    }
+
+    @Override
+    public void reset() {
+        latencies.reset();
+        requests.reset();
+        completed.reset();
+        cancelled.reset();
+        failed.reset();
+        pixels.reset();
+        busyNanos.reset();
+        rays.reset();
+        intersectionTests.reset();
+        iterations.reset();
+    }
+
+    /**
+     * Returns the specified amount divided by the time spent rendering in
+     * seconds.
+     *
+     * @param amount
+     *            the amount
+     * @return amount per second
+     */
+    private double perSecond(long amount) {
+        return ratio(amount, busyNanos.sum()) * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the ratio of specified values or {@code 0} if the divisor is
+     * not positive.
+     *
+     * @param dividend
+     *            the dividend
+     * @param divisor
+     *            the divisor
+     * @return the ratio
+     */
+    private static double ratio(long dividend, long divisor) {
+        return divisor <= 0 ? 0 : (double) dividend / divisor;
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     *
+     * @param nanos
+     *            nanoseconds
+     * @return milliseconds
+     */
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+}
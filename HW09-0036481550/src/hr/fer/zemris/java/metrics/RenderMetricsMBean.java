@@ -0,0 +1,131 @@
+package hr.fer.zemris.java.metrics;
+
+/**
+ * {@code RenderMetricsMBean} interface is the management interface of
+ * {@link RenderMetrics}, through which metrics of a producer can be read
+ * with any JMX client.
+ * <p>
+ * Latencies are given in milliseconds. Rates are measured over the time
+ * requests spent rendering, so concurrent requests add up.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public interface RenderMetricsMBean {
+
+    /**
+     * Returns the number of started requests.
+     *
+     * @return the number of started requests
+     */
+    long getRequestCount();
+
+    /**
+     * Returns the number of requests whose results were delivered.
+     *
+     * @return the number of completed requests
+     */
+    long getCompletedCount();
+
+    /**
+     * Returns the number of requests that were cancelled before their results
+     * were delivered.
+     *
+     * @return the number of cancelled requests
+     */
+    long getCancelledCount();
+
+    /**
+     * Returns the number of requests that failed.
+     *
+     * @return the number of failed requests
+     */
+    long getFailedCount();
+
+    /**
+     * Returns the number of requests that are waiting or rendering.
+     *
+     * @return the number of unfinished requests
+     */
+    long getQueueDepth();
+
+    /**
+     * Returns the mean latency of completed requests.
+     *
+     * @return the mean latency
+     */
+    double getLatencyMeanMillis();
+
+    /**
+     * Returns the estimated median latency of completed requests.
+     *
+     * @return the median latency
+     */
+    double getLatency50thMillis();
+
+    /**
+     * Returns the estimated 95th percentile of latencies of completed
+     * requests.
+     *
+     * @return the 95th percentile
+     */
+    double getLatency95thMillis();
+
+    /**
+     * Returns the estimated 99th percentile of latencies of completed
+     * requests.
+     *
+     * @return the 99th percentile
+     */
+    double getLatency99thMillis();
+
+    /**
+     * Returns the longest latency of a completed request.
+     *
+     * @return the longest latency
+     */
+    double getLatencyMaxMillis();
+
+    /**
+     * Returns the numbers of completed requests in latency buckets. Bucket
+     * {@code i} counts latencies shorter than {@code 2^i} milliseconds.
+     *
+     * @return the latency histogram
+     * @see LatencyHistogram
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Returns the number of pixels of completed requests rendered per second.
+     *
+     * @return pixels per second
+     */
+    double getPixelsPerSecond();
+
+    /**
+     * Returns the number of rays traced per second.
+     *
+     * @return rays per second
+     */
+    double getRaysPerSecond();
+
+    /**
+     * Returns the mean number of ray-object intersection tests per traced ray.
+     *
+     * @return intersection tests per ray
+     */
+    double getIntersectionTestsPerRay();
+
+    /**
+     * Returns the mean number of iterations per pixel of completed requests.
+     *
+     * @return iterations per pixel
+     */
+    double getIterationsPerPixel();
+
+    /**
+     * Clears all counters except the number of unfinished requests.
+     */
+    void reset();
+
+}
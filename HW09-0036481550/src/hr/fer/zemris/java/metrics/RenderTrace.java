@@ -0,0 +1,444 @@
+package hr.fer.zemris.java.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@code RenderTrace} class records timed events of stages of rendering, so
+ * it can be seen where the latency of a slow frame went.
+ * <p>
+ * Recording is off by default and costs one volatile read per event while
+ * off. When on, the last events are kept in a ring buffer of fixed capacity,
+ * so recording can run continuously. A stage is measured by taking
+ * {@link #begin()} before it and calling
+ * {@link #end(Stage, String, long, long, int, int, int, int)} after it with
+ * the request number and, for jobs, the region of the frame they computed.
+ * <p>
+ * If system property {@value #PROPERTY} names a file, recording starts when
+ * this class is loaded and the events are written into that file when the
+ * virtual machine exits. Events are written in the trace event format of
+ * Chrome, which can be opened by {@code chrome://tracing} or Perfetto.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public final class RenderTrace {
+
+    /** System property naming the file recording is dumped to on exit. */
+    public static final String PROPERTY = "hr.fer.zemris.java.trace";
+    /** Default number of kept events. */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /** Recorded events; {@code null} if recording is off. */
+    private static volatile AtomicReferenceArray<Event> events;
+    /** Number of events recorded since recording started. */
+    private static final AtomicLong COUNT = new AtomicLong();
+
+    static {
+        String file = System.getProperty(PROPERTY);
+        if (file != null && !file.isEmpty()) {
+            try {
+                Path path = Paths.get(file);
+                start(DEFAULT_CAPACITY);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        dump(path);
+                    } catch (IOException e) {
+                        System.err.println("Render trace cannot be written: " + e.getMessage());
+                    }
+                }));
+            } catch (InvalidPathException e) {
+                System.err.println("Invalid render trace file: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * {@code Stage} enumeration lists stages of rendering a frame.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    public enum Stage {
+        /** Whole request, from its admission to the delivery of the result. */
+        FRAME,
+        /** Waiting of a request for admission. */
+        QUEUE,
+        /** Preparation of the scene, camera or other state of a frame. */
+        SETUP,
+        /** Start of a thread pool. */
+        POOL_START,
+        /** Computation of a region of the frame by one job. */
+        JOB,
+        /** Waiting of the requesting thread for jobs to finish. */
+        WAIT,
+        /** Delivery of the result to the observer. */
+        DELIVERY
+    }
+
+    /**
+     * Private constructor used to prevent instantiation.
+     */
+    private RenderTrace() {
+    }
+
+    /**
+     * Starts recording, discarding previously recorded events.
+     *
+     * @param capacity
+     *            number of kept events
+     * @throws IllegalArgumentException
+     *             if {@code capacity} is not a positive number
+     */
+    public static synchronized void start(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be a positive number!");
+
+        COUNT.set(0);
+        events = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Stops recording and discards recorded events.
+     */
+    public static synchronized void stop() {
+        events = null;
+    }
+
+    /**
+     * Returns {@code true} if events are being recorded.
+     *
+     * @return {@code true} if recording is on
+     */
+    public static boolean isEnabled() {
+        return events != null;
+    }
+
+    /**
+     * Returns the start time of a stage.
+     *
+     * @return current time in nanoseconds or {@code 0} if recording is off
+     */
+    public static long begin() {
+        return events == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records a stage of a request which covers no particular region of the
+     * frame.
+     *
+     * @param stage
+     *            the stage
+     * @param source
+     *            name of the producer
+     * @param requestNo
+     *            number of the request
+     * @param start
+     *            start time returned by {@link #begin()}
+     */
+    public static void end(Stage stage, String source, long requestNo, long start) {
+        end(stage, source, requestNo, start, 0, 0, 0, 0);
+    }
+
+    /**
+     * Records a stage of a request which computed specified region of the
+     * frame. Nothing is recorded if recording was off when the stage began.
+     *
+     * @param stage
+     *            the stage
+     * @param source
+     *            name of the producer
+     * @param requestNo
+     *            number of the request
+     * @param start
+     *            start time returned by {@link #begin()}
+     * @param x
+     *            x coordinate of the upper left pixel of the region
+     * @param y
+     *            y coordinate of the upper left pixel of the region
+     * @param width
+     *            width of the region
+     * @param height
+     *            height of the region
+     */
+    public static void end(Stage stage, String source, long requestNo, long start, int x, int y, int width,
+            int height) {
+        AtomicReferenceArray<Event> recorded = events;
+        if (start == 0 || recorded == null)
+            return;
+
+        Thread thread = Thread.currentThread();
+        Event event = new Event(stage, source, requestNo, x, y, width, height, thread.getName(), thread.getId(),
+                start, System.nanoTime() - start);
+        recorded.set((int) (COUNT.getAndIncrement() % recorded.length()), event);
+    }
+
+    /**
+     * Returns the kept events ordered by their start.
+     *
+     * @return the events; empty if recording is off
+     */
+    public static List<Event> snapshot() {
+        AtomicReferenceArray<Event> recorded = events;
+        List<Event> list = new ArrayList<>();
+        if (recorded == null)
+            return list;
+
+        for (int i = 0; i < recorded.length(); i++) {
+            Event event = recorded.get(i);
+            if (event != null)
+                list.add(event);
+        }
+        list.sort(Comparator.comparingLong(Event::getStart));
+        return list;
+    }
+
+    /**
+     * Writes the kept events into specified file in the trace event format
+     * of Chrome.
+     *
+     * @param file
+     *            the file
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public static void dump(Path file) throws IOException {
+        List<Event> list = snapshot();
+        long origin = list.isEmpty() ? 0 : list.get(0).getStart();
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("{\"traceEvents\":[");
+            for (int i = 0; i < list.size(); i++) {
+                Event event = list.get(i);
+
+                writer.write(i == 0 ? "\n" : ",\n");
+                writer.write(String.format(Locale.ROOT,
+                        "{\"name\":\"%s\",\"cat\":\"%s\",\"ph\":\"X\",\"pid\":1,\"tid\":%d,\"ts\":%.3f,"
+                                + "\"dur\":%.3f,\"args\":{\"requestNo\":%d,\"x\":%d,\"y\":%d,\"width\":%d,"
+                                + "\"height\":%d,\"thread\":\"%s\"}}",
+                        event.getStage(), escape(event.getSource()), event.getThreadId(),
+                        micros(event.getStart() - origin), micros(event.getDuration()), event.getRequestNo(),
+                        event.getX(), event.getY(), event.getWidth(), event.getHeight(),
+                        escape(event.getThread())));
+            }
+            writer.write("\n]}\n");
+        }
+    }
+
+    /**
+     * Converts nanoseconds to microseconds.
+     *
+     * @param nanos
+     *            nanoseconds
+     * @return microseconds
+     */
+    private static double micros(long nanos) {
+        return (double) nanos / TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+    /**
+     * Escapes a text for a JSON string.
+     *
+     * @param text
+     *            the text
+     * @return escaped text
+     */
+    private static String escape(String text) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@code Event} class is one recorded stage.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    public static final class Event {
+
+        /** The stage. */
+        private final Stage stage;
+        /** Name of the producer. */
+        private final String source;
+        /** Number of the request. */
+        private final long requestNo;
+        /** X coordinate of the region. */
+        private final int x;
+        /** Y coordinate of the region. */
+        private final int y;
+        /** Width of the region. */
+        private final int width;
+        /** Height of the region. */
+        private final int height;
+        /** Name of the thread. */
+        private final String thread;
+        /** Identifier of the thread. */
+        private final long threadId;
+        /** Start in nanoseconds. */
+        private final long start;
+        /** Duration in nanoseconds. */
+        private final long duration;
+
+        /**
+         * Constructs a new {@code Event} from specified arguments.
+         *
+         * @param stage
+         *            the stage
+         * @param source
+         *            name of the producer
+         * @param requestNo
+         *            number of the request
+         * @param x
+         *            x coordinate of the region
+         * @param y
+         *            y coordinate of the region
+         * @param width
+         *            width of the region
+         * @param height
+         *            height of the region
+         * @param thread
+         *            name of the thread
+         * @param threadId
+         *            identifier of the thread
+         * @param start
+         *            start in nanoseconds
+         * @param duration
+         *            duration in nanoseconds
+         */
+        Event(Stage stage, String source, long requestNo, int x, int y, int width, int height, String thread,
+                long threadId, long start, long duration) {
+            this.stage = stage;
+            this.source = source;
+            this.requestNo = requestNo;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.thread = thread;
+            this.threadId = threadId;
+            this.start = start;
+            this.duration = duration;
+        }
+
+        /**
+         * Returns the stage.
+         *
+         * @return the stage
+         */
+        public Stage getStage() {
+            return stage;
+        }
+
+        /**
+         * Returns the name of the producer.
+         *
+         * @return name of the producer
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * Returns the number of the request.
+         *
+         * @return number of the request
+         */
+        public long getRequestNo() {
+            return requestNo;
+        }
+
+        /**
+         * Returns the x coordinate of the region.
+         *
+         * @return the x coordinate
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * Returns the y coordinate of the region.
+         *
+         * @return the y coordinate
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * Returns the width of the region.
+         *
+         * @return the width
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * Returns the height of the region.
+         *
+         * @return the height
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Returns the name of the thread.
+         *
+         * @return name of the thread
+         */
+        public String getThread() {
+            return thread;
+        }
+
+        /**
+         * Returns the identifier of the thread.
+         *
+         * @return identifier of the thread
+         */
+        public long getThreadId() {
+            return threadId;
+        }
+
+        /**
+         * Returns the start in nanoseconds.
+         *
+         * @return the start
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * Returns the duration in nanoseconds.
+         *
+         * @return the duration
+         */
+        public long getDuration() {
+            return duration;
+        }
+    }
+
+}
@@ -0,0 +1,230 @@
+package hr.fer.zemris.java.raytracer;
+
+import hr.fer.zemris.java.raytracer.model.GraphicalObject;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.TraceCounter;
+
+/**
+ * {@code AdaptiveSampler} class implements adaptive supersampling
+ * anti-aliasing of an already traced frame.
+ * <p>
+ * A pixel is refined only if it hits a different object than its right or
+ * bottom neighbour or if any color component differs from the neighbour's by
+ * more than the threshold. Refining a pixel traces {@value #SAMPLES}
+ * additional rays in a rotated grid pattern inside the pixel and averages them
+ * with the original sample.
+ * <p>
+ * Number of additional rays per frame is limited by a budget given as a
+ * fraction of the number of pixels. When there are more candidates than the
+ * budget allows, pixels with the biggest contrast are refined first and
+ * object edges always come before color differences.
+ * <p>
+ * Refinement is done in two steps: {@link #select(GraphicalObject[], short[],
+ * short[], short[], int, int)} picks the pixels and
+ * {@link #refine(CompiledScene, Camera, int[], int, int, short[], short[],
+ * short[], TraceCounter)} re-samples any range of them. Each pixel is written only by its
+ * own refinement, so ranges can be refined in parallel.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class AdaptiveSampler {
+
+    /** Number of additional samples per refined pixel. */
+    public static final int SAMPLES = 4;
+    /** Default color difference that triggers refinement. */
+    public static final int DEFAULT_THRESHOLD = 24;
+    /** Default number of additional rays per pixel of the frame. */
+    public static final double DEFAULT_BUDGET = 0.5;
+
+    /** Sub-pixel offsets of additional samples on the x axis. */
+    private static final double[] OFFSET_X = { -0.125, 0.375, 0.125, -0.375 };
+    /** Sub-pixel offsets of additional samples on the y axis. */
+    private static final double[] OFFSET_Y = { -0.375, -0.125, 0.375, 0.125 };
+    /** Contrast given to pixels on the edge of two objects. */
+    private static final int EDGE_CONTRAST = 256;
+
+    /** Color difference that triggers refinement. */
+    private final int threshold;
+    /** Number of additional rays per pixel of the frame. */
+    private final double budget;
+
+    /**
+     * Constructs a new {@code AdaptiveSampler} with {@link #DEFAULT_THRESHOLD}
+     * and {@link #DEFAULT_BUDGET}.
+     */
+    public AdaptiveSampler() {
+        this(DEFAULT_THRESHOLD, DEFAULT_BUDGET);
+    }
+
+    /**
+     * Constructs a new {@code AdaptiveSampler} with specified threshold and
+     * budget.
+     *
+     * @param threshold
+     *            color difference that triggers refinement
+     * @param budget
+     *            maximum number of additional rays per pixel of the frame
+     * @throws IllegalArgumentException
+     *             if either of arguments is a negative number
+     */
+    public AdaptiveSampler(int threshold, double budget) {
+        if (threshold < 0 || budget < 0)
+            throw new IllegalArgumentException("Threshold and budget cannot be negative numbers!");
+
+        this.threshold = threshold;
+        this.budget = budget;
+    }
+
+    /**
+     * Selects pixels that should be refined. Returned array contains pixel
+     * offsets ordered from the highest contrast to the lowest and has at most
+     * as many elements as the budget allows.
+     *
+     * @param hits
+     *            objects hit by primary rays, {@code null} for misses
+     * @param red
+     *            red components of pixels color
+     * @param green
+     *            green components of pixels color
+     * @param blue
+     *            blue components of pixels color
+     * @param width
+     *            number of pixels per screen row
+     * @param height
+     *            number of pixel per screen column
+     * @return offsets of pixels that should be refined
+     */
+    public int[] select(GraphicalObject[] hits, short[] red, short[] green, short[] blue, int width, int height) {
+        int size = width * height;
+        int[] contrast = new int[size];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int offset = y * width + x;
+
+                if (x + 1 < width)
+                    mark(contrast, hits, red, green, blue, offset, offset + 1);
+                if (y + 1 < height)
+                    mark(contrast, hits, red, green, blue, offset, offset + width);
+            }
+        }
+
+        // counting sort by contrast, highest first
+        int[] counts = new int[EDGE_CONTRAST + 2];
+        for (int c : contrast) {
+            if (c > 0)
+                counts[EDGE_CONTRAST - c + 1]++;
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+
+        int candidates = counts[counts.length - 1];
+        int[] sorted = new int[candidates];
+        for (int offset = 0; offset < size; offset++) {
+            int c = contrast[offset];
+            if (c > 0)
+                sorted[counts[EDGE_CONTRAST - c]++] = offset;
+        }
+
+        int allowed = (int) Math.min(candidates, (long) (budget * size) / SAMPLES);
+        if (allowed == candidates)
+            return sorted;
+
+        int[] selected = new int[allowed];
+        System.arraycopy(sorted, 0, selected, 0, allowed);
+        return selected;
+    }
+
+    /**
+     * Refines pixels {@code pixels[from]} to {@code pixels[to - 1]} by tracing
+     * additional rays and averaging them with the current pixel color.
+     *
+     * @param scene
+     *            current scene
+     * @param camera
+     *            camera that generated primary rays
+     * @param pixels
+     *            offsets of pixels to be refined
+     * @param from
+     *            index of the first pixel, inclusive
+     * @param to
+     *            index of the last pixel, exclusive
+     * @param red
+     *            red components of pixels color
+     * @param green
+     *            green components of pixels color
+     * @param blue
+     *            blue components of pixels color
+     * @param counter
+     *            counter of traced rays and intersection tests; {@code null}
+     *            if not counted
+     */
+    public void refine(CompiledScene scene, Camera camera, int[] pixels, int from, int to, short[] red,
+            short[] green, short[] blue, TraceCounter counter) {
+        int width = camera.getWidth();
+        short[] rgb = new short[3];
+
+        for (int i = from; i < to; i++) {
+            int offset = pixels[i];
+            int x = offset % width;
+            int y = offset / width;
+
+            int r = red[offset];
+            int g = green[offset];
+            int b = blue[offset];
+
+            for (int s = 0; s < SAMPLES; s++) {
+                Ray ray = new Ray(camera.getEye(), camera.getDirection(x + OFFSET_X[s], y + OFFSET_Y[s]));
+                Tracer.tracer(scene, ray, rgb, counter);
+
+                r += rgb[0] > 255 ? 255 : rgb[0];
+                g += rgb[1] > 255 ? 255 : rgb[1];
+                b += rgb[2] > 255 ? 255 : rgb[2];
+            }
+
+            red[offset] = (short) ((r + SAMPLES / 2) / (SAMPLES + 1));
+            green[offset] = (short) ((g + SAMPLES / 2) / (SAMPLES + 1));
+            blue[offset] = (short) ((b + SAMPLES / 2) / (SAMPLES + 1));
+        }
+    }
+
+    /**
+     * Compares two neighbouring pixels and raises contrast of both of them if
+     * they differ enough to be refined.
+     *
+     * @param contrast
+     *            contrast of every pixel
+     * @param hits
+     *            objects hit by primary rays
+     * @param red
+     *            red components of pixels color
+     * @param green
+     *            green components of pixels color
+     * @param blue
+     *            blue components of pixels color
+     * @param first
+     *            offset of the first pixel
+     * @param second
+     *            offset of the second pixel
+     */
+    private void mark(int[] contrast, GraphicalObject[] hits, short[] red, short[] green, short[] blue, int first,
+            int second) {
+        int c;
+
+        if (hits[first] != hits[second]) {
+            c = EDGE_CONTRAST;
+        } else {
+            c = Math.max(Math.abs(red[first] - red[second]),
+                    Math.max(Math.abs(green[first] - green[second]), Math.abs(blue[first] - blue[second])));
+
+            if (c <= threshold)
+                return;
+        }
+
+        contrast[first] = Math.max(contrast[first], c);
+        contrast[second] = Math.max(contrast[second], c);
+    }
+
+}
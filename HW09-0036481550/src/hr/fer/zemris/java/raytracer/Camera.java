@@ -0,0 +1,339 @@
+package hr.fer.zemris.java.raytracer;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+
+/**
+ * {@code Camera} class generates directions of primary rays for one set of
+ * {@link hr.fer.zemris.java.raytracer.model.IRayTracerProducer#produce
+ * produce} parameters.
+ * <p>
+ * Screen corner and per-column and per-row step vectors are calculated once in
+ * the constructor. Directions of all pixels are then generated by incremental
+ * addition of those steps into one flat table which is kept by the camera, so
+ * a producer that receives another request with the same camera parameters
+ * (e.g. only the scene or lighting changed) can reuse the whole table by
+ * calling {@link #of(Camera, Point3D, Point3D, Point3D, double, double, int, int)}.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class Camera {
+
+    /** Eye position. */
+    private final Point3D eye;
+    /** Position that is observed. */
+    private final Point3D view;
+    /** View-up vector as given by the request. */
+    private final Point3D viewUp;
+    /** Horizontal width of observed space. */
+    private final double horizontal;
+    /** Vertical height of observed space. */
+    private final double vertical;
+    /** Number of pixels per screen row. */
+    private final int width;
+    /** Number of pixel per screen column. */
+    private final int height;
+
+    /** Vector from eye to the upper left corner of the screen. */
+    private final double[] corner = new double[3];
+    /** Vector between two neighbouring pixels in a row. */
+    private final double[] columnStep = new double[3];
+    /** Vector between two neighbouring pixels in a column. */
+    private final double[] rowStep = new double[3];
+    /** Normalized viewing direction. */
+    private final double[] forward = new double[3];
+
+    /** Normalized ray directions, three components per pixel. */
+    private volatile double[] directions;
+
+    /**
+     * Constructs a new {@code Camera} object from specified parameters.
+     *
+     * @param eye
+     *            position of human observer
+     * @param view
+     *            position that is observed
+     * @param viewUp
+     *            specification of view-up vector
+     * @param horizontal
+     *            horizontal width of observed space
+     * @param vertical
+     *            vertical height of observed space
+     * @param width
+     *            number of pixels per screen row
+     * @param height
+     *            number of pixel per screen column
+     * @throws NullPointerException
+     *             if either of arguments {@code eye}, {@code view} or
+     *             {@code viewUp} is a null reference
+     * @throws IllegalArgumentException
+     *             if {@code width} or {@code height} is not a positive number
+     */
+    public Camera(Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical, int width,
+            int height) {
+        if (eye == null || view == null || viewUp == null)
+            throw new NullPointerException("Eye, view or view-up cannot be a null reference!");
+
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Width and height must be positive numbers!");
+
+        this.eye = eye.copy();
+        this.view = view.copy();
+        this.viewUp = viewUp.copy();
+        this.horizontal = horizontal;
+        this.vertical = vertical;
+        this.width = width;
+        this.height = height;
+
+        Point3D zAxis = view.sub(eye).normalize();
+        Point3D up = viewUp.normalize();
+        Point3D yAxis = up.sub(zAxis.scalarMultiply(up.scalarProduct(zAxis))).normalize();
+        Point3D xAxis = zAxis.vectorProduct(yAxis).normalize();
+
+        Point3D screenCorner = view.sub(xAxis.scalarMultiply(horizontal / 2))
+                .add(yAxis.scalarMultiply(vertical / 2))
+                .modifySub(eye);
+        Point3D column = xAxis.scalarMultiply(width > 1 ? horizontal / (width - 1) : 0);
+        Point3D row = yAxis.scalarMultiply(height > 1 ? -vertical / (height - 1) : 0);
+
+        store(screenCorner, corner);
+        store(column, columnStep);
+        store(row, rowStep);
+        store(zAxis, forward);
+    }
+
+    /**
+     * Returns {@code previous} camera if it was created from the same
+     * parameters, otherwise a new {@code Camera} is created. This way the
+     * direction table of the previous camera is reused whenever the camera
+     * stays put.
+     *
+     * @param previous
+     *            previously used camera; can be {@code null}
+     * @param eye
+     *            position of human observer
+     * @param view
+     *            position that is observed
+     * @param viewUp
+     *            specification of view-up vector
+     * @param horizontal
+     *            horizontal width of observed space
+     * @param vertical
+     *            vertical height of observed space
+     * @param width
+     *            number of pixels per screen row
+     * @param height
+     *            number of pixel per screen column
+     * @return camera for specified parameters
+     */
+    public static Camera of(Camera previous, Point3D eye, Point3D view, Point3D viewUp, double horizontal,
+            double vertical, int width, int height) {
+        if (previous != null && previous.matches(eye, view, viewUp, horizontal, vertical, width, height))
+            return previous;
+
+        return new Camera(eye, view, viewUp, horizontal, vertical, width, height);
+    }
+
+    /**
+     * Checks if this camera was created from specified parameters.
+     *
+     * @param eye
+     *            position of human observer
+     * @param view
+     *            position that is observed
+     * @param viewUp
+     *            specification of view-up vector
+     * @param horizontal
+     *            horizontal width of observed space
+     * @param vertical
+     *            vertical height of observed space
+     * @param width
+     *            number of pixels per screen row
+     * @param height
+     *            number of pixel per screen column
+     * @return {@code true} if parameters are the same; {@code false} otherwise
+     */
+    public boolean matches(Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical, int width,
+            int height) {
+        return this.width == width
+                && this.height == height
+                && Double.compare(this.horizontal, horizontal) == 0
+                && Double.compare(this.vertical, vertical) == 0
+                && same(this.eye, eye)
+                && same(this.view, view)
+                && same(this.viewUp, viewUp);
+    }
+
+    /**
+     * Returns the table of normalized primary ray directions. Direction of
+     * pixel {@code (x,y)} is stored at indexes {@code 3*(y*width+x)} to
+     * {@code 3*(y*width+x)+2}. The table is calculated on the first call and
+     * must not be modified.
+     *
+     * @return table of primary ray directions
+     */
+    public double[] getDirections() {
+        double[] table = directions;
+
+        if (table == null) {
+            synchronized (this) {
+                table = directions;
+                if (table == null) {
+                    table = calculateDirections();
+                    directions = table;
+                }
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Returns a new normalized direction of the primary ray going through the
+     * point {@code (x,y)} of the screen. Whole coordinates are pixel centers,
+     * so this method can be used to sample between pixels.
+     *
+     * @param x
+     *            column coordinate
+     * @param y
+     *            row coordinate
+     * @return direction of the primary ray
+     */
+    public Point3D getDirection(double x, double y) {
+        return new Point3D(
+                corner[0] + x * columnStep[0] + y * rowStep[0],
+                corner[1] + x * columnStep[1] + y * rowStep[1],
+                corner[2] + x * columnStep[2] + y * rowStep[2]).modifyNormalize();
+    }
+
+    /**
+     * Projects the specified point onto the screen of this camera. This is
+     * the inverse of {@link #getDirection(double, double)}: the screen
+     * coordinates of a point on the primary ray through {@code (x,y)} are
+     * {@code (x,y)}.
+     *
+     * @param point
+     *            the point
+     * @param pixel
+     *            array that receives column and row coordinate
+     * @return {@code true} if the point is in front of the eye;
+     *         {@code false} otherwise, in which case {@code pixel} is left
+     *         unchanged
+     */
+    public boolean project(Point3D point, double[] pixel) {
+        double dx = point.x - eye.x;
+        double dy = point.y - eye.y;
+        double dz = point.z - eye.z;
+
+        double depth = dx * forward[0] + dy * forward[1] + dz * forward[2];
+        if (!(depth > 0))
+            return false;
+
+        double t = (corner[0] * forward[0] + corner[1] * forward[1] + corner[2] * forward[2]) / depth;
+        double qx = dx * t - corner[0];
+        double qy = dy * t - corner[1];
+        double qz = dz * t - corner[2];
+
+        double column = columnStep[0] * columnStep[0] + columnStep[1] * columnStep[1]
+                + columnStep[2] * columnStep[2];
+        double row = rowStep[0] * rowStep[0] + rowStep[1] * rowStep[1] + rowStep[2] * rowStep[2];
+
+        pixel[0] = column == 0 ? 0 : (qx * columnStep[0] + qy * columnStep[1] + qz * columnStep[2]) / column;
+        pixel[1] = row == 0 ? 0 : (qx * rowStep[0] + qy * rowStep[1] + qz * rowStep[2]) / row;
+
+        return true;
+    }
+
+    /**
+     * Returns the eye position. Returned point must not be modified.
+     *
+     * @return the eye position
+     */
+    public Point3D getEye() {
+        return eye;
+    }
+
+    /**
+     * Returns the number of pixels per screen row.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the number of pixels per screen column.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Calculates directions of all pixels by adding step vectors.
+     *
+     * @return table of primary ray directions
+     */
+    private double[] calculateDirections() {
+        double[] table = new double[3 * width * height];
+        int offset = 0;
+
+        for (int y = 0; y < height; y++) {
+            double x0 = corner[0] + y * rowStep[0];
+            double y0 = corner[1] + y * rowStep[1];
+            double z0 = corner[2] + y * rowStep[2];
+
+            for (int x = 0; x < width; x++) {
+                double norm = Math.sqrt(x0 * x0 + y0 * y0 + z0 * z0);
+
+                if (norm < 1E-9) {
+                    offset += 3;
+                } else {
+                    table[offset++] = x0 / norm;
+                    table[offset++] = y0 / norm;
+                    table[offset++] = z0 / norm;
+                }
+
+                x0 += columnStep[0];
+                y0 += columnStep[1];
+                z0 += columnStep[2];
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Stores components of the specified point into array.
+     *
+     * @param p
+     *            the point
+     * @param array
+     *            array with at least three elements
+     */
+    private static void store(Point3D p, double[] array) {
+        array[0] = p.x;
+        array[1] = p.y;
+        array[2] = p.z;
+    }
+
+    /**
+     * Checks if two points have exactly the same coordinates.
+     *
+     * @param p1
+     *            first point
+     * @param p2
+     *            second point
+     * @return {@code true} if coordinates are the same; {@code false}
+     *         otherwise
+     */
+    private static boolean same(Point3D p1, Point3D p2) {
+        return p2 != null
+                && Double.compare(p1.x, p2.x) == 0
+                && Double.compare(p1.y, p2.y) == 0
+                && Double.compare(p1.z, p2.z) == 0;
+    }
+
+}
@@ -0,0 +1,266 @@
+package hr.fer.zemris.java.raytracer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import hr.fer.zemris.java.raytracer.model.GraphicalObject;
+import hr.fer.zemris.java.raytracer.model.LightSource;
+import hr.fer.zemris.java.raytracer.model.PacketIntersectable;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Scene;
+
+/**
+ * {@code CompiledScene} class is an immutable, render-ready representation of
+ * a {@link Scene}.
+ * <p>
+ * A scene is compiled once by {@link #compile(Scene)} and can then be shared
+ * by every frame and every rendering thread. Objects and lights are copied
+ * into plain arrays, objects that can intersect a whole
+ * {@link hr.fer.zemris.java.raytracer.model.RayPacket} are resolved up front
+ * and the scene is validated once, so no scene setup is left on the rendering
+ * path.
+ * <p>
+ * Every compiled scene gets a unique {@link #getVersion() version} which can
+ * be used to tag results rendered from it.
+ * <p>
+ * Lights whose every color component is zero can't contribute to any point,
+ * so they are left out. A scene compiled with influence radii by
+ * {@link #compile(Scene, double)} or {@link #compile(Scene, double, Map)} also
+ * puts its lights in a {@link LightGrid} and shading visits only lights whose
+ * radius contains the shaded point. Every light can have its own radius, e.g.
+ * a larger one for a brighter light. Since lights of this model don't fade
+ * with distance, that is an approximation which trades far lights for speed
+ * in scenes with many lights.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public final class CompiledScene {
+
+    /** Source of scene versions. */
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /** Version of this scene. */
+    private final long version;
+
+    /** Graphical objects. */
+    final GraphicalObject[] objects;
+    /** Objects cast to {@link PacketIntersectable} or {@code null}. */
+    final PacketIntersectable[] packetObjects;
+
+    /** Light sources. */
+    final LightSource[] lights;
+    /** Indexes of all light sources. */
+    private final int[] allLights;
+    /** Influence radius of lights without their own radius. */
+    private final double influenceRadius;
+    /** Grid of lights or {@code null} if lights have unlimited influence. */
+    private final LightGrid grid;
+
+    /**
+     * Constructs a new {@code CompiledScene} from specified objects and
+     * lights.
+     *
+     * @param objects
+     *            graphical objects
+     * @param lights
+     *            light sources
+     * @param influenceRadius
+     *            influence radius of lights without their own radius; infinity
+     *            if they have unlimited influence
+     * @param radii
+     *            influence radii of lights that have their own radius
+     */
+    private CompiledScene(List<GraphicalObject> objects, List<LightSource> lights, double influenceRadius,
+            Map<LightSource, Double> radii) {
+        this.version = VERSIONS.incrementAndGet();
+
+        this.objects = objects.toArray(new GraphicalObject[objects.size()]);
+        this.packetObjects = new PacketIntersectable[this.objects.length];
+        for (int i = 0; i < this.objects.length; i++) {
+            if (this.objects[i] == null)
+                throw new NullPointerException("Scene cannot contain null objects!");
+
+            if (this.objects[i] instanceof PacketIntersectable)
+                packetObjects[i] = (PacketIntersectable) this.objects[i];
+        }
+
+        List<LightSource> visible = new ArrayList<>(lights.size());
+        for (LightSource light : lights) {
+            if (light == null)
+                throw new NullPointerException("Scene cannot contain null lights!");
+
+            if (light.getR() != 0 || light.getG() != 0 || light.getB() != 0)
+                visible.add(light);
+        }
+        this.lights = visible.toArray(new LightSource[visible.size()]);
+
+        this.allLights = new int[this.lights.length];
+        Point3D[] positions = new Point3D[this.lights.length];
+        double[] lightRadii = new double[this.lights.length];
+        boolean limited = false;
+        for (int i = 0; i < this.lights.length; i++) {
+            allLights[i] = i;
+            positions[i] = this.lights[i].getPoint();
+            lightRadii[i] = radii.getOrDefault(this.lights[i], influenceRadius);
+            limited |= !Double.isInfinite(lightRadii[i]);
+        }
+
+        this.influenceRadius = influenceRadius;
+        this.grid = limited ? new LightGrid(positions, lightRadii) : null;
+    }
+
+    /**
+     * Compiles the specified scene. Later changes of the {@code scene} are not
+     * visible in the compiled scene.
+     *
+     * @param scene
+     *            scene to be compiled
+     * @return compiled scene
+     * @throws NullPointerException
+     *             if argument {@code scene} is a null reference or it contains
+     *             a null object or light
+     */
+    public static CompiledScene compile(Scene scene) {
+        if (scene == null)
+            throw new NullPointerException("Argument scene cannot be null reference!");
+
+        return new CompiledScene(scene.getObjects(), scene.getLights(), Double.POSITIVE_INFINITY,
+                Collections.emptyMap());
+    }
+
+    /**
+     * Compiles the specified scene so that every light only reaches points
+     * within specified radius of it. Later changes of the {@code scene} are
+     * not visible in the compiled scene.
+     *
+     * @param scene
+     *            scene to be compiled
+     * @param influenceRadius
+     *            influence radius of every light
+     * @return compiled scene
+     * @throws NullPointerException
+     *             if argument {@code scene} is a null reference or it contains
+     *             a null object or light
+     * @throws IllegalArgumentException
+     *             if {@code influenceRadius} is not a positive number
+     */
+    public static CompiledScene compile(Scene scene, double influenceRadius) {
+        return compile(scene, influenceRadius, Collections.emptyMap());
+    }
+
+    /**
+     * Compiles the specified scene so that every light in {@code radii} only
+     * reaches points within its own radius and every other light points
+     * within {@code influenceRadius} of it. Lights are looked up by identity
+     * and an infinite radius means unlimited influence. Later changes of the
+     * {@code scene} and {@code radii} are not visible in the compiled scene.
+     *
+     * @param scene
+     *            scene to be compiled
+     * @param influenceRadius
+     *            influence radius of lights that are not in {@code radii}
+     * @param radii
+     *            influence radii of single lights
+     * @return compiled scene
+     * @throws NullPointerException
+     *             if argument {@code scene} or {@code radii} is a null
+     *             reference, {@code scene} contains a null object or light or
+     *             {@code radii} contains a null radius
+     * @throws IllegalArgumentException
+     *             if some radius is not a positive number
+     */
+    public static CompiledScene compile(Scene scene, double influenceRadius, Map<LightSource, Double> radii) {
+        if (scene == null)
+            throw new NullPointerException("Argument scene cannot be null reference!");
+        if (radii == null)
+            throw new NullPointerException("Argument radii cannot be null reference!");
+        if (!(influenceRadius > 0))
+            throw new IllegalArgumentException("Influence radius must be a positive number!");
+
+        Map<LightSource, Double> copy = new IdentityHashMap<>(radii);
+        for (Double radius : copy.values()) {
+            if (radius == null)
+                throw new NullPointerException("Radius cannot be a null reference!");
+            if (!(radius > 0))
+                throw new IllegalArgumentException("Influence radius must be a positive number!");
+        }
+
+        return new CompiledScene(scene.getObjects(), scene.getLights(), influenceRadius, copy);
+    }
+
+    /**
+     * Returns the version of this scene. Versions of two different compiled
+     * scenes are never the same.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of graphical objects in this scene.
+     *
+     * @return number of objects
+     */
+    public int getObjectCount() {
+        return objects.length;
+    }
+
+    /**
+     * Returns the number of light sources in this scene, not counting lights
+     * that were left out because they have no color.
+     *
+     * @return number of lights
+     */
+    public int getLightCount() {
+        return lights.length;
+    }
+
+    /**
+     * Returns the influence radius of lights of this scene that don't have
+     * their own radius or {@link Double#POSITIVE_INFINITY} if they have
+     * unlimited influence.
+     *
+     * @return the influence radius
+     */
+    public double getInfluenceRadius() {
+        return influenceRadius;
+    }
+
+    /**
+     * Returns indexes in {@link #lights} of lights that may reach the
+     * specified point, in the order of the scene. Every light whose influence
+     * radius contains the point is returned, but some further ones may be
+     * returned as well, so {@link #reaches(int, Point3D)} should be checked.
+     * Returned array must not be modified.
+     *
+     * @param point
+     *            the point
+     * @return indexes of lights that may reach the point
+     */
+    int[] lightsAt(Point3D point) {
+        return grid == null ? allLights : grid.query(point);
+    }
+
+    /**
+     * Checks if the specified point is within the influence radius of the
+     * light at specified index in {@link #lights}.
+     *
+     * @param light
+     *            index of the light
+     * @param point
+     *            the point
+     * @return {@code true} if the light reaches the point; {@code false}
+     *         otherwise
+     */
+    boolean reaches(int light, Point3D point) {
+        return grid == null || grid.reaches(light, point);
+    }
+
+}
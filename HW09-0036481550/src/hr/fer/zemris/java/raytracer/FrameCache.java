@@ -0,0 +1,225 @@
+package hr.fer.zemris.java.raytracer;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+
+/**
+ * {@code FrameCache} class is a bounded cache of finished frames.
+ * <p>
+ * Frames are keyed by all camera parameters of a
+ * {@link hr.fer.zemris.java.raytracer.model.IRayTracerProducer#produce
+ * produce} request (eye, view, view-up, horizontal and vertical extent and
+ * resolution) and by the version of the scene they were rendered from. When
+ * the cache is full the least recently used frame is evicted. All
+ * frames are dropped as soon as a frame of a different scene version is
+ * requested or stored, so the cache is invalidated only when the scene
+ * actually changes.
+ * <p>
+ * Returned frames are shared between requests and must not be modified.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class FrameCache {
+
+    /** Default maximum number of cached frames. */
+    public static final int DEFAULT_CAPACITY = 8;
+
+    /** Maximum number of cached frames. */
+    private final int capacity;
+    /** Cached frames in access order. */
+    private final Map<Key, short[][]> frames;
+    /** Scene version of cached frames. */
+    private long sceneVersion;
+
+    /**
+     * Constructs a new {@code FrameCache} with {@link #DEFAULT_CAPACITY}.
+     */
+    public FrameCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new {@code FrameCache} which holds at most
+     * {@code capacity} frames.
+     *
+     * @param capacity
+     *            maximum number of cached frames
+     * @throws IllegalArgumentException
+     *             if {@code capacity} is not a positive number
+     */
+    public FrameCache(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be a positive number!");
+
+        this.capacity = capacity;
+        this.frames = new LinkedHashMap<Key, short[][]>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, short[][]> eldest) {
+                return size() > FrameCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached frame for specified parameters or {@code null} if
+     * there is no such frame. The frame is returned as an array of red, green
+     * and blue components.
+     *
+     * @param eye
+     *            position of human observer
+     * @param view
+     *            position that is observed
+     * @param viewUp
+     *            specification of view-up vector
+     * @param horizontal
+     *            horizontal width of observed space
+     * @param vertical
+     *            vertical height of observed space
+     * @param width
+     *            number of pixels per screen row
+     * @param height
+     *            number of pixel per screen column
+     * @param sceneVersion
+     *            version of the rendered scene
+     * @return cached frame or {@code null}
+     */
+    public synchronized short[][] get(Point3D eye, Point3D view, Point3D viewUp, double horizontal,
+            double vertical, int width, int height, long sceneVersion) {
+        checkVersion(sceneVersion);
+
+        return frames.get(new Key(eye, view, viewUp, horizontal, vertical, width, height));
+    }
+
+    /**
+     * Stores a finished frame for specified parameters.
+     *
+     * @param eye
+     *            position of human observer
+     * @param view
+     *            position that is observed
+     * @param viewUp
+     *            specification of view-up vector
+     * @param horizontal
+     *            horizontal width of observed space
+     * @param vertical
+     *            vertical height of observed space
+     * @param width
+     *            number of pixels per screen row
+     * @param height
+     *            number of pixel per screen column
+     * @param sceneVersion
+     *            version of the rendered scene
+     * @param red
+     *            red components of pixels color
+     * @param green
+     *            green components of pixels color
+     * @param blue
+     *            blue components of pixels color
+     */
+    public synchronized void put(Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical,
+            int width, int height, long sceneVersion, short[] red, short[] green, short[] blue) {
+        checkVersion(sceneVersion);
+
+        frames.put(new Key(eye, view, viewUp, horizontal, vertical, width, height),
+                new short[][] { red, green, blue });
+    }
+
+    /**
+     * Removes all cached frames.
+     */
+    public synchronized void clear() {
+        frames.clear();
+    }
+
+    /**
+     * Returns the number of cached frames.
+     *
+     * @return number of cached frames
+     */
+    public synchronized int size() {
+        return frames.size();
+    }
+
+    /**
+     * Drops all cached frames if the specified scene version differs from the
+     * version of cached frames.
+     *
+     * @param sceneVersion
+     *            version of the scene
+     */
+    private void checkVersion(long sceneVersion) {
+        if (this.sceneVersion != sceneVersion) {
+            frames.clear();
+            this.sceneVersion = sceneVersion;
+        }
+    }
+
+    /**
+     * {@code Key} class is an immutable key of a cached frame made of all
+     * camera parameters of a request.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private static class Key {
+
+        /** Eye, view and view-up coordinates followed by both extents. */
+        private final double[] values;
+        /** Number of pixels per screen row. */
+        private final int width;
+        /** Number of pixel per screen column. */
+        private final int height;
+
+        /**
+         * Constructs a new {@code Key} from specified camera parameters.
+         *
+         * @param eye
+         *            position of human observer
+         * @param view
+         *            position that is observed
+         * @param viewUp
+         *            specification of view-up vector
+         * @param horizontal
+         *            horizontal width of observed space
+         * @param vertical
+         *            vertical height of observed space
+         * @param width
+         *            number of pixels per screen row
+         * @param height
+         *            number of pixel per screen column
+         */
+        Key(Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical, int width, int height) {
+            this.values = new double[] {
+                    eye.x, eye.y, eye.z,
+                    view.x, view.y, view.z,
+                    viewUp.x, viewUp.y, viewUp.z,
+                    horizontal, vertical };
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Arrays.hashCode(values) + width) + height;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+
+            Key other = (Key) obj;
+            return width == other.width && height == other.height && Arrays.equals(values, other.values);
+        }
+    }
+
+}
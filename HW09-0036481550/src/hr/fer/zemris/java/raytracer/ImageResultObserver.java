@@ -0,0 +1,90 @@
+package hr.fer.zemris.java.raytracer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * {@code ImageResultObserver} class is a {@link PackedResultObserver} which
+ * lets producers render straight into the raster of a
+ * {@link BufferedImage}.
+ * <p>
+ * A new {@link BufferedImage#TYPE_INT_ARGB} image is created for every
+ * request and its data array is returned as the buffer, so a finished image
+ * can be shown while the next one is rendering. Finished images are passed
+ * to the consumer given to the constructor. A frame is accepted only if
+ * {@link #getBuffer(int, int, long)} was called for its request, which
+ * producers ensure by delivering frames through
+ * {@link PackedResultObserver#deliver}.
+ * <p>
+ * Images of at most {@value #MAX_PENDING_REQUESTS} requests are kept, so
+ * images of requests a producer abandoned are evicted, oldest request first,
+ * instead of piling up.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class ImageResultObserver implements PackedResultObserver {
+
+    /** Maximum number of requests whose images are kept. */
+    public static final int MAX_PENDING_REQUESTS = 8;
+
+    /** Consumer of finished images. */
+    private final Consumer<BufferedImage> consumer;
+    /** Images of requests that are rendering, by number of the request. */
+    private final ConcurrentNavigableMap<Long, BufferedImage> images = new ConcurrentSkipListMap<>();
+
+    /**
+     * Constructs a new {@code ImageResultObserver} with specified consumer of
+     * finished images.
+     *
+     * @param consumer
+     *            consumer of finished images
+     * @throws NullPointerException
+     *             if argument {@code consumer} is a null reference
+     */
+    public ImageResultObserver(Consumer<BufferedImage> consumer) {
+        if (consumer == null)
+            throw new NullPointerException("Consumer cannot be a null reference!");
+
+        this.consumer = consumer;
+    }
+
+    @Override
+    public int[] getBuffer(int width, int height, long requestNo) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        images.put(requestNo, image);
+        while (images.size() > MAX_PENDING_REQUESTS) {
+            images.pollFirstEntry();
+        }
+
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException
+     *             if no buffer was requested for the request, its image was
+     *             evicted or the frame doesn't have the size of the requested
+     *             buffer
+     */
+    @Override
+    public void acceptPacked(int[] argb, long requestNo) {
+        BufferedImage image = images.remove(requestNo);
+        if (image == null)
+            throw new IllegalArgumentException("Size of request " + requestNo + " isn't known!");
+
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        if (data != argb && argb.length != data.length)
+            throw new IllegalArgumentException("Frame of request " + requestNo + " has a wrong size!");
+        if (data != argb)
+            System.arraycopy(argb, 0, data, 0, data.length);
+
+        consumer.accept(image);
+    }
+
+}
@@ -0,0 +1,217 @@
+package hr.fer.zemris.java.raytracer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+
+/**
+ * {@code LightGrid} class is a uniform spatial grid of light sources used to
+ * find lights that can reach a point.
+ * <p>
+ * Every light has its own influence radius and the size of a grid cell is the
+ * largest finite one. A light is stored, by its index, in every cell its
+ * sphere of influence overlaps, so a query reads a single cell and returns a
+ * small superset of lights whose radius contains the point;
+ * {@link #reaches(int, Point3D)} checks the radius of every candidate. Lights
+ * with infinite radius are in every cell. Only non-empty cells are stored, in
+ * an open addressing hash table, so a query doesn't allocate anything.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see CompiledScene
+ */
+final class LightGrid {
+
+    /** Mask of one cell coordinate in a cell key. */
+    private static final long COORDINATE_MASK = (1L << 21) - 1;
+
+    /** X coordinates of lights. */
+    private final double[] x;
+    /** Y coordinates of lights. */
+    private final double[] y;
+    /** Z coordinates of lights. */
+    private final double[] z;
+    /** Squared influence radii of lights. */
+    private final double[] radius2;
+
+    /** Size of a cell. */
+    private final double cellSize;
+    /** Keys of cells. */
+    private final long[] keys;
+    /** Indexes of lights of cells or {@code null} for empty slots. */
+    private final int[][] cells;
+    /** Indexes of lights with infinite radius, the result in empty cells. */
+    private final int[] unlimited;
+    /** Mask of a slot index. */
+    private final int mask;
+
+    /**
+     * Constructs a new {@code LightGrid} of lights at specified positions.
+     *
+     * @param positions
+     *            positions of lights
+     * @param radii
+     *            influence radius of every light, positive and at least one
+     *            of them finite
+     */
+    LightGrid(Point3D[] positions, double[] radii) {
+        int n = positions.length;
+        this.x = new double[n];
+        this.y = new double[n];
+        this.z = new double[n];
+        this.radius2 = new double[n];
+
+        double largest = 0;
+        List<Integer> everywhere = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            x[i] = positions[i].x;
+            y[i] = positions[i].y;
+            z[i] = positions[i].z;
+            radius2[i] = radii[i] * radii[i];
+
+            if (Double.isInfinite(radii[i]))
+                everywhere.add(i);
+            else
+                largest = Math.max(largest, radii[i]);
+        }
+        this.cellSize = largest > 0 ? largest : 1;
+        this.unlimited = toArray(everywhere);
+
+        Map<Long, List<Integer>> cellLights = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (Double.isInfinite(radii[i]))
+                continue;
+
+            double radius = radii[i];
+            Point3D p = positions[i];
+            long minX = cell(p.x - radius);
+            long minY = cell(p.y - radius);
+            long minZ = cell(p.z - radius);
+            long maxX = cell(p.x + radius);
+            long maxY = cell(p.y + radius);
+            long maxZ = cell(p.z + radius);
+
+            for (long cx = minX; cx <= maxX; cx++) {
+                for (long cy = minY; cy <= maxY; cy++) {
+                    for (long cz = minZ; cz <= maxZ; cz++) {
+                        cellLights.computeIfAbsent(key(cx, cy, cz), k -> new ArrayList<>(everywhere)).add(i);
+                    }
+                }
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(1, cellLights.size()) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.cells = new int[capacity][];
+        this.mask = capacity - 1;
+
+        for (Map.Entry<Long, List<Integer>> entry : cellLights.entrySet()) {
+            int slot = slot(entry.getKey());
+            while (cells[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+
+            // lights of a cell are visited in the order of the scene
+            keys[slot] = entry.getKey();
+            cells[slot] = toArray(entry.getValue());
+            Arrays.sort(cells[slot]);
+        }
+    }
+
+    /**
+     * Returns indexes of lights whose sphere of influence may contain the
+     * specified point. Returned array must not be modified.
+     *
+     * @param point
+     *            the point
+     * @return indexes of lights that may reach the point
+     */
+    int[] query(Point3D point) {
+        long key = key(cell(point.x), cell(point.y), cell(point.z));
+
+        for (int slot = slot(key); cells[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key)
+                return cells[slot];
+        }
+
+        return unlimited;
+    }
+
+    /**
+     * Checks if the specified point is within the influence radius of the
+     * light at specified index.
+     *
+     * @param light
+     *            index of the light
+     * @param point
+     *            the point
+     * @return {@code true} if the light reaches the point; {@code false}
+     *         otherwise
+     */
+    boolean reaches(int light, Point3D point) {
+        double dx = x[light] - point.x;
+        double dy = y[light] - point.y;
+        double dz = z[light] - point.z;
+
+        return dx * dx + dy * dy + dz * dz <= radius2[light];
+    }
+
+    /**
+     * Returns the elements of the specified list as an array.
+     *
+     * @param list
+     *            the list
+     * @return array of elements
+     */
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Returns the coordinate of the cell that contains specified coordinate.
+     *
+     * @param coordinate
+     *            the coordinate
+     * @return coordinate of the cell
+     */
+    private long cell(double coordinate) {
+        return (long) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Returns the key of the cell with specified coordinates. Coordinates far
+     * apart may share a key; that only adds lights to query results.
+     *
+     * @param x
+     *            x coordinate of the cell
+     * @param y
+     *            y coordinate of the cell
+     * @param z
+     *            z coordinate of the cell
+     * @return key of the cell
+     */
+    private static long key(long x, long y, long z) {
+        return (x & COORDINATE_MASK) << 42 | (y & COORDINATE_MASK) << 21 | (z & COORDINATE_MASK);
+    }
+
+    /**
+     * Returns the home slot of specified key.
+     *
+     * @param key
+     *            the key
+     * @return slot index
+     */
+    private int slot(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+}
@@ -0,0 +1,119 @@
+package hr.fer.zemris.java.raytracer;
+
+import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
+
+/**
+ * {@code PackedResultObserver} interface is an
+ * {@link IRayTracerResultObserver} that receives frames as packed ARGB
+ * {@code int}s instead of three channel arrays.
+ * <p>
+ * Producers that support this contract ask the observer for the destination
+ * of a frame with {@link #getBuffer(int, int, long)}, render into it and
+ * pass the same array to {@link #acceptPacked(int[], long)}. An observer can
+ * therefore return the data array of an image raster and get the frame with
+ * no further copy or conversion. Producers that only write channel arrays
+ * pass them to {@link #deliver}, which packs them into the buffer of the
+ * request, so every frame an observer accepts was preceded by a call of
+ * {@link #getBuffer(int, int, long)}.
+ * <p>
+ * Every pixel is opaque, so its alpha is {@code 0xFF}, and pixels are stored
+ * row by row.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see ImageResultObserver
+ */
+public interface PackedResultObserver extends IRayTracerResultObserver {
+
+    /**
+     * Returns the array that receives the frame of specified request. It
+     * must have at least {@code width * height} elements.
+     *
+     * @param width
+     *            width of the frame
+     * @param height
+     *            height of the frame
+     * @param requestNo
+     *            number of the request
+     * @return destination of the frame
+     */
+    int[] getBuffer(int width, int height, long requestNo);
+
+    /**
+     * Accepts a finished frame. The array is the one returned by
+     * {@link #getBuffer(int, int, long)} for the same request.
+     *
+     * @param argb
+     *            packed colors of the frame
+     * @param requestNo
+     *            number of the request
+     */
+    void acceptPacked(int[] argb, long requestNo);
+
+    /**
+     * Packs the channels into a new array and passes it to
+     * {@link #acceptPacked(int[], long)}. The buffer of the request is
+     * skipped, so observers that allocate buffers, like
+     * {@link ImageResultObserver}, reject such frames; producers should use
+     * {@link #deliver} instead.
+     */
+    @Override
+    default void acceptResult(short[] red, short[] green, short[] blue, long requestNo) {
+        int[] argb = new int[red.length];
+        pack(red, green, blue, argb);
+        acceptPacked(argb, requestNo);
+    }
+
+    /**
+     * Delivers a frame given as channel arrays to the observer. A
+     * {@code PackedResultObserver} receives it packed into its own buffer,
+     * any other observer receives channel arrays.
+     *
+     * @param observer
+     *            the observer
+     * @param red
+     *            red light
+     * @param green
+     *            green light
+     * @param blue
+     *            blue light
+     * @param width
+     *            width of the frame
+     * @param height
+     *            height of the frame
+     * @param requestNo
+     *            number of the request
+     */
+    static void deliver(IRayTracerResultObserver observer, short[] red, short[] green, short[] blue, int width,
+            int height, long requestNo) {
+        if (observer instanceof PackedResultObserver) {
+            PackedResultObserver packed = (PackedResultObserver) observer;
+            int[] argb = packed.getBuffer(width, height, requestNo);
+
+            pack(red, green, blue, argb);
+            packed.acceptPacked(argb, requestNo);
+        } else {
+            observer.acceptResult(red, green, blue, requestNo);
+        }
+    }
+
+    /**
+     * Packs channel arrays, whose values must be in range [0, 255], into
+     * opaque ARGB colors.
+     *
+     * @param red
+     *            red light
+     * @param green
+     *            green light
+     * @param blue
+     *            blue light
+     * @param argb
+     *            packed colors
+     */
+    static void pack(short[] red, short[] green, short[] blue, int[] argb) {
+        for (int i = 0; i < red.length; i++) {
+            argb[i] = 0xFF000000 | red[i] << 16 | green[i] << 8 | blue[i];
+        }
+    }
+
+}
@@ -1,13 +1,23 @@
 package hr.fer.zemris.java.raytracer;
 
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import hr.fer.zemris.java.metrics.RenderMetrics;
 import hr.fer.zemris.java.raytracer.model.GraphicalObject;
 import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
 import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
-import hr.fer.zemris.java.raytracer.model.LightSource;
 import hr.fer.zemris.java.raytracer.model.Point3D;
 import hr.fer.zemris.java.raytracer.model.Ray;
-import hr.fer.zemris.java.raytracer.model.RayIntersection;
 import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.TraceCounter;
+import hr.fer.zemris.java.raytracer.model.TriangleMesh;
+import hr.fer.zemris.java.raytracer.scene.ObjReader;
+import hr.fer.zemris.java.raytracer.scene.PackedSceneBuilder;
+import hr.fer.zemris.java.raytracer.scene.SceneReader;
 import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
 
 /**
@@ -22,18 +32,91 @@ import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
  */
 public class RayCaster {
 
-    /** Default ambient color intensity. */
-    private static final short AMBIENT_COLOR = 15;
+    /** Command-line argument that turns on adaptive anti-aliasing. */
+    private static final String ANTI_ALIASING = "-aa";
+    /** Extension of Wavefront OBJ files added to the scene as meshes. */
+    private static final String OBJ_EXTENSION = ".obj";
+    /** Prefix of the command-line argument that limits influence of lights. */
+    private static final String INFLUENCE_RADIUS = "-radius=";
+    /** Command-line argument that turns on temporal reprojection. */
+    private static final String TEMPORAL = "-temporal";
+
+    /** Metrics of producers of this class. */
+    private static final RenderMetrics METRICS = RenderMetrics.forProducer("RayCaster");
 
     /**
      * Starting point of a program.
      * 
      * @param args
-     *            Command-line argument
+     *            Command-line argument; {@value #ANTI_ALIASING} turns on
+     *            adaptive anti-aliasing, {@value #INFLUENCE_RADIUS} followed
+     *            by a number limits influence of every light to that
+     *            distance, {@value #TEMPORAL} reuses colors of the
+     *            previous frame after small camera moves, paths ending with
+     *            {@value #OBJ_EXTENSION} are added to the scene as triangle
+     *            meshes and any other argument is a path of the scene file to
+     *            render instead of the predefined scene
      */
     public static void main(String[] args) {
+        AdaptiveSampler sampler = null;
+        Scene scene = null;
+        List<TriangleMesh> meshes = new ArrayList<>();
+        double influenceRadius = Double.POSITIVE_INFINITY;
+        TemporalReprojector reprojector = null;
+
+        for (String arg : args) {
+            if (arg.equals(ANTI_ALIASING)) {
+                sampler = new AdaptiveSampler();
+                continue;
+            }
+
+            if (arg.equals(TEMPORAL)) {
+                reprojector = new TemporalReprojector();
+                continue;
+            }
+
+            if (arg.startsWith(INFLUENCE_RADIUS)) {
+                try {
+                    influenceRadius = Double.parseDouble(arg.substring(INFLUENCE_RADIUS.length()));
+                } catch (NumberFormatException e) {
+                    influenceRadius = Double.NaN;
+                }
+                if (!(influenceRadius > 0)) {
+                    System.out.println("Influence radius must be a positive number: " + arg);
+                    return;
+                }
+                continue;
+            }
+
+            if (arg.toLowerCase().endsWith(OBJ_EXTENSION)) {
+                try {
+                    meshes.add(ObjReader.read(Paths.get(arg), 1, 1, 1, 0.5, 0.5, 0.5, 10));
+                } catch (IOException | InvalidPathException e) {
+                    System.out.println("Model file " + arg + " cannot be read: " + e.getMessage());
+                    return;
+                }
+                continue;
+            }
+
+            PackedSceneBuilder builder = new PackedSceneBuilder();
+            try {
+                SceneReader.read(Paths.get(arg), builder);
+            } catch (IOException | InvalidPathException e) {
+                System.out.println("Scene file " + arg + " cannot be read: " + e.getMessage());
+                return;
+            }
+            scene = builder.getScene();
+        }
+
+        if (scene == null)
+            scene = RayTracerViewer.createPredefinedScene();
+        for (TriangleMesh mesh : meshes) {
+            scene.add(mesh);
+        }
+
         RayTracerViewer.show(
-                getIRayTracerProducer(),
+                getIRayTracerProducer(Double.isInfinite(influenceRadius) ? CompiledScene.compile(scene)
+                        : CompiledScene.compile(scene, influenceRadius), sampler, reprojector),
                 new Point3D(10, 0, 0),
                 new Point3D(0, 0, 0),
                 new Point3D(0, 0, 10),
@@ -43,12 +126,30 @@ public class RayCaster {
 
     /**
      * Returns a tracer producer which is able to create scene snapshots by
-     * using ray-tracing technique
+     * using ray-tracing technique. A {@link PackedResultObserver} gets frames
+     * rendered straight into its buffer unless anti-aliasing or reprojection
+     * is on. Requests are reported to the {@link RenderMetrics} of this
+     * class.
      * 
+     * @param scene
+     *            scene to render
+     * @param sampler
+     *            sampler used for anti-aliasing; {@code null} turns
+     *            anti-aliasing off
+     * @param reprojector
+     *            reprojector reusing colors of previous frames; {@code null}
+     *            turns temporal reprojection off
      * @return the tracer producer
      */
-    private static IRayTracerProducer getIRayTracerProducer() {
+    public static IRayTracerProducer getIRayTracerProducer(CompiledScene scene, AdaptiveSampler sampler,
+            TemporalReprojector reprojector) {
         return new IRayTracerProducer() {
+
+            /** Camera of the previous request, reused if the next one matches it. */
+            private final AtomicReference<Camera> camera = new AtomicReference<>();
+            /** Finished frames of previous requests. */
+            private final FrameCache frames = new FrameCache();
+
             @Override
             public void produce(
                     Point3D eye,
@@ -60,42 +161,106 @@ public class RayCaster {
                     int height,
                     long requestNo,
                     IRayTracerResultObserver observer) {
+                long start = METRICS.start();
+                TraceCounter counter = new TraceCounter();
+
+                try {
+                    render(eye, view, viewUp, horizontal, vertical, width, height, requestNo, observer, counter);
+                } catch (RuntimeException e) {
+                    METRICS.fail(start);
+                    throw e;
+                }
+
+                METRICS.addRays(counter.getRays());
+                METRICS.addIntersectionTests(counter.getIntersectionTests());
+                METRICS.finish(start, (long) width * height);
+            }
+
+            /**
+             * Renders the frame of a request and delivers it to the observer.
+             *
+             * @param eye
+             *            position of human observer
+             * @param view
+             *            position that is observed
+             * @param viewUp
+             *            specification of view-up vector
+             * @param horizontal
+             *            horizontal width of observed space
+             * @param vertical
+             *            vertical height of observed space
+             * @param width
+             *            number of pixels per screen row
+             * @param height
+             *            number of pixel per screen column
+             * @param requestNo
+             *            number of the request
+             * @param observer
+             *            observer receiving the frame
+             * @param counter
+             *            counter of traced rays and intersection tests
+             */
+            private void render(Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical,
+                    int width, int height, long requestNo, IRayTracerResultObserver observer,
+                    TraceCounter counter) {
+                short[][] frame = frames.get(eye, view, viewUp, horizontal, vertical, width, height,
+                        scene.getVersion());
+                if (frame != null) {
+                    PackedResultObserver.deliver(observer, frame[0], frame[1], frame[2], width, height, requestNo);
+                    return;
+                }
+
                 System.out.println("Započinjem izračune...");
 
-                short[] red = new short[width * height];
-                short[] green = new short[width * height];
-                short[] blue = new short[width * height];
+                // a local camera, since requests of a resized viewer can overlap
+                Camera current = Camera.of(camera.get(), eye, view, viewUp, horizontal, vertical, width, height);
+                camera.set(current);
 
-                Point3D zAxis = view.sub(eye).normalize();
-                Point3D yAxis = viewUp.modifyNormalize().sub(zAxis.scalarMultiply(viewUp.scalarProduct(zAxis)))
-                        .normalize();
-                Point3D xAxis = zAxis.vectorProduct(yAxis).normalize();
+                if (observer instanceof PackedResultObserver && sampler == null && reprojector == null) {
+                    PackedResultObserver packed = (PackedResultObserver) observer;
+                    int[] argb = packed.getBuffer(width, height, requestNo);
 
-                Point3D screenCorner = view.sub(xAxis.scalarMultiply(horizontal / 2))
-                        .add(yAxis.scalarMultiply(vertical / 2));
+                    Tracer.trace(scene, current, 0, 0, width - 1, height - 1, argb, 0, width, null, counter);
 
-                Scene scene = RayTracerViewer.createPredefinedScene();
+                    packed.acceptPacked(argb, requestNo);
+                    return;
+                }
 
-                short[] rgb = new short[3];
-                int offset = 0;
+                short[] red = new short[width * height];
+                short[] green = new short[width * height];
+                short[] blue = new short[width * height];
+                double[] directions = current.getDirections();
 
-                for (int y = 0; y < height; y++) {
-                    for (int x = 0; x < width; x++) {
-                        Point3D screenPoint = screenCorner
-                                .add(xAxis.scalarMultiply((double) x / (width - 1) * horizontal))
-                                .sub(yAxis.scalarMultiply((double) y / (height - 1) * vertical));
-                        Ray ray = Ray.fromPoints(eye, screenPoint);
+                GraphicalObject[] hits = sampler == null ? null : new GraphicalObject[width * height];
+                short[] rgb = new short[3];
 
-                        tracer(scene, ray, rgb);
+                if (reprojector != null) {
+                    TemporalReprojector.Frame temporal = reprojector.begin(scene, current);
+                    temporal.render(0, height - 1, red, green, blue, hits, counter);
+                    temporal.finish();
+                } else {
+                    for (int offset = 0, size = width * height; offset < size; offset++) {
+                        Point3D direction = new Point3D(
+                                directions[3 * offset],
+                                directions[3 * offset + 1],
+                                directions[3 * offset + 2]);
+                        Ray ray = new Ray(current.getEye(), direction);
+
+                        GraphicalObject hit = Tracer.tracer(scene, ray, rgb, counter);
+                        if (hits != null)
+                            hits[offset] = hit;
 
                         red[offset] = rgb[0] > 255 ? 255 : rgb[0];
                         green[offset] = rgb[1] > 255 ? 255 : rgb[1];
                         blue[offset] = rgb[2] > 255 ? 255 : rgb[2];
-
-                        offset++;
                     }
                 }
 
+                if (sampler != null) {
+                    int[] pixels = sampler.select(hits, red, green, blue, width, height);
+                    sampler.refine(scene, current, pixels, 0, pixels.length, red, green, blue, counter);
+                }
+
                 if (check(red))
                     System.out.println("All red are 15");
                 if (check(green))
@@ -103,8 +268,11 @@ public class RayCaster {
                 if (check(blue))
                     System.out.println("All blue are 15");
 
+                frames.put(eye, view, viewUp, horizontal, vertical, width, height, scene.getVersion(),
+                        red, green, blue);
+
                 System.out.println("Izračuni gotovi...");
-                observer.acceptResult(red, green, blue, requestNo);
+                PackedResultObserver.deliver(observer, red, green, blue, width, height, requestNo);
                 System.out.println("Dojava gotova...");
             }
 
@@ -118,156 +286,4 @@ public class RayCaster {
         };
     }
 
-    /**
-     * Traces image using ray-casting model and fills results into {@code rgb}
-     * array.
-     * 
-     * @param scene
-     *            current scene
-     * @param ray
-     *            ray from eye to point in scene
-     * @param rgb
-     *            color light
-     */
-    private static void tracer(Scene scene, Ray ray, short[] rgb) {
-        short[] newRGB = new short[3];
-        RayIntersection intersection = getClosestIntersection(scene, ray);
-
-        // if there is no intersection there is only ambient light
-        if (intersection != null) {
-            newRGB = determineColorFor(scene, ray, intersection);
-        } else {
-            newRGB[0] = AMBIENT_COLOR;
-            newRGB[1] = AMBIENT_COLOR;
-            newRGB[2] = AMBIENT_COLOR;
-        }
-
-        rgb[0] = newRGB[0];
-        rgb[1] = newRGB[1];
-        rgb[2] = newRGB[2];
-    }
-
-    /**
-     * Calculates the color of the {@code intersection} for specified
-     * {@code ray} in the specified {@code scene}.
-     * 
-     * @param scene
-     *            the scene
-     * @param ray
-     *            the ray
-     * @param intersection
-     *            the ray intersection
-     * @return array containing three {@code short} elements that represents RGB
-     *         color code
-     */
-    private static short[] determineColorFor(Scene scene, Ray ray, RayIntersection intersection) {
-        short[] rgb = new short[3];
-
-        rgb[0] = AMBIENT_COLOR;
-        rgb[1] = AMBIENT_COLOR;
-        rgb[2] = AMBIENT_COLOR;
-
-        for (LightSource light : scene.getLights()) {
-            Ray r = Ray.fromPoints(light.getPoint(), intersection.getPoint());
-            RayIntersection s = getClosestIntersection(scene, r);
-
-            if (s == null)
-                continue;
-
-            double distanceFromEye = light.getPoint().sub(intersection.getPoint()).norm();
-            double distanceFromLight = light.getPoint().sub(s.getPoint()).norm();
-
-            if (Double.compare(distanceFromLight + 0.01, distanceFromEye) < 0)
-                continue;
-
-            addDiffusseComponent(light, rgb, s);
-            addReflectiveComponent(light, rgb, s, ray);
-        }
-
-        return rgb;
-    }
-
-    /**
-     * Returns closest intersection of specified ray on given scene. If no
-     * intersection is found {@code null} will be returned.
-     * 
-     * @param scene
-     *            scene in which intersection must be found
-     * @param ray
-     *            ray used to find intersection
-     * @return the closest intersection of specified ray on given scene
-     */
-    private static RayIntersection getClosestIntersection(Scene scene, Ray ray) {
-        if (scene == null)
-            throw new NullPointerException("Argument scene cannot be null reference!");
-        if (ray == null)
-            throw new NullPointerException("Argument ray cannot be null reference!");
-
-        RayIntersection closest = null;
-
-        for (GraphicalObject object : scene.getObjects()) {
-            RayIntersection curr = object.findClosestRayIntersection(ray);
-
-            if (curr != null && (closest == null || curr.getDistance() < closest.getDistance())) {
-                closest = curr;
-            }
-        }
-
-        return closest;
-    }
-
-    /**
-     * Calculates the diffuse component of the light and stores it in
-     * {@code rgb} parameter.
-     * 
-     * @param light
-     *            light source
-     * @param rgb
-     *            color of the light represented by RGB model
-     * @param intersection
-     *            intersection we're calculating light for
-     */
-    private static void addDiffusseComponent(LightSource light, short[] rgb, RayIntersection intersection) {
-        Point3D n = intersection.getNormal();
-        Point3D l = light.getPoint().sub(intersection.getPoint()).normalize();
-
-        double tmp = l.scalarProduct(n);
-
-        rgb[0] += light.getR() * intersection.getKdr() * Math.max(tmp, 0);
-        rgb[1] += light.getG() * intersection.getKdg() * Math.max(tmp, 0);
-        rgb[2] += light.getB() * intersection.getKdb() * Math.max(tmp, 0);
-    }
-
-    /**
-     * Calculates the reflective component of the light and stores it in
-     * {@code rgb} parameter.
-     * 
-     * @param light
-     *            light source
-     * @param rgb
-     *            color of the light represented by RGB model
-     * @param intersection
-     *            intersection we're calculating light for
-     * @param ray
-     *            Ray used to find intersection.
-     */
-    private static void addReflectiveComponent(LightSource light, short[] rgb, RayIntersection intersection, Ray ray) {
-        Point3D n = intersection.getNormal();
-        Point3D l = light.getPoint().sub(intersection.getPoint());
-        Point3D projection = n.scalarMultiply(l.scalarProduct(n));
-
-        Point3D r = projection.add(projection.negate().add(l).scalarMultiply(-1)).normalize();
-        Point3D v = ray.start.sub(intersection.getPoint()).normalize();
-
-        double cos = r.scalarProduct(v);
-
-        if (cos >= 0) {
-            cos = Math.pow(cos, intersection.getKrn());
-
-            rgb[0] += light.getR() * intersection.getKrr() * cos;
-            rgb[1] += light.getG() * intersection.getKrg() * cos;
-            rgb[2] += light.getB() * intersection.getKrb() * cos;
-        }
-    }
-
 }
@@ -1,16 +1,34 @@
 package hr.fer.zemris.java.raytracer;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 
+import hr.fer.zemris.java.metrics.RenderMetrics;
+import hr.fer.zemris.java.metrics.RenderTrace;
 import hr.fer.zemris.java.raytracer.model.GraphicalObject;
 import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
 import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
-import hr.fer.zemris.java.raytracer.model.LightSource;
 import hr.fer.zemris.java.raytracer.model.Point3D;
-import hr.fer.zemris.java.raytracer.model.Ray;
-import hr.fer.zemris.java.raytracer.model.RayIntersection;
+import hr.fer.zemris.java.raytracer.model.RayPacket;
 import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.TraceCounter;
+import hr.fer.zemris.java.raytracer.model.TriangleMesh;
+import hr.fer.zemris.java.raytracer.remote.RenderCoordinator;
+import hr.fer.zemris.java.raytracer.remote.RenderWorker;
+import hr.fer.zemris.java.raytracer.scene.ObjReader;
+import hr.fer.zemris.java.raytracer.scene.PackedSceneBuilder;
+import hr.fer.zemris.java.raytracer.scene.SceneReader;
+import hr.fer.zemris.java.raytracer.scene.TextSceneWriter;
+import hr.fer.zemris.java.raytracer.stream.TileStreamingProducer;
 import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
 
 /**
@@ -18,25 +36,164 @@ import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
  * snapshots by using ray-tracing technique.
  * <p>
  * This class does the same thing as {@link RayCaster} but uses more threads to
- * speed up calculations.
+ * speed up calculations. Primary rays are traced in square blocks of
+ * {@value Job#PACKET_SIZE}x{@value Job#PACKET_SIZE} pixels as
+ * {@link RayPacket}s so objects can reject or intersect a whole block at once.
  * 
  * @author Karlo Vrbić
  * @version 1.0
  */
 public class RayCasterParallel {
 
-    /** Default ambient color intensity. */
-    private static final short AMBIENT_COLOR = 15;
+    /** Command-line argument that turns on adaptive anti-aliasing. */
+    private static final String ANTI_ALIASING = "-aa";
+    /** Extension of Wavefront OBJ files added to the scene as meshes. */
+    private static final String OBJ_EXTENSION = ".obj";
+    /** Prefix of the command-line argument that limits influence of lights. */
+    private static final String INFLUENCE_RADIUS = "-radius=";
+    /** Command-line argument that turns on temporal reprojection. */
+    private static final String TEMPORAL = "-temporal";
+    /** Command-line argument that turns on rendering through tile streams. */
+    private static final String STREAMING = "-stream";
+    /** Prefix of the command-line argument that lists remote render workers. */
+    private static final String WORKERS = "-workers=";
+
+    /** Name of producers of this class in metrics and traces. */
+    private static final String NAME = "RayCasterParallel";
+    /** Metrics of producers of this class. */
+    private static final RenderMetrics METRICS = RenderMetrics.forProducer(NAME);
 
     /**
      * Starting point of a program.
      * 
      * @param args
-     *            Command-line argument
+     *            Command-line argument; {@value #ANTI_ALIASING} turns on
+     *            adaptive anti-aliasing, {@value #INFLUENCE_RADIUS} followed
+     *            by a number limits influence of every light to that
+     *            distance, {@value #TEMPORAL} reuses colors of the
+     *            previous frame after small camera moves, {@value #STREAMING}
+     *            renders frames through a {@link TileStreamingProducer}
+     *            (without anti-aliasing), {@value #WORKERS} followed by
+     *            comma-separated {@code host:port} pairs renders frames on
+     *            {@link RenderWorker}s (without any other option), paths
+     *            ending with {@value #OBJ_EXTENSION} are added to the scene
+     *            as triangle meshes and any other argument is a path of the
+     *            scene file to render instead of the predefined scene
      */
     public static void main(String[] args) {
+        AdaptiveSampler sampler = null;
+        Scene scene = null;
+        List<TriangleMesh> meshes = new ArrayList<>();
+        double influenceRadius = Double.POSITIVE_INFINITY;
+        TemporalReprojector reprojector = null;
+        boolean streaming = false;
+        List<InetSocketAddress> workers = null;
+        Path scenePath = null;
+
+        for (String arg : args) {
+            if (arg.equals(ANTI_ALIASING)) {
+                sampler = new AdaptiveSampler();
+                continue;
+            }
+
+            if (arg.equals(TEMPORAL)) {
+                reprojector = new TemporalReprojector();
+                continue;
+            }
+
+            if (arg.equals(STREAMING)) {
+                streaming = true;
+                continue;
+            }
+
+            if (arg.startsWith(WORKERS)) {
+                workers = new ArrayList<>();
+                for (String worker : arg.substring(WORKERS.length()).split(",")) {
+                    int colon = worker.lastIndexOf(':');
+                    try {
+                        workers.add(new InetSocketAddress(worker.substring(0, colon),
+                                Integer.parseInt(worker.substring(colon + 1))));
+                    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                        System.out.println("Invalid worker address: " + worker);
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            if (arg.startsWith(INFLUENCE_RADIUS)) {
+                try {
+                    influenceRadius = Double.parseDouble(arg.substring(INFLUENCE_RADIUS.length()));
+                } catch (NumberFormatException e) {
+                    influenceRadius = Double.NaN;
+                }
+                if (!(influenceRadius > 0)) {
+                    System.out.println("Influence radius must be a positive number: " + arg);
+                    return;
+                }
+                continue;
+            }
+
+            if (arg.toLowerCase().endsWith(OBJ_EXTENSION)) {
+                try {
+                    meshes.add(ObjReader.read(Paths.get(arg), 1, 1, 1, 0.5, 0.5, 0.5, 10));
+                } catch (IOException | InvalidPathException e) {
+                    System.out.println("Model file " + arg + " cannot be read: " + e.getMessage());
+                    return;
+                }
+                continue;
+            }
+
+            PackedSceneBuilder builder = new PackedSceneBuilder();
+            try {
+                scenePath = Paths.get(arg);
+                SceneReader.read(scenePath, builder);
+            } catch (IOException | InvalidPathException e) {
+                System.out.println("Scene file " + arg + " cannot be read: " + e.getMessage());
+                return;
+            }
+            scene = builder.getScene();
+        }
+
+        if (workers != null) {
+            if (sampler != null || reprojector != null || streaming || !meshes.isEmpty()
+                    || !Double.isInfinite(influenceRadius)) {
+                System.out.println("Remote workers render only scene files without other options.");
+                return;
+            }
+
+            StringWriter sceneText = new StringWriter();
+            if (scenePath != null) {
+                try (TextSceneWriter writer = new TextSceneWriter(sceneText)) {
+                    SceneReader.read(scenePath, writer);
+                } catch (IOException e) {
+                    System.out.println("Scene file " + scenePath + " cannot be read: " + e.getMessage());
+                    return;
+                }
+            }
+
+            RayTracerViewer.show(
+                    new RenderCoordinator(sceneText.toString(), workers),
+                    new Point3D(10, 0, 0),
+                    new Point3D(0, 0, 0),
+                    new Point3D(0, 0, 10),
+                    20,
+                    20);
+            return;
+        }
+
+        if (scene == null)
+            scene = RayTracerViewer.createPredefinedScene();
+        for (TriangleMesh mesh : meshes) {
+            scene.add(mesh);
+        }
+
+        CompiledScene compiled = Double.isInfinite(influenceRadius) ? CompiledScene.compile(scene)
+                : CompiledScene.compile(scene, influenceRadius);
+
         RayTracerViewer.show(
-                getIRayTracerProducer(),
+                streaming ? new TileStreamingProducer(compiled)
+                        : getIRayTracerProducer(compiled, sampler, reprojector),
                 new Point3D(10, 0, 0),
                 new Point3D(0, 0, 0),
                 new Point3D(0, 0, 10),
@@ -46,12 +203,55 @@ public class RayCasterParallel {
 
     /**
      * Returns a tracer producer which is able to create scene snapshots by
-     * using ray-tracing technique
+     * using ray-tracing technique. A {@link PackedResultObserver} gets frames
+     * rendered straight into its buffer unless anti-aliasing or reprojection
+     * is on. Requests are reported to the {@link RenderMetrics} of this
+     * class and their stages to the {@link RenderTrace}.
      * 
+     * @param scene
+     *            scene to render
+     * @param sampler
+     *            sampler used for anti-aliasing; {@code null} turns
+     *            anti-aliasing off
+     * @param reprojector
+     *            reprojector reusing colors of previous frames; {@code null}
+     *            turns temporal reprojection off
+     * @return the tracer producer
+     */
+    public static IRayTracerProducer getIRayTracerProducer(CompiledScene scene, AdaptiveSampler sampler,
+            TemporalReprojector reprojector) {
+        return getIRayTracerProducer(scene, sampler, reprojector, null);
+    }
+
+    /**
+     * Returns a tracer producer like
+     * {@link #getIRayTracerProducer(CompiledScene, AdaptiveSampler, TemporalReprojector)}
+     * which renders on the specified pool. The pool is not shut down by the
+     * producer, so its threads and their parallelism are under control of
+     * the caller.
+     *
+     * @param scene
+     *            scene to render
+     * @param sampler
+     *            sampler used for anti-aliasing; {@code null} turns
+     *            anti-aliasing off
+     * @param reprojector
+     *            reprojector reusing colors of previous frames; {@code null}
+     *            turns temporal reprojection off
+     * @param pool
+     *            pool rendering the frames; {@code null} renders every frame
+     *            on a new pool with one thread per available processor
      * @return the tracer producer
      */
-    private static IRayTracerProducer getIRayTracerProducer() {
+    public static IRayTracerProducer getIRayTracerProducer(CompiledScene scene, AdaptiveSampler sampler,
+            TemporalReprojector reprojector, ForkJoinPool pool) {
         return new IRayTracerProducer() {
+
+            /** Camera of the previous request, reused if the next one matches it. */
+            private final AtomicReference<Camera> camera = new AtomicReference<>();
+            /** Finished frames of previous requests. */
+            private final FrameCache frames = new FrameCache();
+
             @Override
             public void produce(
                     Point3D eye,
@@ -63,189 +263,125 @@ public class RayCasterParallel {
                     int height,
                     long requestNo,
                     IRayTracerResultObserver observer) {
+                long start = METRICS.start();
+                long frameStart = RenderTrace.begin();
+                TraceCounter counter = new TraceCounter();
+
+                try {
+                    render(eye, view, viewUp, horizontal, vertical, width, height, requestNo, observer, counter);
+                } catch (RuntimeException e) {
+                    METRICS.fail(start);
+                    throw e;
+                }
+
+                METRICS.addRays(counter.getRays());
+                METRICS.addIntersectionTests(counter.getIntersectionTests());
+                METRICS.finish(start, (long) width * height);
+                RenderTrace.end(RenderTrace.Stage.FRAME, NAME, requestNo, frameStart);
+            }
+
+            /**
+             * Renders the frame of a request and delivers it to the observer.
+             *
+             * @param eye
+             *            position of human observer
+             * @param view
+             *            position that is observed
+             * @param viewUp
+             *            specification of view-up vector
+             * @param horizontal
+             *            horizontal width of observed space
+             * @param vertical
+             *            vertical height of observed space
+             * @param width
+             *            number of pixels per screen row
+             * @param height
+             *            number of pixel per screen column
+             * @param requestNo
+             *            number of the request
+             * @param observer
+             *            observer receiving the frame
+             * @param counter
+             *            counter of traced rays and intersection tests
+             */
+            private void render(Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical,
+                    int width, int height, long requestNo, IRayTracerResultObserver observer,
+                    TraceCounter counter) {
+                short[][] frame = frames.get(eye, view, viewUp, horizontal, vertical, width, height,
+                        scene.getVersion());
+                if (frame != null) {
+                    long deliveryStart = RenderTrace.begin();
+                    PackedResultObserver.deliver(observer, frame[0], frame[1], frame[2], width, height, requestNo);
+                    RenderTrace.end(RenderTrace.Stage.DELIVERY, NAME, requestNo, deliveryStart);
+                    return;
+                }
+
                 System.out.println("Započinjem izračune...");
 
+                long setupStart = RenderTrace.begin();
+                // a local camera, since requests of a resized viewer can overlap
+                Camera current = Camera.of(camera.get(), eye, view, viewUp, horizontal, vertical, width, height);
+                camera.set(current);
+                current.getDirections();
+                RenderTrace.end(RenderTrace.Stage.SETUP, NAME, requestNo, setupStart);
+
+                long poolStart = RenderTrace.begin();
+                ForkJoinPool framePool = pool == null ? new ForkJoinPool() : pool;
+                if (pool == null)
+                    RenderTrace.end(RenderTrace.Stage.POOL_START, NAME, requestNo, poolStart);
+
+                if (observer instanceof PackedResultObserver && sampler == null && reprojector == null) {
+                    PackedResultObserver packed = (PackedResultObserver) observer;
+                    int[] argb = packed.getBuffer(width, height, requestNo);
+
+                    Job job = new Job(current, 0, height - 1, scene, argb);
+                    job.requestNo = requestNo;
+                    job.counter = counter;
+                    framePool.invoke(job);
+                    if (pool == null)
+                        framePool.shutdown();
+
+                    long deliveryStart = RenderTrace.begin();
+                    packed.acceptPacked(argb, requestNo);
+                    RenderTrace.end(RenderTrace.Stage.DELIVERY, NAME, requestNo, deliveryStart);
+                    return;
+                }
+
                 short[] red = new short[width * height];
                 short[] green = new short[width * height];
                 short[] blue = new short[width * height];
 
-                Point3D zAxis = view.sub(eye).normalize();
-                Point3D yAxis = viewUp.modifyNormalize().sub(zAxis.scalarMultiply(viewUp.scalarProduct(zAxis)))
-                        .normalize();
-                Point3D xAxis = zAxis.vectorProduct(yAxis).normalize();
-
-                Point3D screenCorner = view.sub(xAxis.scalarMultiply(horizontal / 2))
-                        .add(yAxis.scalarMultiply(vertical / 2));
-
-                Scene scene = RayTracerViewer.createPredefinedScene();
-
-                ForkJoinPool pool = new ForkJoinPool();
+                GraphicalObject[] hits = sampler == null ? null : new GraphicalObject[width * height];
+                TemporalReprojector.Frame temporal = reprojector == null ? null : reprojector.begin(scene, current);
+                Job job = new Job(current, 0, height - 1, scene, temporal, red, green, blue, hits);
+                job.requestNo = requestNo;
+                job.counter = counter;
+                framePool.invoke(job);
+                if (temporal != null)
+                    temporal.finish();
+
+                if (sampler != null) {
+                    int[] pixels = sampler.select(hits, red, green, blue, width, height);
+                    framePool.invoke(
+                            new RefineJob(sampler, current, scene, pixels, 0, pixels.length, red, green, blue,
+                                    counter));
+                }
 
-                pool.invoke(
-                        new Job(xAxis, yAxis, zAxis, 0, height - 1, height, width, horizontal, vertical, screenCorner,
-                                eye, scene, red, green, blue));
+                if (pool == null)
+                    framePool.shutdown();
 
-                pool.shutdown();
+                frames.put(eye, view, viewUp, horizontal, vertical, width, height, scene.getVersion(),
+                        red, green, blue);
 
                 System.out.println("Izračuni gotovi...");
-                observer.acceptResult(red, green, blue, requestNo);
+                long deliveryStart = RenderTrace.begin();
+                PackedResultObserver.deliver(observer, red, green, blue, width, height, requestNo);
+                RenderTrace.end(RenderTrace.Stage.DELIVERY, NAME, requestNo, deliveryStart);
                 System.out.println("Dojava gotova...");
             }
         };
     }
 
-    /**
-     * Traces image using ray-casting model and fills results into {@code rgb}
-     * array.
-     * 
-     * @param scene
-     *            current scene
-     * @param ray
-     *            ray from eye to point in scene
-     * @param rgb
-     *            color light
-     */
-    private static void tracer(Scene scene, Ray ray, short[] rgb) {
-        short[] newRGB = new short[3];
-        RayIntersection intersection = getClosestIntersection(scene, ray);
-
-        // if there is no intersection there is only ambient light
-        if (intersection != null) {
-            newRGB = determineColorFor(scene, ray, intersection);
-        } else {
-            newRGB[0] = AMBIENT_COLOR;
-            newRGB[1] = AMBIENT_COLOR;
-            newRGB[2] = AMBIENT_COLOR;
-        }
-
-        rgb[0] = newRGB[0];
-        rgb[1] = newRGB[1];
-        rgb[2] = newRGB[2];
-    }
-
-    /**
-     * Calculates the color of the {@code intersection} for specified
-     * {@code ray} in the specified {@code scene}.
-     * 
-     * @param scene
-     *            the scene
-     * @param ray
-     *            the ray
-     * @param intersection
-     *            the ray intersection
-     * @return array containing three {@code short} elements that represents RGB
-     *         color code
-     */
-    private static short[] determineColorFor(Scene scene, Ray ray, RayIntersection intersection) {
-        short[] rgb = new short[3];
-
-        rgb[0] = AMBIENT_COLOR;
-        rgb[1] = AMBIENT_COLOR;
-        rgb[2] = AMBIENT_COLOR;
-
-        for (LightSource light : scene.getLights()) {
-            Ray r = Ray.fromPoints(light.getPoint(), intersection.getPoint());
-            RayIntersection s = getClosestIntersection(scene, r);
-
-            if (s == null)
-                continue;
-
-            double distanceFromEye = light.getPoint().sub(intersection.getPoint()).norm();
-            double distanceFromLight = light.getPoint().sub(s.getPoint()).norm();
-
-            if (Double.compare(distanceFromLight + 0.01, distanceFromEye) < 0)
-                continue;
-
-            addDiffusseComponent(light, rgb, s);
-            addReflectiveComponent(light, rgb, s, ray);
-        }
-
-        return rgb;
-    }
-
-    /**
-     * Returns closest intersection of specified ray on given scene. If no
-     * intersection is found {@code null} will be returned.
-     * 
-     * @param scene
-     *            scene in which intersection must be found
-     * @param ray
-     *            ray used to find intersection
-     * @return the closest intersection of specified ray on given scene
-     */
-    private static RayIntersection getClosestIntersection(Scene scene, Ray ray) {
-        if (scene == null)
-            throw new NullPointerException("Argument scene cannot be null reference!");
-        if (ray == null)
-            throw new NullPointerException("Argument ray cannot be null reference!");
-
-        RayIntersection closest = null;
-
-        for (GraphicalObject object : scene.getObjects()) {
-            RayIntersection curr = object.findClosestRayIntersection(ray);
-
-            if (curr != null && (closest == null || curr.getDistance() < closest.getDistance())) {
-                closest = curr;
-            }
-        }
-
-        return closest;
-    }
-
-    /**
-     * Calculates the diffuse component of the light and stores it in
-     * {@code rgb} parameter.
-     * 
-     * @param light
-     *            light source
-     * @param rgb
-     *            color of the light represented by RGB model
-     * @param intersection
-     *            intersection we're calculating light for
-     */
-    private static void addDiffusseComponent(LightSource light, short[] rgb, RayIntersection intersection) {
-        Point3D n = intersection.getNormal();
-        Point3D l = light.getPoint().sub(intersection.getPoint()).normalize();
-
-        double tmp = l.scalarProduct(n);
-
-        rgb[0] += light.getR() * intersection.getKdr() * Math.max(tmp, 0);
-        rgb[1] += light.getG() * intersection.getKdg() * Math.max(tmp, 0);
-        rgb[2] += light.getB() * intersection.getKdb() * Math.max(tmp, 0);
-    }
-
-    /**
-     * Calculates the reflective component of the light and stores it in
-     * {@code rgb} parameter.
-     * 
-     * @param light
-     *            light source
-     * @param rgb
-     *            color of the light represented by RGB model
-     * @param intersection
-     *            intersection we're calculating light for
-     * @param ray
-     *            Ray used to find intersection.
-     */
-    private static void addReflectiveComponent(LightSource light, short[] rgb, RayIntersection intersection, Ray ray) {
-        Point3D n = intersection.getNormal();
-        Point3D l = light.getPoint().sub(intersection.getPoint());
-        Point3D projection = n.scalarMultiply(l.scalarProduct(n));
-
-        Point3D r = projection.add(projection.negate().add(l).scalarMultiply(-1)).normalize();
-        Point3D v = ray.start.sub(intersection.getPoint()).normalize();
-
-        double cos = r.scalarProduct(v);
-
-        if (cos >= 0) {
-            cos = Math.pow(cos, intersection.getKrn());
-
-            rgb[0] += light.getR() * intersection.getKrr() * cos;
-            rgb[1] += light.getG() * intersection.getKrg() * cos;
-            rgb[2] += light.getB() * intersection.getKrb() * cos;
-        }
-    }
-
     /**
      * {@code Job} class represent code that each new thread will process.
      * <p>
@@ -265,123 +401,217 @@ public class RayCasterParallel {
         /** Minimum number of rows worked by one thread. */
         private static final int MIN_ROWS = 100;
 
-        /** X axis. */
-        Point3D xAxis;
-        /** Y axis. */
-        Point3D yAxis;
-        /** Z axis. */
-        Point3D zAxis;
+        /** Camera generating primary rays. */
+        private Camera camera;
         /** Minimum y. */
         private int yMin;
         /** Maximum y. */
         private int yMax;
-        /** Number of pixel per screen column. */
-        private int height;
-        /** Number of pixels per screen row. */
-        private int width;
-        /** Horizontal width of observed space. */
-        private double horizontal;
-        /** Vertical height of observed space. */
-        private double vertical;
-        /** Corner of the screen. */
-        private Point3D screenCorner;
-        /** Eye position. */
-        private Point3D eye;
         /** Scene. */
-        private Scene scene;
+        private CompiledScene scene;
+        /** Reprojected frame; {@code null} if reprojection is off. */
+        private TemporalReprojector.Frame temporal;
         /** Red light. */
         private short[] red;
         /** Green light. */
         private short[] green;
         /** Blue light. */
         private short[] blue;
+        /** Packed colors; {@code null} if channel arrays are used. */
+        private int[] argb;
+        /** Objects hit by primary rays; {@code null} if not needed. */
+        private GraphicalObject[] hits;
+        /** Number of the request, reported to the {@link RenderTrace}. */
+        private long requestNo;
+        /** Counter of traced rays and intersection tests of the request. */
+        private TraceCounter counter;
 
         /**
          * Constructs a new {@code Job} from specified arguments.
          * 
-         * @param xAxis
-         *            x axis
-         * @param yAxis
-         *            y axis
-         * @param zAxis
-         *            z axis
+         * @param camera
+         *            camera generating primary rays
          * @param yMin
          *            minimum y
          * @param yMax
          *            maximum y
-         * @param height
-         *            number of pixel per screen column
-         * @param width
-         *            number of pixels per screen row
-         * @param horizontal
-         *            horizontal width of observed space
-         * @param vertical
-         *            vertical height of observed space
-         * @param screenCorner
-         *            corner of the screen
-         * @param eye
-         *            eye position
          * @param scene
          *            scene
+         * @param temporal
+         *            reprojected frame; {@code null} if reprojection is off
          * @param red
          *            red light
          * @param green
          *            green light
          * @param blue
          *            blue light
+         * @param hits
+         *            objects hit by primary rays; {@code null} if not needed
          */
-        public Job(Point3D xAxis, Point3D yAxis, Point3D zAxis, int yMin, int yMax, int height, int width,
-                double horizontal, double vertical, Point3D screenCorner, Point3D eye, Scene scene,
-                short[] red, short[] green, short[] blue) {
+        public Job(Camera camera, int yMin, int yMax, CompiledScene scene, TemporalReprojector.Frame temporal,
+                short[] red, short[] green, short[] blue, GraphicalObject[] hits) {
             super();
-            this.xAxis = xAxis;
-            this.yAxis = yAxis;
-            this.zAxis = zAxis;
+            this.camera = camera;
             this.yMin = yMin;
             this.yMax = yMax;
-            this.height = height;
-            this.width = width;
-            this.horizontal = horizontal;
-            this.vertical = vertical;
-            this.screenCorner = screenCorner;
-            this.eye = eye;
             this.scene = scene;
+            this.temporal = temporal;
             this.red = red;
             this.green = green;
             this.blue = blue;
+            this.hits = hits;
+        }
+
+        /**
+         * Constructs a new {@code Job} which stores packed colors.
+         *
+         * @param camera
+         *            camera generating primary rays
+         * @param yMin
+         *            minimum y
+         * @param yMax
+         *            maximum y
+         * @param scene
+         *            scene
+         * @param argb
+         *            packed colors
+         */
+        public Job(Camera camera, int yMin, int yMax, CompiledScene scene, int[] argb) {
+            this(camera, yMin, yMax, scene, null, null, null, null, null);
+            this.argb = argb;
+        }
+
+        /**
+         * Returns a job of the same frame for rows from {@code yMin} to
+         * {@code yMax}.
+         *
+         * @param yMin
+         *            minimum y
+         * @param yMax
+         *            maximum y
+         * @return the job
+         */
+        private Job part(int yMin, int yMax) {
+            Job job = new Job(camera, yMin, yMax, scene, temporal, red, green, blue, hits);
+            job.argb = argb;
+            job.requestNo = requestNo;
+            job.counter = counter;
+            return job;
         }
 
         @Override
         protected void compute() {
             int numOfY = (int) (yMax - yMin + 1);
+            if (numOfY > MIN_ROWS) {
+                invokeAll(part(yMin, (yMin + yMax) / 2), part((yMin + yMax) / 2 + 1, yMax));
+                return;
+            }
+
+            long start = RenderTrace.begin();
+            if (temporal != null) {
+                temporal.render(yMin, yMax, red, green, blue, hits, counter);
+            } else if (argb != null) {
+                Tracer.trace(scene, camera, 0, yMin, camera.getWidth() - 1, yMax, argb, yMin * camera.getWidth(),
+                        camera.getWidth(), hits, counter);
+            } else {
+                Tracer.trace(scene, camera, 0, yMin, camera.getWidth() - 1, yMax, red, green, blue,
+                        yMin * camera.getWidth(), camera.getWidth(), hits, counter);
+            }
+            RenderTrace.end(RenderTrace.Stage.JOB, NAME, requestNo, start, 0, yMin, camera.getWidth(), numOfY);
+        }
+    }
 
-            if (numOfY <= MIN_ROWS) {
+    /**
+     * {@code RefineJob} class refines a range of pixels selected by an
+     * {@link AdaptiveSampler}.
+     * <p>
+     * This class is the implementation of the {@link RecursiveAction}.
+     * 
+     * @author Karlo Vrbić
+     * @version 1.0
+     * @see RecursiveAction
+     */
+    static class RefineJob extends RecursiveAction {
 
-                int offset = yMin * width;
-                short[] rgb = new short[3];
+        /**
+         * Serialization ID.
+         */
+        private static final long serialVersionUID = 4937542116361457812L;
 
-                for (int y = yMin; y <= yMax; y++) {
-                    for (int x = 0; x < width; x++) {
-                        Point3D screenPoint = screenCorner
-                                .add(xAxis.scalarMultiply((double) x / (width - 1) * horizontal))
-                                .sub(yAxis.scalarMultiply((double) y / (height - 1) * vertical));
-                        Ray ray = Ray.fromPoints(eye, screenPoint);
+        /** Minimum number of pixels refined by one thread. */
+        private static final int MIN_PIXELS = 256;
 
-                        tracer(scene, ray, rgb);
+        /** Sampler that selected the pixels. */
+        private AdaptiveSampler sampler;
+        /** Camera generating primary rays. */
+        private Camera camera;
+        /** Scene. */
+        private CompiledScene scene;
+        /** Offsets of pixels to be refined. */
+        private int[] pixels;
+        /** Index of the first pixel, inclusive. */
+        private int from;
+        /** Index of the last pixel, exclusive. */
+        private int to;
+        /** Red light. */
+        private short[] red;
+        /** Green light. */
+        private short[] green;
+        /** Blue light. */
+        private short[] blue;
+        /** Counter of traced rays and intersection tests of the request. */
+        private TraceCounter counter;
 
-                        red[offset] = rgb[0] > 255 ? 255 : rgb[0];
-                        green[offset] = rgb[1] > 255 ? 255 : rgb[1];
-                        blue[offset] = rgb[2] > 255 ? 255 : rgb[2];
+        /**
+         * Constructs a new {@code RefineJob} from specified arguments.
+         * 
+         * @param sampler
+         *            sampler that selected the pixels
+         * @param camera
+         *            camera generating primary rays
+         * @param scene
+         *            scene
+         * @param pixels
+         *            offsets of pixels to be refined
+         * @param from
+         *            index of the first pixel, inclusive
+         * @param to
+         *            index of the last pixel, exclusive
+         * @param red
+         *            red light
+         * @param green
+         *            green light
+         * @param blue
+         *            blue light
+         * @param counter
+         *            counter of traced rays and intersection tests; {@code null}
+         *            if not counted
+         */
+        public RefineJob(AdaptiveSampler sampler, Camera camera, CompiledScene scene, int[] pixels, int from, int to,
+                short[] red, short[] green, short[] blue, TraceCounter counter) {
+            super();
+            this.sampler = sampler;
+            this.camera = camera;
+            this.scene = scene;
+            this.pixels = pixels;
+            this.from = from;
+            this.to = to;
+            this.red = red;
+            this.green = green;
+            this.blue = blue;
+            this.counter = counter;
+        }
 
-                        offset++;
-                    }
-                }
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_PIXELS) {
+                sampler.refine(scene, camera, pixels, from, to, red, green, blue, counter);
             } else {
+                int middle = (from + to) / 2;
+
                 invokeAll(
-                        new Job(xAxis, yAxis, zAxis, yMin, (yMin + yMax) / 2, height, width, horizontal, vertical,
-                                screenCorner, eye, scene, red, green, blue),
-                        new Job(xAxis, yAxis, zAxis, (yMin + yMax) / 2 + 1, yMax, height, width, horizontal, vertical,
-                                screenCorner, eye, scene, red, green, blue));
+                        new RefineJob(sampler, camera, scene, pixels, from, middle, red, green, blue, counter),
+                        new RefineJob(sampler, camera, scene, pixels, middle, to, red, green, blue, counter));
             }
         }
     }
@@ -0,0 +1,333 @@
+package hr.fer.zemris.java.raytracer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import hr.fer.zemris.java.raytracer.model.GraphicalObject;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.RayIntersection;
+import hr.fer.zemris.java.raytracer.model.RayPacket;
+import hr.fer.zemris.java.raytracer.model.TraceCounter;
+
+/**
+ * {@code TemporalReprojector} class reuses colors of the previous frame when
+ * the camera moves only slightly.
+ * <p>
+ * For every pixel the hit point and the hit object of its primary ray are
+ * kept. When the next frame is rendered, primary rays are still intersected
+ * with the scene, which is cheap with packets, but instead of shading the hit
+ * point it is projected into the previous camera. If the previous pixel at
+ * that position hit the same object at nearly the same point, its color is
+ * reused and shading, which casts a shadow ray to every light, is skipped.
+ * Disoccluded pixels and pixels whose reprojection is invalid are shaded as
+ * usual.
+ * <p>
+ * Diffuse light doesn't depend on the eye position, but reflective
+ * highlights do, so a color is reused at most {@code maxAge} frames in a row
+ * before the pixel is shaded again. History is dropped whenever the scene
+ * version or the frame size changes.
+ * <p>
+ * A frame is rendered by {@link #begin(CompiledScene, Camera)}, any number of
+ * {@link Frame#render} calls for disjoint row ranges, which may run in
+ * parallel, and {@link Frame#finish()}.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class TemporalReprojector {
+
+    /** Default number of frames a color can be reused in a row. */
+    public static final int DEFAULT_MAX_AGE = 8;
+    /**
+     * Default maximum distance between previous and new hit point, relative
+     * to the distance of the hit point from the eye.
+     */
+    public static final double DEFAULT_TOLERANCE = 0.005;
+
+    /** Number of frames a color can be reused in a row. */
+    private final int maxAge;
+    /** Maximum relative distance between previous and new hit point. */
+    private final double tolerance;
+
+    /** The last finished frame or {@code null}. */
+    private Frame history;
+
+    /**
+     * Constructs a new {@code TemporalReprojector} with
+     * {@link #DEFAULT_MAX_AGE} and {@link #DEFAULT_TOLERANCE}.
+     */
+    public TemporalReprojector() {
+        this(DEFAULT_MAX_AGE, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Constructs a new {@code TemporalReprojector} with specified maximum age
+     * and tolerance.
+     *
+     * @param maxAge
+     *            number of frames a color can be reused in a row
+     * @param tolerance
+     *            maximum distance between previous and new hit point,
+     *            relative to the distance of the hit point from the eye
+     * @throws IllegalArgumentException
+     *             if either of arguments is a negative number
+     */
+    public TemporalReprojector(int maxAge, double tolerance) {
+        if (maxAge < 0 || !(tolerance >= 0))
+            throw new IllegalArgumentException("Maximum age and tolerance cannot be negative numbers!");
+
+        this.maxAge = Math.min(maxAge, Byte.MAX_VALUE);
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Begins a new frame that reprojects the last finished frame.
+     *
+     * @param scene
+     *            scene to render
+     * @param camera
+     *            camera of the new frame
+     * @return the new frame
+     * @throws NullPointerException
+     *             if either of arguments is a null reference
+     */
+    public synchronized Frame begin(CompiledScene scene, Camera camera) {
+        if (scene == null || camera == null)
+            throw new NullPointerException("Scene or camera cannot be a null reference!");
+
+        Frame previous = history;
+        if (previous != null && (previous.scene.getVersion() != scene.getVersion()
+                || previous.camera.getWidth() != camera.getWidth()
+                || previous.camera.getHeight() != camera.getHeight()))
+            previous = null;
+
+        return new Frame(scene, camera, previous);
+    }
+
+    /**
+     * Drops the history, so the next frame is shaded completely.
+     */
+    public synchronized void reset() {
+        history = null;
+    }
+
+    /**
+     * Makes specified frame the history of the next frame.
+     *
+     * @param frame
+     *            finished frame
+     */
+    private synchronized void publish(Frame frame) {
+        history = frame;
+    }
+
+    /**
+     * {@code Frame} class is one frame rendered with reprojection.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    public class Frame {
+
+        /** Scene. */
+        private final CompiledScene scene;
+        /** Camera. */
+        private final Camera camera;
+        /**
+         * Previous frame or {@code null}; dropped once this frame is finished,
+         * so frames don't keep all earlier frames alive.
+         */
+        private Frame previous;
+
+        /** Hit points, three coordinates per pixel. */
+        private final double[] points;
+        /** Hit objects. */
+        private final GraphicalObject[] objects;
+        /** Red light before any post-processing. */
+        private final short[] red;
+        /** Green light before any post-processing. */
+        private final short[] green;
+        /** Blue light before any post-processing. */
+        private final short[] blue;
+        /** Number of frames the color of a pixel was reused in a row. */
+        private final byte[] age;
+
+        /** Number of reused pixels. */
+        private final AtomicInteger reused = new AtomicInteger();
+
+        /**
+         * Constructs a new {@code Frame} from specified arguments.
+         *
+         * @param scene
+         *            scene
+         * @param camera
+         *            camera
+         * @param previous
+         *            previous frame or {@code null}
+         */
+        private Frame(CompiledScene scene, Camera camera, Frame previous) {
+            int size = camera.getWidth() * camera.getHeight();
+
+            this.scene = scene;
+            this.camera = camera;
+            this.previous = previous;
+            this.points = new double[3 * size];
+            this.objects = new GraphicalObject[size];
+            this.red = new short[size];
+            this.green = new short[size];
+            this.blue = new short[size];
+            this.age = new byte[size];
+        }
+
+        /**
+         * Renders rows from {@code yMin} to {@code yMax} and stores their
+         * colors, clamped to 255, in the frame arrays.
+         *
+         * @param yMin
+         *            minimum y, inclusive
+         * @param yMax
+         *            maximum y, inclusive
+         * @param red
+         *            red light of the frame
+         * @param green
+         *            green light of the frame
+         * @param blue
+         *            blue light of the frame
+         * @param hits
+         *            receives objects hit by primary rays; {@code null} if
+         *            not needed
+         * @param counter
+         *            counter of traced rays and intersection tests;
+         *            {@code null} if not counted
+         */
+        public void render(int yMin, int yMax, short[] red, short[] green, short[] blue, GraphicalObject[] hits,
+                TraceCounter counter) {
+            int width = camera.getWidth();
+            double[] directions = camera.getDirections();
+            RayPacket packet = new RayPacket(Tracer.PACKET_SIZE * Tracer.PACKET_SIZE);
+            short[] rgb = new short[3];
+            double[] pixel = new double[2];
+
+            for (int yStart = yMin; yStart <= yMax; yStart += Tracer.PACKET_SIZE) {
+                int yEnd = Math.min(yStart + Tracer.PACKET_SIZE - 1, yMax);
+
+                for (int xStart = 0; xStart < width; xStart += Tracer.PACKET_SIZE) {
+                    int xEnd = Math.min(xStart + Tracer.PACKET_SIZE - 1, width - 1);
+
+                    packet.reset(camera.getEye());
+                    for (int y = yStart; y <= yEnd; y++) {
+                        for (int x = xStart; x <= xEnd; x++) {
+                            int index = 3 * (y * width + x);
+                            packet.add(directions[index], directions[index + 1], directions[index + 2]);
+                        }
+                    }
+                    packet.seal();
+
+                    Tracer.intersect(scene, packet, counter);
+
+                    int index = 0;
+                    for (int y = yStart; y <= yEnd; y++) {
+                        for (int x = xStart; x <= xEnd; x++) {
+                            int offset = y * width + x;
+                            GraphicalObject object = packet.getClosestObject(index);
+                            RayIntersection intersection = packet.getClosestIntersection(index);
+                            Ray ray = packet.getRay(index++);
+
+                            if (!reuse(offset, object, intersection, pixel)) {
+                                Tracer.shade(scene, ray, intersection, rgb, counter);
+
+                                this.red[offset] = rgb[0] > 255 ? 255 : rgb[0];
+                                this.green[offset] = rgb[1] > 255 ? 255 : rgb[1];
+                                this.blue[offset] = rgb[2] > 255 ? 255 : rgb[2];
+                            }
+
+                            red[offset] = this.red[offset];
+                            green[offset] = this.green[offset];
+                            blue[offset] = this.blue[offset];
+                            if (hits != null)
+                                hits[offset] = object;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Records the hit of the pixel and copies its color from the previous
+         * frame if reprojection is valid.
+         *
+         * @param offset
+         *            offset of the pixel
+         * @param object
+         *            hit object or {@code null}
+         * @param intersection
+         *            hit intersection or {@code null}
+         * @param pixel
+         *            temporary array for projected coordinates
+         * @return {@code true} if color was reused; {@code false} if pixel
+         *         must be shaded
+         */
+        private boolean reuse(int offset, GraphicalObject object, RayIntersection intersection, double[] pixel) {
+            if (intersection == null) {
+                objects[offset] = null;
+                age[offset] = 0;
+                return false;
+            }
+
+            Point3D point = intersection.getPoint();
+            objects[offset] = object;
+            points[3 * offset] = point.x;
+            points[3 * offset + 1] = point.y;
+            points[3 * offset + 2] = point.z;
+            age[offset] = 0;
+
+            if (previous == null || !previous.camera.project(point, pixel))
+                return false;
+
+            long px = Math.round(pixel[0]);
+            long py = Math.round(pixel[1]);
+            int width = previous.camera.getWidth();
+            if (px < 0 || py < 0 || px >= width || py >= previous.camera.getHeight())
+                return false;
+
+            int source = (int) (py * width + px);
+            if (previous.objects[source] != object || previous.age[source] >= maxAge)
+                return false;
+
+            double dx = previous.points[3 * source] - point.x;
+            double dy = previous.points[3 * source + 1] - point.y;
+            double dz = previous.points[3 * source + 2] - point.z;
+            double limit = tolerance * point.sub(camera.getEye()).norm();
+            if (dx * dx + dy * dy + dz * dz > limit * limit)
+                return false;
+
+            red[offset] = previous.red[source];
+            green[offset] = previous.green[source];
+            blue[offset] = previous.blue[source];
+            age[offset] = (byte) (previous.age[source] + 1);
+            reused.incrementAndGet();
+
+            return true;
+        }
+
+        /**
+         * Finishes this frame and makes it the history of the next frame.
+         * Must be called after all rows were rendered.
+         */
+        public void finish() {
+            previous = null;
+            publish(this);
+        }
+
+        /**
+         * Returns the number of pixels whose color was reused from the
+         * previous frame.
+         *
+         * @return number of reused pixels
+         */
+        public int getReusedCount() {
+            return reused.get();
+        }
+    }
+
+}
@@ -0,0 +1,501 @@
+package hr.fer.zemris.java.raytracer;
+
+import hr.fer.zemris.java.raytracer.model.GraphicalObject;
+import hr.fer.zemris.java.raytracer.model.LightSource;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.RayIntersection;
+import hr.fer.zemris.java.raytracer.model.RayPacket;
+import hr.fer.zemris.java.raytracer.model.TraceCounter;
+
+/**
+ * {@code Tracer} class contains the ray-casting model shared by
+ * {@link RayCaster} and {@link RayCasterParallel}.
+ * <p>
+ * Rays can be traced one by one with
+ * {@link #tracer(CompiledScene, Ray, short[], TraceCounter)} or in coherent
+ * bundles: {@link #intersect(CompiledScene, RayPacket, TraceCounter)} finds
+ * the closest object for every ray of a {@link RayPacket} and
+ * {@link #tracer(CompiledScene, RayPacket, int, short[], TraceCounter)} then
+ * shades one ray of the packet. Whole rectangular regions of an image are
+ * traced in packets by
+ * {@link #trace(CompiledScene, Camera, int, int, int, int, short[], short[], short[], int, int, GraphicalObject[], TraceCounter)}.
+ * <p>
+ * Traced rays and ray-primitive intersection tests made while searching for
+ * closest objects are added to the {@link TraceCounter} of the request, so
+ * producers report the work of their own frames only.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public final class Tracer {
+
+    /** Default ambient color intensity. */
+    public static final short AMBIENT_COLOR = 15;
+    /** Width and height of a pixel block traced as one packet. */
+    public static final int PACKET_SIZE = 8;
+
+    /**
+     * Private constructor used to prevent instantiation.
+     */
+    private Tracer() {
+    }
+
+    /**
+     * Traces image using ray-casting model and fills results into {@code rgb}
+     * array.
+     *
+     * @param scene
+     *            current scene
+     * @param ray
+     *            ray from eye to point in scene
+     * @param rgb
+     *            color light
+     * @param counter
+     *            counter of traced rays and intersection tests; {@code null}
+     *            if not counted
+     * @return object hit by the ray or {@code null} if there is none
+     */
+    public static GraphicalObject tracer(CompiledScene scene, Ray ray, short[] rgb, TraceCounter counter) {
+        GraphicalObject closestObject = null;
+        RayIntersection closest = null;
+
+        if (counter != null)
+            counter.addRays(1);
+
+        GraphicalObject[] objects = scene.objects;
+        for (int o = 0; o < objects.length; o++) {
+            RayIntersection curr = findClosest(scene, o, ray, counter);
+
+            if (curr != null && (closest == null || curr.getDistance() < closest.getDistance())) {
+                closest = curr;
+                closestObject = objects[o];
+            }
+        }
+
+        shade(scene, ray, closest, rgb, counter);
+        return closestObject;
+    }
+
+    /**
+     * Traces ray at {@code index} of the specified packet and fills results
+     * into {@code rgb} array. Packet must already be intersected with the
+     * scene by {@link #intersect(CompiledScene, RayPacket, TraceCounter)}.
+     *
+     * @param scene
+     *            current scene
+     * @param packet
+     *            intersected packet of rays
+     * @param index
+     *            index of the ray in the packet
+     * @param rgb
+     *            color light
+     * @param counter
+     *            counter of traced shadow rays and intersection tests;
+     *            {@code null} if not counted
+     * @return object hit by the ray or {@code null} if there is none
+     */
+    public static GraphicalObject tracer(CompiledScene scene, RayPacket packet, int index, short[] rgb,
+            TraceCounter counter) {
+        shade(scene, packet.getRay(index), packet.getClosestIntersection(index), rgb, counter);
+        return packet.getClosestObject(index);
+    }
+
+    /**
+     * Traces pixels of the rectangular region of the image in packets of
+     * {@value #PACKET_SIZE} by {@value #PACKET_SIZE} pixels and stores their
+     * colors, clamped to 255. Color of pixel {@code (x, y)} is stored at index
+     * {@code offset + (y - yMin) * stride + (x - xMin)} of the color arrays.
+     *
+     * @param scene
+     *            scene to render
+     * @param camera
+     *            camera generating primary rays
+     * @param xMin
+     *            minimum x, inclusive
+     * @param yMin
+     *            minimum y, inclusive
+     * @param xMax
+     *            maximum x, inclusive
+     * @param yMax
+     *            maximum y, inclusive
+     * @param red
+     *            red light
+     * @param green
+     *            green light
+     * @param blue
+     *            blue light
+     * @param offset
+     *            index of pixel {@code (xMin, yMin)} in the color arrays
+     * @param stride
+     *            distance between indexes of vertically adjacent pixels
+     * @param hits
+     *            receives objects hit by primary rays at the same indexes as
+     *            colors; {@code null} if not needed
+     * @param counter
+     *            counter of traced rays and intersection tests; {@code null}
+     *            if not counted
+     */
+    public static void trace(CompiledScene scene, Camera camera, int xMin, int yMin, int xMax, int yMax,
+            short[] red, short[] green, short[] blue, int offset, int stride, GraphicalObject[] hits,
+            TraceCounter counter) {
+        trace(scene, camera, xMin, yMin, xMax, yMax, red, green, blue, null, offset, stride, hits, counter);
+    }
+
+    /**
+     * Traces pixels of the rectangular region of the image like
+     * {@link #trace(CompiledScene, Camera, int, int, int, int, short[], short[], short[], int, int, GraphicalObject[], TraceCounter)}
+     * but stores every color as one opaque packed ARGB {@code int}, so the
+     * result can be written straight into an image raster.
+     *
+     * @param scene
+     *            scene to render
+     * @param camera
+     *            camera generating primary rays
+     * @param xMin
+     *            minimum x, inclusive
+     * @param yMin
+     *            minimum y, inclusive
+     * @param xMax
+     *            maximum x, inclusive
+     * @param yMax
+     *            maximum y, inclusive
+     * @param argb
+     *            packed colors
+     * @param offset
+     *            index of pixel {@code (xMin, yMin)} in the color array
+     * @param stride
+     *            distance between indexes of vertically adjacent pixels
+     * @param hits
+     *            receives objects hit by primary rays at the same indexes as
+     *            colors; {@code null} if not needed
+     * @param counter
+     *            counter of traced rays and intersection tests; {@code null}
+     *            if not counted
+     */
+    public static void trace(CompiledScene scene, Camera camera, int xMin, int yMin, int xMax, int yMax,
+            int[] argb, int offset, int stride, GraphicalObject[] hits, TraceCounter counter) {
+        trace(scene, camera, xMin, yMin, xMax, yMax, null, null, null, argb, offset, stride, hits, counter);
+    }
+
+    /**
+     * Traces pixels of the rectangular region of the image into channel
+     * arrays or, if {@code argb} is not {@code null}, into packed colors.
+     *
+     * @param scene
+     *            scene to render
+     * @param camera
+     *            camera generating primary rays
+     * @param xMin
+     *            minimum x, inclusive
+     * @param yMin
+     *            minimum y, inclusive
+     * @param xMax
+     *            maximum x, inclusive
+     * @param yMax
+     *            maximum y, inclusive
+     * @param red
+     *            red light
+     * @param green
+     *            green light
+     * @param blue
+     *            blue light
+     * @param argb
+     *            packed colors; {@code null} if channel arrays are used
+     * @param offset
+     *            index of pixel {@code (xMin, yMin)} in the color arrays
+     * @param stride
+     *            distance between indexes of vertically adjacent pixels
+     * @param hits
+     *            receives objects hit by primary rays; {@code null} if not
+     *            needed
+     * @param counter
+     *            counter of traced rays and intersection tests; {@code null}
+     *            if not counted
+     */
+    private static void trace(CompiledScene scene, Camera camera, int xMin, int yMin, int xMax, int yMax,
+            short[] red, short[] green, short[] blue, int[] argb, int offset, int stride, GraphicalObject[] hits,
+            TraceCounter counter) {
+        int width = camera.getWidth();
+        double[] directions = camera.getDirections();
+        RayPacket packet = new RayPacket(PACKET_SIZE * PACKET_SIZE);
+        short[] rgb = new short[3];
+
+        for (int yStart = yMin; yStart <= yMax; yStart += PACKET_SIZE) {
+            int yEnd = Math.min(yStart + PACKET_SIZE - 1, yMax);
+
+            for (int xStart = xMin; xStart <= xMax; xStart += PACKET_SIZE) {
+                int xEnd = Math.min(xStart + PACKET_SIZE - 1, xMax);
+
+                packet.reset(camera.getEye());
+                for (int y = yStart; y <= yEnd; y++) {
+                    for (int x = xStart; x <= xEnd; x++) {
+                        int index = 3 * (y * width + x);
+                        packet.add(directions[index], directions[index + 1], directions[index + 2]);
+                    }
+                }
+                packet.seal();
+
+                intersect(scene, packet, counter);
+
+                int index = 0;
+                for (int y = yStart; y <= yEnd; y++) {
+                    int pixel = offset + (y - yMin) * stride + (xStart - xMin);
+
+                    for (int x = xStart; x <= xEnd; x++) {
+                        GraphicalObject hit = tracer(scene, packet, index++, rgb, counter);
+                        if (hits != null)
+                            hits[pixel] = hit;
+
+                        int r = rgb[0] > 255 ? 255 : rgb[0];
+                        int g = rgb[1] > 255 ? 255 : rgb[1];
+                        int b = rgb[2] > 255 ? 255 : rgb[2];
+                        if (argb != null) {
+                            argb[pixel] = 0xFF000000 | r << 16 | g << 8 | b;
+                        } else {
+                            red[pixel] = (short) r;
+                            green[pixel] = (short) g;
+                            blue[pixel] = (short) b;
+                        }
+
+                        pixel++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the closest object of the {@code scene} for every ray of the
+     * {@code packet}. Objects that implement
+     * {@link hr.fer.zemris.java.raytracer.model.PacketIntersectable} are
+     * tested against the whole packet at once, other objects ray by ray.
+     *
+     * @param scene
+     *            scene in which intersections must be found
+     * @param packet
+     *            sealed packet of rays
+     * @param counter
+     *            counter of traced rays and intersection tests; {@code null}
+     *            if not counted
+     */
+    public static void intersect(CompiledScene scene, RayPacket packet, TraceCounter counter) {
+        GraphicalObject[] objects = scene.objects;
+        long tests = 0;
+
+        for (int o = 0; o < objects.length; o++) {
+            if (scene.packetObjects[o] != null) {
+                scene.packetObjects[o].intersect(packet, counter);
+                continue;
+            }
+
+            GraphicalObject object = objects[o];
+            tests += packet.size();
+            for (int i = 0, n = packet.size(); i < n; i++) {
+                RayIntersection curr = object.findClosestRayIntersection(packet.getRay(i));
+
+                if (curr != null)
+                    packet.offer(i, object, curr.getDistance());
+            }
+        }
+
+        if (counter != null) {
+            counter.addRays(packet.size());
+            counter.addIntersectionTests(tests);
+        }
+    }
+
+    /**
+     * Fills the color of the specified {@code intersection} into {@code rgb}
+     * array.
+     *
+     * @param scene
+     *            current scene
+     * @param ray
+     *            ray from eye to point in scene
+     * @param intersection
+     *            closest intersection of the ray or {@code null} if there is
+     *            none
+     * @param rgb
+     *            color light
+     * @param counter
+     *            counter of traced shadow rays and intersection tests;
+     *            {@code null} if not counted
+     */
+    public static void shade(CompiledScene scene, Ray ray, RayIntersection intersection, short[] rgb,
+            TraceCounter counter) {
+        // if there is no intersection there is only ambient light
+        if (intersection != null) {
+            short[] newRGB = determineColorFor(scene, ray, intersection, counter);
+
+            rgb[0] = newRGB[0];
+            rgb[1] = newRGB[1];
+            rgb[2] = newRGB[2];
+        } else {
+            rgb[0] = AMBIENT_COLOR;
+            rgb[1] = AMBIENT_COLOR;
+            rgb[2] = AMBIENT_COLOR;
+        }
+    }
+
+    /**
+     * Calculates the color of the {@code intersection} for specified
+     * {@code ray} in the specified {@code scene}.
+     *
+     * @param scene
+     *            the scene
+     * @param ray
+     *            the ray
+     * @param intersection
+     *            the ray intersection
+     * @param counter
+     *            counter of traced shadow rays and intersection tests;
+     *            {@code null} if not counted
+     * @return array containing three {@code short} elements that represents RGB
+     *         color code
+     */
+    private static short[] determineColorFor(CompiledScene scene, Ray ray, RayIntersection intersection,
+            TraceCounter counter) {
+        short[] rgb = new short[3];
+
+        rgb[0] = AMBIENT_COLOR;
+        rgb[1] = AMBIENT_COLOR;
+        rgb[2] = AMBIENT_COLOR;
+
+        for (int index : scene.lightsAt(intersection.getPoint())) {
+            if (!scene.reaches(index, intersection.getPoint()))
+                continue;
+
+            LightSource light = scene.lights[index];
+            Ray r = Ray.fromPoints(light.getPoint(), intersection.getPoint());
+            RayIntersection s = getClosestIntersection(scene, r, counter);
+
+            if (s == null)
+                continue;
+
+            double distanceFromEye = light.getPoint().sub(intersection.getPoint()).norm();
+            double distanceFromLight = light.getPoint().sub(s.getPoint()).norm();
+
+            if (Double.compare(distanceFromLight + 0.01, distanceFromEye) < 0)
+                continue;
+
+            addDiffusseComponent(light, rgb, s);
+            addReflectiveComponent(light, rgb, s, ray);
+        }
+
+        return rgb;
+    }
+
+    /**
+     * Returns closest intersection of specified ray on given scene. If no
+     * intersection is found {@code null} will be returned.
+     *
+     * @param scene
+     *            scene in which intersection must be found
+     * @param ray
+     *            ray used to find intersection
+     * @param counter
+     *            counter of traced rays and intersection tests; {@code null}
+     *            if not counted
+     * @return the closest intersection of specified ray on given scene
+     */
+    private static RayIntersection getClosestIntersection(CompiledScene scene, Ray ray, TraceCounter counter) {
+        if (scene == null)
+            throw new NullPointerException("Argument scene cannot be null reference!");
+        if (ray == null)
+            throw new NullPointerException("Argument ray cannot be null reference!");
+
+        RayIntersection closest = null;
+
+        if (counter != null)
+            counter.addRays(1);
+        for (int o = 0; o < scene.objects.length; o++) {
+            RayIntersection curr = findClosest(scene, o, ray, counter);
+
+            if (curr != null && (closest == null || curr.getDistance() < closest.getDistance())) {
+                closest = curr;
+            }
+        }
+
+        return closest;
+    }
+
+    /**
+     * Returns the closest intersection of the ray with the object at
+     * specified index of the scene and counts the intersection tests made.
+     *
+     * @param scene
+     *            the scene
+     * @param o
+     *            index of the object
+     * @param ray
+     *            the ray
+     * @param counter
+     *            counter of traced rays and intersection tests; {@code null}
+     *            if not counted
+     * @return the closest intersection or {@code null} if there is none
+     */
+    private static RayIntersection findClosest(CompiledScene scene, int o, Ray ray, TraceCounter counter) {
+        if (scene.packetObjects[o] != null)
+            return scene.packetObjects[o].findClosestRayIntersection(ray, counter);
+
+        if (counter != null)
+            counter.addIntersectionTests(1);
+        return scene.objects[o].findClosestRayIntersection(ray);
+    }
+
+    /**
+     * Calculates the diffuse component of the light and stores it in
+     * {@code rgb} parameter.
+     *
+     * @param light
+     *            light source
+     * @param rgb
+     *            color of the light represented by RGB model
+     * @param intersection
+     *            intersection we're calculating light for
+     */
+    private static void addDiffusseComponent(LightSource light, short[] rgb, RayIntersection intersection) {
+        Point3D n = intersection.getNormal();
+        Point3D l = light.getPoint().sub(intersection.getPoint()).normalize();
+
+        double tmp = l.scalarProduct(n);
+
+        rgb[0] += light.getR() * intersection.getKdr() * Math.max(tmp, 0);
+        rgb[1] += light.getG() * intersection.getKdg() * Math.max(tmp, 0);
+        rgb[2] += light.getB() * intersection.getKdb() * Math.max(tmp, 0);
+    }
+
+    /**
+     * Calculates the reflective component of the light and stores it in
+     * {@code rgb} parameter.
+     *
+     * @param light
+     *            light source
+     * @param rgb
+     *            color of the light represented by RGB model
+     * @param intersection
+     *            intersection we're calculating light for
+     * @param ray
+     *            Ray used to find intersection.
+     */
+    private static void addReflectiveComponent(LightSource light, short[] rgb, RayIntersection intersection, Ray ray) {
+        Point3D n = intersection.getNormal();
+        Point3D l = light.getPoint().sub(intersection.getPoint());
+        Point3D projection = n.scalarMultiply(l.scalarProduct(n));
+
+        Point3D r = projection.add(projection.negate().add(l).scalarMultiply(-1)).normalize();
+        Point3D v = ray.start.sub(intersection.getPoint()).normalize();
+
+        double cos = r.scalarProduct(v);
+
+        if (cos >= 0) {
+            cos = Math.pow(cos, intersection.getKrn());
+
+            rgb[0] += light.getR() * intersection.getKrr() * cos;
+            rgb[1] += light.getG() * intersection.getKrg() * cos;
+            rgb[2] += light.getB() * intersection.getKrb() * cos;
+        }
+    }
+
+}
@@ -0,0 +1,423 @@
+package hr.fer.zemris.java.raytracer.animation;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.imageio.ImageIO;
+
+import hr.fer.zemris.java.raytracer.Camera;
+import hr.fer.zemris.java.raytracer.CompiledScene;
+import hr.fer.zemris.java.raytracer.Tracer;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.TriangleMesh;
+import hr.fer.zemris.java.raytracer.scene.ObjReader;
+import hr.fer.zemris.java.raytracer.scene.PackedSceneBuilder;
+import hr.fer.zemris.java.raytracer.scene.SceneReader;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+/**
+ * {@code AnimationRenderer} class renders frames of a {@link CameraPath} into
+ * image files without any user interface.
+ * <p>
+ * Several frames are in flight at once and all of them share the compiled
+ * scene. Every frame is split into bands of rows that are rendered by one
+ * fork/join pool, so threads that finish the last bands of a frame steal
+ * bands of the next one instead of waiting. Frames are rendered straight
+ * into the rasters of images as packed colors, and finished images are
+ * encoded and written by a separate small pool while the next frames are
+ * rendering. The number of frames in flight, which includes frames that are
+ * waiting to be written, is bounded, so memory use doesn't depend on the
+ * sequence length.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see CameraPath
+ */
+public class AnimationRenderer {
+
+    /** Default number of frames rendered or written at the same time. */
+    public static final int DEFAULT_FRAMES_IN_FLIGHT = 3;
+    /** Default image format. */
+    public static final String DEFAULT_FORMAT = "png";
+
+    /** Number of rendering threads. */
+    private static final int NUM_OF_THREADS = Runtime.getRuntime().availableProcessors();
+    /** Number of encoding threads. */
+    private static final int NUM_OF_ENCODERS = Math.max(1, NUM_OF_THREADS / 4);
+
+    /** Prefix of the command-line argument that sets frame size. */
+    private static final String SIZE = "-size=";
+    /** Prefix of the command-line argument that sets number of frames in flight. */
+    private static final String IN_FLIGHT = "-inflight=";
+    /** Prefix of the command-line argument that sets image format. */
+    private static final String FORMAT = "-format=";
+    /** Extension of Wavefront OBJ files added to the scene as meshes. */
+    private static final String OBJ_EXTENSION = ".obj";
+
+    /** Scene to render. */
+    private final CompiledScene scene;
+    /** Camera fly-through. */
+    private final CameraPath path;
+    /** Horizontal width of observed space. */
+    private final double horizontal;
+    /** Vertical height of observed space. */
+    private final double vertical;
+    /** Width of a frame in pixels. */
+    private final int width;
+    /** Height of a frame in pixels. */
+    private final int height;
+
+    /**
+     * Constructs a new {@code AnimationRenderer} from specified arguments.
+     *
+     * @param scene
+     *            scene to render
+     * @param path
+     *            camera fly-through
+     * @param horizontal
+     *            horizontal width of observed space
+     * @param vertical
+     *            vertical height of observed space
+     * @param width
+     *            width of a frame in pixels
+     * @param height
+     *            height of a frame in pixels
+     * @throws NullPointerException
+     *             if argument {@code scene} or {@code path} is a null
+     *             reference
+     * @throws IllegalArgumentException
+     *             if {@code path} has no keyframes or {@code width} or
+     *             {@code height} is not a positive number
+     */
+    public AnimationRenderer(CompiledScene scene, CameraPath path, double horizontal, double vertical, int width,
+            int height) {
+        if (scene == null || path == null)
+            throw new NullPointerException("Scene or camera path cannot be a null reference!");
+
+        if (path.size() == 0)
+            throw new IllegalArgumentException("Camera path has no keyframes!");
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Width and height must be positive numbers!");
+
+        this.scene = scene;
+        this.path = path;
+        this.horizontal = horizontal;
+        this.vertical = vertical;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Returns the camera of specified frame. Frames are spread evenly from
+     * the first to the last keyframe of the path.
+     *
+     * @param frame
+     *            index of the frame
+     * @param frameCount
+     *            number of frames
+     * @return the camera
+     */
+    public Camera cameraOf(int frame, int frameCount) {
+        double time = frameCount == 1 ? path.getStart()
+                : path.getStart() + (path.getEnd() - path.getStart()) * frame / (frameCount - 1);
+
+        return path.cameraAt(time, horizontal, vertical, width, height);
+    }
+
+    /**
+     * Renders specified number of frames into the directory. Frame {@code i}
+     * is written to the file named {@link #fileName(int, String)}.
+     *
+     * @param frameCount
+     *            number of frames
+     * @param directory
+     *            output directory; it is created if it doesn't exist
+     * @param format
+     *            informal name of the image format, e.g. {@code png}
+     * @param framesInFlight
+     *            maximum number of frames rendered or written at the same
+     *            time
+     * @throws IOException
+     *             if directory cannot be created or a frame cannot be written
+     * @throws InterruptedException
+     *             if the calling thread is interrupted while waiting
+     * @throws NullPointerException
+     *             if argument {@code directory} or {@code format} is a null
+     *             reference
+     * @throws IllegalArgumentException
+     *             if {@code frameCount} or {@code framesInFlight} is not a
+     *             positive number or there is no writer for the format
+     */
+    public void render(int frameCount, Path directory, String format, int framesInFlight)
+            throws IOException, InterruptedException {
+        if (directory == null || format == null)
+            throw new NullPointerException("Directory or format cannot be a null reference!");
+
+        if (frameCount <= 0 || framesInFlight <= 0)
+            throw new IllegalArgumentException("Frame count and frames in flight must be positive numbers!");
+        if (!ImageIO.getImageWritersByFormatName(format).hasNext())
+            throw new IllegalArgumentException("There is no writer for image format " + format + "!");
+
+        Files.createDirectories(directory);
+
+        ForkJoinPool renderPool = new ForkJoinPool(NUM_OF_THREADS);
+        ExecutorService encodePool = Executors.newFixedThreadPool(NUM_OF_ENCODERS, r -> {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Semaphore inFlight = new Semaphore(framesInFlight);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<CompletableFuture<Void>> frames = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < frameCount && error.get() == null; i++) {
+                inFlight.acquire();
+
+                Camera camera = cameraOf(i, frameCount);
+                Path file = directory.resolve(fileName(i, format));
+
+                frames.add(CompletableFuture
+                        .supplyAsync(() -> renderFrame(camera), renderPool)
+                        .thenAcceptAsync(image -> write(image, format, file), encodePool)
+                        .whenComplete((v, e) -> {
+                            if (e != null)
+                                error.compareAndSet(null, e instanceof CompletionException ? e.getCause() : e);
+                            inFlight.release();
+                        }));
+            }
+
+            for (CompletableFuture<Void> frame : frames) {
+                try {
+                    frame.join();
+                } catch (CompletionException ignorable) {
+                }
+            }
+        } finally {
+            renderPool.shutdown();
+            encodePool.shutdown();
+        }
+
+        Throwable failure = error.get();
+        if (failure instanceof UncheckedIOException)
+            throw ((UncheckedIOException) failure).getCause();
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+    }
+
+    /**
+     * Returns the name of the file of specified frame.
+     *
+     * @param frame
+     *            index of the frame
+     * @param format
+     *            informal name of the image format
+     * @return name of the file
+     */
+    public static String fileName(int frame, String format) {
+        return String.format("frame%05d.%s", frame, format);
+    }
+
+    /**
+     * Renders a frame seen by specified camera. Must be called by a thread of
+     * the rendering pool.
+     *
+     * @param camera
+     *            the camera
+     * @return image of the frame
+     */
+    private BufferedImage renderFrame(Camera camera) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] argb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        camera.getDirections();
+        new FrameJob(scene, camera, 0, height - 1, argb).invoke();
+
+        return image;
+    }
+
+    /**
+     * Writes the image to specified file.
+     *
+     * @param image
+     *            image of the frame
+     * @param format
+     *            informal name of the image format
+     * @param file
+     *            the file
+     * @throws UncheckedIOException
+     *             if the image cannot be written
+     */
+    private static void write(BufferedImage image, String format, Path file) {
+        try {
+            if (!ImageIO.write(image, format, file.toFile()))
+                throw new IOException("There is no writer for image format " + format + "!");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@code FrameJob} class renders a band of rows of one frame.
+     * <p>
+     * This class is the implementation of the {@link RecursiveAction}.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     * @see RecursiveAction
+     */
+    static class FrameJob extends RecursiveAction {
+
+        /**
+         * Serialization ID.
+         */
+        private static final long serialVersionUID = 2817480319573310581L;
+
+        /** Minimum number of rows worked by one thread. */
+        private static final int MIN_ROWS = 2 * Tracer.PACKET_SIZE;
+
+        /** Scene. */
+        private final CompiledScene scene;
+        /** Camera generating primary rays. */
+        private final Camera camera;
+        /** Minimum y. */
+        private final int yMin;
+        /** Maximum y. */
+        private final int yMax;
+        /** Packed colors. */
+        private final int[] argb;
+
+        /**
+         * Constructs a new {@code FrameJob} from specified arguments.
+         *
+         * @param scene
+         *            scene
+         * @param camera
+         *            camera generating primary rays
+         * @param yMin
+         *            minimum y
+         * @param yMax
+         *            maximum y
+         * @param argb
+         *            packed colors
+         */
+        FrameJob(CompiledScene scene, Camera camera, int yMin, int yMax, int[] argb) {
+            this.scene = scene;
+            this.camera = camera;
+            this.yMin = yMin;
+            this.yMax = yMax;
+            this.argb = argb;
+        }
+
+        @Override
+        protected void compute() {
+            if (yMax - yMin + 1 <= MIN_ROWS) {
+                Tracer.trace(scene, camera, 0, yMin, camera.getWidth() - 1, yMax, argb, yMin * camera.getWidth(),
+                        camera.getWidth(), null, null);
+            } else {
+                int middle = (yMin + yMax) / 2;
+                invokeAll(
+                        new FrameJob(scene, camera, yMin, middle, argb),
+                        new FrameJob(scene, camera, middle + 1, yMax, argb));
+            }
+        }
+    }
+
+    /**
+     * Starting point of a program.
+     *
+     * @param args
+     *            Command-line arguments: path of the camera path file, output
+     *            directory and number of frames, optionally followed by
+     *            {@value #SIZE}{@code WxH}, {@value #IN_FLIGHT}{@code N},
+     *            {@value #FORMAT}{@code name}, paths ending with
+     *            {@value #OBJ_EXTENSION} which are added to the scene as
+     *            triangle meshes and a path of the scene file to render
+     *            instead of the predefined scene
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: AnimationRenderer <camera path> <output directory> <frames> "
+                    + "[" + SIZE + "WxH] [" + IN_FLIGHT + "N] [" + FORMAT + "name] [scene file] [model.obj ...]");
+            return;
+        }
+
+        int width = 800;
+        int height = 600;
+        int framesInFlight = DEFAULT_FRAMES_IN_FLIGHT;
+        String format = DEFAULT_FORMAT;
+        Scene scene = null;
+        List<TriangleMesh> meshes = new ArrayList<>();
+
+        CameraPath path;
+        Path directory;
+        int frameCount;
+        try {
+            path = CameraPath.read(Paths.get(args[0]));
+            directory = Paths.get(args[1]);
+            frameCount = Integer.parseInt(args[2]);
+
+            for (int i = 3; i < args.length; i++) {
+                String arg = args[i];
+
+                if (arg.startsWith(SIZE)) {
+                    String[] size = arg.substring(SIZE.length()).split("x");
+                    if (size.length != 2)
+                        throw new NumberFormatException("Size must be given as WxH: " + arg);
+                    width = Integer.parseInt(size[0]);
+                    height = Integer.parseInt(size[1]);
+                } else if (arg.startsWith(IN_FLIGHT)) {
+                    framesInFlight = Integer.parseInt(arg.substring(IN_FLIGHT.length()));
+                } else if (arg.startsWith(FORMAT)) {
+                    format = arg.substring(FORMAT.length());
+                } else if (arg.toLowerCase().endsWith(OBJ_EXTENSION)) {
+                    meshes.add(ObjReader.read(Paths.get(arg), 1, 1, 1, 0.5, 0.5, 0.5, 10));
+                } else {
+                    PackedSceneBuilder builder = new PackedSceneBuilder();
+                    SceneReader.read(Paths.get(arg), builder);
+                    scene = builder.getScene();
+                }
+            }
+        } catch (IOException | InvalidPathException | NumberFormatException e) {
+            System.out.println("Invalid arguments: " + e.getMessage());
+            return;
+        }
+
+        if (scene == null)
+            scene = RayTracerViewer.createPredefinedScene();
+        for (TriangleMesh mesh : meshes) {
+            scene.add(mesh);
+        }
+
+        try {
+            long start = System.nanoTime();
+            new AnimationRenderer(CompiledScene.compile(scene), path, 20, 20, width, height)
+                    .render(frameCount, directory, format, framesInFlight);
+            System.out.printf("Rendered %d frames in %d ms.%n", frameCount, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Animation cannot be rendered: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
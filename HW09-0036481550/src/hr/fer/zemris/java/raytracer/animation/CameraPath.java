@@ -0,0 +1,227 @@
+package hr.fer.zemris.java.raytracer.animation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import hr.fer.zemris.java.raytracer.Camera;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+
+/**
+ * {@code CameraPath} class is a camera fly-through defined by keyframes.
+ * <p>
+ * Every keyframe has a time and eye, view and view-up positions. Keyframes
+ * must be added in increasing time order. Positions between two keyframes are
+ * interpolated linearly; before the first and after the last keyframe the
+ * camera stays at that keyframe.
+ * <p>
+ * In the text format every keyframe is one line; empty lines and lines
+ * starting with {@code #} are ignored:
+ *
+ * <pre>
+ * key t ex ey ez vx vy vz ux uy uz
+ * </pre>
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see AnimationRenderer
+ */
+public class CameraPath {
+
+    /** Number of values in a keyframe. */
+    private static final int KEY_SIZE = 10;
+
+    /** Keyframes; time followed by eye, view and view-up coordinates. */
+    private final List<double[]> keys = new ArrayList<>();
+
+    /**
+     * Adds a keyframe to the end of the path.
+     *
+     * @param time
+     *            time of the keyframe
+     * @param eye
+     *            position of human observer
+     * @param view
+     *            position that is observed
+     * @param viewUp
+     *            specification of view-up vector
+     * @return this path
+     * @throws NullPointerException
+     *             if either of arguments {@code eye}, {@code view} or
+     *             {@code viewUp} is a null reference
+     * @throws IllegalArgumentException
+     *             if {@code time} is not greater than time of the last
+     *             keyframe
+     */
+    public CameraPath add(double time, Point3D eye, Point3D view, Point3D viewUp) {
+        if (eye == null || view == null || viewUp == null)
+            throw new NullPointerException("Eye, view or view-up cannot be a null reference!");
+
+        if (!(keys.isEmpty() ? !Double.isNaN(time) : time > keys.get(keys.size() - 1)[0]))
+            throw new IllegalArgumentException("Keyframe times must be increasing!");
+
+        keys.add(new double[] {
+                time,
+                eye.x, eye.y, eye.z,
+                view.x, view.y, view.z,
+                viewUp.x, viewUp.y, viewUp.z
+        });
+        return this;
+    }
+
+    /**
+     * Returns the number of keyframes.
+     *
+     * @return number of keyframes
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Returns time of the first keyframe.
+     *
+     * @return start time
+     * @throws IllegalStateException
+     *             if path has no keyframes
+     */
+    public double getStart() {
+        checkNotEmpty();
+        return keys.get(0)[0];
+    }
+
+    /**
+     * Returns time of the last keyframe.
+     *
+     * @return end time
+     * @throws IllegalStateException
+     *             if path has no keyframes
+     */
+    public double getEnd() {
+        checkNotEmpty();
+        return keys.get(keys.size() - 1)[0];
+    }
+
+    /**
+     * Returns the camera at specified time.
+     *
+     * @param time
+     *            the time
+     * @param horizontal
+     *            horizontal width of observed space
+     * @param vertical
+     *            vertical height of observed space
+     * @param width
+     *            number of pixels per screen row
+     * @param height
+     *            number of pixel per screen column
+     * @return the camera
+     * @throws IllegalStateException
+     *             if path has no keyframes
+     * @throws IllegalArgumentException
+     *             if {@code width} or {@code height} is not a positive number
+     */
+    public Camera cameraAt(double time, double horizontal, double vertical, int width, int height) {
+        checkNotEmpty();
+
+        int next = 0;
+        while (next < keys.size() && keys.get(next)[0] <= time) {
+            next++;
+        }
+
+        double[] a = keys.get(Math.max(next - 1, 0));
+        double[] b = keys.get(Math.min(next, keys.size() - 1));
+        double t = a == b ? 0 : (time - a[0]) / (b[0] - a[0]);
+
+        double[] v = new double[KEY_SIZE];
+        for (int i = 1; i < KEY_SIZE; i++) {
+            v[i] = a[i] + (b[i] - a[i]) * t;
+        }
+
+        return new Camera(
+                new Point3D(v[1], v[2], v[3]),
+                new Point3D(v[4], v[5], v[6]),
+                new Point3D(v[7], v[8], v[9]),
+                horizontal, vertical, width, height);
+    }
+
+    /**
+     * Checks that the path has at least one keyframe.
+     *
+     * @throws IllegalStateException
+     *             if path has no keyframes
+     */
+    private void checkNotEmpty() {
+        if (keys.isEmpty())
+            throw new IllegalStateException("Camera path has no keyframes!");
+    }
+
+    /**
+     * Reads the camera path file at specified path.
+     *
+     * @param path
+     *            path of the camera path file
+     * @return the camera path
+     * @throws IOException
+     *             if file cannot be read or is not a valid camera path
+     * @throws NullPointerException
+     *             if argument {@code path} is a null reference
+     */
+    public static CameraPath read(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Reads a camera path from the specified reader. The reader is not
+     * closed.
+     *
+     * @param reader
+     *            source of the camera path
+     * @return the camera path
+     * @throws IOException
+     *             if reading fails or input is not a valid camera path
+     * @throws NullPointerException
+     *             if argument {@code reader} is a null reference
+     */
+    public static CameraPath read(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader
+                : new BufferedReader(reader);
+
+        CameraPath cameraPath = new CameraPath();
+        double[] v = new double[KEY_SIZE];
+        int lineNo = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNo++;
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            String[] parts = line.split("\\s+");
+            if (!parts[0].equals("key") || parts.length != KEY_SIZE + 1)
+                throw new IOException("Line " + lineNo + ": unknown camera path element '" + line + "'!");
+
+            try {
+                for (int i = 0; i < v.length; i++) {
+                    v[i] = Double.parseDouble(parts[i + 1]);
+                }
+
+                cameraPath.add(v[0], new Point3D(v[1], v[2], v[3]), new Point3D(v[4], v[5], v[6]),
+                        new Point3D(v[7], v[8], v[9]));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNo + ": " + e.getMessage(), e);
+            }
+        }
+
+        return cameraPath;
+    }
+
+}
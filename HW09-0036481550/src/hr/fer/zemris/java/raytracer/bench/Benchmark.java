@@ -0,0 +1,390 @@
+package hr.fer.zemris.java.raytracer.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code Benchmark} class measures the average time of an operation.
+ * <p>
+ * An operation is run in a loop for a number of warmup iterations, whose
+ * results are thrown away so the JIT compiler can finish its work, and then
+ * for a number of measured iterations of fixed duration. Every value returned
+ * by the operation is consumed so the compiler cannot remove the work that
+ * computed it. Operations run in batches which grow until a batch takes a
+ * millisecond, so reading the clock doesn't add to the time of short
+ * operations. The result is the mean time per operation with its standard
+ * deviation over the measured iterations.
+ * <p>
+ * While measuring, bytes allocated by all live threads and the number and
+ * time of garbage collections are recorded. Allocations are read from the
+ * HotSpot {@code com.sun.management.ThreadMXBean}; on other virtual machines
+ * they are not reported. Allocations of threads that end during an
+ * iteration are not counted, so operations should run their parallel work
+ * on long-lived pools.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class Benchmark {
+
+    /** Default number of warmup iterations. */
+    public static final int DEFAULT_WARMUPS = 3;
+    /** Default number of measured iterations. */
+    public static final int DEFAULT_ITERATIONS = 5;
+    /** Default duration of an iteration in milliseconds. */
+    public static final long DEFAULT_ITERATION_MILLIS = 1000;
+
+    /** Time after which a batch of operations stops growing. */
+    private static final long MAX_BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** Sink of values returned by operations. */
+    private static volatile Object sink;
+
+    /** Number of warmup iterations. */
+    private final int warmups;
+    /** Number of measured iterations. */
+    private final int iterations;
+    /** Duration of an iteration in nanoseconds. */
+    private final long iterationNanos;
+
+    /**
+     * {@code Operation} interface is an operation measured by a
+     * {@link Benchmark}.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    @FunctionalInterface
+    public interface Operation {
+
+        /**
+         * Runs the operation once.
+         *
+         * @return result of the operation, which is consumed by the benchmark
+         */
+        Object run();
+    }
+
+    /**
+     * Constructs a new {@code Benchmark} with {@value #DEFAULT_WARMUPS}
+     * warmup and {@value #DEFAULT_ITERATIONS} measured iterations of
+     * {@value #DEFAULT_ITERATION_MILLIS} milliseconds.
+     */
+    public Benchmark() {
+        this(DEFAULT_WARMUPS, DEFAULT_ITERATIONS, DEFAULT_ITERATION_MILLIS);
+    }
+
+    /**
+     * Constructs a new {@code Benchmark} with specified number and duration of
+     * iterations.
+     *
+     * @param warmups
+     *            number of warmup iterations
+     * @param iterations
+     *            number of measured iterations
+     * @param iterationMillis
+     *            duration of an iteration in milliseconds
+     * @throws IllegalArgumentException
+     *             if {@code warmups} is negative or {@code iterations} or
+     *             {@code iterationMillis} is not a positive number
+     */
+    public Benchmark(int warmups, int iterations, long iterationMillis) {
+        if (warmups < 0)
+            throw new IllegalArgumentException("Number of warmup iterations cannot be negative!");
+        if (iterations <= 0)
+            throw new IllegalArgumentException("Number of iterations must be a positive number!");
+        if (iterationMillis <= 0)
+            throw new IllegalArgumentException("Duration of an iteration must be a positive number!");
+
+        this.warmups = warmups;
+        this.iterations = iterations;
+        this.iterationNanos = TimeUnit.MILLISECONDS.toNanos(iterationMillis);
+    }
+
+    /**
+     * Measures the specified operation.
+     *
+     * @param name
+     *            name of the benchmark
+     * @param operation
+     *            the operation
+     * @return result of the measurement
+     * @throws NullPointerException
+     *             if argument {@code name} or {@code operation} is a null
+     *             reference
+     */
+    public Result run(String name, Operation operation) {
+        if (name == null)
+            throw new NullPointerException("Name cannot be a null reference!");
+        if (operation == null)
+            throw new NullPointerException("Operation cannot be a null reference!");
+
+        for (int i = 0; i < warmups; i++) {
+            iteration(operation);
+        }
+
+        Map<Long, Long> allocatedBefore = allocatedBytes();
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+
+        double[] nanosPerOp = new double[iterations];
+        long operations = 0;
+        for (int i = 0; i < iterations; i++) {
+            long[] measured = iteration(operation);
+
+            nanosPerOp[i] = (double) measured[1] / measured[0];
+            operations += measured[0];
+        }
+
+        long allocated = allocatedSince(allocatedBefore);
+
+        double mean = 0;
+        for (double value : nanosPerOp) {
+            mean += value;
+        }
+        mean /= iterations;
+
+        double variance = 0;
+        for (double value : nanosPerOp) {
+            variance += (value - mean) * (value - mean);
+        }
+        double deviation = iterations < 2 ? 0 : Math.sqrt(variance / (iterations - 1));
+
+        return new Result(name, iterations, mean, deviation,
+                allocated < 0 ? Double.NaN : (double) allocated / operations,
+                gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+    }
+
+    /**
+     * Runs the operation until the duration of an iteration passes.
+     *
+     * @param operation
+     *            the operation
+     * @return number of operations and the time they took in nanoseconds
+     */
+    private long[] iteration(Operation operation) {
+        long operations = 0;
+        long batch = 1;
+        long start = System.nanoTime();
+        long elapsed = 0;
+
+        do {
+            long batchStart = elapsed;
+            for (long i = 0; i < batch; i++) {
+                sink = operation.run();
+            }
+            operations += batch;
+            elapsed = System.nanoTime() - start;
+
+            if (elapsed - batchStart < MAX_BATCH_NANOS)
+                batch *= 2;
+        } while (elapsed < iterationNanos);
+
+        return new long[] { operations, elapsed };
+    }
+
+    /**
+     * Returns bytes allocated so far by every live thread or {@code null} if
+     * they cannot be measured.
+     *
+     * @return allocated bytes by thread identifiers
+     */
+    static Map<Long, Long> allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return null;
+
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+        if (!hotspot.isThreadAllocatedMemorySupported() || !hotspot.isThreadAllocatedMemoryEnabled())
+            return null;
+
+        long[] ids = hotspot.getAllThreadIds();
+        long[] bytes = hotspot.getThreadAllocatedBytes(ids);
+
+        Map<Long, Long> allocated = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0)
+                allocated.put(ids[i], bytes[i]);
+        }
+        return allocated;
+    }
+
+    /**
+     * Returns bytes allocated by threads that are alive now since
+     * {@link #allocatedBytes()} returned specified counters.
+     *
+     * @param before
+     *            counters returned by {@link #allocatedBytes()}; may be
+     *            {@code null}
+     * @return allocated bytes or {@code -1} if they cannot be measured
+     */
+    static long allocatedSince(Map<Long, Long> before) {
+        Map<Long, Long> after = allocatedBytes();
+        if (before == null || after == null)
+            return -1;
+
+        long allocated = 0;
+        for (Map.Entry<Long, Long> entry : after.entrySet()) {
+            allocated += entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+        }
+        return allocated;
+    }
+
+    /**
+     * Returns the number of garbage collections so far.
+     *
+     * @return number of collections
+     */
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Returns the time spent in garbage collections so far in milliseconds.
+     *
+     * @return time of collections
+     */
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * {@code Result} class is the result of a {@link Benchmark}.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    public static final class Result {
+
+        /** Name of the benchmark. */
+        private final String name;
+        /** Number of measured iterations. */
+        private final int iterations;
+        /** Mean time per operation in nanoseconds. */
+        private final double nanosPerOp;
+        /** Standard deviation of the time per operation in nanoseconds. */
+        private final double deviation;
+        /** Allocated bytes per operation. */
+        private final double bytesPerOp;
+        /** Number of garbage collections. */
+        private final long gcCount;
+        /** Time of garbage collections in milliseconds. */
+        private final long gcMillis;
+
+        /**
+         * Constructs a new {@code Result} from specified arguments.
+         *
+         * @param name
+         *            name of the benchmark
+         * @param iterations
+         *            number of measured iterations
+         * @param nanosPerOp
+         *            mean time per operation in nanoseconds
+         * @param deviation
+         *            standard deviation of the time per operation
+         * @param bytesPerOp
+         *            allocated bytes per operation; {@link Double#NaN} if not
+         *            measured
+         * @param gcCount
+         *            number of garbage collections
+         * @param gcMillis
+         *            time of garbage collections in milliseconds
+         */
+        Result(String name, int iterations, double nanosPerOp, double deviation, double bytesPerOp, long gcCount,
+                long gcMillis) {
+            this.name = name;
+            this.iterations = iterations;
+            this.nanosPerOp = nanosPerOp;
+            this.deviation = deviation;
+            this.bytesPerOp = bytesPerOp;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        /**
+         * Returns the name of the benchmark.
+         *
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the mean time per operation in nanoseconds.
+         *
+         * @return time per operation
+         */
+        public double getNanosPerOp() {
+            return nanosPerOp;
+        }
+
+        /**
+         * Returns the standard deviation of the time per operation in
+         * nanoseconds.
+         *
+         * @return the deviation
+         */
+        public double getDeviation() {
+            return deviation;
+        }
+
+        /**
+         * Returns the number of bytes allocated per operation or
+         * {@link Double#NaN} if allocations were not measured.
+         *
+         * @return allocated bytes per operation
+         */
+        public double getBytesPerOp() {
+            return bytesPerOp;
+        }
+
+        /**
+         * Returns the number of garbage collections during measurement.
+         *
+         * @return number of collections
+         */
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * Returns the time of garbage collections during measurement in
+         * milliseconds.
+         *
+         * @return time of collections
+         */
+        public long getGcMillis() {
+            return gcMillis;
+        }
+
+        /**
+         * Returns the header of the table printed with {@link #toString()}.
+         *
+         * @return the header
+         */
+        public static String header() {
+            return String.format("%-66s %4s %16s %13s %14s %6s %8s", "Benchmark", "Cnt", "ns/op", "Error",
+                    "B/op", "GCs", "GC ms");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-66s %4d %16.1f +- %10.1f %14.1f %6d %8d", name, iterations, nanosPerOp,
+                    deviation, bytesPerOp, gcCount, gcMillis);
+        }
+    }
+
+}
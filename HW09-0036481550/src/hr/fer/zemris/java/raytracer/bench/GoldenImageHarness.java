@@ -0,0 +1,490 @@
+package hr.fer.zemris.java.raytracer.bench;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import javax.imageio.ImageIO;
+
+import hr.fer.zemris.java.raytracer.AdaptiveSampler;
+import hr.fer.zemris.java.raytracer.CompiledScene;
+import hr.fer.zemris.java.raytracer.PackedResultObserver;
+import hr.fer.zemris.java.raytracer.RayCaster;
+import hr.fer.zemris.java.raytracer.RayCasterParallel;
+import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+/**
+ * {@code GoldenImageHarness} class checks that {@link RayCaster} and
+ * {@link RayCasterParallel} keep rendering the same images as fast and with
+ * as little memory as before.
+ * <p>
+ * Every reference scene is rendered headlessly by both casters and compared
+ * pixel by pixel with its golden image, a PNG file in the golden directory,
+ * and the two renders are compared with each other. A pixel matches if none
+ * of its channels differs by more than the tolerance. Every render also
+ * records its wall time and the bytes it allocated, which must not exceed
+ * the budgets stored in {@value #BUDGETS} of the golden directory multiplied
+ * by their allowances.
+ * <p>
+ * {@link #update(Path)} renders new golden images and records current
+ * times and allocations as budgets. It must be run only after a change of
+ * pixels is intended.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class GoldenImageHarness {
+
+    /** Name of the file with budgets in the golden directory. */
+    public static final String BUDGETS = "budgets.properties";
+    /** Width and height of golden images. */
+    public static final int SIZE = 128;
+    /** Default largest allowed difference of a channel. */
+    public static final int DEFAULT_TOLERANCE = 1;
+    /** Default factor by which wall time can exceed its budget. */
+    public static final double DEFAULT_TIME_ALLOWANCE = 1.5;
+    /** Default factor by which allocations can exceed their budget. */
+    public static final double DEFAULT_ALLOCATION_ALLOWANCE = 1.1;
+
+    /** Names of the casters. */
+    private static final String[] CASTERS = { "RayCaster", "RayCasterParallel" };
+    /** Names of reference scenes. */
+    private static final String[] SCENES = { "predefined", "predefined-aa", "generated-16-2", "generated-64-4" };
+    /** Number of renders thrown away before measuring. */
+    private static final int WARMUPS = 2;
+    /** Number of measured renders. */
+    private static final int RUNS = 3;
+
+    /** Largest allowed difference of a channel. */
+    private final int tolerance;
+    /** Factor by which wall time can exceed its budget. */
+    private final double timeAllowance;
+    /** Factor by which allocations can exceed their budget. */
+    private final double allocationAllowance;
+
+    /**
+     * {@code Frame} class is an image rendered by the harness with its wall
+     * time and allocations.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    public static final class Frame {
+
+        /** The image. */
+        private final BufferedImage image;
+        /** Median wall time of a render in nanoseconds. */
+        private final long nanos;
+        /** Fewest bytes allocated by a render; {@code -1} if not measured. */
+        private final long bytes;
+
+        /**
+         * Constructs a new {@code Frame} from specified arguments.
+         *
+         * @param image
+         *            the image
+         * @param nanos
+         *            median wall time of a render in nanoseconds
+         * @param bytes
+         *            fewest bytes allocated by a render; {@code -1} if not
+         *            measured
+         */
+        Frame(BufferedImage image, long nanos, long bytes) {
+            this.image = image;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Returns the image.
+         *
+         * @return the image
+         */
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        /**
+         * Returns the median wall time of a render in nanoseconds.
+         *
+         * @return the wall time
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Returns the fewest bytes allocated by a render or {@code -1} if
+         * allocations were not measured.
+         *
+         * @return allocated bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Constructs a new {@code GoldenImageHarness} with default tolerance and
+     * allowances.
+     */
+    public GoldenImageHarness() {
+        this(DEFAULT_TOLERANCE, DEFAULT_TIME_ALLOWANCE, DEFAULT_ALLOCATION_ALLOWANCE);
+    }
+
+    /**
+     * Constructs a new {@code GoldenImageHarness} with specified tolerance
+     * and allowances.
+     *
+     * @param tolerance
+     *            largest allowed difference of a channel
+     * @param timeAllowance
+     *            factor by which wall time can exceed its budget
+     * @param allocationAllowance
+     *            factor by which allocations can exceed their budget
+     * @throws IllegalArgumentException
+     *             if {@code tolerance} is negative or an allowance is less
+     *             than 1
+     */
+    public GoldenImageHarness(int tolerance, double timeAllowance, double allocationAllowance) {
+        if (tolerance < 0)
+            throw new IllegalArgumentException("Tolerance cannot be negative!");
+        if (!(timeAllowance >= 1) || !(allocationAllowance >= 1))
+            throw new IllegalArgumentException("Allowance cannot be less than 1!");
+
+        this.tolerance = tolerance;
+        this.timeAllowance = timeAllowance;
+        this.allocationAllowance = allocationAllowance;
+    }
+
+    /**
+     * Starting point of a program.
+     *
+     * @param args
+     *            Command-line argument; the golden directory, optionally
+     *            preceded by {@code -update} which replaces golden images
+     *            and budgets with current renders
+     */
+    public static void main(String[] args) {
+        boolean update = args.length == 2 && args[0].equals("-update");
+        if (args.length != 1 && !update) {
+            System.out.println("Usage: GoldenImageHarness [-update] <golden directory>");
+            return;
+        }
+
+        try {
+            Path dir = Paths.get(args[args.length - 1]);
+            GoldenImageHarness harness = new GoldenImageHarness();
+
+            if (update) {
+                harness.update(dir);
+                System.out.println("Golden images updated.");
+                return;
+            }
+
+            List<String> failures = harness.verify(dir);
+            for (String failure : failures) {
+                System.out.println(failure);
+            }
+            System.out.println(failures.isEmpty() ? "All renders match golden images and budgets."
+                    : failures.size() + " check(s) failed.");
+            if (!failures.isEmpty())
+                System.exit(1);
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("Golden images cannot be used: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Renders every reference scene with every caster and checks the images
+     * against golden images and each other, and times and allocations against
+     * their budgets.
+     *
+     * @param dir
+     *            golden directory
+     * @return descriptions of failed checks; empty if all checks passed
+     * @throws IOException
+     *             if golden images or budgets cannot be read
+     */
+    public List<String> verify(Path dir) throws IOException {
+        Properties budgets = new Properties();
+        try (Reader reader = Files.newBufferedReader(dir.resolve(BUDGETS), StandardCharsets.UTF_8)) {
+            budgets.load(reader);
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (String scene : SCENES) {
+            BufferedImage golden = ImageIO.read(dir.resolve(scene + ".png").toFile());
+            if (golden == null)
+                throw new IOException("Golden image of scene " + scene + " cannot be read!");
+
+            BufferedImage previous = null;
+            for (String caster : CASTERS) {
+                Frame frame = render(caster, scene);
+                String key = caster + "." + scene;
+
+                String difference = compare(golden, frame.getImage(), tolerance);
+                if (difference != null)
+                    failures.add(key + " differs from golden image: " + difference);
+
+                if (previous != null) {
+                    difference = compare(previous, frame.getImage(), tolerance);
+                    if (difference != null)
+                        failures.add(key + " differs from " + CASTERS[0] + ": " + difference);
+                }
+                previous = frame.getImage();
+
+                checkBudget(failures, key + " wall time", frame.getNanos(), budgets.getProperty(key + ".nanos"),
+                        timeAllowance);
+                if (frame.getBytes() >= 0)
+                    checkBudget(failures, key + " allocations", frame.getBytes(),
+                            budgets.getProperty(key + ".bytes"), allocationAllowance);
+            }
+        }
+
+        return failures;
+    }
+
+    /**
+     * Renders every reference scene, stores images of {@link RayCaster} as
+     * golden images and records times and allocations of both casters as
+     * budgets.
+     *
+     * @param dir
+     *            golden directory; created if it doesn't exist
+     * @throws IOException
+     *             if files cannot be written
+     */
+    public void update(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Map<String, Long> budgets = new TreeMap<>();
+
+        for (String scene : SCENES) {
+            for (String caster : CASTERS) {
+                Frame frame = render(caster, scene);
+                String key = caster + "." + scene;
+
+                if (caster.equals(CASTERS[0]))
+                    ImageIO.write(frame.getImage(), "png", dir.resolve(scene + ".png").toFile());
+                budgets.put(key + ".nanos", frame.getNanos());
+                if (frame.getBytes() >= 0)
+                    budgets.put(key + ".bytes", frame.getBytes());
+            }
+        }
+
+        try (Writer writer = Files.newBufferedWriter(dir.resolve(BUDGETS), StandardCharsets.UTF_8)) {
+            writer.write("# Wall time in nanoseconds and allocated bytes per frame of " + SIZE + "x" + SIZE
+                    + " pixels\n");
+            for (Map.Entry<String, Long> budget : budgets.entrySet()) {
+                writer.write(budget.getKey() + "=" + budget.getValue() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Renders a reference scene with a caster a few times and returns the
+     * last image with the median wall time and fewest allocated bytes of the
+     * measured renders. Every render uses a new producer so no frame comes
+     * from a cache. Messages the producers print to standard output are
+     * discarded.
+     *
+     * @param caster
+     *            name of the caster
+     * @param scene
+     *            name of the reference scene
+     * @return the rendered frame
+     * @throws IllegalArgumentException
+     *             if there is no such caster or scene
+     */
+    public Frame render(String caster, String scene) {
+        boolean antiAliasing = scene.endsWith("-aa");
+        CompiledScene compiled = CompiledScene.compile(createScene(scene));
+        ForkJoinPool pool = new ForkJoinPool();
+
+        Function<AdaptiveSampler, IRayTracerProducer> factory;
+        if (caster.equals(CASTERS[0])) {
+            factory = sampler -> RayCaster.getIRayTracerProducer(compiled, sampler, null);
+        } else if (caster.equals(CASTERS[1])) {
+            factory = sampler -> RayCasterParallel.getIRayTracerProducer(compiled, sampler, null, pool);
+        } else {
+            throw new IllegalArgumentException("Unknown caster: " + caster);
+        }
+
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        try {
+            BufferedImage image = null;
+            long[] nanos = new long[RUNS];
+            long bytes = Long.MAX_VALUE;
+
+            for (int i = -WARMUPS; i < RUNS; i++) {
+                IRayTracerProducer producer = factory.apply(antiAliasing ? new AdaptiveSampler() : null);
+                Map<Long, Long> allocated = Benchmark.allocatedBytes();
+                long start = System.nanoTime();
+
+                image = render(producer);
+
+                long time = System.nanoTime() - start;
+                long allocatedBytes = Benchmark.allocatedSince(allocated);
+                if (i >= 0) {
+                    nanos[i] = time;
+                    bytes = allocatedBytes < 0 ? -1 : Math.min(bytes, allocatedBytes);
+                }
+            }
+
+            Arrays.sort(nanos);
+            return new Frame(image, nanos[RUNS / 2], bytes);
+        } finally {
+            System.setOut(stdout);
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Compares two images pixel by pixel.
+     *
+     * @param expected
+     *            expected image
+     * @param actual
+     *            actual image
+     * @param tolerance
+     *            largest allowed difference of a channel
+     * @return description of the difference or {@code null} if every pixel
+     *         matches
+     */
+    public static String compare(BufferedImage expected, BufferedImage actual, int tolerance) {
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+        if (actual.getWidth() != width || actual.getHeight() != height)
+            return "size " + actual.getWidth() + "x" + actual.getHeight() + " instead of " + width + "x" + height;
+
+        int[] a = expected.getRGB(0, 0, width, height, null, 0, width);
+        int[] b = actual.getRGB(0, 0, width, height, null, 0, width);
+
+        int mismatches = 0;
+        int largest = 0;
+        int first = -1;
+        for (int i = 0; i < a.length; i++) {
+            int difference = 0;
+            for (int shift = 0; shift <= 16; shift += 8) {
+                difference = Math.max(difference, Math.abs((a[i] >> shift & 0xFF) - (b[i] >> shift & 0xFF)));
+            }
+
+            if (difference > tolerance) {
+                mismatches++;
+                if (first < 0)
+                    first = i;
+            }
+            largest = Math.max(largest, difference);
+        }
+
+        if (mismatches == 0)
+            return null;
+        return mismatches + " pixel(s) differ by up to " + largest + ", first at (" + first % width + ", "
+                + first / width + ")";
+    }
+
+    /**
+     * Adds a failure if the measured value exceeds its budget multiplied by
+     * the allowance.
+     *
+     * @param failures
+     *            descriptions of failed checks
+     * @param name
+     *            name of the measured value
+     * @param value
+     *            measured value
+     * @param budget
+     *            the budget; {@code null} if there is none
+     * @param allowance
+     *            factor by which the value can exceed the budget
+     */
+    private static void checkBudget(List<String> failures, String name, long value, String budget,
+            double allowance) {
+        if (budget == null) {
+            failures.add(name + " has no budget");
+            return;
+        }
+
+        long limit;
+        try {
+            limit = (long) (Long.parseLong(budget.trim()) * allowance);
+        } catch (NumberFormatException e) {
+            failures.add(name + " has invalid budget " + budget);
+            return;
+        }
+
+        if (value > limit)
+            failures.add(name + " " + value + " exceeds budget " + limit);
+    }
+
+    /**
+     * Creates the reference scene with specified name.
+     *
+     * @param name
+     *            name of the scene
+     * @return the scene
+     * @throws IllegalArgumentException
+     *             if there is no such scene
+     */
+    private static Scene createScene(String name) {
+        switch (name) {
+        case "predefined":
+        case "predefined-aa":
+            return RayTracerViewer.createPredefinedScene();
+        case "generated-16-2":
+            return SceneGenerator.generate(1, 16, 2);
+        case "generated-64-4":
+            return SceneGenerator.generate(2, 64, 4);
+        default:
+            throw new IllegalArgumentException("Unknown scene: " + name);
+        }
+    }
+
+    /**
+     * Renders one frame of {@value #SIZE}x{@value #SIZE} pixels with the
+     * default camera of the viewer.
+     *
+     * @param producer
+     *            the producer
+     * @return the image
+     */
+    private static BufferedImage render(IRayTracerProducer producer) {
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        producer.produce(new Point3D(10, 0, 0), new Point3D(0, 0, 0), new Point3D(0, 0, 10), 20, 20, SIZE, SIZE,
+                0, (red, green, blue, requestNo) -> PackedResultObserver.pack(red, green, blue, data));
+        return image;
+    }
+
+}
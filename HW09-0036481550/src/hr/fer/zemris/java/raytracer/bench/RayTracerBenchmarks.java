@@ -0,0 +1,338 @@
+package hr.fer.zemris.java.raytracer.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import hr.fer.zemris.java.raytracer.CompiledScene;
+import hr.fer.zemris.java.raytracer.RayCaster;
+import hr.fer.zemris.java.raytracer.RayCasterParallel;
+import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+
+/**
+ * {@code RayTracerBenchmarks} class runs benchmarks of the ray tracer with a
+ * {@link Benchmark}.
+ * <p>
+ * Micro benchmarks measure {@link Sphere#findClosestRayIntersection(Ray)}
+ * for rays that hit the sphere, miss it and start inside it, and basic
+ * {@link Point3D} operations. Frame benchmarks render whole frames of scenes
+ * made by {@link SceneGenerator} with {@link RayCaster} and, on pools with
+ * every requested number of threads, with {@link RayCasterParallel}. A new
+ * producer is used for every frame so no frame comes from a cache.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public class RayTracerBenchmarks {
+
+    /** Command-line argument that runs only micro benchmarks. */
+    private static final String MICRO = "micro";
+    /** Command-line argument that runs only frame benchmarks. */
+    private static final String FRAMES = "frames";
+    /** Prefix of the argument listing frame sizes. */
+    private static final String SIZES = "-sizes=";
+    /** Prefix of the argument listing numbers of objects. */
+    private static final String OBJECTS = "-objects=";
+    /** Prefix of the argument listing numbers of lights. */
+    private static final String LIGHTS = "-lights=";
+    /** Prefix of the argument listing numbers of threads. */
+    private static final String THREADS = "-threads=";
+    /** Prefix of the argument giving the seed of generated scenes. */
+    private static final String SEED = "-seed=";
+    /** Prefix of the argument giving the number of warmup iterations. */
+    private static final String WARMUPS = "-warmups=";
+    /** Prefix of the argument giving the number of measured iterations. */
+    private static final String ITERATIONS = "-iterations=";
+    /** Prefix of the argument giving the duration of an iteration. */
+    private static final String TIME = "-time=";
+
+    /** Number of precomputed inputs of micro benchmarks; a power of two. */
+    private static final int NUM_OF_INPUTS = 1024;
+
+    /** Stream results are printed to. */
+    private final PrintStream out;
+    /** Benchmark measuring operations. */
+    private final Benchmark benchmark;
+
+    /**
+     * Constructs a new {@code RayTracerBenchmarks} which measures with
+     * specified benchmark and prints results to specified stream.
+     *
+     * @param benchmark
+     *            benchmark measuring operations
+     * @param out
+     *            stream results are printed to
+     * @throws NullPointerException
+     *             if any argument is a null reference
+     */
+    public RayTracerBenchmarks(Benchmark benchmark, PrintStream out) {
+        if (benchmark == null)
+            throw new NullPointerException("Benchmark cannot be a null reference!");
+        if (out == null)
+            throw new NullPointerException("Output stream cannot be a null reference!");
+
+        this.benchmark = benchmark;
+        this.out = out;
+    }
+
+    /**
+     * Starting point of a program.
+     *
+     * @param args
+     *            Command-line argument; {@value #MICRO} or {@value #FRAMES}
+     *            runs only one group of benchmarks, {@value #SIZES},
+     *            {@value #OBJECTS}, {@value #LIGHTS} and {@value #THREADS}
+     *            followed by comma-separated numbers set the frame sizes,
+     *            numbers of spheres and lights and numbers of threads of
+     *            frame benchmarks, {@value #SEED} sets the seed of
+     *            generated scenes and {@value #WARMUPS},
+     *            {@value #ITERATIONS} and {@value #TIME} (milliseconds)
+     *            configure the {@link Benchmark}
+     */
+    public static void main(String[] args) {
+        boolean micro = true;
+        boolean frames = true;
+        int[] sizes = { 100, 250, 500 };
+        int[] objects = { 4, 32 };
+        int[] lights = { 1, 4 };
+        int[] threads = { 1, Runtime.getRuntime().availableProcessors() };
+        long seed = 42;
+        int warmups = Benchmark.DEFAULT_WARMUPS;
+        int iterations = Benchmark.DEFAULT_ITERATIONS;
+        long time = Benchmark.DEFAULT_ITERATION_MILLIS;
+
+        try {
+            for (String arg : args) {
+                if (arg.equals(MICRO)) {
+                    frames = false;
+                } else if (arg.equals(FRAMES)) {
+                    micro = false;
+                } else if (arg.startsWith(SIZES)) {
+                    sizes = parseList(arg.substring(SIZES.length()));
+                } else if (arg.startsWith(OBJECTS)) {
+                    objects = parseList(arg.substring(OBJECTS.length()));
+                } else if (arg.startsWith(LIGHTS)) {
+                    lights = parseList(arg.substring(LIGHTS.length()));
+                } else if (arg.startsWith(THREADS)) {
+                    threads = parseList(arg.substring(THREADS.length()));
+                } else if (arg.startsWith(SEED)) {
+                    seed = Long.parseLong(arg.substring(SEED.length()));
+                } else if (arg.startsWith(WARMUPS)) {
+                    warmups = Integer.parseInt(arg.substring(WARMUPS.length()));
+                } else if (arg.startsWith(ITERATIONS)) {
+                    iterations = Integer.parseInt(arg.substring(ITERATIONS.length()));
+                } else if (arg.startsWith(TIME)) {
+                    time = Long.parseLong(arg.substring(TIME.length()));
+                } else {
+                    System.out.println("Unknown argument: " + arg);
+                    return;
+                }
+            }
+
+            RayTracerBenchmarks benchmarks = new RayTracerBenchmarks(new Benchmark(warmups, iterations, time),
+                    System.out);
+            benchmarks.out.println(Benchmark.Result.header());
+            if (micro)
+                benchmarks.runMicro();
+            if (frames)
+                benchmarks.runFrames(sizes, objects, lights, threads, seed);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid argument: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs micro benchmarks of spheres and points.
+     *
+     * @return results of the benchmarks
+     */
+    public List<Benchmark.Result> runMicro() {
+        List<Benchmark.Result> results = new ArrayList<>();
+        Random random = new Random(NUM_OF_INPUTS);
+
+        Sphere sphere = new Sphere(new Point3D(0, 0, 0), 1, 1, 1, 1, 0.5, 0.5, 0.5, 10);
+        Ray[] hits = new Ray[NUM_OF_INPUTS];
+        Ray[] misses = new Ray[NUM_OF_INPUTS];
+        Ray[] insides = new Ray[NUM_OF_INPUTS];
+        Point3D[] points = new Point3D[NUM_OF_INPUTS];
+
+        for (int i = 0; i < NUM_OF_INPUTS; i++) {
+            Point3D start = new Point3D(10, random.nextDouble() - 0.5, random.nextDouble() - 0.5);
+
+            hits[i] = Ray.fromPoints(start, new Point3D(0, start.y, start.z));
+            misses[i] = Ray.fromPoints(start, new Point3D(0, start.y + 2, start.z + 2));
+            insides[i] = Ray.fromPoints(new Point3D(0, start.y, start.z), start);
+            points[i] = new Point3D(random.nextDouble(), random.nextDouble(), random.nextDouble());
+        }
+
+        int[] next = new int[1];
+        results.add(measure("Sphere.findClosestRayIntersection hit",
+                () -> sphere.findClosestRayIntersection(hits[next[0]++ & (NUM_OF_INPUTS - 1)])));
+        results.add(measure("Sphere.findClosestRayIntersection miss",
+                () -> sphere.findClosestRayIntersection(misses[next[0]++ & (NUM_OF_INPUTS - 1)])));
+        results.add(measure("Sphere.findClosestRayIntersection inside",
+                () -> sphere.findClosestRayIntersection(insides[next[0]++ & (NUM_OF_INPUTS - 1)])));
+
+        results.add(measure("Point3D.add", () -> pointAt(points, next[0]++).add(pointAt(points, next[0]))));
+        results.add(measure("Point3D.sub", () -> pointAt(points, next[0]++).sub(pointAt(points, next[0]))));
+        results.add(measure("Point3D.scalarProduct",
+                () -> pointAt(points, next[0]++).scalarProduct(pointAt(points, next[0]))));
+        results.add(measure("Point3D.vectorProduct",
+                () -> pointAt(points, next[0]++).vectorProduct(pointAt(points, next[0]))));
+        results.add(measure("Point3D.normalize", () -> pointAt(points, next[0]++).normalize()));
+        results.add(measure("Point3D.norm", () -> pointAt(points, next[0]++).norm()));
+
+        return results;
+    }
+
+    /**
+     * Runs frame benchmarks for every combination of specified frame sizes,
+     * numbers of objects and lights. {@link RayCasterParallel} is measured
+     * once for every number of threads.
+     *
+     * @param sizes
+     *            widths and heights of frames
+     * @param objects
+     *            numbers of spheres
+     * @param lights
+     *            numbers of lights
+     * @param threads
+     *            numbers of threads
+     * @param seed
+     *            seed of generated scenes
+     * @return results of the benchmarks
+     * @throws IllegalArgumentException
+     *             if a size or number of threads is not a positive number
+     */
+    public List<Benchmark.Result> runFrames(int[] sizes, int[] objects, int[] lights, int[] threads, long seed) {
+        for (int size : sizes) {
+            if (size <= 0)
+                throw new IllegalArgumentException("Frame size must be a positive number!");
+        }
+        for (int n : threads) {
+            if (n <= 0)
+                throw new IllegalArgumentException("Number of threads must be a positive number!");
+        }
+
+        List<Benchmark.Result> results = new ArrayList<>();
+
+        for (int numOfObjects : objects) {
+            for (int numOfLights : lights) {
+                CompiledScene scene = CompiledScene.compile(
+                        SceneGenerator.generate(seed, numOfObjects, numOfLights));
+
+                for (int size : sizes) {
+                    String parameters = String.format(" size=%d objects=%d lights=%d", size, numOfObjects,
+                            numOfLights);
+
+                    results.add(measure("RayCaster.frame" + parameters,
+                            () -> frame(RayCaster.getIRayTracerProducer(scene, null, null), size)));
+
+                    for (int n : threads) {
+                        ForkJoinPool pool = new ForkJoinPool(n);
+                        try {
+                            results.add(measure("RayCasterParallel.frame" + parameters + " threads=" + n,
+                                    () -> frame(RayCasterParallel.getIRayTracerProducer(scene, null, null, pool),
+                                            size)));
+                        } finally {
+                            pool.shutdown();
+                        }
+                    }
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Measures the specified operation and prints the result. Messages the
+     * producers print to standard output are discarded while measuring.
+     *
+     * @param name
+     *            name of the benchmark
+     * @param operation
+     *            the operation
+     * @return result of the benchmark
+     */
+    private Benchmark.Result measure(String name, Benchmark.Operation operation) {
+        PrintStream stdout = System.out;
+        Benchmark.Result result;
+
+        System.setOut(new PrintStream(new OutputStream() {
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        try {
+            result = benchmark.run(name, operation);
+        } finally {
+            System.setOut(stdout);
+        }
+
+        out.println(result);
+        return result;
+    }
+
+    /**
+     * Renders one square frame of specified size with the default camera of
+     * the viewer.
+     *
+     * @param producer
+     *            the producer
+     * @param size
+     *            width and height of the frame
+     * @return red channel of the frame
+     */
+    private static short[] frame(IRayTracerProducer producer, int size) {
+        short[][] red = new short[1][];
+
+        producer.produce(new Point3D(10, 0, 0), new Point3D(0, 0, 0), new Point3D(0, 0, 10), 20, 20, size, size,
+                0, (r, g, b, requestNo) -> red[0] = r);
+        return red[0];
+    }
+
+    /**
+     * Returns the point at specified index, modulo the number of points.
+     *
+     * @param points
+     *            the points
+     * @param index
+     *            the index
+     * @return the point
+     */
+    private static Point3D pointAt(Point3D[] points, int index) {
+        return points[index & (NUM_OF_INPUTS - 1)];
+    }
+
+    /**
+     * Parses a comma-separated list of integers.
+     *
+     * @param list
+     *            the list
+     * @return the integers
+     * @throws NumberFormatException
+     *             if an element is not an integer
+     */
+    private static int[] parseList(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+}
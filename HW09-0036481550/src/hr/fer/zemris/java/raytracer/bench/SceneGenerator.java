@@ -0,0 +1,109 @@
+package hr.fer.zemris.java.raytracer.bench;
+
+import java.util.Random;
+
+import hr.fer.zemris.java.raytracer.model.LightSource;
+import hr.fer.zemris.java.raytracer.model.MaterialTable;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+
+/**
+ * {@code SceneGenerator} class generates synthetic scenes of spheres and
+ * lights for benchmarks.
+ * <p>
+ * Scenes are generated from a seed, so the same arguments always give the
+ * same scene. Spheres are placed in front of the default camera of the
+ * viewer, which looks from {@code (10, 0, 0)} at the origin over a 20x20
+ * plane, and lights are placed between the camera and the spheres. Every
+ * scene has its own {@link MaterialTable}.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public final class SceneGenerator {
+
+    /** Half of the width and height of the region holding spheres. */
+    private static final double EXTENT = 8;
+    /** Minimum radius of a sphere. */
+    private static final double MIN_RADIUS = 0.3;
+    /** Maximum radius of a sphere. */
+    private static final double MAX_RADIUS = 2;
+
+    /**
+     * Private constructor used to prevent instantiation.
+     */
+    private SceneGenerator() {
+    }
+
+    /**
+     * Generates a scene with specified number of spheres and lights.
+     *
+     * @param seed
+     *            seed of the generator
+     * @param numOfObjects
+     *            number of spheres
+     * @param numOfLights
+     *            number of lights
+     * @return the scene
+     * @throws IllegalArgumentException
+     *             if {@code numOfObjects} or {@code numOfLights} is negative
+     */
+    public static Scene generate(long seed, int numOfObjects, int numOfLights) {
+        if (numOfObjects < 0)
+            throw new IllegalArgumentException("Number of objects cannot be negative!");
+        if (numOfLights < 0)
+            throw new IllegalArgumentException("Number of lights cannot be negative!");
+
+        Random random = new Random(seed);
+        Scene scene = new Scene();
+        MaterialTable materials = new MaterialTable();
+
+        for (int i = 0; i < numOfObjects; i++) {
+            Point3D center = new Point3D(
+                    uniform(random, -EXTENT, 0),
+                    uniform(random, -EXTENT, EXTENT),
+                    uniform(random, -EXTENT, EXTENT));
+
+            scene.add(new Sphere(
+                    center,
+                    uniform(random, MIN_RADIUS, MAX_RADIUS),
+                    materials,
+                    random.nextDouble(),
+                    random.nextDouble(),
+                    random.nextDouble(),
+                    random.nextDouble(),
+                    random.nextDouble(),
+                    random.nextDouble(),
+                    uniform(random, 1, 50)));
+        }
+
+        for (int i = 0; i < numOfLights; i++) {
+            Point3D point = new Point3D(
+                    uniform(random, 2, 10),
+                    uniform(random, -EXTENT, EXTENT),
+                    uniform(random, -EXTENT, EXTENT));
+
+            scene.add(new LightSource(point, 40 + random.nextInt(216), 40 + random.nextInt(216),
+                    40 + random.nextInt(216)));
+        }
+
+        return scene;
+    }
+
+    /**
+     * Returns a uniformly distributed random number from specified range.
+     *
+     * @param random
+     *            the generator
+     * @param min
+     *            minimum, inclusive
+     * @param max
+     *            maximum, exclusive
+     * @return the random number
+     */
+    private static double uniform(Random random, double min, double max) {
+        return min + random.nextDouble() * (max - min);
+    }
+
+}
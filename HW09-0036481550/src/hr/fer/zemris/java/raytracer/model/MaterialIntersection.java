@@ -0,0 +1,91 @@
+package hr.fer.zemris.java.raytracer.model;
+
+/**
+ * {@code MaterialIntersection} class is a {@link RayIntersection} whose
+ * material is referenced by index in a {@link MaterialTable}.
+ * <p>
+ * The intersection carries only the material index and reads coefficients
+ * directly from the table, so it doesn't depend on the intersected object.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see MaterialTable
+ */
+public abstract class MaterialIntersection extends RayIntersection {
+
+    /** Coefficients of the material table. */
+    private final double[] coefficients;
+    /** Index of the material. */
+    private final int material;
+    /** Offset of the material coefficients. */
+    private final int offset;
+
+    /**
+     * Constructs a new {@code MaterialIntersection} object with specified
+     * parameters.
+     *
+     * @param point
+     *            point of intersection
+     * @param distance
+     *            distance between start of ray and intersection
+     * @param outer
+     *            flag that indicates if this intersection is outer
+     *            intersection
+     * @param table
+     *            table that contains the material
+     * @param material
+     *            index of the material in the table
+     */
+    protected MaterialIntersection(Point3D point, double distance, boolean outer, MaterialTable table,
+            int material) {
+        super(point, distance, outer);
+        this.coefficients = table.coefficients();
+        this.material = material;
+        this.offset = material * MaterialTable.MATERIAL_SIZE;
+    }
+
+    /**
+     * Returns index of the material in its table.
+     *
+     * @return index of the material
+     */
+    public int getMaterial() {
+        return material;
+    }
+
+    @Override
+    public double getKdr() {
+        return coefficients[offset];
+    }
+
+    @Override
+    public double getKdg() {
+        return coefficients[offset + 1];
+    }
+
+    @Override
+    public double getKdb() {
+        return coefficients[offset + 2];
+    }
+
+    @Override
+    public double getKrr() {
+        return coefficients[offset + 3];
+    }
+
+    @Override
+    public double getKrg() {
+        return coefficients[offset + 4];
+    }
+
+    @Override
+    public double getKrb() {
+        return coefficients[offset + 5];
+    }
+
+    @Override
+    public double getKrn() {
+        return coefficients[offset + 6];
+    }
+
+}
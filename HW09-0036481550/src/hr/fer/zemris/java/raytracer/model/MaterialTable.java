@@ -0,0 +1,203 @@
+package hr.fer.zemris.java.raytracer.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code MaterialTable} class is a table of distinct materials that graphical
+ * objects reference by index.
+ * <p>
+ * Each material is made of seven coefficients (diffuse and reflective
+ * component for every color and coefficient n of reflective component) and
+ * is stored only once, no matter how many objects use it. Coefficients of all
+ * materials are kept in one flat array so shading reads them from a compact
+ * block of memory.
+ * <p>
+ * Materials are only ever added, so an index returned by
+ * {@link #intern(double, double, double, double, double, double, double)}
+ * stays valid for the lifetime of the table. Interning is synchronized and
+ * reading is lock-free, so a table can be shared between rendering threads.
+ * <p>
+ * Tables are meant to be scoped to a scene, so they are collected together
+ * with the objects that use them. The shared table, which spheres created
+ * without a table use, holds at most {@value #MAX_SHARED_MATERIALS}
+ * materials; once it is full such spheres get a table of their own.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see MaterialIntersection
+ */
+public final class MaterialTable {
+
+    /** Number of coefficients of one material. */
+    static final int MATERIAL_SIZE = 7;
+
+    /** Maximum number of materials in the shared table. */
+    public static final int MAX_SHARED_MATERIALS = 1024;
+
+    /** Table shared by all objects that don't specify their own table. */
+    private static final MaterialTable SHARED = new MaterialTable(MAX_SHARED_MATERIALS);
+
+    /** Coefficients of materials, {@value #MATERIAL_SIZE} per material. */
+    private volatile double[] coefficients = new double[MATERIAL_SIZE * 8];
+    /** Number of materials. */
+    private int size;
+    /** Indexes of already added materials. */
+    private final Map<MaterialKey, Integer> indexes = new HashMap<>();
+    /** Maximum number of materials. */
+    private final int capacity;
+
+    /**
+     * Constructs a new empty {@code MaterialTable}.
+     */
+    public MaterialTable() {
+        this(Integer.MAX_VALUE / MATERIAL_SIZE);
+    }
+
+    /**
+     * Constructs a new empty {@code MaterialTable} which holds at most
+     * specified number of materials.
+     *
+     * @param capacity
+     *            maximum number of materials
+     */
+    private MaterialTable(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the table shared by all objects that don't specify their own
+     * table.
+     *
+     * @return the shared table
+     */
+    static MaterialTable getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns index of the material with specified coefficients, adding it to
+     * the table if it isn't already there.
+     *
+     * @param kdr
+     *            diffuse component of the red light
+     * @param kdg
+     *            diffuse component of the green light
+     * @param kdb
+     *            diffuse component of the blue light
+     * @param krr
+     *            reflective component of the red light
+     * @param krg
+     *            reflective component of the green light
+     * @param krb
+     *            reflective component of the blue light
+     * @param krn
+     *            coefficient n of reflective component of the light
+     * @return index of the material or {@code -1} if the material isn't in
+     *         the table and the table is full
+     * @throws IllegalArgumentException
+     *             if diffuse or reflective coefficients are not in range
+     *             [0, 1]
+     */
+    public synchronized int intern(double kdr, double kdg, double kdb, double krr, double krg, double krb,
+            double krn) {
+        double[] material = { kdr, kdg, kdb, krr, krg, krb, krn };
+        MaterialKey key = new MaterialKey(material);
+
+        Integer index = indexes.get(key);
+        if (index != null)
+            return index;
+
+        checkLight(kdr, kdg, kdb, "Diffuse");
+        checkLight(krr, krg, krb, "Reflective");
+        if (size == capacity)
+            return -1;
+
+        double[] table = coefficients;
+        if (table.length < (size + 1) * MATERIAL_SIZE)
+            table = Arrays.copyOf(table, table.length * 2);
+
+        System.arraycopy(material, 0, table, size * MATERIAL_SIZE, MATERIAL_SIZE);
+        coefficients = table;
+        indexes.put(key, size);
+
+        return size++;
+    }
+
+    /**
+     * Returns the number of materials in this table.
+     *
+     * @return number of materials
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the coefficients of all materials. Material with index
+     * {@code i} occupies elements from {@code i * 7} to {@code i * 7 + 6} in
+     * order kdr, kdg, kdb, krr, krg, krb, krn. Returned array must not be
+     * modified.
+     *
+     * @return coefficients of all materials
+     */
+    double[] coefficients() {
+        return coefficients;
+    }
+
+    /**
+     * Checks if specified color of light is valid.
+     *
+     * @param kr
+     *            red coefficient
+     * @param kg
+     *            green coefficient
+     * @param kb
+     *            blue coefficient
+     * @param name
+     *            name to be added to the exception message
+     * @throws IllegalArgumentException
+     *             if either of arguments {@code kr}, {@code kg} and {@code kb}
+     *             is not in range [0, 1]
+     */
+    private static void checkLight(double kr, double kg, double kb, String name) {
+        if (kr < 0 || kr > 1.0 || kg < 0 || kg > 1.0 || kb < 0 || kb > 1.0) {
+            throw new IllegalArgumentException(String.format("%s component coefficient of light (%.2f,%.2f,%.2f) is"
+                    + " invalid.", name, kr, kg, kb));
+        }
+    }
+
+    /**
+     * {@code MaterialKey} class is a hash key made of material coefficients.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private static class MaterialKey {
+
+        /** Material coefficients. */
+        private final double[] coefficients;
+
+        /**
+         * Constructs a new {@code MaterialKey} from specified coefficients.
+         *
+         * @param coefficients
+         *            material coefficients
+         */
+        MaterialKey(double[] coefficients) {
+            this.coefficients = coefficients;
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(coefficients);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof MaterialKey && Arrays.equals(coefficients, ((MaterialKey) obj).coefficients);
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package hr.fer.zemris.java.raytracer.model;
+
+/**
+ * {@code PacketIntersectable} interface is implemented by graphical objects
+ * that can intersect a whole {@link RayPacket} at once.
+ * <p>
+ * Objects that don't implement this interface are intersected ray by ray by
+ * using {@link GraphicalObject#findClosestRayIntersection(Ray)} and every ray
+ * counts as one intersection test. Objects that implement it are made of many
+ * primitives and report the primitives they actually tested to a
+ * {@link TraceCounter}. Their intersections offered to a packet carry the
+ * index of the intersected primitive, so the intersection of a ray is built
+ * from its hit record instead of searching all primitives again.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see RayPacket
+ */
+public interface PacketIntersectable {
+
+    /**
+     * Intersects every ray of the specified packet with this object and offers
+     * found intersections to the packet by calling
+     * {@link RayPacket#offer(int, GraphicalObject, double, int)}. Offered
+     * distances must be the same as distances of intersections returned by
+     * {@link GraphicalObject#findClosestRayIntersection(Ray)}.
+     *
+     * @param packet
+     *            packet of rays
+     */
+    default void intersect(RayPacket packet) {
+        intersect(packet, null);
+    }
+
+    /**
+     * Intersects every ray of the specified packet with this object like
+     * {@link #intersect(RayPacket)} and adds the ray-primitive intersection
+     * tests it made to the counter.
+     *
+     * @param packet
+     *            packet of rays
+     * @param counter
+     *            counter of intersection tests; {@code null} if not counted
+     */
+    void intersect(RayPacket packet, TraceCounter counter);
+
+    /**
+     * Returns the closest intersection of the ray like
+     * {@link GraphicalObject#findClosestRayIntersection(Ray)} and adds the
+     * ray-primitive intersection tests it made to the counter.
+     *
+     * @param ray
+     *            the ray
+     * @param counter
+     *            counter of intersection tests; {@code null} if not counted
+     * @return the closest intersection or {@code null} if there is none
+     */
+    RayIntersection findClosestRayIntersection(Ray ray, TraceCounter counter);
+
+    /**
+     * Returns the intersection of the ray with the specified primitive of this
+     * object at the specified distance, as offered to a packet by
+     * {@link #intersect(RayPacket, TraceCounter)}. The returned intersection
+     * is the same as the one returned by
+     * {@link GraphicalObject#findClosestRayIntersection(Ray)}.
+     *
+     * @param ray
+     *            the ray
+     * @param primitive
+     *            index of the intersected primitive
+     * @param distance
+     *            distance between start of ray and intersection
+     * @return the intersection
+     */
+    RayIntersection getIntersection(Ray ray, int primitive, double distance);
+
+}
@@ -0,0 +1,294 @@
+package hr.fer.zemris.java.raytracer.model;
+
+/**
+ * {@code RayPacket} class represents a bundle of coherent rays that share the
+ * same starting point, e.g. primary rays of a small block of screen pixels.
+ * <p>
+ * Ray directions are kept in struct-of-arrays form (one {@code double[]} per
+ * component) so objects can test the whole bundle in one tight loop. Besides
+ * the rays, the packet keeps a bounding cone (axis and angular spread) that is
+ * used to reject objects the packet cannot hit before any per-ray work is done.
+ * <p>
+ * For each ray the packet also tracks a hit record of the closest object found
+ * so far: the object, the intersected primitive of the object and the distance.
+ * Intersecting the packet with every object of a scene leaves the closest hit
+ * of every ray in {@link #getClosestObject(int)}, and
+ * {@link #getClosestIntersection(int)} builds the intersection from the record
+ * without intersecting the object again.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see PacketIntersectable
+ */
+public class RayPacket {
+
+    /** Starting point of every ray in the packet. */
+    private Point3D start;
+
+    /** X components of normalized ray directions. */
+    final double[] dx;
+    /** Y components of normalized ray directions. */
+    final double[] dy;
+    /** Z components of normalized ray directions. */
+    final double[] dz;
+
+    /** Distance to the closest intersection found so far for each ray. */
+    final double[] distance;
+    /** Closest object found so far for each ray. */
+    final GraphicalObject[] closest;
+    /** Intersected primitive of the closest object for each ray. */
+    final int[] primitive;
+
+    /** Number of rays currently in the packet. */
+    private int size;
+
+    /** X component of the normalized cone axis. */
+    private double axisX;
+    /** Y component of the normalized cone axis. */
+    private double axisY;
+    /** Z component of the normalized cone axis. */
+    private double axisZ;
+    /** Half-angle of the cone that contains every ray of the packet. */
+    private double spread;
+
+    /**
+     * Constructs a new empty {@code RayPacket} that can hold at most
+     * {@code capacity} rays.
+     *
+     * @param capacity
+     *            maximum number of rays in this packet
+     * @throws IllegalArgumentException
+     *             if {@code capacity} is not a positive number
+     */
+    public RayPacket(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be a positive number!");
+
+        this.dx = new double[capacity];
+        this.dy = new double[capacity];
+        this.dz = new double[capacity];
+        this.distance = new double[capacity];
+        this.closest = new GraphicalObject[capacity];
+        this.primitive = new int[capacity];
+    }
+
+    /**
+     * Removes all rays from this packet and sets their common starting point.
+     *
+     * @param start
+     *            starting point of rays that will be added to the packet
+     * @throws NullPointerException
+     *             if argument {@code start} is a null reference
+     */
+    public void reset(Point3D start) {
+        if (start == null)
+            throw new NullPointerException("Start point cannot be a null reference!");
+
+        this.start = start;
+        this.size = 0;
+    }
+
+    /**
+     * Adds a ray with specified normalized direction to this packet.
+     *
+     * @param x
+     *            x component of the direction
+     * @param y
+     *            y component of the direction
+     * @param z
+     *            z component of the direction
+     * @return index of the added ray
+     * @throws IllegalStateException
+     *             if packet is full
+     */
+    public int add(double x, double y, double z) {
+        if (size == dx.length)
+            throw new IllegalStateException("Packet is full!");
+
+        dx[size] = x;
+        dy[size] = y;
+        dz[size] = z;
+        distance[size] = Double.POSITIVE_INFINITY;
+        closest[size] = null;
+
+        return size++;
+    }
+
+    /**
+     * Calculates the bounding cone of the packet. This method must be called
+     * after all rays were added and before the packet is intersected with
+     * objects.
+     */
+    public void seal() {
+        double x = 0;
+        double y = 0;
+        double z = 0;
+
+        for (int i = 0; i < size; i++) {
+            x += dx[i];
+            y += dy[i];
+            z += dz[i];
+        }
+
+        double norm = Math.sqrt(x * x + y * y + z * z);
+        if (norm < 1E-9) {
+            // rays point all around, no cone can bound them
+            axisX = 1;
+            axisY = 0;
+            axisZ = 0;
+            spread = Math.PI;
+            return;
+        }
+
+        axisX = x / norm;
+        axisY = y / norm;
+        axisZ = z / norm;
+
+        double minCos = 1;
+        for (int i = 0; i < size; i++) {
+            double cos = dx[i] * axisX + dy[i] * axisY + dz[i] * axisZ;
+            if (cos < minCos)
+                minCos = cos;
+        }
+
+        spread = Math.acos(Math.max(-1, Math.min(1, minCos)));
+    }
+
+    /**
+     * Checks if the lines going through rays of this packet could intersect a
+     * sphere with specified center and radius. If this method returns
+     * {@code false} none of the rays can hit the sphere.
+     * <p>
+     * Both directions of the lines are considered, so this method never
+     * rejects a sphere that {@link Sphere#findClosestRayIntersection(Ray)}
+     * would report as intersected.
+     *
+     * @param cx
+     *            x coordinate of the sphere center
+     * @param cy
+     *            y coordinate of the sphere center
+     * @param cz
+     *            z coordinate of the sphere center
+     * @param radius
+     *            sphere radius
+     * @return {@code true} if some ray of the packet might hit the sphere;
+     *         {@code false} otherwise
+     */
+    public boolean mayHitSphere(double cx, double cy, double cz, double radius) {
+        double vx = cx - start.x;
+        double vy = cy - start.y;
+        double vz = cz - start.z;
+        double length = Math.sqrt(vx * vx + vy * vy + vz * vz);
+
+        if (length <= radius)
+            return true;
+
+        double cos = (vx * axisX + vy * axisY + vz * axisZ) / length;
+        double angle = Math.acos(Math.max(-1, Math.min(1, Math.abs(cos))));
+
+        return angle <= spread + Math.asin(radius / length);
+    }
+
+    /**
+     * Records an intersection of ray at {@code index} with specified object if
+     * it is closer than the closest intersection found so far.
+     *
+     * @param index
+     *            index of the ray
+     * @param object
+     *            intersected object
+     * @param distance
+     *            distance between start of ray and intersection
+     */
+    public void offer(int index, GraphicalObject object, double distance) {
+        offer(index, object, distance, 0);
+    }
+
+    /**
+     * Records an intersection of ray at {@code index} with specified primitive
+     * of the object if it is closer than the closest intersection found so
+     * far. Objects that implement {@link PacketIntersectable} offer their
+     * intersections by this method, so the intersection can later be built by
+     * {@link PacketIntersectable#getIntersection(Ray, int, double)}.
+     *
+     * @param index
+     *            index of the ray
+     * @param object
+     *            intersected object
+     * @param distance
+     *            distance between start of ray and intersection
+     * @param primitive
+     *            index of the intersected primitive of the object
+     */
+    public void offer(int index, GraphicalObject object, double distance, int primitive) {
+        if (distance < this.distance[index]) {
+            this.distance[index] = distance;
+            this.closest[index] = object;
+            this.primitive[index] = primitive;
+        }
+    }
+
+    /**
+     * Returns the starting point of every ray in the packet.
+     *
+     * @return the starting point
+     */
+    public Point3D getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the number of rays in the packet.
+     *
+     * @return number of rays
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a new {@link Ray} object representing the ray at {@code index}.
+     *
+     * @param index
+     *            index of the ray
+     * @return the ray
+     */
+    public Ray getRay(int index) {
+        return new Ray(start, new Point3D(dx[index], dy[index], dz[index]));
+    }
+
+    /**
+     * Returns the closest object intersected by the ray at {@code index} or
+     * {@code null} if the ray hits nothing.
+     *
+     * @param index
+     *            index of the ray
+     * @return the closest intersected object
+     */
+    public GraphicalObject getClosestObject(int index) {
+        return closest[index];
+    }
+
+    /**
+     * Returns the closest intersection of the ray at {@code index} or
+     * {@code null} if the ray hits nothing. Intersections of objects that
+     * implement {@link PacketIntersectable} are built from the hit record of
+     * the ray, other objects are intersected with the ray again.
+     *
+     * @param index
+     *            index of the ray
+     * @return the closest intersection
+     */
+    public RayIntersection getClosestIntersection(int index) {
+        GraphicalObject object = closest[index];
+        if (object == null)
+            return null;
+
+        Ray ray = getRay(index);
+        if (object instanceof PacketIntersectable)
+            return ((PacketIntersectable) object).getIntersection(ray, primitive[index], distance[index]);
+
+        return object.findClosestRayIntersection(ray);
+    }
+
+}
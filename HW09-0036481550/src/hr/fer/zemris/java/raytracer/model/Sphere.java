@@ -5,37 +5,28 @@ import java.util.Arrays;
 /**
  * {@code Sphere} is a class that represents a spherical spherical object.
  * <p>
- * This class is implementation of a {@link GraphicalObject} interface.
+ * This class is implementation of a {@link GraphicalObject} interface. It
+ * also implements {@link PacketIntersectable} so it can be intersected with a
+ * whole {@link RayPacket} at once. Material of the sphere is interned in a
+ * {@link MaterialTable}, so spheres made of the same material share a single
+ * copy of its coefficients. Spheres created without a table use the shared
+ * table while it has room.
  * 
  * @author Karlo Vrbić
  * @version 1.0
  * @see GraphicalObject
  */
-public class Sphere extends GraphicalObject {
+public class Sphere extends GraphicalObject implements PacketIntersectable {
 
     /** Center point. */
     private Point3D center;
     /** Sphere radius. */
     private double radius;
 
-    /** Coefficient of diffuse component for red color. */
-    private double kdr;
-    /** Coefficient of diffuse component for green color. */
-    private double kdg;
-    /** Coefficient of diffuse component for blue color. */
-    private double kdb;
-
-    /** Coefficient of reflective component for red color. */
-    private double krr;
-    /** Coefficient of reflective component for green color. */
-    private double krg;
-    /** Coefficient of reflective component for blue color. */
-    private double krb;
-    /**
-     * Coefficient n of reflective component of the light. It describes surface
-     * roughness and its reflective properties
-     */
-    private double krn;
+    /** Table of the material. */
+    private MaterialTable table;
+    /** Index of the material in the table. */
+    private int material;
 
     /**
      * Constructs a new {@code Sphere} object from specified parameters.
@@ -62,28 +53,74 @@ public class Sphere extends GraphicalObject {
      *             if argument {@code center} or {@code radius} is a null
      *             reference
      * @throws IllegalArgumentException
-     *             if radius is not a positive number
+     *             if radius is not a positive number or diffuse or reflective
+     *             coefficients are not in range [0, 1]
      */
     public Sphere(Point3D center, double radius, double kdr, double kdg, double kdb, double krr, double krg, double krb,
             double krn) {
-        if (center == null)
-            throw new NullPointerException("Center or radius cannot be a null reference!");
+        this(center, radius, MaterialTable.getShared(), kdr, kdg, kdb, krr, krg, krb, krn);
+    }
+
+    /**
+     * Constructs a new {@code Sphere} object whose material is interned in
+     * specified table. If the table is full, the sphere gets a table of its
+     * own.
+     * 
+     * @param center
+     *            center point
+     * @param radius
+     *            sphere radius
+     * @param table
+     *            table of the material, usually shared by all objects of a
+     *            scene
+     * @param kdr
+     *            diffuse component of the red light
+     * @param kdg
+     *            diffuse component of the green light
+     * @param kdb
+     *            diffuse component of the blue light
+     * @param krr
+     *            reflective component of the red light
+     * @param krg
+     *            reflective component of the green light
+     * @param krb
+     *            reflective component of the blue light
+     * @param krn
+     *            coefficient n of reflective component of the light
+     * @throws NullPointerException
+     *             if argument {@code center} or {@code table} is a null
+     *             reference
+     * @throws IllegalArgumentException
+     *             if radius is not a positive number or diffuse or reflective
+     *             coefficients are not in range [0, 1]
+     */
+    public Sphere(Point3D center, double radius, MaterialTable table, double kdr, double kdg, double kdb,
+            double krr, double krg, double krb, double krn) {
+        if (center == null || table == null)
+            throw new NullPointerException("Center or table cannot be a null reference!");
 
         if (radius <= 0)
             throw new IllegalArgumentException("Radius must be a positive number!");
 
-        checkLight(kdr, kdg, kdb, "Diffuse");
-        checkLight(krr, krg, krb, "Reflective");
+        int material = table.intern(kdr, kdg, kdb, krr, krg, krb, krn);
+        if (material < 0) {
+            table = new MaterialTable();
+            material = table.intern(kdr, kdg, kdb, krr, krg, krb, krn);
+        }
 
+        this.table = table;
+        this.material = material;
         this.center = center;
         this.radius = radius;
-        this.kdr = kdr;
-        this.kdg = kdg;
-        this.kdb = kdb;
-        this.krr = krr;
-        this.krg = krg;
-        this.krb = krb;
-        this.krn = krn;
+    }
+
+    /**
+     * Returns the table of the material of this sphere.
+     * 
+     * @return the table of the material
+     */
+    public MaterialTable getMaterialTable() {
+        return table;
     }
 
     @Override
@@ -131,42 +168,68 @@ public class Sphere extends GraphicalObject {
         }
 
         return new SphereRayIntersection(intersections[0], distance[0],
-                intersections[0].sub(Sphere.this.center).norm() > radius);
+                intersections[0].sub(Sphere.this.center).norm() > radius, center, table, material);
     }
 
-    /**
-     * Checks if specified color of light is valid.
-     * 
-     * @param kr
-     *            red coefficient
-     * @param kg
-     *            green coefficient
-     * @param kb
-     *            blue coefficient
-     * @param name
-     *            name to be added to the exception message
-     * @throws IllegalArgumentException
-     *             if either of arguments {@code r}, {@code g} and {@code b} are
-     *             less than 0 and bigger than 255
-     */
-    private static void checkLight(double kr, double kg, double kb, String name) {
-        if (kr < 0 || kr > 1.0 || kg < 0 || kg > 1.0 || kb < 0 || kb > 1.0) {
-            throw new IllegalArgumentException(String.format("%s component coefficient of light (%.2f,%.2f,%.2f) is"
-                    + " invalid.", name, kr, kg, kb));
+    @Override
+    public RayIntersection findClosestRayIntersection(Ray ray, TraceCounter counter) {
+        if (counter != null)
+            counter.addIntersectionTests(1);
+
+        return findClosestRayIntersection(ray);
+    }
+
+    @Override
+    public void intersect(RayPacket packet, TraceCounter counter) {
+        Point3D start = packet.getStart();
+
+        if (!packet.mayHitSphere(center.x, center.y, center.z, radius))
+            return;
+        if (counter != null)
+            counter.addIntersectionTests(packet.size());
+
+        double tx = start.x - center.x;
+        double ty = start.y - center.y;
+        double tz = start.z - center.z;
+        double c = tx * tx + ty * ty + tz * tz - radius * radius;
+
+        double[] dx = packet.dx;
+        double[] dy = packet.dy;
+        double[] dz = packet.dz;
+
+        // same quadratic as in findClosestRayIntersection(Ray), the closer
+        // root is always the one with the negative square root
+        for (int i = 0, n = packet.size(); i < n; i++) {
+            double b = 2 * (tx * dx[i] + ty * dy[i] + tz * dz[i]);
+            double discriminant = b * b - 4 * c;
+
+            if (discriminant < 0)
+                continue;
+
+            packet.offer(i, this, Math.abs((-b - Math.sqrt(discriminant)) / 2), 0);
         }
     }
 
+    @Override
+    public RayIntersection getIntersection(Ray ray, int primitive, double distance) {
+        // the sphere is its only primitive, so this is a single test
+        return findClosestRayIntersection(ray);
+    }
+
     /**
      * {@code SphereRayIntersection} class represents an intersections of ray
      * and sphere.
      * <p>
-     * This class is implementation of the {@link RayIntersection}.
+     * This class is implementation of the {@link MaterialIntersection}.
      * 
      * @author Karlo Vrbić
      * @version 1.0
-     * @see RayIntersection
+     * @see MaterialIntersection
      */
-    class SphereRayIntersection extends RayIntersection {
+    static class SphereRayIntersection extends MaterialIntersection {
+
+        /** Center of the intersected sphere. */
+        private final Point3D center;
 
         /**
          * Constructs a new {@code SphereRayIntersection} object with specified
@@ -179,49 +242,22 @@ public class Sphere extends GraphicalObject {
          * @param outer
          *            flag that indicates if this intersection is outer
          *            intersection
+         * @param center
+         *            center of the intersected sphere
+         * @param table
+         *            table of the material
+         * @param material
+         *            index of the material in the table
          */
-        protected SphereRayIntersection(Point3D point, double distance, boolean outer) {
-            super(point, distance, outer);
+        protected SphereRayIntersection(Point3D point, double distance, boolean outer, Point3D center,
+                MaterialTable table, int material) {
+            super(point, distance, outer, table, material);
+            this.center = center;
         }
 
         @Override
         public Point3D getNormal() {
-            return getPoint().sub(Sphere.this.center).normalize();
-        }
-
-        @Override
-        public double getKdr() {
-            return Sphere.this.kdr;
-        }
-
-        @Override
-        public double getKdg() {
-            return Sphere.this.kdg;
-        }
-
-        @Override
-        public double getKdb() {
-            return Sphere.this.kdb;
-        }
-
-        @Override
-        public double getKrr() {
-            return Sphere.this.krr;
-        }
-
-        @Override
-        public double getKrg() {
-            return Sphere.this.krg;
-        }
-
-        @Override
-        public double getKrb() {
-            return Sphere.this.krb;
-        }
-
-        @Override
-        public double getKrn() {
-            return Sphere.this.krn;
+            return getPoint().sub(center).normalize();
         }
     }
 
@@ -0,0 +1,347 @@
+package hr.fer.zemris.java.raytracer.model;
+
+import java.util.Arrays;
+
+/**
+ * {@code SphereSet} class is a graphical object made of many spheres stored
+ * in struct-of-arrays form.
+ * <p>
+ * Instead of one {@link Sphere} object per sphere, centers, squared radii and
+ * material indexes of all spheres are kept in flat arrays and materials are
+ * interned in a {@link MaterialTable} of the set. One sphere takes 36 bytes, so
+ * millions of spheres fit in a few hundred megabytes, and intersection is a
+ * single tight loop over the arrays.
+ * <p>
+ * Unlike {@link Sphere}, this class only reports intersections that are in
+ * front of the ray start point. The closest intersection of all spheres in
+ * the set is returned.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see GraphicalObject
+ */
+public class SphereSet extends GraphicalObject implements PacketIntersectable {
+
+    /** Default initial capacity of the set. */
+    private static final int DEFAULT_CAPACITY = 16;
+    /** Minimum distance of an intersection from the ray start point. */
+    private static final double EPSILON = 1E-9;
+
+    /** X coordinates of centers. */
+    private double[] cx;
+    /** Y coordinates of centers. */
+    private double[] cy;
+    /** Z coordinates of centers. */
+    private double[] cz;
+    /** Squared radii. */
+    private double[] radius2;
+    /** Material indexes. */
+    private int[] material;
+    /** Table of materials. */
+    private final MaterialTable table;
+    /** Number of spheres. */
+    private int size;
+
+    /**
+     * Constructs a new empty {@code SphereSet}.
+     */
+    public SphereSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new empty {@code SphereSet} with specified initial
+     * capacity.
+     *
+     * @param capacity
+     *            initial capacity
+     * @throws IllegalArgumentException
+     *             if {@code capacity} is a negative number
+     */
+    public SphereSet(int capacity) {
+        this(capacity, new MaterialTable());
+    }
+
+    /**
+     * Constructs a new empty {@code SphereSet} with specified initial
+     * capacity whose materials are interned in specified table.
+     *
+     * @param capacity
+     *            initial capacity
+     * @param table
+     *            table of materials, usually shared by all objects of a scene
+     * @throws NullPointerException
+     *             if argument {@code table} is a null reference
+     * @throws IllegalArgumentException
+     *             if {@code capacity} is a negative number
+     */
+    public SphereSet(int capacity, MaterialTable table) {
+        if (table == null)
+            throw new NullPointerException("Table cannot be a null reference!");
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity cannot be a negative number!");
+
+        this.table = table;
+
+        this.cx = new double[capacity];
+        this.cy = new double[capacity];
+        this.cz = new double[capacity];
+        this.radius2 = new double[capacity];
+        this.material = new int[capacity];
+    }
+
+    /**
+     * Adds a sphere with specified parameters to this set.
+     *
+     * @param cx
+     *            x coordinate of the center
+     * @param cy
+     *            y coordinate of the center
+     * @param cz
+     *            z coordinate of the center
+     * @param radius
+     *            sphere radius
+     * @param kdr
+     *            diffuse component of the red light
+     * @param kdg
+     *            diffuse component of the green light
+     * @param kdb
+     *            diffuse component of the blue light
+     * @param krr
+     *            reflective component of the red light
+     * @param krg
+     *            reflective component of the green light
+     * @param krb
+     *            reflective component of the blue light
+     * @param krn
+     *            coefficient n of reflective component of the light
+     * @return this set
+     * @throws IllegalArgumentException
+     *             if radius is not a positive number or coefficients are not
+     *             in range [0, 1]
+     * @throws IllegalStateException
+     *             if the material is new and the table is full
+     */
+    public SphereSet add(double cx, double cy, double cz, double radius, double kdr, double kdg, double kdb,
+            double krr, double krg, double krb, double krn) {
+        if (!(radius > 0))
+            throw new IllegalArgumentException("Radius must be a positive number!");
+
+        int materialIndex = table.intern(kdr, kdg, kdb, krr, krg, krb, krn);
+        if (materialIndex < 0)
+            throw new IllegalStateException("Material table is full!");
+
+        if (size == this.cx.length) {
+            int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+            this.cx = Arrays.copyOf(this.cx, capacity);
+            this.cy = Arrays.copyOf(this.cy, capacity);
+            this.cz = Arrays.copyOf(this.cz, capacity);
+            this.radius2 = Arrays.copyOf(this.radius2, capacity);
+            this.material = Arrays.copyOf(this.material, capacity);
+        }
+
+        this.cx[size] = cx;
+        this.cy[size] = cy;
+        this.cz[size] = cz;
+        this.radius2[size] = radius * radius;
+        this.material[size] = materialIndex;
+        size++;
+
+        return this;
+    }
+
+    /**
+     * Returns the number of spheres in this set.
+     *
+     * @return number of spheres
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public RayIntersection findClosestRayIntersection(Ray ray) {
+        return findClosestRayIntersection(ray, null);
+    }
+
+    @Override
+    public RayIntersection findClosestRayIntersection(Ray ray, TraceCounter counter) {
+        if (counter != null)
+            counter.addIntersectionTests(size);
+
+        double sx = ray.start.x;
+        double sy = ray.start.y;
+        double sz = ray.start.z;
+        double dx = ray.direction.x;
+        double dy = ray.direction.y;
+        double dz = ray.direction.z;
+
+        int closest = -1;
+        double closestT = Double.POSITIVE_INFINITY;
+        boolean outer = true;
+
+        for (int i = 0; i < size; i++) {
+            double tx = sx - cx[i];
+            double ty = sy - cy[i];
+            double tz = sz - cz[i];
+
+            // direction is normalized, so quadratic is t^2 + 2bt + c = 0
+            double b = tx * dx + ty * dy + tz * dz;
+            double c = tx * tx + ty * ty + tz * tz - radius2[i];
+            double discriminant = b * b - c;
+
+            if (discriminant < 0)
+                continue;
+
+            double root = Math.sqrt(discriminant);
+            double t = -b - root;
+            boolean entering = true;
+
+            if (t <= EPSILON) {
+                t = -b + root;
+                entering = false;
+            }
+
+            if (t > EPSILON && t < closestT) {
+                closestT = t;
+                closest = i;
+                outer = entering;
+            }
+        }
+
+        if (closest < 0)
+            return null;
+
+        return intersection(ray, closest, closestT, outer);
+    }
+
+    @Override
+    public RayIntersection getIntersection(Ray ray, int primitive, double distance) {
+        double tx = ray.start.x - cx[primitive];
+        double ty = ray.start.y - cy[primitive];
+        double tz = ray.start.z - cz[primitive];
+        double b = tx * ray.direction.x + ty * ray.direction.y + tz * ray.direction.z;
+        double c = tx * tx + ty * ty + tz * tz - radius2[primitive];
+
+        // the ray enters the sphere if the closer root is in front of it
+        return intersection(ray, primitive, distance, -b - Math.sqrt(b * b - c) > EPSILON);
+    }
+
+    /**
+     * Returns the intersection of the ray with the sphere at {@code index}.
+     *
+     * @param ray
+     *            the ray
+     * @param index
+     *            index of the sphere
+     * @param t
+     *            distance between start of ray and intersection
+     * @param outer
+     *            flag that indicates if the ray enters the sphere
+     * @return the intersection
+     */
+    private RayIntersection intersection(Ray ray, int index, double t, boolean outer) {
+        Point3D point = new Point3D(ray.start.x + ray.direction.x * t, ray.start.y + ray.direction.y * t,
+                ray.start.z + ray.direction.z * t);
+        return new SphereSetIntersection(point, t, outer, cx[index], cy[index], cz[index], table,
+                material[index]);
+    }
+
+    @Override
+    public void intersect(RayPacket packet, TraceCounter counter) {
+        Point3D start = packet.getStart();
+        double[] dx = packet.dx;
+        double[] dy = packet.dy;
+        double[] dz = packet.dz;
+        int n = packet.size();
+        long tests = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (!packet.mayHitSphere(cx[i], cy[i], cz[i], Math.sqrt(radius2[i])))
+                continue;
+
+            tests += n;
+
+            double tx = start.x - cx[i];
+            double ty = start.y - cy[i];
+            double tz = start.z - cz[i];
+            double c = tx * tx + ty * ty + tz * tz - radius2[i];
+
+            for (int j = 0; j < n; j++) {
+                double b = tx * dx[j] + ty * dy[j] + tz * dz[j];
+                double discriminant = b * b - c;
+
+                if (discriminant < 0)
+                    continue;
+
+                double root = Math.sqrt(discriminant);
+                double t = -b - root;
+                if (t <= EPSILON)
+                    t = -b + root;
+
+                if (t > EPSILON)
+                    packet.offer(j, this, t, i);
+            }
+        }
+
+        if (counter != null)
+            counter.addIntersectionTests(tests);
+    }
+
+    /**
+     * {@code SphereSetIntersection} class represents an intersection of ray
+     * and one sphere of the set.
+     * <p>
+     * This class is implementation of the {@link MaterialIntersection}.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     * @see MaterialIntersection
+     */
+    static class SphereSetIntersection extends MaterialIntersection {
+
+        /** X coordinate of the sphere center. */
+        private final double cx;
+        /** Y coordinate of the sphere center. */
+        private final double cy;
+        /** Z coordinate of the sphere center. */
+        private final double cz;
+
+        /**
+         * Constructs a new {@code SphereSetIntersection} object with
+         * specified parameters.
+         *
+         * @param point
+         *            point of intersection
+         * @param distance
+         *            distance between start of ray and intersection
+         * @param outer
+         *            flag that indicates if this intersection is outer
+         *            intersection
+         * @param cx
+         *            x coordinate of the sphere center
+         * @param cy
+         *            y coordinate of the sphere center
+         * @param cz
+         *            z coordinate of the sphere center
+         * @param table
+         *            table of the material
+         * @param material
+         *            index of the material in the table
+         */
+        protected SphereSetIntersection(Point3D point, double distance, boolean outer, double cx, double cy,
+                double cz, MaterialTable table, int material) {
+            super(point, distance, outer, table, material);
+            this.cx = cx;
+            this.cy = cy;
+            this.cz = cz;
+        }
+
+        @Override
+        public Point3D getNormal() {
+            Point3D point = getPoint();
+            return new Point3D(point.x - cx, point.y - cy, point.z - cz).modifyNormalize();
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package hr.fer.zemris.java.raytracer.model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code TraceCounter} class counts the work of one rendering request: traced
+ * rays and ray-primitive intersection tests made while searching for closest
+ * objects.
+ * <p>
+ * A counter is passed to the tracing methods of a request, so requests
+ * rendered at the same time are counted separately. Jobs of one request can
+ * share a counter from different threads.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+public final class TraceCounter {
+
+    /** Number of traced rays. */
+    private final LongAdder rays = new LongAdder();
+    /** Number of ray-primitive intersection tests. */
+    private final LongAdder intersectionTests = new LongAdder();
+
+    /**
+     * Adds traced rays.
+     *
+     * @param n
+     *            number of rays
+     */
+    public void addRays(long n) {
+        rays.add(n);
+    }
+
+    /**
+     * Adds ray-primitive intersection tests.
+     *
+     * @param n
+     *            number of tests
+     */
+    public void addIntersectionTests(long n) {
+        intersectionTests.add(n);
+    }
+
+    /**
+     * Returns the number of traced rays, primary and shadow rays together.
+     *
+     * @return the number of traced rays
+     */
+    public long getRays() {
+        return rays.sum();
+    }
+
+    /**
+     * Returns the number of ray-primitive intersection tests. A sphere of a
+     * {@link SphereSet} or a triangle of a {@link TriangleMesh} tested
+     * against a ray counts as one test, like any other object.
+     *
+     * @return the number of intersection tests
+     */
+    public long getIntersectionTests() {
+        return intersectionTests.sum();
+    }
+
+}
@@ -0,0 +1,606 @@
+package hr.fer.zemris.java.raytracer.model;
+
+import java.util.Arrays;
+
+/**
+ * {@code TriangleMesh} class is a graphical object made of triangles that
+ * share vertices.
+ * <p>
+ * Vertices are kept in one flat array of coordinates and triangles in one
+ * flat array of vertex indexes, three per triangle. All triangles are made of
+ * the same material, kept in a {@link MaterialTable} of the mesh.
+ * <p>
+ * Every mesh has its own bounding volume hierarchy, so finding the closest
+ * intersection takes logarithmic time in the number of triangles. Nodes of
+ * the hierarchy are kept in flat arrays as well and triangles are reordered
+ * so the triangles of every leaf are stored next to each other.
+ * <p>
+ * Ray-triangle intersection uses the watertight algorithm by Woop, Benthin
+ * and Wald, so rays never slip through shared edges and vertices of
+ * neighbouring triangles. Triangles are two-sided; the reported normal always
+ * faces the start point of the ray.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see GraphicalObject
+ */
+public class TriangleMesh extends GraphicalObject implements PacketIntersectable {
+
+    /** Maximum number of triangles in a leaf of the hierarchy. */
+    private static final int LEAF_SIZE = 4;
+    /** Minimum distance of an intersection from the ray start point. */
+    private static final double EPSILON = 1E-9;
+
+    /** Coordinates of vertices, three per vertex. */
+    private final double[] vertices;
+    /** Indexes of vertices, three per triangle. */
+    private final int[] indices;
+    /** Table of the material. */
+    private final MaterialTable table = new MaterialTable();
+    /** Index of the material in the table. */
+    private final int material;
+
+    /** Bounds of nodes as minimum and maximum x, y and z, six per node. */
+    private double[] bounds;
+    /**
+     * First triangle of a leaf node or index of the first of two adjacent
+     * children of an inner node.
+     */
+    private int[] first;
+    /** Number of triangles of a leaf node or 0 for an inner node. */
+    private int[] count;
+    /** Number of nodes. */
+    private int nodes;
+    /** Depth of the deepest node of the hierarchy, the root has depth 0. */
+    private int depth;
+    /** Traversal state of every thread, reused between rays. */
+    private final ThreadLocal<Traversal> traversals = ThreadLocal.withInitial(() -> new Traversal(depth + 1));
+
+    /**
+     * Constructs a new {@code TriangleMesh} from specified vertices and
+     * triangles and builds its bounding volume hierarchy.
+     * <p>
+     * Array {@code vertices} is used directly, so it must not be modified
+     * afterwards. Array {@code indices} is left unchanged.
+     *
+     * @param vertices
+     *            coordinates of vertices, three per vertex
+     * @param indices
+     *            indexes of vertices, three per triangle
+     * @param kdr
+     *            diffuse component of the red light
+     * @param kdg
+     *            diffuse component of the green light
+     * @param kdb
+     *            diffuse component of the blue light
+     * @param krr
+     *            reflective component of the red light
+     * @param krg
+     *            reflective component of the green light
+     * @param krb
+     *            reflective component of the blue light
+     * @param krn
+     *            coefficient n of reflective component of the light
+     * @throws NullPointerException
+     *             if argument {@code vertices} or {@code indices} is a null
+     *             reference
+     * @throws IllegalArgumentException
+     *             if array lengths are not multiples of three, some index
+     *             doesn't reference a vertex or coefficients are not in range
+     *             [0, 1]
+     */
+    public TriangleMesh(double[] vertices, int[] indices, double kdr, double kdg, double kdb, double krr, double krg,
+            double krb, double krn) {
+        if (vertices == null || indices == null)
+            throw new NullPointerException("Vertices or indices cannot be a null reference!");
+
+        if (vertices.length % 3 != 0 || indices.length % 3 != 0)
+            throw new IllegalArgumentException("Lengths of vertices and indices must be multiples of 3!");
+
+        int vertexCount = vertices.length / 3;
+        for (int index : indices) {
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("Index " + index + " doesn't reference a vertex!");
+        }
+
+        this.material = table.intern(kdr, kdg, kdb, krr, krg, krb, krn);
+        this.vertices = vertices;
+        this.indices = build(indices);
+    }
+
+    /**
+     * Returns the number of vertices of this mesh.
+     *
+     * @return number of vertices
+     */
+    public int getVertexCount() {
+        return vertices.length / 3;
+    }
+
+    /**
+     * Returns the number of triangles of this mesh.
+     *
+     * @return number of triangles
+     */
+    public int getTriangleCount() {
+        return indices.length / 3;
+    }
+
+    @Override
+    public RayIntersection findClosestRayIntersection(Ray ray) {
+        return findClosestRayIntersection(ray, null);
+    }
+
+    @Override
+    public RayIntersection findClosestRayIntersection(Ray ray, TraceCounter counter) {
+        Traversal traversal = traversals.get();
+        traversal.distance = Double.POSITIVE_INFINITY;
+        traversal.tests = 0;
+        int triangle = closest(ray.start.x, ray.start.y, ray.start.z, ray.direction.x, ray.direction.y,
+                ray.direction.z, traversal);
+
+        if (counter != null)
+            counter.addIntersectionTests(traversal.tests);
+        if (triangle < 0)
+            return null;
+
+        return getIntersection(ray, triangle, traversal.distance);
+    }
+
+    @Override
+    public RayIntersection getIntersection(Ray ray, int triangle, double t) {
+        Point3D point = new Point3D(ray.start.x + ray.direction.x * t, ray.start.y + ray.direction.y * t,
+                ray.start.z + ray.direction.z * t);
+
+        int a = indices[triangle * 3] * 3;
+        int b = indices[triangle * 3 + 1] * 3;
+        int c = indices[triangle * 3 + 2] * 3;
+        double e1x = vertices[b] - vertices[a];
+        double e1y = vertices[b + 1] - vertices[a + 1];
+        double e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a];
+        double e2y = vertices[c + 1] - vertices[a + 1];
+        double e2z = vertices[c + 2] - vertices[a + 2];
+        Point3D normal = new Point3D(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x)
+                .modifyNormalize();
+
+        boolean outer = normal.scalarProduct(ray.direction) < 0;
+        if (!outer)
+            normal = normal.negate();
+
+        return new TriangleIntersection(point, t, outer, normal, table, material);
+    }
+
+    @Override
+    public void intersect(RayPacket packet, TraceCounter counter) {
+        Point3D start = packet.getStart();
+        Traversal traversal = traversals.get();
+        traversal.tests = 0;
+
+        for (int i = 0, n = packet.size(); i < n; i++) {
+            traversal.distance = packet.distance[i];
+            int triangle = closest(start.x, start.y, start.z, packet.dx[i], packet.dy[i], packet.dz[i], traversal);
+            if (triangle >= 0)
+                packet.offer(i, this, traversal.distance, triangle);
+        }
+
+        if (counter != null)
+            counter.addIntersectionTests(traversal.tests);
+    }
+
+    /**
+     * Finds the closest triangle intersected by the specified ray which is
+     * closer than the distance of the traversal and adds the number of tested
+     * triangles to the tests of the traversal.
+     *
+     * @param ox
+     *            x coordinate of the ray start point
+     * @param oy
+     *            y coordinate of the ray start point
+     * @param oz
+     *            z coordinate of the ray start point
+     * @param dx
+     *            x component of the normalized ray direction
+     * @param dy
+     *            y component of the normalized ray direction
+     * @param dz
+     *            z component of the normalized ray direction
+     * @param traversal
+     *            traversal whose distance is the maximum distance and
+     *            receives the distance of the found intersection
+     * @return index of the closest intersected triangle or -1 if there is no
+     *         such triangle
+     */
+    private int closest(double ox, double oy, double oz, double dx, double dy, double dz, Traversal traversal) {
+        if (nodes == 0)
+            return -1;
+
+        double ix = 1 / dx;
+        double iy = 1 / dy;
+        double iz = 1 / dz;
+
+        // shear constants of the watertight test; kz is the dominant axis
+        int kz = Math.abs(dx) > Math.abs(dy) ? (Math.abs(dx) > Math.abs(dz) ? 0 : 2)
+                : (Math.abs(dy) > Math.abs(dz) ? 1 : 2);
+        int kx = (kz + 1) % 3;
+        int ky = (kx + 1) % 3;
+        double dkz = component(kz, dx, dy, dz);
+        if (dkz < 0) {
+            int tmp = kx;
+            kx = ky;
+            ky = tmp;
+        }
+        double sx = component(kx, dx, dy, dz) / dkz;
+        double sy = component(ky, dx, dy, dz) / dkz;
+        double sz = 1 / dkz;
+        double okx = component(kx, ox, oy, oz);
+        double oky = component(ky, ox, oy, oz);
+        double okz = component(kz, ox, oy, oz);
+
+        double closestT = traversal.distance;
+        int closest = -1;
+        long tests = 0;
+
+        int[] stack = traversal.stack;
+        int top = 0;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            int node = stack[--top];
+            int b = node * 6;
+
+            // slabs parallel to the ray are missed unless it starts in them
+            double near = Double.NEGATIVE_INFINITY;
+            double far = Double.POSITIVE_INFINITY;
+            if (dx != 0) {
+                double t1 = (bounds[b] - ox) * ix;
+                double t2 = (bounds[b + 3] - ox) * ix;
+                near = Math.min(t1, t2);
+                far = Math.max(t1, t2);
+            } else if (ox < bounds[b] || ox > bounds[b + 3]) {
+                continue;
+            }
+            if (dy != 0) {
+                double t1 = (bounds[b + 1] - oy) * iy;
+                double t2 = (bounds[b + 4] - oy) * iy;
+                near = Math.max(near, Math.min(t1, t2));
+                far = Math.min(far, Math.max(t1, t2));
+            } else if (oy < bounds[b + 1] || oy > bounds[b + 4]) {
+                continue;
+            }
+            if (dz != 0) {
+                double t1 = (bounds[b + 2] - oz) * iz;
+                double t2 = (bounds[b + 5] - oz) * iz;
+                near = Math.max(near, Math.min(t1, t2));
+                far = Math.min(far, Math.max(t1, t2));
+            } else if (oz < bounds[b + 2] || oz > bounds[b + 5]) {
+                continue;
+            }
+
+            if (near > far || far < EPSILON || near >= closestT)
+                continue;
+
+            if (count[node] == 0) {
+                stack[top++] = first[node];
+                stack[top++] = first[node] + 1;
+                continue;
+            }
+
+            tests += count[node];
+            for (int tri = first[node], end = tri + count[node]; tri < end; tri++) {
+                int a = indices[tri * 3] * 3;
+                int c = indices[tri * 3 + 1] * 3;
+                int e = indices[tri * 3 + 2] * 3;
+
+                double az = vertices[a + kz] - okz;
+                double bz = vertices[c + kz] - okz;
+                double cz = vertices[e + kz] - okz;
+                double ax = vertices[a + kx] - okx - sx * az;
+                double ay = vertices[a + ky] - oky - sy * az;
+                double bx = vertices[c + kx] - okx - sx * bz;
+                double by = vertices[c + ky] - oky - sy * bz;
+                double cx = vertices[e + kx] - okx - sx * cz;
+                double cy = vertices[e + ky] - oky - sy * cz;
+
+                double u = cx * by - cy * bx;
+                double v = ax * cy - ay * cx;
+                double w = bx * ay - by * ax;
+
+                if ((u < 0 || v < 0 || w < 0) && (u > 0 || v > 0 || w > 0))
+                    continue;
+
+                double det = u + v + w;
+                if (det == 0)
+                    continue;
+
+                double t = (u * az + v * bz + w * cz) * sz / det;
+                if (t > EPSILON && t < closestT) {
+                    closestT = t;
+                    closest = tri;
+                }
+            }
+        }
+
+        traversal.distance = closestT;
+        traversal.tests += tests;
+        return closest;
+    }
+
+    /**
+     * Returns the component of a vector along specified axis.
+     *
+     * @param axis
+     *            the axis; 0 for x, 1 for y and 2 for z
+     * @param x
+     *            x component
+     * @param y
+     *            y component
+     * @param z
+     *            z component
+     * @return the component along the axis
+     */
+    private static double component(int axis, double x, double y, double z) {
+        return axis == 0 ? x : axis == 1 ? y : z;
+    }
+
+    /**
+     * Builds the bounding volume hierarchy of specified triangles. Inner
+     * nodes are split in the middle of the longest axis of their triangle
+     * centroids.
+     *
+     * @param indices
+     *            indexes of vertices, three per triangle
+     * @return reordered indexes of vertices, triangles of every leaf stored
+     *         next to each other
+     */
+    private int[] build(int[] indices) {
+        int triangles = indices.length / 3;
+
+        double[] centroids = new double[triangles * 3];
+        for (int i = 0; i < triangles; i++) {
+            for (int k = 0; k < 3; k++) {
+                centroids[i * 3 + k] = (vertices[indices[i * 3] * 3 + k] + vertices[indices[i * 3 + 1] * 3 + k]
+                        + vertices[indices[i * 3 + 2] * 3 + k]) / 3;
+            }
+        }
+
+        int[] order = new int[triangles];
+        for (int i = 0; i < triangles; i++) {
+            order[i] = i;
+        }
+
+        int capacity = Math.max(1, 2 * triangles / LEAF_SIZE);
+        bounds = new double[capacity * 6];
+        first = new int[capacity];
+        count = new int[capacity];
+        nodes = 0;
+
+        if (triangles > 0) {
+            // pending nodes as node index, first triangle, count and depth
+            int[] pending = new int[64];
+            int top = 0;
+            pending[top++] = addNode();
+            pending[top++] = 0;
+            pending[top++] = triangles;
+            pending[top++] = 0;
+
+            while (top > 0) {
+                top -= 4;
+                int node = pending[top];
+                int start = pending[top + 1];
+                int size = pending[top + 2];
+                int level = pending[top + 3];
+
+                setBounds(node, indices, order, start, size);
+                depth = Math.max(depth, level);
+
+                if (size <= LEAF_SIZE) {
+                    first[node] = start;
+                    count[node] = size;
+                    continue;
+                }
+
+                int mid = split(centroids, order, start, size);
+                int left = addNode();
+                addNode();
+
+                first[node] = left;
+                count[node] = 0;
+
+                if (pending.length < top + 8)
+                    pending = Arrays.copyOf(pending, pending.length * 2);
+                pending[top++] = left;
+                pending[top++] = start;
+                pending[top++] = mid - start;
+                pending[top++] = level + 1;
+                pending[top++] = left + 1;
+                pending[top++] = mid;
+                pending[top++] = start + size - mid;
+                pending[top++] = level + 1;
+            }
+        }
+
+        int[] reordered = new int[indices.length];
+        for (int i = 0; i < triangles; i++) {
+            System.arraycopy(indices, order[i] * 3, reordered, i * 3, 3);
+        }
+
+        return reordered;
+    }
+
+    /**
+     * Partitions triangles {@code order[start..start+size)} by the middle of
+     * the longest axis of their centroids. If all centroids fall on the same
+     * side the range is split in half.
+     *
+     * @param centroids
+     *            centroids of triangles, three coordinates per triangle
+     * @param order
+     *            order of triangles
+     * @param start
+     *            first triangle of the range
+     * @param size
+     *            number of triangles in the range
+     * @return position of the first triangle of the right part
+     */
+    private static int split(double[] centroids, int[] order, int start, int size) {
+        double[] min = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+        double[] max = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+
+        for (int i = start; i < start + size; i++) {
+            for (int k = 0; k < 3; k++) {
+                double c = centroids[order[i] * 3 + k];
+                min[k] = Math.min(min[k], c);
+                max[k] = Math.max(max[k], c);
+            }
+        }
+
+        int axis = 0;
+        for (int k = 1; k < 3; k++) {
+            if (max[k] - min[k] > max[axis] - min[axis])
+                axis = k;
+        }
+        double middle = (min[axis] + max[axis]) / 2;
+
+        int i = start;
+        int j = start + size - 1;
+        while (i <= j) {
+            if (centroids[order[i] * 3 + axis] < middle) {
+                i++;
+            } else {
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j--] = tmp;
+            }
+        }
+
+        if (i == start || i == start + size)
+            return start + size / 2;
+
+        return i;
+    }
+
+    /**
+     * Sets bounds of the specified node to bounds of specified triangles.
+     *
+     * @param node
+     *            index of the node
+     * @param indices
+     *            indexes of vertices, three per triangle
+     * @param order
+     *            order of triangles
+     * @param start
+     *            first triangle of the node
+     * @param size
+     *            number of triangles of the node
+     */
+    private void setBounds(int node, int[] indices, int[] order, int start, int size) {
+        int b = node * 6;
+        for (int k = 0; k < 3; k++) {
+            bounds[b + k] = Double.POSITIVE_INFINITY;
+            bounds[b + 3 + k] = Double.NEGATIVE_INFINITY;
+        }
+
+        for (int i = start; i < start + size; i++) {
+            for (int j = 0; j < 3; j++) {
+                int v = indices[order[i] * 3 + j] * 3;
+                for (int k = 0; k < 3; k++) {
+                    bounds[b + k] = Math.min(bounds[b + k], vertices[v + k]);
+                    bounds[b + 3 + k] = Math.max(bounds[b + 3 + k], vertices[v + k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a new node to the hierarchy, growing node arrays if needed.
+     *
+     * @return index of the new node
+     */
+    private int addNode() {
+        if (nodes == first.length) {
+            int capacity = first.length * 2;
+            bounds = Arrays.copyOf(bounds, capacity * 6);
+            first = Arrays.copyOf(first, capacity);
+            count = Arrays.copyOf(count, capacity);
+        }
+
+        return nodes++;
+    }
+
+    /**
+     * {@code Traversal} class is the state of a traversal of the hierarchy.
+     * Every thread has its own traversal, so no state is allocated per ray.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private static class Traversal {
+
+        /**
+         * Stack of nodes to visit; every visited inner node is replaced by
+         * its two children, so {@code depth + 1} elements are enough.
+         */
+        private final int[] stack;
+        /** Maximum distance, then distance of the closest intersection. */
+        private double distance;
+        /** Number of tested triangles. */
+        private long tests;
+
+        /**
+         * Constructs a new {@code Traversal} with a stack of specified size.
+         *
+         * @param size
+         *            size of the stack
+         */
+        Traversal(int size) {
+            this.stack = new int[size];
+        }
+    }
+
+    /**
+     * {@code TriangleIntersection} class represents an intersection of ray
+     * and one triangle of the mesh.
+     * <p>
+     * This class is implementation of the {@link MaterialIntersection}.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     * @see MaterialIntersection
+     */
+    static class TriangleIntersection extends MaterialIntersection {
+
+        /** Normal of the triangle facing the ray start point. */
+        private final Point3D normal;
+
+        /**
+         * Constructs a new {@code TriangleIntersection} object with specified
+         * parameters.
+         *
+         * @param point
+         *            point of intersection
+         * @param distance
+         *            distance between start of ray and intersection
+         * @param outer
+         *            flag that indicates if the ray hit the front side of
+         *            the triangle
+         * @param normal
+         *            normal of the triangle facing the ray start point
+         * @param table
+         *            table of the material
+         * @param material
+         *            index of the material in the table
+         */
+        protected TriangleIntersection(Point3D point, double distance, boolean outer, Point3D normal,
+                MaterialTable table, int material) {
+            super(point, distance, outer, table, material);
+            this.normal = normal;
+        }
+
+        @Override
+        public Point3D getNormal() {
+            return normal.copy();
+        }
+    }
+
+}
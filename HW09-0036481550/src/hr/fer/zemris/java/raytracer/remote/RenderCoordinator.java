@@ -0,0 +1,645 @@
+package hr.fer.zemris.java.raytracer.remote;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import hr.fer.zemris.java.raytracer.PackedResultObserver;
+import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
+import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+
+/**
+ * {@code RenderCoordinator} class is an {@link IRayTracerProducer} which
+ * splits every frame into tiles and renders them on {@link RenderWorker}s
+ * over TCP.
+ * <p>
+ * Every worker has up to {@code window} tiles requested at once, so it is
+ * never idle while results travel over the network, and faster workers get
+ * more tiles. Tiles of a worker whose connection fails are requested from
+ * other workers. A tile that isn't finished {@code reassignMillis}
+ * milliseconds after it was requested is also requested from another worker
+ * with free window and the first result wins, so a slow or hung worker can't
+ * hold the frame back.
+ * <p>
+ * The scene is sent to a worker once, when it connects. Workers that are
+ * not connected are retried at the start of every frame. Results that don't
+ * match the requested tile close the connection of the worker, and a frame
+ * that isn't finished in {@code frameTimeoutMillis} milliseconds fails.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see RenderWorker
+ */
+public class RenderCoordinator implements IRayTracerProducer, Closeable {
+
+    /** Default width and height of a tile. */
+    public static final int DEFAULT_TILE_SIZE = 32;
+    /** Default number of tiles requested from a worker at once. */
+    public static final int DEFAULT_WINDOW = 16;
+    /** Default time after which a tile is requested from another worker. */
+    public static final long DEFAULT_REASSIGN_MILLIS = 5000;
+    /** Default time after which an unfinished frame fails. */
+    public static final long DEFAULT_FRAME_TIMEOUT_MILLIS = 120_000;
+
+    /** Timeout of establishing a connection in milliseconds. */
+    private static final int CONNECT_TIMEOUT = 2000;
+
+    /** Scene in text format; empty for the predefined scene. */
+    private final String scene;
+    /** Addresses of workers. */
+    private final List<InetSocketAddress> addresses;
+    /** Width and height of a tile. */
+    private final int tileSize;
+    /** Number of tiles requested from a worker at once. */
+    private final int window;
+    /** Time after which a tile is requested from another worker. */
+    private final long reassignMillis;
+    /** Time after which an unfinished frame fails. */
+    private final long frameTimeoutMillis;
+
+    /** Lock guarding the state of the current frame and connections. */
+    private final Object lock = new Object();
+    /** Live connections. */
+    private final List<Connection> connections = new ArrayList<>();
+    /** Frame being rendered or {@code null}. */
+    private Frame current;
+    /** Number of started frames; identifies frames on the wire. */
+    private long frameCount;
+
+    /**
+     * Constructs a new {@code RenderCoordinator} with default tile size,
+     * window and reassignment time.
+     *
+     * @param scene
+     *            scene in the text format of
+     *            {@link hr.fer.zemris.java.raytracer.scene.SceneReader}; empty
+     *            string for the predefined scene
+     * @param workers
+     *            addresses of workers
+     * @throws NullPointerException
+     *             if either of arguments is a null reference
+     * @throws IllegalArgumentException
+     *             if there are no workers
+     */
+    public RenderCoordinator(String scene, List<InetSocketAddress> workers) {
+        this(scene, workers, DEFAULT_TILE_SIZE, DEFAULT_WINDOW, DEFAULT_REASSIGN_MILLIS);
+    }
+
+    /**
+     * Constructs a new {@code RenderCoordinator} from specified arguments.
+     *
+     * @param scene
+     *            scene in the text format of
+     *            {@link hr.fer.zemris.java.raytracer.scene.SceneReader}; empty
+     *            string for the predefined scene
+     * @param workers
+     *            addresses of workers
+     * @param tileSize
+     *            width and height of a tile
+     * @param window
+     *            number of tiles requested from a worker at once
+     * @param reassignMillis
+     *            time after which a tile is requested from another worker
+     * @throws NullPointerException
+     *             if argument {@code scene} or {@code workers} is a null
+     *             reference
+     * @throws IllegalArgumentException
+     *             if there are no workers or {@code tileSize},
+     *             {@code window} or {@code reassignMillis} is not a positive
+     *             number
+     */
+    public RenderCoordinator(String scene, List<InetSocketAddress> workers, int tileSize, int window,
+            long reassignMillis) {
+        this(scene, workers, tileSize, window, reassignMillis, DEFAULT_FRAME_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructs a new {@code RenderCoordinator} from specified arguments.
+     *
+     * @param scene
+     *            scene in the text format of
+     *            {@link hr.fer.zemris.java.raytracer.scene.SceneReader}; empty
+     *            string for the predefined scene
+     * @param workers
+     *            addresses of workers
+     * @param tileSize
+     *            width and height of a tile
+     * @param window
+     *            number of tiles requested from a worker at once
+     * @param reassignMillis
+     *            time after which a tile is requested from another worker
+     * @param frameTimeoutMillis
+     *            time after which an unfinished frame fails
+     * @throws NullPointerException
+     *             if argument {@code scene} or {@code workers} is a null
+     *             reference
+     * @throws IllegalArgumentException
+     *             if there are no workers or {@code tileSize},
+     *             {@code window}, {@code reassignMillis} or
+     *             {@code frameTimeoutMillis} is not a positive number
+     */
+    public RenderCoordinator(String scene, List<InetSocketAddress> workers, int tileSize, int window,
+            long reassignMillis, long frameTimeoutMillis) {
+        if (scene == null || workers == null)
+            throw new NullPointerException("Scene or workers cannot be a null reference!");
+
+        if (workers.isEmpty())
+            throw new IllegalArgumentException("There must be at least one worker!");
+        if (tileSize <= 0 || window <= 0 || reassignMillis <= 0 || frameTimeoutMillis <= 0)
+            throw new IllegalArgumentException(
+                    "Tile size, window, reassignment time and frame timeout must be positive numbers!");
+
+        this.scene = scene;
+        this.addresses = new ArrayList<>(workers);
+        this.tileSize = tileSize;
+        this.window = window;
+        this.reassignMillis = reassignMillis;
+        this.frameTimeoutMillis = frameTimeoutMillis;
+    }
+
+    @Override
+    public void produce(Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical, int width,
+            int height, long requestNo, IRayTracerResultObserver observer) {
+        System.out.println("Započinjem izračune...");
+
+        short[] red = new short[width * height];
+        short[] green = new short[width * height];
+        short[] blue = new short[width * height];
+
+        try {
+            render(eye, view, viewUp, horizontal, vertical, width, height, red, green, blue);
+        } catch (IOException e) {
+            System.out.println("Izračuni nisu uspjeli: " + e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        System.out.println("Izračuni gotovi...");
+        PackedResultObserver.deliver(observer, red, green, blue, width, height, requestNo);
+        System.out.println("Dojava gotova...");
+    }
+
+    /**
+     * Renders a frame on the workers into specified arrays.
+     *
+     * @param eye
+     *            position of human observer
+     * @param view
+     *            position that is observed
+     * @param viewUp
+     *            specification of view-up vector
+     * @param horizontal
+     *            horizontal width of observed space
+     * @param vertical
+     *            vertical height of observed space
+     * @param width
+     *            number of pixels per screen row
+     * @param height
+     *            number of pixel per screen column
+     * @param red
+     *            red light of the frame
+     * @param green
+     *            green light of the frame
+     * @param blue
+     *            blue light of the frame
+     * @throws IOException
+     *             if all workers are unavailable or the frame times out
+     *             before it is finished
+     * @throws InterruptedException
+     *             if the calling thread is interrupted while waiting
+     */
+    public synchronized void render(Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical,
+            int width, int height, short[] red, short[] green, short[] blue)
+            throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + frameTimeoutMillis;
+        connect();
+
+        Frame frame = new Frame(++frameCount, width, height, red, green, blue);
+        List<Connection> live;
+        synchronized (lock) {
+            current = frame;
+            live = new ArrayList<>(connections);
+            for (Connection connection : live) {
+                connection.outstanding.clear();
+            }
+        }
+
+        for (Connection connection : live) {
+            try {
+                synchronized (connection.out) {
+                    TileProtocol.writeFrame(connection.out, frame.id, eye, view, viewUp, horizontal, vertical,
+                            width, height);
+                }
+                // a reader may fill the connection as soon as it has the frame
+                synchronized (lock) {
+                    connection.frameId = frame.id;
+                }
+            } catch (IOException e) {
+                connection.fail();
+            }
+        }
+
+        try {
+            while (true) {
+                synchronized (lock) {
+                    if (frame.remaining == 0)
+                        return;
+                    if (connections.isEmpty())
+                        throw new IOException("No render worker is available!");
+                    live = new ArrayList<>(connections);
+                }
+
+                for (Connection connection : live) {
+                    fill(connection);
+                }
+
+                synchronized (lock) {
+                    long left = deadline - System.currentTimeMillis();
+                    if (frame.remaining > 0 && left <= 0)
+                        throw new IOException("Frame wasn't rendered in " + frameTimeoutMillis + " ms!");
+                    if (frame.remaining > 0 && !connections.isEmpty())
+                        lock.wait(Math.max(1, Math.min(reassignMillis / 2, left)));
+                }
+            }
+        } finally {
+            synchronized (lock) {
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of workers with a live connection.
+     *
+     * @return number of live workers
+     */
+    public int getLiveWorkerCount() {
+        synchronized (lock) {
+            return connections.size();
+        }
+    }
+
+    /**
+     * Closes connections to all workers.
+     */
+    @Override
+    public void close() {
+        List<Connection> live;
+        synchronized (lock) {
+            live = new ArrayList<>(connections);
+        }
+
+        for (Connection connection : live) {
+            connection.fail();
+        }
+    }
+
+    /**
+     * Connects to workers without a live connection and sends them the
+     * scene. Unreachable workers are skipped.
+     */
+    private void connect() {
+        Set<InetSocketAddress> connected = new HashSet<>();
+        synchronized (lock) {
+            for (Connection connection : connections) {
+                connected.add(connection.address);
+            }
+        }
+
+        for (InetSocketAddress address : addresses) {
+            if (connected.contains(address))
+                continue;
+
+            Socket socket = new Socket();
+            try {
+                socket.connect(address, CONNECT_TIMEOUT);
+                socket.setTcpNoDelay(true);
+
+                Connection connection = new Connection(address, socket);
+                TileProtocol.writeScene(connection.out, scene);
+
+                synchronized (lock) {
+                    connections.add(connection);
+                }
+                connection.start();
+            } catch (IOException e) {
+                try {
+                    socket.close();
+                } catch (IOException ignorable) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests tiles from the connection until its window is full. Nothing is
+     * requested before the connection was sent the current frame.
+     *
+     * @param connection
+     *            the connection
+     */
+    private void fill(Connection connection) {
+        List<Integer> tiles = new ArrayList<>();
+        Frame frame;
+
+        synchronized (lock) {
+            frame = current;
+            if (frame == null || !connection.alive || connection.frameId != frame.id)
+                return;
+
+            long now = System.currentTimeMillis();
+            while (connection.outstanding.size() < window) {
+                int index = frame.next(connection, now);
+                if (index < 0)
+                    break;
+
+                connection.outstanding.add(index);
+                frame.requested[index] = now;
+                tiles.add(index);
+            }
+        }
+
+        if (tiles.isEmpty())
+            return;
+
+        try {
+            synchronized (connection.out) {
+                for (int index : tiles) {
+                    int x = (index % frame.columns) * tileSize;
+                    int y = (index / frame.columns) * tileSize;
+
+                    connection.out.writeByte(TileProtocol.TILE);
+                    connection.out.writeInt(index);
+                    connection.out.writeInt(x);
+                    connection.out.writeInt(y);
+                    connection.out.writeInt(Math.min(tileSize, frame.width - x));
+                    connection.out.writeInt(Math.min(tileSize, frame.height - y));
+                }
+                connection.out.flush();
+            }
+        } catch (IOException e) {
+            connection.fail();
+        }
+    }
+
+    /**
+     * {@code Frame} class is the state of the frame being rendered. All of
+     * its fields are guarded by the lock of the coordinator.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private class Frame {
+
+        /** Identifier of the frame. */
+        private final long id;
+        /** Width of the frame. */
+        private final int width;
+        /** Height of the frame. */
+        private final int height;
+        /** Red light. */
+        private final short[] red;
+        /** Green light. */
+        private final short[] green;
+        /** Blue light. */
+        private final short[] blue;
+
+        /** Number of tile columns. */
+        private final int columns;
+        /** Flags of finished tiles. */
+        private final boolean[] done;
+        /** Time each tile was last requested or {@code 0}. */
+        private final long[] requested;
+        /** Tiles that must be requested. */
+        private final ArrayDeque<Integer> pending = new ArrayDeque<>();
+        /** Number of tiles that are not finished. */
+        private int remaining;
+
+        /**
+         * Constructs a new {@code Frame} from specified arguments.
+         *
+         * @param id
+         *            identifier of the frame
+         * @param width
+         *            width of the frame
+         * @param height
+         *            height of the frame
+         * @param red
+         *            red light
+         * @param green
+         *            green light
+         * @param blue
+         *            blue light
+         */
+        Frame(long id, int width, int height, short[] red, short[] green, short[] blue) {
+            this.id = id;
+            this.width = width;
+            this.height = height;
+            this.red = red;
+            this.green = green;
+            this.blue = blue;
+
+            this.columns = (width + tileSize - 1) / tileSize;
+            this.remaining = columns * ((height + tileSize - 1) / tileSize);
+            this.done = new boolean[remaining];
+            this.requested = new long[remaining];
+            for (int i = 0; i < remaining; i++) {
+                pending.add(i);
+            }
+        }
+
+        /**
+         * Returns the next tile that should be requested from the
+         * connection: a pending tile or, if there are none, an overdue tile
+         * requested from another connection.
+         *
+         * @param connection
+         *            the connection
+         * @param now
+         *            current time in milliseconds
+         * @return index of the tile or {@code -1} if there is none
+         */
+        int next(Connection connection, long now) {
+            Integer index;
+            while ((index = pending.poll()) != null) {
+                if (!done[index])
+                    return index;
+            }
+
+            for (int i = 0; i < done.length; i++) {
+                if (!done[i] && now - requested[i] >= reassignMillis && !connection.outstanding.contains(i))
+                    return i;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Copies a tile into the frame unless it is already finished.
+         *
+         * @param index
+         *            index of the tile
+         * @param tileWidth
+         *            width of the tile
+         * @param tileHeight
+         *            height of the tile
+         * @param rgb
+         *            red, green and blue light of the tile
+         * @throws IOException
+         *             if the size of the tile isn't the size of the requested
+         *             tile
+         */
+        void accept(int index, int tileWidth, int tileHeight, short[][] rgb) throws IOException {
+            int x = (index % columns) * tileSize;
+            int y = (index / columns) * tileSize;
+            if (tileWidth != Math.min(tileSize, width - x) || tileHeight != Math.min(tileSize, height - y))
+                throw new IOException("Tile " + index + " doesn't have the requested size!");
+            if (done[index])
+                return;
+
+            for (int row = 0; row < tileHeight; row++) {
+                int offset = (y + row) * width + x;
+                System.arraycopy(rgb[0], row * tileWidth, red, offset, tileWidth);
+                System.arraycopy(rgb[1], row * tileWidth, green, offset, tileWidth);
+                System.arraycopy(rgb[2], row * tileWidth, blue, offset, tileWidth);
+            }
+
+            done[index] = true;
+            remaining--;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * {@code Connection} class is a connection to one worker with a thread
+     * reading its results.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private class Connection {
+
+        /** Address of the worker. */
+        private final InetSocketAddress address;
+        /** The socket. */
+        private final Socket socket;
+        /** Input of the socket. */
+        private final DataInputStream in;
+        /** Output of the socket; writers synchronize on it. */
+        private final DataOutputStream out;
+        /** Tiles of the current frame requested and not answered. */
+        private final Set<Integer> outstanding = new HashSet<>();
+        /** Identifier of the last frame sent to the worker, guarded by the lock. */
+        private long frameId;
+        /** Flag that indicates if the connection is live. */
+        private volatile boolean alive = true;
+
+        /**
+         * Constructs a new {@code Connection} over specified socket.
+         *
+         * @param address
+         *            address of the worker
+         * @param socket
+         *            the socket
+         * @throws IOException
+         *             if streams of the socket cannot be opened
+         */
+        Connection(InetSocketAddress address, Socket socket) throws IOException {
+            this.address = address;
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        /**
+         * Starts the thread reading results.
+         */
+        void start() {
+            Thread reader = new Thread(this::read, "render-coordinator-" + address);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        /**
+         * Reads results until the connection fails.
+         */
+        private void read() {
+            try {
+                while (alive) {
+                    if (in.read() != TileProtocol.RESULT)
+                        throw new IOException("Unexpected message from worker!");
+
+                    long id = in.readLong();
+                    int index = in.readInt();
+                    int width = in.readInt();
+                    int height = in.readInt();
+                    if (width <= 0 || height <= 0 || width > tileSize || height > tileSize)
+                        throw new IOException("Invalid tile size!");
+
+                    short[][] rgb = new short[3][width * height];
+                    for (short[] color : rgb) {
+                        for (int i = 0; i < color.length; i++) {
+                            color[i] = in.readShort();
+                        }
+                    }
+
+                    synchronized (lock) {
+                        Frame frame = current;
+                        if (frame == null || frame.id != id || index < 0
+                                || index >= frame.done.length)
+                            continue;
+
+                        outstanding.remove(index);
+                        frame.accept(index, width, height, rgb);
+                    }
+
+                    fill(this);
+                }
+            } catch (IOException | RuntimeException e) {
+                fail();
+            }
+        }
+
+        /**
+         * Closes the connection and returns its tiles to other workers.
+         */
+        void fail() {
+            alive = false;
+            try {
+                socket.close();
+            } catch (IOException ignorable) {
+            }
+
+            synchronized (lock) {
+                if (!connections.remove(this))
+                    return;
+
+                Frame frame = current;
+                if (frame != null) {
+                    for (int index : outstanding) {
+                        if (!frame.done[index]) {
+                            frame.requested[index] = 0;
+                            frame.pending.addFirst(index);
+                        }
+                    }
+                }
+                outstanding.clear();
+                lock.notifyAll();
+            }
+        }
+    }
+
+}
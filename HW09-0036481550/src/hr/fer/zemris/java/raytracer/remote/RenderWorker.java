@@ -0,0 +1,254 @@
+package hr.fer.zemris.java.raytracer.remote;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import hr.fer.zemris.java.raytracer.Camera;
+import hr.fer.zemris.java.raytracer.CompiledScene;
+import hr.fer.zemris.java.raytracer.Tracer;
+
+/**
+ * {@code RenderWorker} class is a server which renders tiles requested by
+ * {@link RenderCoordinator}s over TCP.
+ * <p>
+ * Every connection has its own scene and camera, which are set by the
+ * coordinator before tiles are requested. Tiles of all connections are
+ * rendered by a fixed pool with one thread per available processor and are
+ * sent back in the order they finish.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see RenderCoordinator
+ */
+public class RenderWorker implements Closeable {
+
+    /** Number of rendering threads. */
+    private static final int NUM_OF_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /** Server socket accepting coordinators. */
+    private final ServerSocket server;
+    /** Pool rendering tiles. */
+    private final ExecutorService pool = Executors.newFixedThreadPool(NUM_OF_THREADS, r -> {
+        Thread thread = new Thread(r);
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Open connections. */
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a new {@code RenderWorker} listening on specified port.
+     * Connections are not accepted before {@link #start()} is called.
+     *
+     * @param port
+     *            the port; {@code 0} picks a free port
+     * @throws IOException
+     *             if port cannot be bound
+     */
+    public RenderWorker(int port) throws IOException {
+        this.server = new ServerSocket(port);
+    }
+
+    /**
+     * Returns the port this worker listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Starts accepting connections in a daemon thread.
+     */
+    public void start() {
+        Thread acceptor = new Thread(this::accept, "render-worker-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Stops accepting connections and closes all open ones.
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Socket socket : connections) {
+            socket.close();
+        }
+        pool.shutdownNow();
+    }
+
+    /**
+     * Accepts connections until the server socket is closed.
+     */
+    private void accept() {
+        while (!server.isClosed()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                return;
+            }
+
+            connections.add(socket);
+            Thread thread = new Thread(() -> serve(socket), "render-worker-connection");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Reads messages of one coordinator until the connection is closed.
+     *
+     * @param socket
+     *            the connection
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+
+            CompiledScene scene = null;
+            Camera camera = null;
+            long frameNo = 0;
+
+            int type;
+            while ((type = in.read()) >= 0) {
+                switch (type) {
+                case TileProtocol.SCENE:
+                    scene = TileProtocol.readScene(in);
+                    break;
+                case TileProtocol.FRAME:
+                    frameNo = in.readLong();
+                    camera = TileProtocol.readCamera(in);
+                    break;
+                case TileProtocol.TILE:
+                    int index = in.readInt();
+                    int x = in.readInt();
+                    int y = in.readInt();
+                    int width = in.readInt();
+                    int height = in.readInt();
+                    if (scene == null || camera == null)
+                        throw new IOException("Tile requested before scene and frame!");
+                    if (x < 0 || y < 0 || width <= 0 || height <= 0 || x + width > camera.getWidth()
+                            || y + height > camera.getHeight())
+                        throw new IOException("Tile is outside of the frame!");
+
+                    CompiledScene tileScene = scene;
+                    Camera tileCamera = camera;
+                    long tileFrameNo = frameNo;
+                    pool.execute(() -> render(s, out, tileScene, tileCamera, tileFrameNo, index, x, y, width,
+                            height));
+                    break;
+                default:
+                    throw new IOException("Unknown message type " + type + "!");
+                }
+            }
+        } catch (IOException | RejectedExecutionException e) {
+            // connection is over
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Renders one tile and sends it to the coordinator.
+     *
+     * @param socket
+     *            the connection
+     * @param out
+     *            output of the connection
+     * @param scene
+     *            scene
+     * @param camera
+     *            camera
+     * @param frameNo
+     *            number of the frame
+     * @param index
+     *            index of the tile
+     * @param x
+     *            x coordinate of the upper left pixel
+     * @param y
+     *            y coordinate of the upper left pixel
+     * @param width
+     *            width of the tile
+     * @param height
+     *            height of the tile
+     */
+    private static void render(Socket socket, DataOutputStream out, CompiledScene scene, Camera camera,
+            long frameNo, int index, int x, int y, int width, int height) {
+        if (socket.isClosed())
+            return;
+
+        short[] red = new short[width * height];
+        short[] green = new short[width * height];
+        short[] blue = new short[width * height];
+        try {
+            Tracer.trace(scene, camera, x, y, x + width - 1, y + height - 1, red, green, blue, 0, width, null, null);
+        } catch (RuntimeException e) {
+            // the coordinator sees a failed worker instead of waiting for the tile
+            System.out.println("Tile cannot be rendered: " + e);
+            try {
+                socket.close();
+            } catch (IOException ignorable) {
+            }
+            return;
+        }
+
+        try {
+            synchronized (out) {
+                out.writeByte(TileProtocol.RESULT);
+                out.writeLong(frameNo);
+                out.writeInt(index);
+                out.writeInt(width);
+                out.writeInt(height);
+                for (short[] color : new short[][] { red, green, blue }) {
+                    for (short value : color) {
+                        out.writeShort(value);
+                    }
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            try {
+                socket.close();
+            } catch (IOException ignorable) {
+            }
+        }
+    }
+
+    /**
+     * Starting point of a program.
+     *
+     * @param args
+     *            Command-line argument; the port to listen on
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.out.println("Usage: RenderWorker <port>");
+            return;
+        }
+
+        try {
+            RenderWorker worker = new RenderWorker(Integer.parseInt(args[0]));
+            System.out.println("Render worker listening on port " + worker.getPort() + ".");
+            worker.accept();
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Render worker cannot be started: " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+package hr.fer.zemris.java.raytracer.remote;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import hr.fer.zemris.java.raytracer.Camera;
+import hr.fer.zemris.java.raytracer.CompiledScene;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.scene.PackedSceneBuilder;
+import hr.fer.zemris.java.raytracer.scene.SceneReader;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+/**
+ * {@code TileProtocol} class defines messages exchanged by a
+ * {@link RenderCoordinator} and its {@link RenderWorker}s.
+ * <p>
+ * Every message starts with a type byte. The coordinator sends
+ * {@value #SCENE} (scene in the text format of {@link SceneReader} as
+ * length-prefixed UTF-8 bytes; an empty scene stands for the predefined
+ * scene), {@value #FRAME} (frame number and camera) and {@value #TILE} (tile
+ * index and its rectangle) messages. A worker answers every tile with a
+ * {@value #RESULT} message (frame number, tile index, size and colors).
+ * All values are written by {@link DataOutputStream}.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ */
+final class TileProtocol {
+
+    /** Type of a message carrying the scene. */
+    static final int SCENE = 1;
+    /** Type of a message carrying the frame number and camera. */
+    static final int FRAME = 2;
+    /** Type of a message requesting a tile. */
+    static final int TILE = 3;
+    /** Type of a message carrying a rendered tile. */
+    static final int RESULT = 4;
+
+    /** Maximum size of a scene in bytes. */
+    static final int MAX_SCENE_BYTES = 64 << 20;
+
+    /**
+     * Private constructor used to prevent instantiation.
+     */
+    private TileProtocol() {
+    }
+
+    /**
+     * Writes a {@value #SCENE} message.
+     *
+     * @param out
+     *            the output
+     * @param scene
+     *            scene in text format; empty for the predefined scene
+     * @throws IOException
+     *             if writing fails or the scene is larger than
+     *             {@value #MAX_SCENE_BYTES} bytes
+     */
+    static void writeScene(DataOutputStream out, String scene) throws IOException {
+        byte[] bytes = scene.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_SCENE_BYTES)
+            throw new IOException("Scene is too large!");
+
+        out.writeByte(SCENE);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads the body of a {@value #SCENE} message and compiles the scene.
+     *
+     * @param in
+     *            the input
+     * @return the compiled scene
+     * @throws IOException
+     *             if reading fails or the scene is not valid
+     */
+    static CompiledScene readScene(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_SCENE_BYTES)
+            throw new IOException("Invalid scene length!");
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        Scene scene;
+        if (length == 0) {
+            scene = RayTracerViewer.createPredefinedScene();
+        } else {
+            PackedSceneBuilder builder = new PackedSceneBuilder();
+            SceneReader.readText(new StringReader(new String(bytes, StandardCharsets.UTF_8)), builder);
+            scene = builder.getScene();
+        }
+
+        return CompiledScene.compile(scene);
+    }
+
+    /**
+     * Writes a {@value #FRAME} message.
+     *
+     * @param out
+     *            the output
+     * @param frameNo
+     *            number of the frame
+     * @param eye
+     *            position of human observer
+     * @param view
+     *            position that is observed
+     * @param viewUp
+     *            specification of view-up vector
+     * @param horizontal
+     *            horizontal width of observed space
+     * @param vertical
+     *            vertical height of observed space
+     * @param width
+     *            number of pixels per screen row
+     * @param height
+     *            number of pixel per screen column
+     * @throws IOException
+     *             if writing fails
+     */
+    static void writeFrame(DataOutputStream out, long frameNo, Point3D eye, Point3D view, Point3D viewUp,
+            double horizontal, double vertical, int width, int height) throws IOException {
+        out.writeByte(FRAME);
+        out.writeLong(frameNo);
+        for (Point3D point : new Point3D[] { eye, view, viewUp }) {
+            out.writeDouble(point.x);
+            out.writeDouble(point.y);
+            out.writeDouble(point.z);
+        }
+        out.writeDouble(horizontal);
+        out.writeDouble(vertical);
+        out.writeInt(width);
+        out.writeInt(height);
+    }
+
+    /**
+     * Reads the camera of a {@value #FRAME} message. The frame number must
+     * already be read.
+     *
+     * @param in
+     *            the input
+     * @return the camera
+     * @throws IOException
+     *             if reading fails or the camera is not valid
+     */
+    static Camera readCamera(DataInputStream in) throws IOException {
+        Point3D eye = new Point3D(in.readDouble(), in.readDouble(), in.readDouble());
+        Point3D view = new Point3D(in.readDouble(), in.readDouble(), in.readDouble());
+        Point3D viewUp = new Point3D(in.readDouble(), in.readDouble(), in.readDouble());
+        double horizontal = in.readDouble();
+        double vertical = in.readDouble();
+        int width = in.readInt();
+        int height = in.readInt();
+
+        try {
+            return new Camera(eye, view, viewUp, horizontal, vertical, width, height);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package hr.fer.zemris.java.raytracer.scene;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@code BinarySceneWriter} class is a {@link SceneHandler} which writes every
+ * received element to a file in the binary format described in
+ * {@link SceneReader}.
+ * <p>
+ * Spheres are streamed to the file as they are received. Lights are kept in
+ * memory and written together with the header when the writer is closed, so
+ * the file is valid only after {@link #close()} returns.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see SceneReader
+ */
+public class BinarySceneWriter implements SceneHandler, Closeable {
+
+    /** Size of the write buffer in bytes. */
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    /** Channel of the scene file. */
+    private final FileChannel channel;
+    /** Write buffer. */
+    private final ByteBuffer buffer;
+    /** Light records in binary form. */
+    private final ByteArrayOutputStream lights = new ByteArrayOutputStream();
+    /** Buffer for one light record. */
+    private final ByteBuffer light = ByteBuffer.allocate(SceneReader.LIGHT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    /** Number of written lights. */
+    private long lightCount;
+    /** Number of written spheres. */
+    private long sphereCount;
+
+    /**
+     * Constructs a new {@code BinarySceneWriter} which creates or overwrites
+     * the file at specified path.
+     *
+     * @param path
+     *            path of the scene file
+     * @throws IOException
+     *             if file cannot be opened
+     */
+    public BinarySceneWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        channel.position(SceneReader.HEADER_BYTES);
+    }
+
+    @Override
+    public void light(double x, double y, double z, int r, int g, int b) {
+        light.clear();
+        light.putDouble(x).putDouble(y).putDouble(z).putInt(r).putInt(g).putInt(b).putInt(0);
+        lights.write(light.array(), 0, SceneReader.LIGHT_BYTES);
+
+        lightCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException
+     *             if writing fails
+     */
+    @Override
+    public void sphere(double cx, double cy, double cz, double radius, double kdr, double kdg, double kdb,
+            double krr, double krg, double krb, double krn) {
+        if (buffer.remaining() < SceneReader.SPHERE_BYTES) {
+            try {
+                flushBuffer();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        buffer.putDouble(cx).putDouble(cy).putDouble(cz).putDouble(radius)
+                .putDouble(kdr).putDouble(kdg).putDouble(kdb)
+                .putDouble(krr).putDouble(krg).putDouble(krb).putDouble(krn);
+
+        sphereCount++;
+    }
+
+    /**
+     * Writes buffered spheres, all lights and the header and closes the file.
+     *
+     * @throws IOException
+     *             if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+
+            ByteBuffer records = ByteBuffer.wrap(lights.toByteArray());
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(SceneReader.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(SceneReader.MAGIC).putInt(SceneReader.VERSION).putLong(lightCount).putLong(sphereCount);
+            header.flip();
+            channel.position(0);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes content of the write buffer to the file.
+     *
+     * @throws IOException
+     *             if writing fails
+     */
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
@@ -0,0 +1,216 @@
+package hr.fer.zemris.java.raytracer.scene;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import hr.fer.zemris.java.raytracer.model.TriangleMesh;
+
+/**
+ * {@code ObjReader} class reads Wavefront OBJ files into a
+ * {@link TriangleMesh}.
+ * <p>
+ * Only vertex positions ({@code v}) and faces ({@code f}) are read; all other
+ * statements such as normals, texture coordinates, groups and materials are
+ * ignored. Faces with more than three vertices are split into triangles
+ * around their first vertex and negative (relative) vertex indexes are
+ * supported.
+ * <p>
+ * The file is streamed line by line into flat primitive arrays, so no object
+ * is created per vertex or face and files with millions of triangles can be
+ * read.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TriangleMesh
+ */
+public final class ObjReader {
+
+    /** Initial capacity of vertex and index arrays. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Private constructor used to prevent instantiation.
+     */
+    private ObjReader() {
+    }
+
+    /**
+     * Reads the OBJ file at specified path into a mesh made of specified
+     * material.
+     *
+     * @param path
+     *            path of the OBJ file
+     * @param kdr
+     *            diffuse component of the red light
+     * @param kdg
+     *            diffuse component of the green light
+     * @param kdb
+     *            diffuse component of the blue light
+     * @param krr
+     *            reflective component of the red light
+     * @param krg
+     *            reflective component of the green light
+     * @param krb
+     *            reflective component of the blue light
+     * @param krn
+     *            coefficient n of reflective component of the light
+     * @return the mesh
+     * @throws IOException
+     *             if file cannot be read or is not a valid OBJ file
+     * @throws NullPointerException
+     *             if argument {@code path} is a null reference
+     * @throws IllegalArgumentException
+     *             if coefficients are not in range [0, 1]
+     */
+    public static TriangleMesh read(Path path, double kdr, double kdg, double kdb, double krr, double krg,
+            double krb, double krn) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return read(reader, kdr, kdg, kdb, krr, krg, krb, krn);
+        }
+    }
+
+    /**
+     * Reads an OBJ model from the specified reader into a mesh made of
+     * specified material. The reader is not closed.
+     *
+     * @param reader
+     *            source of the model
+     * @param kdr
+     *            diffuse component of the red light
+     * @param kdg
+     *            diffuse component of the green light
+     * @param kdb
+     *            diffuse component of the blue light
+     * @param krr
+     *            reflective component of the red light
+     * @param krg
+     *            reflective component of the green light
+     * @param krb
+     *            reflective component of the blue light
+     * @param krn
+     *            coefficient n of reflective component of the light
+     * @return the mesh
+     * @throws IOException
+     *             if reading fails or input is not a valid OBJ model
+     * @throws NullPointerException
+     *             if argument {@code reader} is a null reference
+     * @throws IllegalArgumentException
+     *             if coefficients are not in range [0, 1]
+     */
+    public static TriangleMesh read(Reader reader, double kdr, double kdg, double kdb, double krr, double krg,
+            double krb, double krn) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader
+                : new BufferedReader(reader);
+
+        double[] vertices = new double[INITIAL_CAPACITY * 3];
+        int vertexValues = 0;
+        int[] indices = new int[INITIAL_CAPACITY * 3];
+        int indexCount = 0;
+        int[] face = new int[16];
+
+        int lineNo = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNo++;
+
+            int pos = skipSpaces(line, 0);
+            int end = tokenEnd(line, pos);
+            if (pos == end || line.charAt(pos) == '#')
+                continue;
+
+            try {
+                if (end - pos == 1 && line.charAt(pos) == 'v') {
+                    if (vertices.length < vertexValues + 3)
+                        vertices = Arrays.copyOf(vertices, vertices.length * 2);
+
+                    for (int i = 0; i < 3; i++) {
+                        pos = skipSpaces(line, end);
+                        end = tokenEnd(line, pos);
+                        if (pos == end)
+                            throw new IOException("Line " + lineNo + ": vertex must have three coordinates!");
+
+                        vertices[vertexValues++] = Double.parseDouble(line.substring(pos, end));
+                    }
+                } else if (end - pos == 1 && line.charAt(pos) == 'f') {
+                    int size = 0;
+                    int vertexCount = vertexValues / 3;
+
+                    while ((pos = skipSpaces(line, end)) < line.length()) {
+                        end = tokenEnd(line, pos);
+
+                        int slash = line.indexOf('/', pos);
+                        int index = Integer.parseInt(line.substring(pos, slash < 0 || slash > end ? end : slash));
+                        index = index < 0 ? vertexCount + index : index - 1;
+                        if (index < 0 || index >= vertexCount)
+                            throw new IOException("Line " + lineNo + ": face references an unknown vertex!");
+
+                        if (size == face.length)
+                            face = Arrays.copyOf(face, face.length * 2);
+                        face[size++] = index;
+                    }
+
+                    if (size < 3)
+                        throw new IOException("Line " + lineNo + ": face must have at least three vertices!");
+
+                    int triangles = size - 2;
+                    while (indices.length < indexCount + triangles * 3) {
+                        indices = Arrays.copyOf(indices, indices.length * 2);
+                    }
+
+                    for (int i = 1; i < size - 1; i++) {
+                        indices[indexCount++] = face[0];
+                        indices[indexCount++] = face[i];
+                        indices[indexCount++] = face[i + 1];
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNo + ": " + e.getMessage(), e);
+            }
+        }
+
+        return new TriangleMesh(Arrays.copyOf(vertices, vertexValues), Arrays.copyOf(indices, indexCount),
+                kdr, kdg, kdb, krr, krg, krb, krn);
+    }
+
+    /**
+     * Returns position of the first non-whitespace character at or after
+     * {@code pos}.
+     *
+     * @param line
+     *            the line
+     * @param pos
+     *            starting position
+     * @return position of the next token or length of the line
+     */
+    private static int skipSpaces(String line, int pos) {
+        while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+            pos++;
+        }
+
+        return pos;
+    }
+
+    /**
+     * Returns position right after the token starting at {@code pos}.
+     *
+     * @param line
+     *            the line
+     * @param pos
+     *            position of the token
+     * @return position of the first whitespace after the token or length of
+     *         the line
+     */
+    private static int tokenEnd(String line, int pos) {
+        while (pos < line.length() && !Character.isWhitespace(line.charAt(pos))) {
+            pos++;
+        }
+
+        return pos;
+    }
+
+}
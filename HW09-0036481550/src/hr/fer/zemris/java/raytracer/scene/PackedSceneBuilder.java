@@ -0,0 +1,82 @@
+package hr.fer.zemris.java.raytracer.scene;
+
+import hr.fer.zemris.java.raytracer.model.LightSource;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.SphereSet;
+
+/**
+ * {@code PackedSceneBuilder} class is a {@link SceneHandler} which adds every
+ * received sphere to a single {@link SphereSet} and every light to a
+ * {@link Scene} as a {@link LightSource} object.
+ * <p>
+ * No object is created per sphere, so this builder should be used for scenes
+ * with a huge number of spheres.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see SceneHandler
+ * @see SceneBuilder
+ */
+public class PackedSceneBuilder implements SceneHandler {
+
+    /** Scene elements are added to. */
+    private final Scene scene;
+    /** Set spheres are added to. */
+    private final SphereSet spheres = new SphereSet();
+
+    /**
+     * Constructs a new {@code PackedSceneBuilder} which fills a new empty
+     * scene.
+     */
+    public PackedSceneBuilder() {
+        this(new Scene());
+    }
+
+    /**
+     * Constructs a new {@code PackedSceneBuilder} which fills the specified
+     * scene. The sphere set is added to the scene immediately.
+     *
+     * @param scene
+     *            scene elements are added to
+     * @throws NullPointerException
+     *             if argument {@code scene} is a null reference
+     */
+    public PackedSceneBuilder(Scene scene) {
+        if (scene == null)
+            throw new NullPointerException("Argument scene cannot be null reference!");
+
+        this.scene = scene;
+        scene.add(spheres);
+    }
+
+    @Override
+    public void light(double x, double y, double z, int r, int g, int b) {
+        scene.add(new LightSource(new Point3D(x, y, z), r, g, b));
+    }
+
+    @Override
+    public void sphere(double cx, double cy, double cz, double radius, double kdr, double kdg, double kdb,
+            double krr, double krg, double krb, double krn) {
+        spheres.add(cx, cy, cz, radius, kdr, kdg, kdb, krr, krg, krb, krn);
+    }
+
+    /**
+     * Returns the filled scene.
+     *
+     * @return the scene
+     */
+    public Scene getScene() {
+        return scene;
+    }
+
+    /**
+     * Returns the set all received spheres are added to.
+     *
+     * @return the sphere set
+     */
+    public SphereSet getSpheres() {
+        return spheres;
+    }
+
+}
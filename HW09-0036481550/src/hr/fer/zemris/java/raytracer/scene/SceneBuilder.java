@@ -0,0 +1,68 @@
+package hr.fer.zemris.java.raytracer.scene;
+
+import hr.fer.zemris.java.raytracer.model.LightSource;
+import hr.fer.zemris.java.raytracer.model.MaterialTable;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+
+/**
+ * {@code SceneBuilder} class is a {@link SceneHandler} which adds every
+ * received element to a {@link Scene} as a {@link Sphere} or a
+ * {@link LightSource} object. Materials of spheres are interned in a
+ * {@link MaterialTable} of the builder.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see SceneHandler
+ */
+public class SceneBuilder implements SceneHandler {
+
+    /** Scene elements are added to. */
+    private final Scene scene;
+    /** Table of materials of the scene. */
+    private final MaterialTable materials = new MaterialTable();
+
+    /**
+     * Constructs a new {@code SceneBuilder} which fills a new empty scene.
+     */
+    public SceneBuilder() {
+        this(new Scene());
+    }
+
+    /**
+     * Constructs a new {@code SceneBuilder} which fills the specified scene.
+     *
+     * @param scene
+     *            scene elements are added to
+     * @throws NullPointerException
+     *             if argument {@code scene} is a null reference
+     */
+    public SceneBuilder(Scene scene) {
+        if (scene == null)
+            throw new NullPointerException("Argument scene cannot be null reference!");
+
+        this.scene = scene;
+    }
+
+    @Override
+    public void light(double x, double y, double z, int r, int g, int b) {
+        scene.add(new LightSource(new Point3D(x, y, z), r, g, b));
+    }
+
+    @Override
+    public void sphere(double cx, double cy, double cz, double radius, double kdr, double kdg, double kdb,
+            double krr, double krg, double krb, double krn) {
+        scene.add(new Sphere(new Point3D(cx, cy, cz), radius, materials, kdr, kdg, kdb, krr, krg, krb, krn));
+    }
+
+    /**
+     * Returns the filled scene.
+     *
+     * @return the scene
+     */
+    public Scene getScene() {
+        return scene;
+    }
+
+}
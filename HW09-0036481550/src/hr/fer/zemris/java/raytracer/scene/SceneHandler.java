@@ -0,0 +1,63 @@
+package hr.fer.zemris.java.raytracer.scene;
+
+/**
+ * {@code SceneHandler} interface receives scene elements from a
+ * {@link SceneReader} one by one.
+ * <p>
+ * Elements are passed as primitive values so a handler can store them in any
+ * representation without creating an object per element.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see SceneReader
+ */
+public interface SceneHandler {
+
+    /**
+     * Called for every light source of the scene.
+     *
+     * @param x
+     *            x coordinate of the light position
+     * @param y
+     *            y coordinate of the light position
+     * @param z
+     *            z coordinate of the light position
+     * @param r
+     *            red intensity of light
+     * @param g
+     *            green intensity of light
+     * @param b
+     *            blue intensity of light
+     */
+    void light(double x, double y, double z, int r, int g, int b);
+
+    /**
+     * Called for every sphere of the scene.
+     *
+     * @param cx
+     *            x coordinate of the center
+     * @param cy
+     *            y coordinate of the center
+     * @param cz
+     *            z coordinate of the center
+     * @param radius
+     *            sphere radius
+     * @param kdr
+     *            diffuse component of the red light
+     * @param kdg
+     *            diffuse component of the green light
+     * @param kdb
+     *            diffuse component of the blue light
+     * @param krr
+     *            reflective component of the red light
+     * @param krg
+     *            reflective component of the green light
+     * @param krb
+     *            reflective component of the blue light
+     * @param krn
+     *            coefficient n of reflective component of the light
+     */
+    void sphere(double cx, double cy, double cz, double radius, double kdr, double kdg, double kdb, double krr,
+            double krg, double krb, double krn);
+
+}
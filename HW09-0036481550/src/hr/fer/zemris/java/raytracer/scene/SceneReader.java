@@ -0,0 +1,308 @@
+package hr.fer.zemris.java.raytracer.scene;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@code SceneReader} class reads scene files and passes their elements to a
+ * {@link SceneHandler}.
+ * <p>
+ * Two formats are supported. The text format has one element per line;
+ * empty lines and lines starting with {@code #} are ignored:
+ *
+ * <pre>
+ * light x y z r g b
+ * sphere cx cy cz radius kdr kdg kdb krr krg krb krn
+ * </pre>
+ *
+ * The binary format is little-endian and consists of a header (magic number
+ * {@code RTSC}, format version, light count and sphere count as
+ * {@code int, int, long, long}), followed by all spheres as eleven
+ * {@code double}s each (in the same order as in the text format) and all
+ * lights as three {@code double}s and four {@code int}s each (the last one is
+ * reserved). Lights of a binary file are passed to the handler before spheres.
+ * Binary files are memory-mapped and read in bulk, so huge sphere sets are
+ * read without creating an object per element.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see SceneHandler
+ */
+public final class SceneReader {
+
+    /** Magic number of binary scene files. */
+    static final int MAGIC = 0x43535452;
+    /** Version of the binary format. */
+    static final int VERSION = 1;
+    /** Size of the binary header in bytes. */
+    static final int HEADER_BYTES = 24;
+    /** Number of {@code double}s in a binary sphere record. */
+    static final int SPHERE_DOUBLES = 11;
+    /** Size of a binary sphere record in bytes. */
+    static final int SPHERE_BYTES = SPHERE_DOUBLES * Double.BYTES;
+    /** Size of a binary light record in bytes. */
+    static final int LIGHT_BYTES = 3 * Double.BYTES + 4 * Integer.BYTES;
+
+    /** Number of sphere records mapped at once. */
+    private static final int SPHERES_PER_MAPPING = (1 << 30) / SPHERE_BYTES;
+    /** Number of sphere records copied from a mapping at once. */
+    private static final int SPHERES_PER_BATCH = 4096;
+
+    /**
+     * Private constructor used to prevent instantiation.
+     */
+    private SceneReader() {
+    }
+
+    /**
+     * Reads the scene file at specified path. The format is detected from the
+     * first bytes of the file.
+     *
+     * @param path
+     *            path of the scene file
+     * @param handler
+     *            handler that receives scene elements
+     * @throws IOException
+     *             if file cannot be read or is not a valid scene file
+     * @throws NullPointerException
+     *             if either of arguments is a null reference
+     */
+    public static void read(Path path, SceneHandler handler) throws IOException {
+        if (isBinary(path)) {
+            readBinary(path, handler);
+        } else {
+            readText(path, handler);
+        }
+    }
+
+    /**
+     * Reads the text scene file at specified path.
+     *
+     * @param path
+     *            path of the scene file
+     * @param handler
+     *            handler that receives scene elements
+     * @throws IOException
+     *             if file cannot be read or is not a valid scene file
+     * @throws NullPointerException
+     *             if either of arguments is a null reference
+     */
+    public static void readText(Path path, SceneHandler handler) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            readText(reader, handler);
+        }
+    }
+
+    /**
+     * Reads a scene in text format from the specified reader. The reader is
+     * not closed.
+     *
+     * @param reader
+     *            source of the scene
+     * @param handler
+     *            handler that receives scene elements
+     * @throws IOException
+     *             if reading fails or input is not a valid scene
+     * @throws NullPointerException
+     *             if either of arguments is a null reference
+     */
+    public static void readText(Reader reader, SceneHandler handler) throws IOException {
+        if (handler == null)
+            throw new NullPointerException("Handler cannot be a null reference!");
+
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader
+                : new BufferedReader(reader);
+
+        double[] v = new double[SPHERE_DOUBLES];
+        int lineNo = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNo++;
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            String[] parts = line.split("\\s+");
+            try {
+                if (parts[0].equals("light") && parts.length == 7) {
+                    handler.light(
+                            Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), Double.parseDouble(parts[3]),
+                            Integer.parseInt(parts[4]), Integer.parseInt(parts[5]), Integer.parseInt(parts[6]));
+                } else if (parts[0].equals("sphere") && parts.length == 12) {
+                    for (int i = 0; i < v.length; i++) {
+                        v[i] = Double.parseDouble(parts[i + 1]);
+                    }
+
+                    handler.sphere(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7], v[8], v[9], v[10]);
+                } else {
+                    throw new IOException("Line " + lineNo + ": unknown scene element '" + line + "'!");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNo + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Reads the binary scene file at specified path by memory-mapping it.
+     *
+     * @param path
+     *            path of the scene file
+     * @param handler
+     *            handler that receives scene elements
+     * @throws IOException
+     *             if file cannot be read or is not a valid scene file
+     * @throws NullPointerException
+     *             if either of arguments is a null reference
+     */
+    public static void readBinary(Path path, SceneHandler handler) throws IOException {
+        if (handler == null)
+            throw new NullPointerException("Handler cannot be a null reference!");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0)
+                    throw new IOException("Scene file is too short!");
+            }
+            header.flip();
+
+            if (header.getInt() != MAGIC)
+                throw new IOException("Not a binary scene file!");
+            if (header.getInt() != VERSION)
+                throw new IOException("Unsupported binary scene file version!");
+
+            long lights = header.getLong();
+            long spheres = header.getLong();
+            long lightsPosition;
+            try {
+                if (lights < 0 || spheres < 0)
+                    throw new ArithmeticException();
+                lightsPosition = Math.addExact(HEADER_BYTES, Math.multiplyExact(spheres, SPHERE_BYTES));
+                if (channel.size() != Math.addExact(lightsPosition, Math.multiplyExact(lights, LIGHT_BYTES)))
+                    throw new ArithmeticException();
+            } catch (ArithmeticException e) {
+                throw new IOException("Scene file is corrupted!");
+            }
+
+            readLights(channel, lightsPosition, lights, handler);
+            readSpheres(channel, spheres, handler);
+        }
+    }
+
+    /**
+     * Maps sphere records in large segments and passes them to the handler.
+     *
+     * @param channel
+     *            channel of the scene file
+     * @param count
+     *            number of spheres
+     * @param handler
+     *            handler that receives scene elements
+     * @throws IOException
+     *             if file cannot be mapped or a sphere is not valid
+     */
+    private static void readSpheres(FileChannel channel, long count, SceneHandler handler) throws IOException {
+        double[] batch = new double[SPHERES_PER_BATCH * SPHERE_DOUBLES];
+
+        for (long first = 0; first < count; first += SPHERES_PER_MAPPING) {
+            int spheres = (int) Math.min(SPHERES_PER_MAPPING, count - first);
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_BYTES + first * SPHERE_BYTES, (long) spheres * SPHERE_BYTES);
+            DoubleBuffer values = mapping.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+
+            while (values.hasRemaining()) {
+                int n = Math.min(batch.length, values.remaining());
+                values.get(batch, 0, n);
+
+                for (int i = 0; i < n; i += SPHERE_DOUBLES) {
+                    try {
+                        handler.sphere(batch[i], batch[i + 1], batch[i + 2], batch[i + 3], batch[i + 4],
+                                batch[i + 5], batch[i + 6], batch[i + 7], batch[i + 8], batch[i + 9], batch[i + 10]);
+                    } catch (IllegalArgumentException e) {
+                        long sphere = first + (values.position() - n + i) / SPHERE_DOUBLES;
+                        throw new IOException("Sphere " + sphere + ": " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps light records and passes them to the handler.
+     *
+     * @param channel
+     *            channel of the scene file
+     * @param position
+     *            position of the first light record
+     * @param count
+     *            number of lights
+     * @param handler
+     *            handler that receives scene elements
+     * @throws IOException
+     *             if file cannot be mapped, there are too many lights or a
+     *             light is not valid
+     */
+    private static void readLights(FileChannel channel, long position, long count, SceneHandler handler)
+            throws IOException {
+        if (count == 0)
+            return;
+        if (count > Integer.MAX_VALUE / LIGHT_BYTES)
+            throw new IOException("Scene file contains too many lights!");
+
+        ByteBuffer lights = channel.map(FileChannel.MapMode.READ_ONLY, position, count * LIGHT_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        for (long i = 0; i < count; i++) {
+            double x = lights.getDouble();
+            double y = lights.getDouble();
+            double z = lights.getDouble();
+            int r = lights.getInt();
+            int g = lights.getInt();
+            int b = lights.getInt();
+            lights.getInt();
+
+            try {
+                handler.light(x, y, z, r, g, b);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Light " + i + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Checks if the file at specified path starts with the binary magic
+     * number.
+     *
+     * @param path
+     *            path of the file
+     * @return {@code true} if file is a binary scene file; {@code false}
+     *         otherwise
+     * @throws IOException
+     *             if file cannot be read
+     */
+    private static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining()) {
+                if (channel.read(magic) < 0)
+                    return false;
+            }
+            magic.flip();
+
+            return magic.getInt() == MAGIC;
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package hr.fer.zemris.java.raytracer.scene;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * {@code TextSceneWriter} class is a {@link SceneHandler} which writes every
+ * received element in the text format described in {@link SceneReader}.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see SceneReader
+ */
+public class TextSceneWriter implements SceneHandler, Closeable {
+
+    /** Destination of the scene. */
+    private final BufferedWriter writer;
+
+    /**
+     * Constructs a new {@code TextSceneWriter} which writes to the specified
+     * writer.
+     *
+     * @param writer
+     *            destination of the scene
+     * @throws NullPointerException
+     *             if argument {@code writer} is a null reference
+     */
+    public TextSceneWriter(Writer writer) {
+        if (writer == null)
+            throw new NullPointerException("Writer cannot be a null reference!");
+
+        this.writer = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException
+     *             if writing fails
+     */
+    @Override
+    public void light(double x, double y, double z, int r, int g, int b) {
+        write("light " + x + " " + y + " " + z + " " + r + " " + g + " " + b);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException
+     *             if writing fails
+     */
+    @Override
+    public void sphere(double cx, double cy, double cz, double radius, double kdr, double kdg, double kdb,
+            double krr, double krg, double krb, double krn) {
+        write("sphere " + cx + " " + cy + " " + cz + " " + radius + " " + kdr + " " + kdg + " " + kdb + " " + krr
+                + " " + krg + " " + krb + " " + krn);
+    }
+
+    /**
+     * Flushes written elements to the underlying writer.
+     *
+     * @throws IOException
+     *             if flushing fails
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Writes one line.
+     *
+     * @param line
+     *            the line
+     * @throws UncheckedIOException
+     *             if writing fails
+     */
+    private void write(String line) {
+        try {
+            writer.write(line);
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
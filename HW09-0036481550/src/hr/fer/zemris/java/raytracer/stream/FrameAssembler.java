@@ -0,0 +1,147 @@
+package hr.fer.zemris.java.raytracer.stream;
+
+import java.util.concurrent.CountDownLatch;
+
+import hr.fer.zemris.java.raytracer.PackedResultObserver;
+import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
+
+/**
+ * {@code FrameAssembler} class is a {@link TileSubscriber} which copies
+ * received tiles into a whole frame and passes the frame to an
+ * {@link IRayTracerResultObserver} once the last tile arrives.
+ * <p>
+ * The assembler keeps a fixed number of tiles requested, so a publisher
+ * renders at most that many tiles ahead of the assembler.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TilePublisher
+ */
+public class FrameAssembler implements TileSubscriber {
+
+    /** Default number of tiles requested ahead. */
+    public static final int DEFAULT_WINDOW = 64;
+
+    /** Width of the frame. */
+    private final int width;
+    /** Height of the frame. */
+    private final int height;
+    /** Number of the request. */
+    private final long requestNo;
+    /** Observer that receives the frame. */
+    private final IRayTracerResultObserver observer;
+    /** Number of tiles requested ahead. */
+    private final int window;
+
+    /** Red light. */
+    private final short[] red;
+    /** Green light. */
+    private final short[] green;
+    /** Blue light. */
+    private final short[] blue;
+
+    /** Latch released when the frame is complete or rendering fails. */
+    private final CountDownLatch finished = new CountDownLatch(1);
+    /** The subscription. */
+    private volatile TileSubscription subscription;
+    /** Failure of rendering or {@code null}. */
+    private volatile Throwable error;
+
+    /**
+     * Constructs a new {@code FrameAssembler} from specified arguments.
+     *
+     * @param width
+     *            width of the frame
+     * @param height
+     *            height of the frame
+     * @param requestNo
+     *            number of the request passed to the observer
+     * @param observer
+     *            observer that receives the frame
+     * @param window
+     *            number of tiles requested ahead
+     * @throws NullPointerException
+     *             if argument {@code observer} is a null reference
+     * @throws IllegalArgumentException
+     *             if either of {@code width}, {@code height} and
+     *             {@code window} is not a positive number
+     */
+    public FrameAssembler(int width, int height, long requestNo, IRayTracerResultObserver observer, int window) {
+        if (observer == null)
+            throw new NullPointerException("Observer cannot be a null reference!");
+
+        if (width <= 0 || height <= 0 || window <= 0)
+            throw new IllegalArgumentException("Width, height and window must be positive numbers!");
+
+        this.width = width;
+        this.height = height;
+        this.requestNo = requestNo;
+        this.observer = observer;
+        this.window = window;
+
+        this.red = new short[width * height];
+        this.green = new short[width * height];
+        this.blue = new short[width * height];
+    }
+
+    @Override
+    public void onSubscribe(TileSubscription subscription) {
+        this.subscription = subscription;
+        subscription.request(window);
+    }
+
+    @Override
+    public void onNext(Tile tile) {
+        tile.copyTo(red, green, blue, width);
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        try {
+            error = throwable;
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            PackedResultObserver.deliver(observer, red, green, blue, width, height, requestNo);
+        } catch (RuntimeException e) {
+            error = e;
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Waits until the frame is delivered to the observer or rendering fails.
+     * If the waiting thread is interrupted, rendering is cancelled.
+     *
+     * @throws InterruptedException
+     *             if the waiting thread is interrupted
+     */
+    public void await() throws InterruptedException {
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            TileSubscription current = subscription;
+            if (current != null)
+                current.cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the failure of rendering or of the observer, or {@code null}
+     * if there was none.
+     *
+     * @return the failure
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+}
@@ -0,0 +1,174 @@
+package hr.fer.zemris.java.raytracer.stream;
+
+/**
+ * {@code Tile} class is a finished rectangular part of a rendered frame.
+ * <p>
+ * Colors of the tile are stored row by row in arrays of
+ * {@code width * height} elements; pixel {@code (x, y)} of the frame is
+ * stored at index {@code (y - getY()) * getWidth() + (x - getX())}.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TilePublisher
+ */
+public final class Tile {
+
+    /** Number of the request the tile belongs to. */
+    private final long requestNo;
+    /** X coordinate of the upper left pixel. */
+    private final int x;
+    /** Y coordinate of the upper left pixel. */
+    private final int y;
+    /** Width of the tile. */
+    private final int width;
+    /** Height of the tile. */
+    private final int height;
+    /** Red light. */
+    private final short[] red;
+    /** Green light. */
+    private final short[] green;
+    /** Blue light. */
+    private final short[] blue;
+
+    /**
+     * Constructs a new {@code Tile} from specified arguments. Color arrays
+     * are used directly.
+     *
+     * @param requestNo
+     *            number of the request the tile belongs to
+     * @param x
+     *            x coordinate of the upper left pixel
+     * @param y
+     *            y coordinate of the upper left pixel
+     * @param width
+     *            width of the tile
+     * @param height
+     *            height of the tile
+     * @param red
+     *            red light
+     * @param green
+     *            green light
+     * @param blue
+     *            blue light
+     * @throws NullPointerException
+     *             if either of color arrays is a null reference
+     * @throws IllegalArgumentException
+     *             if position is negative, size is not positive or color
+     *             arrays don't have {@code width * height} elements
+     */
+    public Tile(long requestNo, int x, int y, int width, int height, short[] red, short[] green, short[] blue) {
+        if (red == null || green == null || blue == null)
+            throw new NullPointerException("Colors cannot be a null reference!");
+
+        if (x < 0 || y < 0 || width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Invalid tile bounds!");
+        if (red.length != width * height || green.length != width * height || blue.length != width * height)
+            throw new IllegalArgumentException("Colors must have width * height elements!");
+
+        this.requestNo = requestNo;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+    }
+
+    /**
+     * Copies colors of this tile to their place in the frame of specified
+     * width.
+     *
+     * @param red
+     *            red light of the frame
+     * @param green
+     *            green light of the frame
+     * @param blue
+     *            blue light of the frame
+     * @param frameWidth
+     *            width of the frame
+     */
+    public void copyTo(short[] red, short[] green, short[] blue, int frameWidth) {
+        for (int row = 0; row < height; row++) {
+            int from = row * width;
+            int to = (y + row) * frameWidth + x;
+
+            System.arraycopy(this.red, from, red, to, width);
+            System.arraycopy(this.green, from, green, to, width);
+            System.arraycopy(this.blue, from, blue, to, width);
+        }
+    }
+
+    /**
+     * Returns the number of the request the tile belongs to.
+     *
+     * @return number of the request
+     */
+    public long getRequestNo() {
+        return requestNo;
+    }
+
+    /**
+     * Returns x coordinate of the upper left pixel.
+     *
+     * @return x coordinate
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Returns y coordinate of the upper left pixel.
+     *
+     * @return y coordinate
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Returns width of the tile.
+     *
+     * @return width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns height of the tile.
+     *
+     * @return height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns red light of the tile. Returned array must not be modified.
+     *
+     * @return red light
+     */
+    public short[] getRed() {
+        return red;
+    }
+
+    /**
+     * Returns green light of the tile. Returned array must not be modified.
+     *
+     * @return green light
+     */
+    public short[] getGreen() {
+        return green;
+    }
+
+    /**
+     * Returns blue light of the tile. Returned array must not be modified.
+     *
+     * @return blue light
+     */
+    public short[] getBlue() {
+        return blue;
+    }
+
+}
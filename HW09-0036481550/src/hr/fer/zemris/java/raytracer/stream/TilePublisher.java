@@ -0,0 +1,313 @@
+package hr.fer.zemris.java.raytracer.stream;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import hr.fer.zemris.java.raytracer.Camera;
+import hr.fer.zemris.java.raytracer.CompiledScene;
+import hr.fer.zemris.java.raytracer.Tracer;
+import hr.fer.zemris.java.raytracer.model.TraceCounter;
+
+/**
+ * {@code TilePublisher} class renders one frame tile by tile and publishes
+ * every tile to its {@link TileSubscriber} as soon as it is finished.
+ * <p>
+ * Rendering is driven by demand: a tile is started only when the subscriber
+ * has requested it, so the number of tiles that are rendering or waiting for
+ * delivery never exceeds the outstanding demand. At most
+ * {@code parallelism} tiles are rendered at the same time. Tiles are
+ * published in the order they finish, not in frame order.
+ * <p>
+ * A publisher renders its frame only once, so it accepts a single
+ * subscriber.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TileSubscriber
+ * @see FrameAssembler
+ */
+public class TilePublisher {
+
+    /** Default width and height of a tile. */
+    public static final int DEFAULT_TILE_SIZE = 32;
+
+    /** Scene to render. */
+    private final CompiledScene scene;
+    /** Camera generating primary rays. */
+    private final Camera camera;
+    /** Number of the request. */
+    private final long requestNo;
+    /** Width and height of a tile. */
+    private final int tileSize;
+    /** Executor rendering tiles. */
+    private final Executor executor;
+    /** Maximum number of tiles rendered at the same time. */
+    private final int parallelism;
+
+    /** Number of tile columns. */
+    private final int columns;
+    /** Number of tiles. */
+    private final int tileCount;
+    /** Flag that indicates if the publisher was subscribed to. */
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    /** Counter of traced rays and intersection tests of the frame. */
+    private final TraceCounter counter = new TraceCounter();
+
+    /**
+     * Constructs a new {@code TilePublisher} from specified arguments.
+     *
+     * @param scene
+     *            scene to render
+     * @param camera
+     *            camera generating primary rays
+     * @param requestNo
+     *            number of the request
+     * @param tileSize
+     *            width and height of a tile
+     * @param executor
+     *            executor rendering tiles
+     * @param parallelism
+     *            maximum number of tiles rendered at the same time
+     * @throws NullPointerException
+     *             if argument {@code scene}, {@code camera} or
+     *             {@code executor} is a null reference
+     * @throws IllegalArgumentException
+     *             if {@code tileSize} or {@code parallelism} is not a
+     *             positive number
+     */
+    public TilePublisher(CompiledScene scene, Camera camera, long requestNo, int tileSize, Executor executor,
+            int parallelism) {
+        if (scene == null || camera == null || executor == null)
+            throw new NullPointerException("Scene, camera or executor cannot be a null reference!");
+
+        if (tileSize <= 0 || parallelism <= 0)
+            throw new IllegalArgumentException("Tile size and parallelism must be positive numbers!");
+
+        this.scene = scene;
+        this.camera = camera;
+        this.requestNo = requestNo;
+        this.tileSize = tileSize;
+        this.executor = executor;
+        this.parallelism = parallelism;
+
+        this.columns = (camera.getWidth() + tileSize - 1) / tileSize;
+        this.tileCount = columns * ((camera.getHeight() + tileSize - 1) / tileSize);
+    }
+
+    /**
+     * Returns the number of tiles the frame is split into.
+     *
+     * @return number of tiles
+     */
+    public int getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * Returns the counter of rays traced and intersection tests made for the
+     * tiles of this publisher.
+     *
+     * @return the counter
+     */
+    public TraceCounter getTraceCounter() {
+        return counter;
+    }
+
+    /**
+     * Subscribes the specified subscriber to this publisher. A second
+     * subscriber receives {@link TileSubscriber#onError(Throwable)} with an
+     * {@link IllegalStateException}.
+     *
+     * @param subscriber
+     *            the subscriber
+     * @throws NullPointerException
+     *             if argument {@code subscriber} is a null reference
+     */
+    public void subscribe(TileSubscriber subscriber) {
+        if (subscriber == null)
+            throw new NullPointerException("Subscriber cannot be a null reference!");
+
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new TileSubscription() {
+
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Publisher accepts only one subscriber!"));
+            return;
+        }
+
+        Subscription subscription = new Subscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    /**
+     * Renders the tile with specified index.
+     *
+     * @param index
+     *            index of the tile in row-major order
+     * @return the tile
+     */
+    private Tile render(int index) {
+        int x = (index % columns) * tileSize;
+        int y = (index / columns) * tileSize;
+        int width = Math.min(tileSize, camera.getWidth() - x);
+        int height = Math.min(tileSize, camera.getHeight() - y);
+
+        short[] red = new short[width * height];
+        short[] green = new short[width * height];
+        short[] blue = new short[width * height];
+
+        Tracer.trace(scene, camera, x, y, x + width - 1, y + height - 1, red, green, blue, 0, width, null, counter);
+
+        return new Tile(requestNo, x, y, width, height, red, green, blue);
+    }
+
+    /**
+     * {@code Subscription} class is the state of the single subscription of
+     * the publisher.
+     * <p>
+     * All signals to the subscriber and all decisions to start rendering are
+     * made in {@link #drain()}, which is entered by one thread at a time.
+     *
+     * @author Karlo Vrbić
+     * @version 1.0
+     */
+    private class Subscription implements TileSubscription {
+
+        /** The subscriber. */
+        private final TileSubscriber subscriber;
+        /** Total number of requested tiles. */
+        private final AtomicLong requested = new AtomicLong();
+        /** Number of drain calls that are not processed yet. */
+        private final AtomicInteger wip = new AtomicInteger();
+        /** Number of tiles that are rendering. */
+        private final AtomicInteger rendering = new AtomicInteger();
+        /** Finished tiles waiting for delivery. */
+        private final Queue<Tile> finished = new ConcurrentLinkedQueue<>();
+        /** First failure. */
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        /** Flag that indicates if the subscription is over. */
+        private volatile boolean done;
+
+        /** Number of started tiles; used only in {@link #drain()}. */
+        private int started;
+        /** Number of delivered tiles; used only in {@link #drain()}. */
+        private long delivered;
+
+        /**
+         * Constructs a new {@code Subscription} for specified subscriber.
+         *
+         * @param subscriber
+         *            the subscriber
+         */
+        Subscription(TileSubscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error.compareAndSet(null, new IllegalArgumentException("Requested number must be positive!"));
+            } else {
+                requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+            }
+
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+            finished.clear();
+        }
+
+        /**
+         * Delivers finished tiles and starts rendering requested ones.
+         */
+        void drain() {
+            if (wip.getAndIncrement() != 0)
+                return;
+
+            int missed = 1;
+            do {
+                if (done) {
+                    finished.clear();
+                    return;
+                }
+
+                Throwable failure = error.get();
+                if (failure != null) {
+                    done = true;
+                    finished.clear();
+                    subscriber.onError(failure);
+                    return;
+                }
+
+                long demand = requested.get();
+                while (delivered < demand && !done) {
+                    Tile tile = finished.poll();
+                    if (tile == null)
+                        break;
+
+                    subscriber.onNext(tile);
+                    delivered++;
+                }
+
+                if (delivered == tileCount && !done) {
+                    done = true;
+                    subscriber.onComplete();
+                    return;
+                }
+
+                while (started < tileCount && started < demand && rendering.get() < parallelism && !done) {
+                    int index = started++;
+                    rendering.incrementAndGet();
+
+                    try {
+                        executor.execute(() -> run(index));
+                    } catch (RuntimeException e) {
+                        rendering.decrementAndGet();
+                        error.compareAndSet(null, e);
+                        break;
+                    }
+                }
+
+                if (error.get() != null)
+                    continue;
+
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Renders the tile with specified index and queues it for delivery.
+         *
+         * @param index
+         *            index of the tile
+         */
+        private void run(int index) {
+            try {
+                if (!done)
+                    finished.offer(render(index));
+            } catch (Throwable e) {
+                error.compareAndSet(null, e);
+            } finally {
+                rendering.decrementAndGet();
+                drain();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package hr.fer.zemris.java.raytracer.stream;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import hr.fer.zemris.java.metrics.RenderMetrics;
+import hr.fer.zemris.java.raytracer.Camera;
+import hr.fer.zemris.java.raytracer.CompiledScene;
+import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
+import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+
+/**
+ * {@code TileStreamingProducer} class is an {@link IRayTracerProducer} which
+ * renders every frame through a {@link TilePublisher} and assembles it for
+ * the observer with a {@link FrameAssembler}.
+ * <p>
+ * Tiles are rendered by a fixed pool of daemon threads, one per available
+ * processor, which is shared by all requests. Requests are reported to the
+ * {@link RenderMetrics} of this class.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TilePublisher
+ */
+public class TileStreamingProducer implements IRayTracerProducer {
+
+    /** Number of rendering threads. */
+    private static final int NUM_OF_THREADS = Runtime.getRuntime().availableProcessors();
+    /** Metrics of producers of this class. */
+    private static final RenderMetrics METRICS = RenderMetrics.forProducer("TileStreamingProducer");
+
+    /** Scene to render. */
+    private final CompiledScene scene;
+    /** Width and height of a tile. */
+    private final int tileSize;
+    /** Pool rendering tiles. */
+    private final ExecutorService pool = Executors.newFixedThreadPool(NUM_OF_THREADS, r -> {
+        Thread thread = new Thread(r);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Camera of the previous request. */
+    private Camera camera;
+
+    /**
+     * Constructs a new {@code TileStreamingProducer} which renders the
+     * specified scene in tiles of {@value TilePublisher#DEFAULT_TILE_SIZE}
+     * pixels.
+     *
+     * @param scene
+     *            scene to render
+     * @throws NullPointerException
+     *             if argument {@code scene} is a null reference
+     */
+    public TileStreamingProducer(CompiledScene scene) {
+        this(scene, TilePublisher.DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Constructs a new {@code TileStreamingProducer} which renders the
+     * specified scene in tiles of specified size.
+     *
+     * @param scene
+     *            scene to render
+     * @param tileSize
+     *            width and height of a tile
+     * @throws NullPointerException
+     *             if argument {@code scene} is a null reference
+     * @throws IllegalArgumentException
+     *             if {@code tileSize} is not a positive number
+     */
+    public TileStreamingProducer(CompiledScene scene, int tileSize) {
+        if (scene == null)
+            throw new NullPointerException("Argument scene cannot be null reference!");
+        if (tileSize <= 0)
+            throw new IllegalArgumentException("Tile size must be a positive number!");
+
+        this.scene = scene;
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Returns a publisher of tiles of the frame described by specified
+     * arguments. The publisher renders on the pool of this producer.
+     *
+     * @param eye
+     *            position of the eye
+     * @param view
+     *            point the eye looks at
+     * @param viewUp
+     *            direction of up
+     * @param horizontal
+     *            width of the visible plane
+     * @param vertical
+     *            height of the visible plane
+     * @param width
+     *            width of the frame in pixels
+     * @param height
+     *            height of the frame in pixels
+     * @param requestNo
+     *            number of the request
+     * @return the publisher
+     */
+    public synchronized TilePublisher publisher(Point3D eye, Point3D view, Point3D viewUp, double horizontal,
+            double vertical, int width, int height, long requestNo) {
+        camera = Camera.of(camera, eye, view, viewUp, horizontal, vertical, width, height);
+
+        return new TilePublisher(scene, camera, requestNo, tileSize, pool, NUM_OF_THREADS);
+    }
+
+    @Override
+    public void produce(Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical, int width,
+            int height, long requestNo, IRayTracerResultObserver observer) {
+        System.out.println("Započinjem izračune...");
+        long start = METRICS.start();
+
+        FrameAssembler assembler = new FrameAssembler(width, height, requestNo, observer,
+                FrameAssembler.DEFAULT_WINDOW);
+        TilePublisher publisher = publisher(eye, view, viewUp, horizontal, vertical, width, height, requestNo);
+        publisher.subscribe(assembler);
+
+        try {
+            assembler.await();
+        } catch (InterruptedException e) {
+            METRICS.cancel(start);
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (assembler.getError() != null) {
+            METRICS.fail(start);
+            System.out.println("Izračuni nisu uspjeli: " + assembler.getError());
+            return;
+        }
+
+        METRICS.addRays(publisher.getTraceCounter().getRays());
+        METRICS.addIntersectionTests(publisher.getTraceCounter().getIntersectionTests());
+        METRICS.finish(start, (long) width * height);
+        System.out.println("Izračuni i dojava gotovi...");
+    }
+
+}
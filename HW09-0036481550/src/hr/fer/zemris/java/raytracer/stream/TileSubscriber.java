@@ -0,0 +1,49 @@
+package hr.fer.zemris.java.raytracer.stream;
+
+/**
+ * {@code TileSubscriber} interface is a receiver of tiles published by a
+ * {@link TilePublisher}.
+ * <p>
+ * The contract is the one of reactive streams: {@link #onSubscribe} is called
+ * first, then at most as many {@link #onNext} calls as were requested through
+ * the subscription and finally either {@link #onComplete()} or
+ * {@link #onError(Throwable)}. Calls are never concurrent, but they may come
+ * from different threads.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TileSubscription
+ */
+public interface TileSubscriber {
+
+    /**
+     * Called before any other method with the subscription used to request
+     * tiles.
+     *
+     * @param subscription
+     *            the subscription
+     */
+    void onSubscribe(TileSubscription subscription);
+
+    /**
+     * Called with every finished tile.
+     *
+     * @param tile
+     *            the tile
+     */
+    void onNext(Tile tile);
+
+    /**
+     * Called if rendering fails. No other method is called afterwards.
+     *
+     * @param throwable
+     *            cause of the failure
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * Called after the last tile. No other method is called afterwards.
+     */
+    void onComplete();
+
+}
@@ -0,0 +1,29 @@
+package hr.fer.zemris.java.raytracer.stream;
+
+/**
+ * {@code TileSubscription} interface links a {@link TileSubscriber} to a
+ * {@link TilePublisher}. Tiles are rendered only when they are requested, so
+ * a slow subscriber slows rendering down instead of piling tiles up.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TileSubscriber
+ */
+public interface TileSubscription {
+
+    /**
+     * Requests {@code n} more tiles. Demand is added up.
+     *
+     * @param n
+     *            number of tiles; a non-positive number fails the
+     *            subscription with an {@link IllegalArgumentException}
+     */
+    void request(long n);
+
+    /**
+     * Stops rendering; tiles already rendering are dropped. Subscriber may
+     * still receive calls that were already underway.
+     */
+    void cancel();
+
+}
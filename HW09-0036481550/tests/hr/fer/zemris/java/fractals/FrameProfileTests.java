@@ -0,0 +1,131 @@
+package hr.fer.zemris.java.fractals;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.StringWriter;
+import java.util.Map;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.fractals.complex.Complex;
+import hr.fer.zemris.java.fractals.complex.ComplexRootedPolynomial;
+
+/**
+ * Test class for {@link FrameProfile} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code FrameProfile} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see FrameProfile
+ */
+@SuppressWarnings("javadoc")
+public class FrameProfileTests {
+
+    static FrameProfile profile() {
+        FrameProfile profile = new FrameProfile(7, 2, 4, 2);
+        profile.start();
+        for (int i = 0; i < 8; i++) {
+            profile.setIterations(i, i < 4 ? 1 : 5);
+        }
+        profile.recordJob(0, 0, 1, 100, 300);
+        profile.recordJob(1, 2, 3, 300, 1300);
+        profile.finish();
+        return profile;
+    }
+
+    // tests for: getJobIterations(int), getImbalance()
+
+    @Test
+    public void getJobIterationsTest_Success() {
+        FrameProfile profile = profile();
+
+        assertEquals(4, profile.getJobIterations(0));
+        assertEquals(20, profile.getJobIterations(1));
+        assertEquals(20.0 * 2 / 24, profile.getImbalance(), 1e-9);
+    }
+
+    @Test
+    public void getImbalanceTest_Balanced() {
+        FrameProfile profile = new FrameProfile(1, 2, 2, 2);
+        profile.recordJob(0, 0, 0, 0, 0);
+        profile.recordJob(1, 1, 1, 0, 0);
+
+        assertEquals(1, profile.getImbalance(), 0);
+    }
+
+    // tests for: getBusyNanos()
+
+    @Test
+    public void getBusyNanosTest_SameThread() {
+        Map<String, Long> busy = profile().getBusyNanos();
+
+        assertEquals(1, busy.size());
+        assertEquals(Long.valueOf(1200), busy.get(Thread.currentThread().getName()));
+    }
+
+    // tests for: toHeatmap()
+
+    @Test
+    public void toHeatmapTest_Success() {
+        BufferedImage heatmap = profile().toHeatmap();
+
+        assertEquals(2, heatmap.getWidth());
+        assertEquals(4, heatmap.getHeight());
+        assertEquals(heatmap.getRGB(0, 0), heatmap.getRGB(1, 1));
+        assertNotEquals(heatmap.getRGB(0, 0), heatmap.getRGB(0, 3));
+    }
+
+    // tests for: writeTimeline(Writer)
+
+    @Test
+    public void writeTimelineTest_Success() throws Exception {
+        StringWriter writer = new StringWriter();
+        profile().writeTimeline(writer);
+
+        String timeline = writer.toString();
+        assertTrue(timeline.startsWith("Frame 7: 2x4"));
+        assertTrue(timeline.contains(Thread.currentThread().getName()));
+    }
+
+    // tests for: Newton.MyProducer profiling
+
+    @Test
+    public void producerTest_Profiles() {
+        ComplexRootedPolynomial polynom = new ComplexRootedPolynomial(
+                new Complex[] { Complex.ONE, Complex.ONE_NEG, Complex.IM });
+        FrameProfile[] profiles = new FrameProfile[1];
+        short[][] results = new short[1][];
+
+        new Newton.MyProducer(polynom, p -> profiles[0] = p).produce(-2, 2, -2, 2, 40, 30, 3,
+                (data, order, requestNo) -> results[0] = data);
+
+        FrameProfile profile = profiles[0];
+        assertNotNull(results[0]);
+        assertNotNull(profile);
+        assertEquals(3, profile.getRequestNo());
+
+        long sum = 0;
+        for (int i = 0; i < profile.getNumOfJobs(); i++) {
+            sum += profile.getJobIterations(i);
+            assertTrue(profile.getJobNanos(i) >= 0);
+        }
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 40; x++) {
+                assertTrue(profile.getIterations(x, y) >= 1);
+            }
+        }
+        assertTrue(sum >= 40 * 30);
+        assertTrue(profile.getFrameNanos() > 0);
+    }
+
+    // tests for: FrameProfile(long, int, int, int)
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_NoJobs() {
+        new FrameProfile(1, 2, 2, 0);
+    }
+
+}
@@ -0,0 +1,120 @@
+package hr.fer.zemris.java.fractals;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.fractals.complex.Complex;
+import hr.fer.zemris.java.fractals.complex.ComplexRootedPolynomial;
+
+/**
+ * Test class for {@link NewtonRenderer} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code NewtonRenderer} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see NewtonRenderer
+ */
+@SuppressWarnings("javadoc")
+public class NewtonRendererTests {
+
+    static final ComplexRootedPolynomial POLYNOM = new ComplexRootedPolynomial(
+            new Complex[] { Complex.ONE, Complex.ONE_NEG, Complex.IM, Complex.IM_NEG });
+
+    static int differences(short[] first, short[] second) {
+        int differences = 0;
+        for (int i = 0; i < first.length; i++) {
+            if (first[i] != second[i])
+                differences++;
+        }
+        return differences;
+    }
+
+    // tests for: isFloatPrecise(double, double, double, double, int, int)
+
+    @Test
+    public void isFloatPreciseTest_Shallow() {
+        assertTrue(NewtonRenderer.isFloatPrecise(-2, 2, -2, 2, 600, 600));
+        assertTrue(NewtonRenderer.isFloatPrecise(-0.5, 0.5, -0.5, 0.5, 600, 600));
+        assertTrue(NewtonRenderer.isFloatPrecise(-2, 2, 0, 0, 600, 1));
+    }
+
+    @Test
+    public void isFloatPreciseTest_Deep() {
+        assertFalse(NewtonRenderer.isFloatPrecise(0.3, 0.32, 0.3, 0.32, 600, 600));
+        assertFalse(NewtonRenderer.isFloatPrecise(-2, 2, -2, 2, 1 << 16, 600));
+        assertFalse(NewtonRenderer.isFloatPrecise(1e3, 1e3 + 1, 0, 1, 600, 600));
+        assertFalse(NewtonRenderer.isFloatPrecise(-1e300, 1e300, -1e300, 1e300, 600, 600));
+    }
+
+    // tests for: render(double, double, double, double, int, int)
+
+    @Test
+    public void renderTest_FloatMatchesDouble() {
+        short[] single = new NewtonRenderer(POLYNOM, true).render(-2, 2, -2, 2, 200, 150);
+        short[] reference = new NewtonRenderer(POLYNOM, false).render(-2, 2, -2, 2, 200, 150);
+
+        assertTrue(differences(single, reference) < single.length / 100);
+        assertEquals(1, single[75 * 200 + 190]);
+        assertEquals(3, single[5 * 200 + 100]);
+    }
+
+    @Test
+    public void renderTest_DefaultInDouble() {
+        short[] reference = new NewtonRenderer(POLYNOM, false).render(-2, 2, -2, 2, 200, 150);
+
+        assertArrayEquals(reference, new NewtonRenderer(POLYNOM).render(-2, 2, -2, 2, 200, 150));
+        assertArrayEquals(reference,
+                new NewtonRenderer(POLYNOM, IterationMethod.NEWTON).render(-2, 2, -2, 2, 200, 150));
+    }
+
+    @Test
+    public void renderTest_DeepZoomInDouble() {
+        short[] single = new NewtonRenderer(POLYNOM, true).render(0.3, 0.3004, 0.3, 0.3004, 40, 30);
+        short[] reference = new NewtonRenderer(POLYNOM, false).render(0.3, 0.3004, 0.3, 0.3004, 40, 30);
+
+        assertArrayEquals(reference, single);
+    }
+
+    @Test
+    public void renderTest_HigherOrderBasins() {
+        for (IterationMethod method : IterationMethod.values()) {
+            short[] data = new NewtonRenderer(POLYNOM, method).render(-2, 2, -2, 2, 200, 150);
+
+            assertEquals(1, data[75 * 200 + 190]);
+            assertEquals(2, data[75 * 200 + 10]);
+            assertEquals(3, data[5 * 200 + 100]);
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorTest_NullMethod() {
+        new NewtonRenderer(POLYNOM, (IterationMethod) null);
+    }
+
+    // tests for: renderRow(double, double, double, double, int, int, int, short[], FrameProfile)
+
+    @Test
+    public void renderRowTest_FewerIterations() {
+        long[] iterations = new long[IterationMethod.values().length];
+        for (IterationMethod method : IterationMethod.values()) {
+            NewtonRenderer renderer = new NewtonRenderer(POLYNOM, method, false);
+            short[] data = new short[100 * 100];
+            for (int y = 0; y < 100; y++) {
+                iterations[method.ordinal()] += renderer.renderRow(-2, 2, -2, 2, 100, 100, y, data, null);
+            }
+        }
+
+        assertTrue(iterations[IterationMethod.HALLEY.ordinal()] < iterations[IterationMethod.NEWTON.ordinal()]);
+        assertTrue(iterations[IterationMethod.HOUSEHOLDER.ordinal()] < iterations[IterationMethod.HALLEY.ordinal()]);
+    }
+
+    @Test
+    public void renderTest_CriticalPoint() {
+        assertEquals(0, new NewtonRenderer(POLYNOM, true).render(-1, 1, -1, 1, 3, 3)[4]);
+        assertEquals(0, new NewtonRenderer(POLYNOM, false).render(-1, 1, -1, 1, 3, 3)[4]);
+    }
+
+}
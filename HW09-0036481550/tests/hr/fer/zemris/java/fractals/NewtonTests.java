@@ -0,0 +1,171 @@
+package hr.fer.zemris.java.fractals;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.fractals.complex.Complex;
+import hr.fer.zemris.java.fractals.complex.ComplexRootedPolynomial;
+import hr.fer.zemris.java.fractals.viewer.IFractalResultObserver;
+
+/**
+ * Test class for {@link Newton.MyProducer} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code Newton.MyProducer} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see Newton.MyProducer
+ */
+@SuppressWarnings("javadoc")
+public class NewtonTests {
+
+    static final ComplexRootedPolynomial POLYNOM = new ComplexRootedPolynomial(
+            new Complex[] { Complex.ONE, Complex.ONE_NEG, Complex.IM });
+
+    static Thread request(Newton.MyProducer producer, long requestNo, IFractalResultObserver observer) {
+        Thread thread = new Thread(() -> producer.produce(-2, 2, -2, 2, 40, 30, requestNo, observer));
+        thread.start();
+        return thread;
+    }
+
+    static void awaitWaiting(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.WAITING) {
+            assertTrue(thread.isAlive());
+            Thread.sleep(1);
+        }
+    }
+
+    // tests for: produce(double, double, double, double, int, int, long, IFractalResultObserver)
+
+    @Test
+    public void produceTest_Delivers() {
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        try (Newton.MyProducer producer = new Newton.MyProducer(POLYNOM)) {
+            producer.produce(-2, 2, -2, 2, 40, 30, 1, (data, order, requestNo) -> delivered.add(requestNo));
+            producer.produce(-2, 2, -2, 2, 40, 30, 2, (data, order, requestNo) -> delivered.add(requestNo));
+        }
+
+        assertEquals(2, delivered.size());
+        assertEquals(Long.valueOf(2), delivered.get(1));
+    }
+
+    @Test
+    public void produceTest_Method() {
+        short[][] delivered = new short[1][];
+        try (Newton.MyProducer producer = new Newton.MyProducer(POLYNOM, null, 1, IterationMethod.HALLEY)) {
+            producer.produce(-2, 2, -2, 2, 40, 30, 1, (data, order, requestNo) -> delivered[0] = data);
+        }
+
+        assertArrayEquals(new NewtonRenderer(POLYNOM, IterationMethod.HALLEY).render(-2, 2, -2, 2, 40, 30),
+                delivered[0]);
+    }
+
+    @Test
+    public void produceTest_FloatAllowed() {
+        short[][] delivered = new short[2][];
+        try (Newton.MyProducer producer = new Newton.MyProducer(POLYNOM)) {
+            producer.produce(-2, 2, -2, 2, 200, 150, 1, (data, order, requestNo) -> delivered[0] = data);
+        }
+        try (Newton.MyProducer producer = new Newton.MyProducer(POLYNOM, null, 1, IterationMethod.NEWTON, true)) {
+            producer.produce(-2, 2, -2, 2, 200, 150, 1, (data, order, requestNo) -> delivered[1] = data);
+        }
+
+        assertArrayEquals(new NewtonRenderer(POLYNOM, false).render(-2, 2, -2, 2, 200, 150), delivered[0]);
+        assertArrayEquals(new NewtonRenderer(POLYNOM, true).render(-2, 2, -2, 2, 200, 150), delivered[1]);
+    }
+
+    @Test
+    public void produceTest_LatestWins() throws InterruptedException {
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        IFractalResultObserver observer = (data, order, requestNo) -> delivered.add(requestNo);
+
+        try (Newton.MyProducer producer = new Newton.MyProducer(POLYNOM, null, 1)) {
+            Thread first = request(producer, 1, (data, order, requestNo) -> {
+                delivered.add(requestNo);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            while (delivered.isEmpty()) {
+                Thread.sleep(1);
+            }
+
+            Thread second = request(producer, 2, observer);
+            awaitWaiting(second);
+            Thread third = request(producer, 3, observer);
+
+            second.join(5000);
+            assertFalse(second.isAlive());
+
+            release.countDown();
+            first.join();
+            third.join();
+        }
+
+        assertEquals(2, delivered.size());
+        assertEquals(Long.valueOf(1), delivered.get(0));
+        assertEquals(Long.valueOf(3), delivered.get(1));
+    }
+
+    // tests for: start(), close()
+
+    @Test
+    public void closeTest_CancelsWaiting() throws InterruptedException {
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Newton.MyProducer producer = new Newton.MyProducer(POLYNOM, null, 1);
+
+        Thread first = request(producer, 1, (data, order, requestNo) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        entered.await();
+        Thread second = request(producer, 2, (data, order, requestNo) -> delivered.add(requestNo));
+        awaitWaiting(second);
+
+        producer.close();
+        second.join(5000);
+        assertFalse(second.isAlive());
+
+        release.countDown();
+        first.join();
+        assertTrue(delivered.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void startTest_Closed() {
+        Newton.MyProducer producer = new Newton.MyProducer(POLYNOM);
+        producer.close();
+        producer.start();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void produceTest_Closed() {
+        Newton.MyProducer producer = new Newton.MyProducer(POLYNOM);
+        producer.start();
+        producer.close();
+        producer.produce(-2, 2, -2, 2, 40, 30, 1, (data, order, requestNo) -> fail());
+    }
+
+    // tests for: MyProducer(ComplexRootedPolynomial, Consumer, int)
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_NoRequestsInFlight() {
+        new Newton.MyProducer(POLYNOM, null, 0);
+    }
+
+}
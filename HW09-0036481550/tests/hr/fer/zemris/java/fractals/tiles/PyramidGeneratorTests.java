@@ -0,0 +1,132 @@
+package hr.fer.zemris.java.fractals.tiles;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hr.fer.zemris.java.fractals.NewtonRenderer;
+
+/**
+ * Test class for {@link PyramidGenerator} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code PyramidGenerator} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see PyramidGenerator
+ */
+@SuppressWarnings("javadoc")
+public class PyramidGeneratorTests {
+
+    static final String ROOTS = "1,-1,i,-i";
+
+    Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("pyramid");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    // tests for: generate(TileStore, ForkJoinPool)
+
+    @Test
+    public void generateTest_AllTiles() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try (TileStore store = TileStore.create(directory, ROOTS, 1)) {
+            assertEquals(5, PyramidGenerator.generate(store, pool));
+            assertEquals(0, PyramidGenerator.generate(store, pool));
+            assertEquals(5, store.getStoredCount());
+
+            NewtonRenderer renderer = new NewtonRenderer(TileServer.parseRoots(ROOTS));
+            assertArrayEquals(new Tile(1, 1, 0).render(renderer), store.get(new Tile(1, 1, 0)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // tests for: TileServer.addStore(TileStore)
+
+    @Test
+    public void addStoreTest_Served() throws IOException {
+        try (TileStore store = TileStore.create(directory, ROOTS, 0); TileServer server = new TileServer(0)) {
+            PyramidGenerator.generate(store);
+            server.addStore(store);
+            server.start();
+
+            HttpURLConnection stored = (HttpURLConnection) new URL(
+                    "http://localhost:" + server.getPort() + "/" + ROOTS + "/0/0/0.png").openConnection();
+            assertEquals(200, stored.getResponseCode());
+            assertEquals(0, server.getRenderedCount());
+
+            HttpURLConnection rendered = (HttpURLConnection) new URL(
+                    "http://localhost:" + server.getPort() + "/" + ROOTS + "/1/0/0.png").openConnection();
+            assertEquals(200, rendered.getResponseCode());
+            assertEquals(1, server.getRenderedCount());
+        }
+    }
+
+    @Test
+    public void addStoreTest_ServedWhileRenderersBusy() throws Exception {
+        ExecutorService renderers = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (TileStore store = TileStore.create(directory, ROOTS, 0);
+                TileServer server = new TileServer(0, renderers)) {
+            PyramidGenerator.generate(store);
+            server.addStore(store);
+            server.start();
+            renderers.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            HttpURLConnection stored = (HttpURLConnection) new URL(
+                    "http://localhost:" + server.getPort() + "/" + ROOTS + "/0/0/0.png").openConnection();
+            assertEquals(200, stored.getResponseCode());
+
+            NewtonRenderer renderer = new NewtonRenderer(TileServer.parseRoots(ROOTS));
+            byte[] expected = TileServer.encode(new Tile(0, 0, 0).render(renderer), renderer.getLimit());
+            byte[] png = new byte[expected.length + 1];
+            int length = 0;
+            for (int n; (n = stored.getInputStream().read(png, length, png.length - length)) > 0;) {
+                length += n;
+            }
+            assertEquals(expected.length, length);
+            assertArrayEquals(expected, Arrays.copyOf(png, length));
+        } finally {
+            release.countDown();
+            renderers.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+package hr.fer.zemris.java.fractals.tiles;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.fractals.NewtonRenderer;
+
+/**
+ * Test class for {@link TileServer} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code TileServer} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TileServer
+ */
+@SuppressWarnings("javadoc")
+public class TileServerTests {
+
+    static final String ROOTS = "1,-1,i,-i";
+
+    static HttpURLConnection get(TileServer server, String path) throws IOException {
+        return (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+    }
+
+    static byte[] read(HttpURLConnection connection) throws IOException {
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[4096];
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    // tests for: GET /{roots}/{z}/{x}/{y}.png
+
+    @Test
+    public void getTest_Tile() throws Exception {
+        try (TileServer server = new TileServer(0)) {
+            server.start();
+            HttpURLConnection connection = get(server, "/" + ROOTS + "/1/0/1.png");
+
+            assertEquals(200, connection.getResponseCode());
+            assertEquals("image/png", connection.getContentType());
+
+            BufferedImage image = ImageIO.read(connection.getInputStream());
+            assertEquals(Tile.SIZE, image.getWidth());
+            assertEquals(Tile.SIZE, image.getHeight());
+            assertEquals(1, server.getRenderedCount());
+        }
+    }
+
+    @Test
+    public void getTest_SameAsRenderer() throws Exception {
+        try (TileServer server = new TileServer(0)) {
+            server.start();
+            byte[] png = read(get(server, "/1%20+%20i2,-1/0/0/0.png"));
+
+            NewtonRenderer renderer = new NewtonRenderer(TileServer.parseRoots("1 + i2,-1"));
+            byte[] expected = TileServer.encode(new Tile(0, 0, 0).render(renderer), renderer.getLimit());
+            assertArrayEquals(expected, png);
+        }
+    }
+
+    @Test
+    public void getTest_Deduplicated() throws Exception {
+        ExecutorService renderers = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+
+        try (TileServer server = new TileServer(0, renderers)) {
+            server.start();
+            renderers.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            List<Future<byte[]>> responses = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                responses.add(clients.submit(() -> read(get(server, "/" + ROOTS + "/2/1/2.png"))));
+            }
+            while (server.getRequestCount() < 8) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            byte[] first = responses.get(0).get();
+            for (Future<byte[]> response : responses) {
+                assertTrue(Arrays.equals(first, response.get()));
+            }
+            assertEquals(1, server.getRenderedCount());
+        } finally {
+            clients.shutdown();
+            renderers.shutdown();
+        }
+    }
+
+    @Test
+    public void getTest_RejectedThenRendered() throws Exception {
+        ExecutorService renderers = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (TileServer server = new TileServer(0, renderers)) {
+            server.start();
+            renderers.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            assertEquals(503, get(server, "/" + ROOTS + "/2/1/2.png").getResponseCode());
+            release.countDown();
+
+            // the rejected rendering isn't kept, so the tile is rendered again
+            HttpURLConnection connection = get(server, "/" + ROOTS + "/2/1/2.png");
+            while (connection.getResponseCode() == 503) {
+                Thread.sleep(10);
+                connection = get(server, "/" + ROOTS + "/2/1/2.png");
+            }
+            assertEquals(200, connection.getResponseCode());
+            assertEquals(1, server.getRenderedCount());
+        } finally {
+            renderers.shutdown();
+        }
+    }
+
+    @Test
+    public void getTest_Errors() throws Exception {
+        try (TileServer server = new TileServer(0)) {
+            server.start();
+
+            assertEquals(404, get(server, "/" + ROOTS + "/1/0.png").getResponseCode());
+            assertEquals(400, get(server, "/1,x/0/0/0.png").getResponseCode());
+            assertEquals(400, get(server, "/1/0/0/0.png").getResponseCode());
+            assertEquals(400, get(server, "/" + ROOTS + "/1/2/0.png").getResponseCode());
+            assertEquals(400, get(server, "/" + ROOTS + "/25/0/0.png").getResponseCode());
+
+            HttpURLConnection post = get(server, "/" + ROOTS + "/0/0/0.png");
+            post.setRequestMethod("POST");
+            assertEquals(405, post.getResponseCode());
+            assertEquals(0, server.getRenderedCount());
+        }
+    }
+
+    // tests for: Tile(int, int, int)
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tileTest_OutsideLevel() {
+        new Tile(2, 4, 0);
+    }
+
+    @Test
+    public void tileTest_CriticalPoint() {
+        NewtonRenderer renderer = new NewtonRenderer(TileServer.parseRoots(ROOTS));
+        short[] data = new Tile(1, 1, 1).render(renderer);
+
+        assertEquals(0, data[0]);
+        assertNotEquals(0, data[Tile.SIZE * Tile.SIZE - 1]);
+    }
+
+    @Test
+    public void tileTest_Equals() {
+        assertEquals(new Tile(3, 1, 2), new Tile(3, 1, 2));
+        assertNotEquals(new Tile(3, 1, 2), new Tile(3, 2, 1));
+        assertEquals("3/1/2", new Tile(3, 1, 2).toString());
+    }
+
+}
@@ -0,0 +1,203 @@
+package hr.fer.zemris.java.fractals.tiles;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link TileStore} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code TileStore} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TileStore
+ */
+@SuppressWarnings("javadoc")
+public class TileStoreTests {
+
+    static final String ROOTS = "1,-1,i,-i";
+
+    Path directory;
+
+    static short[] data(int seed) {
+        short[] data = new short[Tile.SIZE * Tile.SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (short) ((i / 1000 + seed) % 5);
+        }
+        return data;
+    }
+
+    static short[] noise(int seed) {
+        Random random = new Random(seed);
+        short[] data = new short[Tile.SIZE * Tile.SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (short) random.nextInt(5);
+        }
+        return data;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tiles");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    // tests for: put(Tile, short[]), get(Tile), getPayload(Tile)
+
+    @Test
+    public void putTest_Get() throws IOException {
+        try (TileStore store = TileStore.create(directory, ROOTS, 2)) {
+            assertTrue(store.put(new Tile(1, 1, 0), data(1)));
+
+            assertArrayEquals(data(1), store.get(new Tile(1, 1, 0)));
+            assertNull(store.get(new Tile(1, 0, 1)));
+            assertNull(store.get(new Tile(3, 0, 0)));
+            assertTrue(store.getPayload(new Tile(1, 1, 0)).isReadOnly());
+            assertTrue(store.getPayload(new Tile(1, 1, 0)).remaining() < Tile.SIZE * Tile.SIZE / 10);
+        }
+    }
+
+    @Test
+    public void getPayloadTest_Png() throws IOException {
+        try (TileStore store = TileStore.create(directory, ROOTS, 0)) {
+            store.put(new Tile(0, 0, 0), data(1));
+
+            ByteBuffer payload = store.getPayload(new Tile(0, 0, 0));
+            byte[] png = new byte[payload.remaining()];
+            payload.get(png);
+
+            assertArrayEquals(TileServer.encode(data(1), (short) 6), png);
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+            assertEquals(Tile.SIZE, image.getWidth());
+            assertEquals(Tile.SIZE, image.getHeight());
+            // the first pixel has root index 1, the 4000th root index 0
+            assertNotEquals(0xFF000000, image.getRGB(0, 0));
+            assertEquals(0xFF000000, image.getRGB(4000 % Tile.SIZE, 4000 / Tile.SIZE));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putTest_FailNoColor() throws IOException {
+        // two roots have root indexes below 4
+        try (TileStore store = TileStore.create(directory, "1,-1", 0)) {
+            store.put(new Tile(0, 0, 0), data(1));
+        }
+    }
+
+    @Test
+    public void putTest_Once() throws IOException {
+        try (TileStore store = TileStore.create(directory, ROOTS, 1)) {
+            assertTrue(store.put(new Tile(0, 0, 0), data(1)));
+            assertFalse(store.put(new Tile(0, 0, 0), data(2)));
+
+            assertArrayEquals(data(1), store.get(new Tile(0, 0, 0)));
+            assertEquals(1, store.getStoredCount());
+        }
+    }
+
+    @Test
+    public void putTest_NewSegments() throws IOException {
+        try (TileStore store = TileStore.create(directory, ROOTS, 2, Tile.SIZE * Tile.SIZE + 4096)) {
+            for (int i = 0; i < TileStore.tileCount(2); i++) {
+                store.put(TileStore.tileAt(i), noise(i));
+            }
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.filter(file -> file.getFileName().toString().startsWith("segment")).count() > 2);
+        }
+        try (TileStore store = TileStore.open(directory)) {
+            for (int i = 0; i < TileStore.tileCount(2); i++) {
+                assertArrayEquals(noise(i), store.get(TileStore.tileAt(i)));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putTest_AboveMaxZoom() throws IOException {
+        try (TileStore store = TileStore.create(directory, ROOTS, 1)) {
+            store.put(new Tile(2, 0, 0), data(0));
+        }
+    }
+
+    // tests for: open(Path)
+
+    @Test
+    public void openTest_Reopened() throws IOException {
+        try (TileStore store = TileStore.create(directory, ROOTS, 3)) {
+            store.put(new Tile(3, 7, 5), data(3));
+        }
+
+        try (TileStore store = TileStore.open(directory)) {
+            assertEquals(ROOTS, store.getRoots());
+            assertEquals(3, store.getMaxZoom());
+            assertEquals(1, store.getStoredCount());
+            assertTrue(store.contains(new Tile(3, 7, 5)));
+            assertArrayEquals(data(3), store.get(new Tile(3, 7, 5)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void openTest_Missing() throws IOException {
+        TileStore.open(directory);
+    }
+
+    @Test(expected = IOException.class)
+    public void openTest_CorruptedHeader() throws IOException {
+        TileStore.create(directory, ROOTS, 0).close();
+        try (RandomAccessFile index = new RandomAccessFile(directory.resolve("index").toFile(), "rw")) {
+            // length of roots
+            index.seek(24);
+            index.writeInt(-1);
+        }
+
+        TileStore.open(directory);
+    }
+
+    @Test(expected = IOException.class)
+    public void createTest_Exists() throws IOException {
+        TileStore.create(directory, ROOTS, 0).close();
+        TileStore.create(directory, ROOTS, 0);
+    }
+
+    // tests for: indexOf(Tile), tileAt(int)
+
+    @Test
+    public void indexOfTest_TileAt() {
+        assertEquals(0, TileStore.indexOf(new Tile(0, 0, 0)));
+        assertEquals(1, TileStore.indexOf(new Tile(1, 0, 0)));
+        assertEquals(4, TileStore.indexOf(new Tile(1, 1, 1)));
+        assertEquals(5, TileStore.indexOf(new Tile(2, 0, 0)));
+        assertEquals(21, TileStore.tileCount(2));
+
+        for (int i = 0; i < TileStore.tileCount(4); i++) {
+            assertEquals(i, TileStore.indexOf(TileStore.tileAt(i)));
+        }
+    }
+
+}
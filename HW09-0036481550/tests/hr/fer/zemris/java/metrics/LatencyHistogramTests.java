@@ -0,0 +1,127 @@
+package hr.fer.zemris.java.metrics;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link LatencyHistogram} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code LatencyHistogram} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see LatencyHistogram
+ */
+@SuppressWarnings("javadoc")
+public class LatencyHistogramTests {
+
+    static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    // tests for: record(long)
+
+    @Test
+    public void recordTest_Buckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(millis(0));
+        histogram.record(millis(1));
+        histogram.record(millis(3));
+        histogram.record(millis(4));
+        histogram.record(Long.MAX_VALUE);
+
+        long[] expected = new long[LatencyHistogram.NUM_OF_BUCKETS];
+        expected[0] = 1;
+        expected[1] = 1;
+        expected[2] = 1;
+        expected[3] = 1;
+        expected[LatencyHistogram.NUM_OF_BUCKETS - 1] = 1;
+
+        assertArrayEquals(expected, histogram.getCounts());
+        assertEquals(5, histogram.getCount());
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void recordTest_Negative() {
+        new LatencyHistogram().record(-1);
+    }
+
+    // tests for: getMean()
+
+    @Test
+    public void getMeanTest_Success() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getMean(), 0);
+
+        histogram.record(100);
+        histogram.record(300);
+
+        assertEquals(200, histogram.getMean(), 1e-9);
+    }
+
+    // tests for: getPercentile(double)
+
+    @Test
+    public void getPercentileTest_Success() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(millis(5));
+        }
+        histogram.record(millis(100));
+
+        assertEquals(millis(8), histogram.getPercentile(50));
+        assertEquals(millis(8), histogram.getPercentile(99));
+        assertEquals(millis(100), histogram.getPercentile(100));
+    }
+
+    @Test
+    public void getPercentileTest_NotAboveMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(millis(5));
+
+        assertEquals(millis(5), histogram.getPercentile(50));
+    }
+
+    @Test
+    public void getPercentileTest_Empty() {
+        assertEquals(0, new LatencyHistogram().getPercentile(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getPercentileTest_OutOfRange() {
+        new LatencyHistogram().getPercentile(101);
+    }
+
+    // tests for: reset()
+
+    @Test
+    public void resetTest_Success() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(millis(10));
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+    }
+
+    // tests for: getUpperLimit(int)
+
+    @Test
+    public void getUpperLimitTest_Success() {
+        assertEquals(millis(1), LatencyHistogram.getUpperLimit(0));
+        assertEquals(millis(1024), LatencyHistogram.getUpperLimit(10));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.getUpperLimit(LatencyHistogram.NUM_OF_BUCKETS - 1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getUpperLimitTest_OutOfRange() {
+        LatencyHistogram.getUpperLimit(LatencyHistogram.NUM_OF_BUCKETS);
+    }
+
+}
@@ -0,0 +1,123 @@
+package hr.fer.zemris.java.metrics;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link RenderMetrics} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code RenderMetrics} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see RenderMetrics
+ */
+@SuppressWarnings("javadoc")
+public class RenderMetricsTests {
+
+    // tests for: forProducer(String)
+
+    @Test
+    public void forProducerTest_Registered() throws Exception {
+        RenderMetrics metrics = RenderMetrics.forProducer("RenderMetricsTests");
+        metrics.finish(metrics.start(), 100);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertTrue(server.isRegistered(RenderMetrics.objectName("RenderMetricsTests")));
+        assertEquals(metrics.getCompletedCount(),
+                server.getAttribute(RenderMetrics.objectName("RenderMetricsTests"), "CompletedCount"));
+    }
+
+    @Test
+    public void forProducerTest_Same() {
+        assertSame(RenderMetrics.forProducer("RenderMetricsTests"), RenderMetrics.forProducer("RenderMetricsTests"));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void forProducerTest_Null() {
+        RenderMetrics.forProducer(null);
+    }
+
+    // tests for: start(), finish(long, long), cancel(long), fail(long)
+
+    @Test
+    public void requestsTest_Counts() {
+        RenderMetrics metrics = new RenderMetrics();
+        long first = metrics.start();
+        long second = metrics.start();
+        long third = metrics.start();
+        long fourth = metrics.start();
+
+        assertEquals(4, metrics.getQueueDepth());
+
+        metrics.finish(first, 10);
+        metrics.cancel(second);
+        metrics.fail(third);
+
+        assertEquals(4, metrics.getRequestCount());
+        assertEquals(1, metrics.getCompletedCount());
+        assertEquals(1, metrics.getCancelledCount());
+        assertEquals(1, metrics.getFailedCount());
+        assertEquals(1, metrics.getQueueDepth());
+
+        metrics.finish(fourth, 10);
+        assertEquals(0, metrics.getQueueDepth());
+        assertEquals(2, metrics.getLatencyHistogram()[0] + metrics.getLatencyHistogram()[1]);
+    }
+
+    @Test
+    public void finishTest_Latency() throws InterruptedException {
+        RenderMetrics metrics = new RenderMetrics();
+        long start = metrics.start();
+        Thread.sleep(20);
+        metrics.finish(start, 1000);
+
+        assertTrue(metrics.getLatencyMaxMillis() >= 20);
+        assertEquals(metrics.getLatencyMaxMillis(), metrics.getLatencyMeanMillis(), 1e-9);
+        assertTrue(metrics.getLatency99thMillis() <= metrics.getLatencyMaxMillis());
+        assertTrue(metrics.getPixelsPerSecond() > 0);
+        assertTrue(metrics.getPixelsPerSecond() <= 1000 / 0.02);
+    }
+
+    // tests for: getIntersectionTestsPerRay(), getIterationsPerPixel()
+
+    @Test
+    public void ratiosTest_Success() {
+        RenderMetrics metrics = new RenderMetrics();
+        assertEquals(0, metrics.getIntersectionTestsPerRay(), 0);
+        assertEquals(0, metrics.getIterationsPerPixel(), 0);
+
+        metrics.addRays(100);
+        metrics.addIntersectionTests(250);
+        metrics.addIterations(800);
+        metrics.finish(metrics.start(), 200);
+
+        assertEquals(2.5, metrics.getIntersectionTestsPerRay(), 1e-9);
+        assertEquals(4, metrics.getIterationsPerPixel(), 1e-9);
+        assertTrue(metrics.getRaysPerSecond() > 0);
+    }
+
+    // tests for: reset()
+
+    @Test
+    public void resetTest_KeepsQueueDepth() {
+        RenderMetrics metrics = new RenderMetrics();
+        metrics.finish(metrics.start(), 10);
+        metrics.start();
+        metrics.addRays(5);
+        metrics.reset();
+
+        assertEquals(0, metrics.getRequestCount());
+        assertEquals(0, metrics.getCompletedCount());
+        assertEquals(0, metrics.getRaysPerSecond(), 0);
+        assertEquals(0, metrics.getLatencyMaxMillis(), 0);
+        assertEquals(1, metrics.getQueueDepth());
+    }
+
+}
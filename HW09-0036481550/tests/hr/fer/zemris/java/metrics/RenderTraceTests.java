@@ -0,0 +1,137 @@
+package hr.fer.zemris.java.metrics;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import hr.fer.zemris.java.metrics.RenderTrace.Event;
+import hr.fer.zemris.java.metrics.RenderTrace.Stage;
+import hr.fer.zemris.java.raytracer.CompiledScene;
+import hr.fer.zemris.java.raytracer.RayCasterParallel;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+/**
+ * Test class for {@link RenderTrace} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code RenderTrace} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see RenderTrace
+ */
+@SuppressWarnings("javadoc")
+public class RenderTraceTests {
+
+    @After
+    public void tearDown() {
+        RenderTrace.stop();
+    }
+
+    // tests for: start(int), stop(), begin()
+
+    @Test
+    public void beginTest_Disabled() {
+        RenderTrace.stop();
+        long start = RenderTrace.begin();
+        RenderTrace.end(Stage.FRAME, "RenderTraceTests", 1, start);
+
+        assertFalse(RenderTrace.isEnabled());
+        assertEquals(0, start);
+        assertTrue(RenderTrace.snapshot().isEmpty());
+    }
+
+    @Test
+    public void startTest_Records() {
+        RenderTrace.start(8);
+        long start = RenderTrace.begin();
+        RenderTrace.end(Stage.JOB, "RenderTraceTests", 5, start, 1, 2, 3, 4);
+
+        List<Event> events = RenderTrace.snapshot();
+        assertTrue(RenderTrace.isEnabled());
+        assertEquals(1, events.size());
+
+        Event event = events.get(0);
+        assertEquals(Stage.JOB, event.getStage());
+        assertEquals("RenderTraceTests", event.getSource());
+        assertEquals(5, event.getRequestNo());
+        assertEquals(2, event.getY());
+        assertEquals(4, event.getHeight());
+        assertEquals(Thread.currentThread().getName(), event.getThread());
+        assertTrue(event.getDuration() >= 0);
+    }
+
+    @Test
+    public void startTest_KeepsLast() {
+        RenderTrace.start(4);
+        for (int i = 0; i < 10; i++) {
+            RenderTrace.end(Stage.JOB, "RenderTraceTests", i, RenderTrace.begin());
+        }
+
+        List<Event> events = RenderTrace.snapshot();
+        assertEquals(4, events.size());
+        assertEquals(6, events.get(0).getRequestNo());
+        assertEquals(9, events.get(3).getRequestNo());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void startTest_ZeroCapacity() {
+        RenderTrace.start(0);
+    }
+
+    // tests for: dump(Path)
+
+    @Test
+    public void dumpTest_TraceEvents() throws Exception {
+        RenderTrace.start(8);
+        RenderTrace.end(Stage.DELIVERY, "Render\"Trace", 3, RenderTrace.begin());
+
+        Path file = Files.createTempFile("trace", ".json");
+        try {
+            RenderTrace.dump(file);
+            String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+
+            assertTrue(json.startsWith("{\"traceEvents\":["));
+            assertTrue(json.contains("\"name\":\"DELIVERY\",\"cat\":\"Render\\\"Trace\",\"ph\":\"X\""));
+            assertTrue(json.contains("\"requestNo\":3"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // tests for: stages of RayCasterParallel producer
+
+    @Test
+    public void producerTest_Stages() {
+        RenderTrace.start(1024);
+        CompiledScene scene = CompiledScene.compile(RayTracerViewer.createPredefinedScene());
+        RayCasterParallel.getIRayTracerProducer(scene, null, null).produce(new Point3D(10, 0, 0), new Point3D(),
+                new Point3D(0, 0, 10), 20, 20, 30, 250, 42, (red, green, blue, requestNo) -> {
+                });
+
+        int rows = 0;
+        boolean frame = false;
+        boolean delivery = false;
+        for (Event event : RenderTrace.snapshot()) {
+            assertEquals(42, event.getRequestNo());
+            if (event.getStage() == Stage.JOB) {
+                assertEquals(30, event.getWidth());
+                rows += event.getHeight();
+            }
+            frame |= event.getStage() == Stage.FRAME;
+            delivery |= event.getStage() == Stage.DELIVERY;
+        }
+
+        assertEquals(250, rows);
+        assertTrue(frame);
+        assertTrue(delivery);
+    }
+
+}
@@ -0,0 +1,77 @@
+package hr.fer.zemris.java.raytracer;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.GraphicalObject;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+
+/**
+ * Test class for {@link AdaptiveSampler} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code AdaptiveSampler} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see AdaptiveSampler
+ */
+@SuppressWarnings("javadoc")
+public class AdaptiveSamplerTests {
+
+    GraphicalObject sphere;
+    GraphicalObject[] hits;
+    short[] red;
+    short[] green;
+    short[] blue;
+
+    @Before
+    public void setUp() {
+        sphere = new Sphere(new Point3D(0, 0, 0), 1, 1, 1, 1, 0.5, 0.5, 0.5, 10);
+
+        // 4x1 frame: miss, hit, hit, hit with a small color step between
+        // the last two pixels
+        hits = new GraphicalObject[] { null, sphere, sphere, sphere };
+        red = new short[] { 15, 100, 100, 110 };
+        green = new short[4];
+        blue = new short[4];
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_FailNegative() {
+        new AdaptiveSampler(-1, 1);
+    }
+
+    // tests for: select(GraphicalObject[], short[], short[], short[], int, int): int[]
+
+    @Test
+    public void selectTest_ObjectEdgesFirst() {
+        int[] pixels = new AdaptiveSampler(5, 4).select(hits, red, green, blue, 4, 1);
+
+        assertArrayEquals(new int[] { 0, 1, 2, 3 }, pixels);
+    }
+
+    @Test
+    public void selectTest_Threshold() {
+        int[] pixels = new AdaptiveSampler(10, 4).select(hits, red, green, blue, 4, 1);
+
+        assertArrayEquals(new int[] { 0, 1 }, pixels);
+    }
+
+    @Test
+    public void selectTest_Budget() {
+        // one ray per pixel is enough to refine one of four pixels
+        int[] pixels = new AdaptiveSampler(5, 1).select(hits, red, green, blue, 4, 1);
+
+        assertEquals(1, pixels.length);
+        assertEquals(0, pixels[0]);
+    }
+
+    @Test
+    public void selectTest_NoBudget() {
+        assertEquals(0, new AdaptiveSampler(5, 0).select(hits, red, green, blue, 4, 1).length);
+    }
+}
@@ -0,0 +1,131 @@
+package hr.fer.zemris.java.raytracer;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+
+/**
+ * Test class for {@link Camera} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code Camera} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see Camera
+ */
+@SuppressWarnings("javadoc")
+public class CameraTests {
+
+    Point3D eye;
+    Point3D view;
+    Point3D viewUp;
+    Camera camera;
+
+    @Before
+    public void setUp() {
+        eye = new Point3D(10, 0, 0);
+        view = new Point3D(0, 0, 0);
+        viewUp = new Point3D(0, 0, 10);
+        camera = new Camera(eye, view, viewUp, 20, 20, 40, 30);
+    }
+
+    // tests for: constructor
+
+    @Test(expected = NullPointerException.class)
+    public void constructorTest_FailNull() {
+        new Camera(null, view, viewUp, 20, 20, 40, 30);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_FailWidth() {
+        new Camera(eye, view, viewUp, 20, 20, 0, 30);
+    }
+
+    // tests for: getDirections(): double[]
+
+    @Test
+    public void getDirectionsTest_Success() {
+        Point3D zAxis = view.sub(eye).normalize();
+        Point3D up = viewUp.normalize();
+        Point3D yAxis = up.sub(zAxis.scalarMultiply(up.scalarProduct(zAxis))).normalize();
+        Point3D xAxis = zAxis.vectorProduct(yAxis).normalize();
+        Point3D screenCorner = view.sub(xAxis.scalarMultiply(10)).add(yAxis.scalarMultiply(10));
+
+        double[] directions = camera.getDirections();
+        assertEquals(3 * 40 * 30, directions.length);
+
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 40; x++) {
+                Point3D screenPoint = screenCorner
+                        .add(xAxis.scalarMultiply(x / 39.0 * 20))
+                        .sub(yAxis.scalarMultiply(y / 29.0 * 20));
+                Ray ray = Ray.fromPoints(eye, screenPoint);
+
+                int index = 3 * (y * 40 + x);
+                assertEquals(ray.direction.x, directions[index], 1E-12);
+                assertEquals(ray.direction.y, directions[index + 1], 1E-12);
+                assertEquals(ray.direction.z, directions[index + 2], 1E-12);
+            }
+        }
+    }
+
+    @Test
+    public void getDirectionsTest_Cached() {
+        assertSame(camera.getDirections(), camera.getDirections());
+    }
+
+    // tests for: of(Camera, ...): Camera
+
+    @Test
+    public void ofTest_SameParameters() {
+        Camera other = Camera.of(camera, new Point3D(10, 0, 0), view, viewUp, 20, 20, 40, 30);
+
+        assertSame(camera, other);
+    }
+
+    @Test
+    public void ofTest_DifferentParameters() {
+        assertNotSame(camera, Camera.of(camera, new Point3D(10, 0, 1), view, viewUp, 20, 20, 40, 30));
+        assertNotSame(camera, Camera.of(camera, eye, view, viewUp, 20, 20, 41, 30));
+        assertNotSame(camera, Camera.of(camera, eye, view, viewUp, 20, 21, 40, 30));
+        assertNotNull(Camera.of(null, eye, view, viewUp, 20, 20, 40, 30));
+    }
+
+    @Test
+    public void constructorTest_DoesNotModifyArguments() {
+        Point3D up = new Point3D(0, 0, 10);
+        new Camera(eye, view, up, 20, 20, 40, 30);
+
+        assertEquals(10, up.z, 0);
+    }
+
+    // tests for: project(Point3D, double[]): boolean
+
+    @Test
+    public void projectTest_InverseOfGetDirection() {
+        double[] pixel = new double[2];
+
+        for (int y = 0; y < 30; y += 7) {
+            for (int x = 0; x < 40; x += 9) {
+                Point3D point = eye.add(camera.getDirection(x, y).scalarMultiply(3.5));
+
+                assertTrue(camera.project(point, pixel));
+                assertEquals(x, pixel[0], 1E-9);
+                assertEquals(y, pixel[1], 1E-9);
+            }
+        }
+    }
+
+    @Test
+    public void projectTest_BehindEye() {
+        double[] pixel = { -1, -1 };
+
+        assertFalse(camera.project(new Point3D(20, 0, 0), pixel));
+        assertEquals(-1, pixel[0], 0);
+    }
+}
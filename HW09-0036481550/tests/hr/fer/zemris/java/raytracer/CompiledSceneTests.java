@@ -0,0 +1,138 @@
+package hr.fer.zemris.java.raytracer;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.LightSource;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+
+/**
+ * Test class for {@link CompiledScene} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code CompiledScene} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see CompiledScene
+ */
+@SuppressWarnings("javadoc")
+public class CompiledSceneTests {
+
+    // tests for: compile(Scene): CompiledScene
+
+    @Test
+    public void compileTest_Success() {
+        Scene scene = new Scene()
+                .add(new Sphere(new Point3D(0, 0, 0), 1, 1, 1, 1, 0.5, 0.5, 0.5, 10))
+                .add(new LightSource(new Point3D(10, 0, 0), 100, 100, 100));
+
+        CompiledScene compiled = CompiledScene.compile(scene);
+        scene.add(new LightSource(new Point3D(-10, 0, 0), 100, 100, 100));
+
+        assertEquals(1, compiled.getObjectCount());
+        assertEquals(1, compiled.getLightCount());
+        assertNotNull(compiled.packetObjects[0]);
+    }
+
+    @Test
+    public void compileTest_UniqueVersions() {
+        Scene scene = new Scene();
+
+        assertNotEquals(CompiledScene.compile(scene).getVersion(), CompiledScene.compile(scene).getVersion());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void compileTest_FailNull() {
+        CompiledScene.compile(null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void compileTest_FailNullObject() {
+        CompiledScene.compile(new Scene().add((Sphere) null));
+    }
+
+    @Test
+    public void compileTest_DropsDarkLights() {
+        Scene scene = new Scene()
+                .add(new LightSource(new Point3D(10, 0, 0), 100, 100, 100))
+                .add(new LightSource(new Point3D(-10, 0, 0), 0, 0, 0));
+
+        assertEquals(1, CompiledScene.compile(scene).getLightCount());
+    }
+
+    // tests for: compile(Scene, double): CompiledScene
+
+    @Test
+    public void compileRadiusTest_Culls() {
+        LightSource near = new LightSource(new Point3D(1, 0, 0), 100, 100, 100);
+        LightSource far = new LightSource(new Point3D(50, 0, 0), 100, 100, 100);
+        CompiledScene compiled = CompiledScene.compile(new Scene().add(near).add(far), 5);
+        Point3D point = new Point3D(0, 0, 0);
+
+        assertEquals(5, compiled.getInfluenceRadius(), 1E-9);
+        assertArrayEquals(new int[] { 0 }, compiled.lightsAt(point));
+        assertTrue(compiled.reaches(0, point));
+        assertFalse(compiled.reaches(1, point));
+    }
+
+    @Test
+    public void compileRadiusTest_Unlimited() {
+        CompiledScene compiled = CompiledScene.compile(new Scene()
+                .add(new LightSource(new Point3D(50, 0, 0), 100, 100, 100)));
+
+        assertEquals(Double.POSITIVE_INFINITY, compiled.getInfluenceRadius(), 0);
+        assertEquals(1, compiled.lightsAt(new Point3D(0, 0, 0)).length);
+        assertTrue(compiled.reaches(0, new Point3D(0, 0, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compileRadiusTest_FailRadius() {
+        CompiledScene.compile(new Scene(), 0);
+    }
+
+    // tests for: compile(Scene, double, Map<LightSource, Double>): CompiledScene
+
+    @Test
+    public void compileRadiiTest_OwnRadius() {
+        LightSource near = new LightSource(new Point3D(1, 0, 0), 100, 100, 100);
+        LightSource bright = new LightSource(new Point3D(50, 0, 0), 100, 100, 100);
+        LightSource far = new LightSource(new Point3D(-50, 0, 0), 100, 100, 100);
+        Map<LightSource, Double> radii = new HashMap<>();
+        radii.put(bright, 60.0);
+        CompiledScene compiled = CompiledScene.compile(new Scene().add(near).add(bright).add(far), 5, radii);
+        Point3D point = new Point3D(0, 0, 0);
+
+        assertEquals(5, compiled.getInfluenceRadius(), 1E-9);
+        assertArrayEquals(new int[] { 0, 1 }, compiled.lightsAt(point));
+        assertTrue(compiled.reaches(0, point));
+        assertTrue(compiled.reaches(1, point));
+        assertFalse(compiled.reaches(2, point));
+        assertFalse(compiled.reaches(1, new Point3D(-15, 0, 0)));
+    }
+
+    @Test
+    public void compileRadiiTest_Unlimited() {
+        LightSource limited = new LightSource(new Point3D(50, 0, 0), 100, 100, 100);
+        CompiledScene compiled = CompiledScene.compile(new Scene().add(limited)
+                .add(new LightSource(new Point3D(-50, 0, 0), 100, 100, 100)), Double.POSITIVE_INFINITY,
+                Collections.singletonMap(limited, 5.0));
+
+        assertArrayEquals(new int[] { 1 }, compiled.lightsAt(new Point3D(0, 0, 0)));
+        assertTrue(compiled.reaches(1, new Point3D(0, 0, 0)));
+        assertFalse(compiled.reaches(0, new Point3D(0, 0, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compileRadiiTest_FailRadius() {
+        LightSource light = new LightSource(new Point3D(0, 0, 0), 100, 100, 100);
+        CompiledScene.compile(new Scene().add(light), 5, Collections.singletonMap(light, -1.0));
+    }
+}
@@ -0,0 +1,76 @@
+package hr.fer.zemris.java.raytracer;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+
+/**
+ * Test class for {@link FrameCache} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code FrameCache} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see FrameCache
+ */
+@SuppressWarnings("javadoc")
+public class FrameCacheTests {
+
+    Point3D eye;
+    Point3D view;
+    Point3D viewUp;
+    FrameCache cache;
+    short[] frame;
+
+    @Before
+    public void setUp() {
+        eye = new Point3D(10, 0, 0);
+        view = new Point3D(0, 0, 0);
+        viewUp = new Point3D(0, 0, 10);
+        cache = new FrameCache(2);
+        frame = new short[4];
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_FailCapacity() {
+        new FrameCache(0);
+    }
+
+    @Test
+    public void getTest_Success() {
+        assertNull(cache.get(eye, view, viewUp, 20, 20, 2, 2, 1));
+
+        cache.put(eye, view, viewUp, 20, 20, 2, 2, 1, frame, frame, frame);
+
+        short[][] cached = cache.get(new Point3D(10, 0, 0), view, viewUp, 20, 20, 2, 2, 1);
+        assertNotNull(cached);
+        assertSame(frame, cached[0]);
+        assertNull(cache.get(eye, view, viewUp, 20, 21, 2, 2, 1));
+        assertNull(cache.get(eye, view, viewUp, 20, 20, 4, 1, 1));
+    }
+
+    @Test
+    public void getTest_SceneChanged() {
+        cache.put(eye, view, viewUp, 20, 20, 2, 2, 1, frame, frame, frame);
+
+        assertNull(cache.get(eye, view, viewUp, 20, 20, 2, 2, 2));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void putTest_EvictsLeastRecentlyUsed() {
+        cache.put(eye, view, viewUp, 1, 1, 2, 2, 1, frame, frame, frame);
+        cache.put(eye, view, viewUp, 2, 2, 2, 2, 1, frame, frame, frame);
+        cache.get(eye, view, viewUp, 1, 1, 2, 2, 1);
+        cache.put(eye, view, viewUp, 3, 3, 2, 2, 1, frame, frame, frame);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(eye, view, viewUp, 1, 1, 2, 2, 1));
+        assertNull(cache.get(eye, view, viewUp, 2, 2, 2, 2, 1));
+        assertNotNull(cache.get(eye, view, viewUp, 3, 3, 2, 2, 1));
+    }
+}
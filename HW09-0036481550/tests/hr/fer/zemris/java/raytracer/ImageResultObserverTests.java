@@ -0,0 +1,102 @@
+package hr.fer.zemris.java.raytracer;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link ImageResultObserver} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code ImageResultObserver} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see ImageResultObserver
+ */
+@SuppressWarnings("javadoc")
+public class ImageResultObserverTests {
+
+    BufferedImage image;
+
+    // tests for: constructor
+
+    @Test(expected = NullPointerException.class)
+    public void constructorTest_FailNull() {
+        new ImageResultObserver(null);
+    }
+
+    // tests for: getBuffer(int, int, long), acceptPacked(int[], long)
+
+    @Test
+    public void acceptPackedTest_RendersIntoImage() {
+        ImageResultObserver observer = new ImageResultObserver(i -> image = i);
+
+        int[] buffer = observer.getBuffer(3, 2, 7);
+        assertEquals(6, buffer.length);
+        buffer[4] = 0xFF102030;
+        observer.acceptPacked(buffer, 7);
+
+        assertEquals(3, image.getWidth());
+        assertEquals(2, image.getHeight());
+        assertEquals(0xFF102030, image.getRGB(1, 1));
+    }
+
+    @Test
+    public void acceptPackedTest_EvictsAbandonedRequests() {
+        ImageResultObserver observer = new ImageResultObserver(i -> image = i);
+
+        for (int i = 0; i <= ImageResultObserver.MAX_PENDING_REQUESTS; i++) {
+            observer.getBuffer(1, 1, i);
+        }
+
+        try {
+            observer.acceptPacked(new int[1], 0);
+            fail("Image of the oldest request wasn't evicted!");
+        } catch (IllegalArgumentException expected) {
+        }
+        observer.acceptPacked(new int[1], 1);
+        assertEquals(1, image.getWidth());
+    }
+
+    // tests for: PackedResultObserver.deliver(...), acceptResult(short[], short[], short[], long)
+
+    @Test
+    public void deliverTest_CopiesChannels() {
+        ImageResultObserver observer = new ImageResultObserver(i -> image = i);
+
+        PackedResultObserver.deliver(observer, new short[] { 0, 0, 0, 255 }, new short[4], new short[4], 2, 2, 1);
+
+        assertEquals(2, image.getWidth());
+        assertEquals(0xFFFF0000, image.getRGB(1, 1));
+    }
+
+    @Test
+    public void acceptResultTest_CopiesChannels() {
+        ImageResultObserver observer = new ImageResultObserver(i -> image = i);
+
+        observer.getBuffer(2, 2, 1);
+        observer.acceptResult(new short[] { 0, 0, 0, 255 }, new short[4], new short[4], 1);
+
+        assertEquals(2, image.getWidth());
+        assertEquals(0xFFFF0000, image.getRGB(1, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void acceptResultTest_FailUnknownSize() {
+        ImageResultObserver observer = new ImageResultObserver(i -> image = i);
+
+        observer.getBuffer(2, 2, 1);
+        observer.acceptResult(new short[4], new short[4], new short[4], 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void acceptResultTest_FailWrongSize() {
+        ImageResultObserver observer = new ImageResultObserver(i -> image = i);
+
+        observer.getBuffer(2, 2, 1);
+        observer.acceptResult(new short[6], new short[6], new short[6], 1);
+    }
+}
@@ -0,0 +1,76 @@
+package hr.fer.zemris.java.raytracer;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+
+/**
+ * Test class for {@link LightGrid} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code LightGrid} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see LightGrid
+ */
+@SuppressWarnings("javadoc")
+public class LightGridTests {
+
+    // tests for: query(Point3D): int[]
+
+    @Test
+    public void queryTest_ContainsAllLightsInRadius() {
+        Random random = new Random(7);
+        Point3D[] positions = new Point3D[500];
+        double[] radii = new double[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new Point3D(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50,
+                    random.nextDouble() * 100 - 50);
+            radii[i] = 1 + random.nextDouble() * 7.5;
+        }
+
+        LightGrid grid = new LightGrid(positions, radii);
+
+        for (int i = 0; i < 1000; i++) {
+            Point3D point = new Point3D(random.nextDouble() * 120 - 60, random.nextDouble() * 120 - 60,
+                    random.nextDouble() * 120 - 60);
+            int[] candidates = grid.query(point);
+
+            assertTrue(candidates.length < positions.length);
+            for (int j = 1; j < candidates.length; j++) {
+                assertTrue(candidates[j - 1] < candidates[j]);
+            }
+            for (int light = 0; light < positions.length; light++) {
+                boolean inRadius = positions[light].sub(point).norm() <= radii[light];
+
+                assertEquals(inRadius, grid.reaches(light, point));
+                if (inRadius)
+                    assertTrue(Arrays.binarySearch(candidates, light) >= 0);
+            }
+        }
+    }
+
+    @Test
+    public void queryTest_Unlimited() {
+        Point3D[] positions = { new Point3D(0, 0, 0), new Point3D(100, 0, 0) };
+        LightGrid grid = new LightGrid(positions, new double[] { 1, Double.POSITIVE_INFINITY });
+
+        assertArrayEquals(new int[] { 0, 1 }, grid.query(new Point3D(0.5, 0, 0)));
+        assertArrayEquals(new int[] { 1 }, grid.query(new Point3D(-50, 0, 0)));
+        assertFalse(grid.reaches(0, new Point3D(-50, 0, 0)));
+        assertTrue(grid.reaches(1, new Point3D(-50, 0, 0)));
+    }
+
+    @Test
+    public void queryTest_Empty() {
+        LightGrid grid = new LightGrid(new Point3D[0], new double[0]);
+
+        assertEquals(0, grid.query(new Point3D(0, 0, 0)).length);
+    }
+}
@@ -0,0 +1,107 @@
+package hr.fer.zemris.java.raytracer;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+/**
+ * Test class for {@link PackedResultObserver} interface.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code PackedResultObserver} interface isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see PackedResultObserver
+ */
+@SuppressWarnings("javadoc")
+public class PackedResultObserverTests {
+
+    static final short[] RED = { 0, 255, 16 };
+    static final short[] GREEN = { 0, 128, 32 };
+    static final short[] BLUE = { 0, 1, 255 };
+    static final int[] PACKED = { 0xFF000000, 0xFFFF8001, 0xFF1020FF };
+
+    static class Recorder implements PackedResultObserver {
+
+        int[] buffer;
+        int[] accepted;
+
+        @Override
+        public int[] getBuffer(int width, int height, long requestNo) {
+            buffer = new int[width * height];
+            return buffer;
+        }
+
+        @Override
+        public void acceptPacked(int[] argb, long requestNo) {
+            accepted = argb;
+        }
+    }
+
+    // tests for: pack(short[], short[], short[], int[])
+
+    @Test
+    public void packTest_Success() {
+        int[] argb = new int[3];
+        PackedResultObserver.pack(RED, GREEN, BLUE, argb);
+
+        assertArrayEquals(PACKED, argb);
+    }
+
+    // tests for: acceptResult(short[], short[], short[], long)
+
+    @Test
+    public void acceptResultTest_Packs() {
+        Recorder recorder = new Recorder();
+        recorder.acceptResult(RED, GREEN, BLUE, 1);
+
+        assertArrayEquals(PACKED, recorder.accepted);
+    }
+
+    // tests for: deliver(IRayTracerResultObserver, ...)
+
+    @Test
+    public void deliverTest_UsesBuffer() {
+        Recorder recorder = new Recorder();
+        PackedResultObserver.deliver(recorder, RED, GREEN, BLUE, 3, 1, 1);
+
+        assertSame(recorder.buffer, recorder.accepted);
+        assertArrayEquals(PACKED, recorder.accepted);
+    }
+
+    @Test
+    public void deliverTest_ChannelObserver() {
+        short[][] received = new short[3][];
+        IRayTracerResultObserver observer = (r, g, b, requestNo) -> {
+            received[0] = r;
+            received[1] = g;
+            received[2] = b;
+        };
+        PackedResultObserver.deliver(observer, RED, GREEN, BLUE, 3, 1, 1);
+
+        assertSame(RED, received[0]);
+        assertSame(BLUE, received[2]);
+    }
+
+    // tests for: Tracer.trace(..., int[], int, int, GraphicalObject[], TraceCounter)
+
+    @Test
+    public void traceTest_PackedEqualsChannels() {
+        CompiledScene scene = CompiledScene.compile(RayTracerViewer.createPredefinedScene());
+        Camera camera = new Camera(new Point3D(10, 0, 0), new Point3D(), new Point3D(0, 0, 10), 20, 20, 37, 29);
+
+        short[][] rgb = new short[3][37 * 29];
+        int[] expected = new int[37 * 29];
+        int[] argb = new int[37 * 29];
+        Tracer.trace(scene, camera, 0, 0, 36, 28, rgb[0], rgb[1], rgb[2], 0, 37, null, null);
+        PackedResultObserver.pack(rgb[0], rgb[1], rgb[2], expected);
+        Tracer.trace(scene, camera, 0, 0, 36, 28, argb, 0, 37, null, null);
+
+        assertArrayEquals(expected, argb);
+    }
+}
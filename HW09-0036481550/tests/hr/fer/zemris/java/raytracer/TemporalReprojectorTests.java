@@ -0,0 +1,166 @@
+package hr.fer.zemris.java.raytracer;
+
+import static org.junit.Assert.*;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+/**
+ * Test class for {@link TemporalReprojector} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code TemporalReprojector} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TemporalReprojector
+ */
+@SuppressWarnings("javadoc")
+public class TemporalReprojectorTests {
+
+    static final int WIDTH = 60;
+    static final int HEIGHT = 40;
+
+    CompiledScene scene;
+    Camera camera;
+
+    @Before
+    public void setUp() {
+        scene = CompiledScene.compile(RayTracerViewer.createPredefinedScene());
+        camera = camera(new Point3D(10, 0, 0));
+    }
+
+    static Camera camera(Point3D eye) {
+        return new Camera(eye, new Point3D(0, 0, 0), new Point3D(0, 0, 10), 20, 20, WIDTH, HEIGHT);
+    }
+
+    static short[][] trace(CompiledScene scene, Camera camera) {
+        short[][] rgb = new short[3][WIDTH * HEIGHT];
+        Tracer.trace(scene, camera, 0, 0, WIDTH - 1, HEIGHT - 1, rgb[0], rgb[1], rgb[2], 0, WIDTH, null, null);
+        return rgb;
+    }
+
+    static short[][] render(TemporalReprojector.Frame frame) {
+        short[][] rgb = new short[3][WIDTH * HEIGHT];
+        frame.render(0, HEIGHT / 2 - 1, rgb[0], rgb[1], rgb[2], null, null);
+        frame.render(HEIGHT / 2, HEIGHT - 1, rgb[0], rgb[1], rgb[2], null, null);
+        frame.finish();
+        return rgb;
+    }
+
+    // tests for: constructor
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_FailNegative() {
+        new TemporalReprojector(-1, 0.01);
+    }
+
+    // tests for: begin(CompiledScene, Camera): Frame
+
+    @Test(expected = NullPointerException.class)
+    public void beginTest_FailNull() {
+        new TemporalReprojector().begin(scene, null);
+    }
+
+    @Test
+    public void beginTest_FirstFrameEqualsTrace() {
+        TemporalReprojector.Frame frame = new TemporalReprojector().begin(scene, camera);
+
+        short[][] rgb = render(frame);
+
+        assertEquals(0, frame.getReusedCount());
+        short[][] expected = trace(scene, camera);
+        for (int c = 0; c < 3; c++) {
+            assertArrayEquals(expected[c], rgb[c]);
+        }
+    }
+
+    @Test
+    public void beginTest_SameCameraReusesPixels() {
+        TemporalReprojector reprojector = new TemporalReprojector();
+        render(reprojector.begin(scene, camera));
+
+        TemporalReprojector.Frame frame = reprojector.begin(scene, camera);
+        short[][] rgb = render(frame);
+
+        assertTrue(frame.getReusedCount() > 0);
+        short[][] expected = trace(scene, camera);
+        for (int c = 0; c < 3; c++) {
+            assertArrayEquals(expected[c], rgb[c]);
+        }
+    }
+
+    @Test
+    public void beginTest_SmallMoveIsClose() {
+        TemporalReprojector reprojector = new TemporalReprojector();
+        render(reprojector.begin(scene, camera));
+
+        Camera moved = camera(new Point3D(10, 0.02, 0.01));
+        TemporalReprojector.Frame frame = reprojector.begin(scene, moved);
+        short[][] rgb = render(frame);
+        short[][] expected = trace(scene, moved);
+
+        assertTrue(frame.getReusedCount() > 0);
+        int different = 0;
+        for (int c = 0; c < 3; c++) {
+            for (int i = 0; i < WIDTH * HEIGHT; i++) {
+                if (Math.abs(expected[c][i] - rgb[c][i]) > 8)
+                    different++;
+            }
+        }
+        assertTrue(different < WIDTH * HEIGHT / 50);
+    }
+
+    @Test
+    public void finishTest_OlderFramesCollected() throws InterruptedException {
+        TemporalReprojector reprojector = new TemporalReprojector();
+        List<WeakReference<TemporalReprojector.Frame>> frames = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            TemporalReprojector.Frame frame = reprojector.begin(scene, camera(new Point3D(10, 0.01 * i, 0)));
+            render(frame);
+            frames.add(new WeakReference<>(frame));
+        }
+
+        for (int i = 0; i < 50 && frames.get(5 - 3).get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(frames.get(5 - 3).get());
+        assertNotNull(frames.get(5 - 1).get());
+    }
+
+    @Test
+    public void beginTest_NewSceneDropsHistory() {
+        TemporalReprojector reprojector = new TemporalReprojector();
+        render(reprojector.begin(scene, camera));
+
+        CompiledScene other = CompiledScene.compile(RayTracerViewer.createPredefinedScene());
+        TemporalReprojector.Frame frame = reprojector.begin(other, camera);
+        render(frame);
+
+        assertEquals(0, frame.getReusedCount());
+    }
+
+    @Test
+    public void beginTest_MaxAgeForcesShading() {
+        TemporalReprojector reprojector = new TemporalReprojector(1, 0.01);
+        render(reprojector.begin(scene, camera));
+
+        TemporalReprojector.Frame second = reprojector.begin(scene, camera);
+        render(second);
+        TemporalReprojector.Frame third = reprojector.begin(scene, camera);
+        render(third);
+
+        assertTrue(second.getReusedCount() > 0);
+        assertEquals(0, third.getReusedCount());
+    }
+}
@@ -0,0 +1,119 @@
+package hr.fer.zemris.java.raytracer.animation;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.Camera;
+import hr.fer.zemris.java.raytracer.CompiledScene;
+import hr.fer.zemris.java.raytracer.Tracer;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+/**
+ * Test class for {@link AnimationRenderer} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code AnimationRenderer} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see AnimationRenderer
+ */
+@SuppressWarnings("javadoc")
+public class AnimationRendererTests {
+
+    static final int WIDTH = 48;
+    static final int HEIGHT = 36;
+
+    CompiledScene scene;
+    AnimationRenderer renderer;
+    Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        scene = CompiledScene.compile(RayTracerViewer.createPredefinedScene());
+        CameraPath path = new CameraPath()
+                .add(0, new Point3D(10, 0, 0), new Point3D(), new Point3D(0, 0, 10))
+                .add(1, new Point3D(0, 10, 0), new Point3D(), new Point3D(0, 0, 10));
+        renderer = new AnimationRenderer(scene, path, 20, 20, WIDTH, HEIGHT);
+        directory = Files.createTempDirectory("animation");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    // tests for: constructor
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_FailEmptyPath() {
+        new AnimationRenderer(scene, new CameraPath(), 20, 20, WIDTH, HEIGHT);
+    }
+
+    // tests for: cameraOf(int, int): Camera
+
+    @Test
+    public void cameraOfTest_SpreadsFrames() {
+        assertEquals(10, renderer.cameraOf(0, 5).getEye().x, 1E-12);
+        assertEquals(5, renderer.cameraOf(2, 5).getEye().x, 1E-12);
+        assertEquals(0, renderer.cameraOf(4, 5).getEye().x, 1E-12);
+        assertEquals(10, renderer.cameraOf(0, 1).getEye().x, 1E-12);
+    }
+
+    // tests for: render(int, Path, String, int)
+
+    @Test
+    public void renderTest_WritesFramesEqualToTrace() throws IOException, InterruptedException {
+        renderer.render(5, directory, "png", 2);
+
+        for (int i = 0; i < 5; i++) {
+            Path file = directory.resolve(AnimationRenderer.fileName(i, "png"));
+            assertTrue(Files.exists(file));
+
+            BufferedImage image = ImageIO.read(file.toFile());
+            assertEquals(WIDTH, image.getWidth());
+            assertEquals(HEIGHT, image.getHeight());
+
+            Camera camera = renderer.cameraOf(i, 5);
+            short[] red = new short[WIDTH * HEIGHT];
+            short[] green = new short[WIDTH * HEIGHT];
+            short[] blue = new short[WIDTH * HEIGHT];
+            Tracer.trace(scene, camera, 0, 0, WIDTH - 1, HEIGHT - 1, red, green, blue, 0, WIDTH, null, null);
+
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    int offset = y * WIDTH + x;
+                    assertEquals(red[offset] << 16 | green[offset] << 8 | blue[offset],
+                            image.getRGB(x, y) & 0xFFFFFF);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void renderTest_FailFormat() throws IOException, InterruptedException {
+        renderer.render(1, directory, "no-such-format", 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void renderTest_FailFrameCount() throws IOException, InterruptedException {
+        renderer.render(0, directory, "png", 1);
+    }
+}
@@ -0,0 +1,102 @@
+package hr.fer.zemris.java.raytracer.animation;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.Camera;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+
+/**
+ * Test class for {@link CameraPath} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code CameraPath} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see CameraPath
+ */
+@SuppressWarnings("javadoc")
+public class CameraPathTests {
+
+    static final String PATH = "# fly-through\n"
+            + "key 0 10 0 0 0 0 0 0 0 10\n"
+            + "\n"
+            + "  key 2 0 10 0 0 0 0 0 0 10  \n";
+
+    static void assertPoint(double x, double y, double z, Point3D point) {
+        assertEquals(x, point.x, 1E-12);
+        assertEquals(y, point.y, 1E-12);
+        assertEquals(z, point.z, 1E-12);
+    }
+
+    // tests for: add(double, Point3D, Point3D, Point3D): CameraPath
+
+    @Test(expected = NullPointerException.class)
+    public void addTest_FailNull() {
+        new CameraPath().add(0, null, new Point3D(), new Point3D(0, 0, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addTest_FailTimeOrder() {
+        new CameraPath()
+                .add(1, new Point3D(1, 0, 0), new Point3D(), new Point3D(0, 0, 1))
+                .add(1, new Point3D(2, 0, 0), new Point3D(), new Point3D(0, 0, 1));
+    }
+
+    // tests for: cameraAt(double, double, double, int, int): Camera
+
+    @Test
+    public void cameraAtTest_Interpolates() throws IOException {
+        CameraPath path = CameraPath.read(new StringReader(PATH));
+
+        assertEquals(2, path.size());
+        assertEquals(0, path.getStart(), 0);
+        assertEquals(2, path.getEnd(), 0);
+        assertPoint(10, 0, 0, path.cameraAt(0, 20, 20, 4, 4).getEye());
+        assertPoint(5, 5, 0, path.cameraAt(1, 20, 20, 4, 4).getEye());
+        assertPoint(0, 10, 0, path.cameraAt(2, 20, 20, 4, 4).getEye());
+    }
+
+    @Test
+    public void cameraAtTest_OutsideKeyframes() throws IOException {
+        CameraPath path = CameraPath.read(new StringReader(PATH));
+
+        assertPoint(10, 0, 0, path.cameraAt(-5, 20, 20, 4, 4).getEye());
+        assertPoint(0, 10, 0, path.cameraAt(7, 20, 20, 4, 4).getEye());
+    }
+
+    @Test
+    public void cameraAtTest_EqualsCamera() {
+        CameraPath path = new CameraPath().add(0, new Point3D(10, 0, 0), new Point3D(), new Point3D(0, 0, 10));
+        Camera expected = new Camera(new Point3D(10, 0, 0), new Point3D(), new Point3D(0, 0, 10), 20, 20, 8, 6);
+
+        assertArrayEquals(expected.getDirections(), path.cameraAt(3, 20, 20, 8, 6).getDirections(), 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cameraAtTest_FailEmpty() {
+        new CameraPath().cameraAt(0, 20, 20, 4, 4);
+    }
+
+    // tests for: read(Reader): CameraPath
+
+    @Test(expected = IOException.class)
+    public void readTest_FailUnknownElement() throws IOException {
+        CameraPath.read(new StringReader("camera 0 1 2\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void readTest_FailNumber() throws IOException {
+        CameraPath.read(new StringReader("key 0 10 0 x 0 0 0 0 0 10\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void readTest_FailTimeOrder() throws IOException {
+        CameraPath.read(new StringReader("key 1 10 0 0 0 0 0 0 0 10\nkey 0 10 0 0 0 0 0 0 0 10\n"));
+    }
+}
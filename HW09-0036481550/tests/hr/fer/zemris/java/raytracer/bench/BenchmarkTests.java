@@ -0,0 +1,67 @@
+package hr.fer.zemris.java.raytracer.bench;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link Benchmark} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code Benchmark} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see Benchmark
+ */
+@SuppressWarnings("javadoc")
+public class BenchmarkTests {
+
+    // tests for: run(String, Operation)
+
+    @Test
+    public void runTest_Success() {
+        int[] calls = new int[1];
+        Benchmark.Result result = new Benchmark(1, 2, 20).run("sleep", () -> {
+            calls[0]++;
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+
+        assertEquals("sleep", result.getName());
+        assertTrue(calls[0] > 3);
+        assertTrue(result.getNanosPerOp() >= 2_000_000);
+        assertTrue(result.getDeviation() >= 0);
+        assertTrue(result.toString().startsWith("sleep"));
+    }
+
+    @Test
+    public void runTest_Allocations() {
+        Benchmark.Result result = new Benchmark(1, 2, 20).run("array", () -> new long[1024]);
+
+        if (!Double.isNaN(result.getBytesPerOp()))
+            assertTrue(result.getBytesPerOp() >= 8 * 1024);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void runTest_NullOperation() {
+        new Benchmark().run("name", null);
+    }
+
+    // tests for: Benchmark(int, int, long)
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_NoIterations() {
+        new Benchmark(1, 0, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_NoTime() {
+        new Benchmark(1, 1, 0);
+    }
+
+}
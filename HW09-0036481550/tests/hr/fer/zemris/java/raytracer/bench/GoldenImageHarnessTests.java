@@ -0,0 +1,83 @@
+package hr.fer.zemris.java.raytracer.bench;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link GoldenImageHarness} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code GoldenImageHarness} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see GoldenImageHarness
+ */
+@SuppressWarnings("javadoc")
+public class GoldenImageHarnessTests {
+
+    // wall time depends on the machine, so only large regressions fail here
+    static final double TIME_ALLOWANCE = 10;
+    static final double ALLOCATION_ALLOWANCE = 1.25;
+
+    static BufferedImage image(int... rgb) {
+        BufferedImage image = new BufferedImage(rgb.length, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, rgb.length, 1, rgb, 0, rgb.length);
+        return image;
+    }
+
+    // tests for: verify(Path)
+
+    @Test
+    public void verifyTest_GoldenImages() throws Exception {
+        Path dir = Paths.get(GoldenImageHarnessTests.class.getResource("golden").toURI());
+        List<String> failures = new GoldenImageHarness(GoldenImageHarness.DEFAULT_TOLERANCE, TIME_ALLOWANCE,
+                ALLOCATION_ALLOWANCE).verify(dir);
+
+        assertTrue(failures.toString(), failures.isEmpty());
+    }
+
+    // tests for: compare(BufferedImage, BufferedImage, int)
+
+    @Test
+    public void compareTest_Same() {
+        assertNull(GoldenImageHarness.compare(image(0x102030, 0xFFFFFF), image(0x102030, 0xFFFFFF), 0));
+    }
+
+    @Test
+    public void compareTest_WithinTolerance() {
+        assertNull(GoldenImageHarness.compare(image(0x102030, 0xFFFFFF), image(0x112031, 0xFEFFFF), 1));
+    }
+
+    @Test
+    public void compareTest_Differs() {
+        String difference = GoldenImageHarness.compare(image(0x102030, 0xFFFFFF, 0), image(0x102030, 0xFFFF00, 1),
+                1);
+
+        assertEquals("1 pixel(s) differ by up to 255, first at (1, 0)", difference);
+    }
+
+    @Test
+    public void compareTest_Size() {
+        assertNotNull(GoldenImageHarness.compare(image(0, 0), image(0), 0));
+    }
+
+    // tests for: GoldenImageHarness(int, double, double)
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_NegativeTolerance() {
+        new GoldenImageHarness(-1, 1, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_SmallAllowance() {
+        new GoldenImageHarness(0, 0.5, 1);
+    }
+
+}
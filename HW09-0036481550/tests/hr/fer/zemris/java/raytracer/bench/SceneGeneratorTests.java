@@ -0,0 +1,94 @@
+package hr.fer.zemris.java.raytracer.bench;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.Camera;
+import hr.fer.zemris.java.raytracer.CompiledScene;
+import hr.fer.zemris.java.raytracer.Tracer;
+import hr.fer.zemris.java.raytracer.model.LightSource;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Scene;
+
+/**
+ * Test class for {@link SceneGenerator} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code SceneGenerator} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see SceneGenerator
+ */
+@SuppressWarnings("javadoc")
+public class SceneGeneratorTests {
+
+    static short[] render(Scene scene) {
+        Camera camera = new Camera(new Point3D(10, 0, 0), new Point3D(0, 0, 0), new Point3D(0, 0, 10), 20, 20, 32,
+                32);
+        short[] red = new short[32 * 32];
+        short[] green = new short[32 * 32];
+        short[] blue = new short[32 * 32];
+
+        Tracer.trace(CompiledScene.compile(scene), camera, 0, 0, 31, 31, red, green, blue, 0, 32, null, null);
+        return red;
+    }
+
+    // tests for: generate(long, int, int)
+
+    @Test
+    public void generateTest_Counts() {
+        Scene scene = SceneGenerator.generate(1, 10, 3);
+
+        assertEquals(10, scene.getObjects().size());
+        assertEquals(3, scene.getLights().size());
+    }
+
+    @Test
+    public void generateTest_SameSeed() {
+        Scene first = SceneGenerator.generate(7, 16, 2);
+        Scene second = SceneGenerator.generate(7, 16, 2);
+
+        for (int i = 0; i < 2; i++) {
+            LightSource a = first.getLights().get(i);
+            LightSource b = second.getLights().get(i);
+
+            assertEquals(a.getPoint().x, b.getPoint().x, 0);
+            assertEquals(a.getPoint().y, b.getPoint().y, 0);
+            assertEquals(a.getPoint().z, b.getPoint().z, 0);
+            assertEquals(a.getR(), b.getR());
+        }
+        assertArrayEquals(render(first), render(second));
+    }
+
+    @Test
+    public void generateTest_DifferentSeed() {
+        assertFalse(Arrays.equals(render(SceneGenerator.generate(1, 16, 2)),
+                render(SceneGenerator.generate(2, 16, 2))));
+    }
+
+    @Test
+    public void generateTest_ObjectsVisible() {
+        short[] red = render(SceneGenerator.generate(3, 32, 2));
+
+        boolean lit = false;
+        for (short value : red) {
+            lit |= value != Tracer.AMBIENT_COLOR;
+        }
+        assertTrue(lit);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void generateTest_NegativeObjects() {
+        SceneGenerator.generate(1, -1, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void generateTest_NegativeLights() {
+        SceneGenerator.generate(1, 1, -1);
+    }
+
+}
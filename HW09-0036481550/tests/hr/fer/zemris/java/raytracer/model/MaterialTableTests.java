@@ -0,0 +1,101 @@
+package hr.fer.zemris.java.raytracer.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link MaterialTable} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code MaterialTable} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see MaterialTable
+ */
+@SuppressWarnings("javadoc")
+public class MaterialTableTests {
+
+    // tests for: intern(double...): int
+
+    @Test
+    public void internTest_Deduplicates() {
+        MaterialTable table = new MaterialTable();
+
+        int first = table.intern(1, 1, 1, 0.5, 0.5, 0.5, 10);
+        int second = table.intern(0.2, 0.3, 0.4, 0.1, 0.1, 0.1, 4);
+
+        assertNotEquals(first, second);
+        assertEquals(first, table.intern(1, 1, 1, 0.5, 0.5, 0.5, 10));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void internTest_Grows() {
+        MaterialTable table = new MaterialTable();
+
+        for (int i = 0; i <= 100; i++) {
+            assertEquals(i, table.intern(i / 100.0, 0, 0, 0, 0, 0, i));
+        }
+
+        assertEquals(101, table.size());
+        assertEquals(0.5, table.coefficients()[50 * 7], 1E-9);
+        assertEquals(50, table.coefficients()[50 * 7 + 6], 1E-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void internTest_FailDiffuse() {
+        new MaterialTable().intern(1.5, 1, 1, 0.5, 0.5, 0.5, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void internTest_FailReflective() {
+        new MaterialTable().intern(1, 1, 1, 0.5, -0.5, 0.5, 10);
+    }
+
+    // tests for: Sphere(Point3D, double, MaterialTable, double...)
+
+    @Test
+    public void sphereTest_SharedTableBounded() {
+        Sphere last = null;
+        for (int i = 0; i < MaterialTable.MAX_SHARED_MATERIALS + 10; i++) {
+            last = new Sphere(new Point3D(0, 0, 0), 1, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 1000 + i);
+        }
+
+        assertEquals(MaterialTable.MAX_SHARED_MATERIALS, MaterialTable.getShared().size());
+        assertNotSame(MaterialTable.getShared(), last.getMaterialTable());
+
+        RayIntersection intersection = last.findClosestRayIntersection(
+                Ray.fromPoints(new Point3D(10, 0, 0), new Point3D(0, 0, 0)));
+        assertEquals(1000 + MaterialTable.MAX_SHARED_MATERIALS + 9, intersection.getKrn(), 1E-9);
+    }
+
+    @Test
+    public void sphereTest_ScopedTable() {
+        MaterialTable table = new MaterialTable();
+        int shared = MaterialTable.getShared().size();
+
+        Sphere first = new Sphere(new Point3D(0, 0, 0), 1, table, 0.1, 0.1, 0.1, 0.1, 0.1, 0.1, 3);
+        Sphere second = new Sphere(new Point3D(5, 0, 0), 1, table, 0.1, 0.1, 0.1, 0.1, 0.1, 0.1, 3);
+
+        assertSame(table, first.getMaterialTable());
+        assertSame(table, second.getMaterialTable());
+        assertEquals(1, table.size());
+        assertEquals(shared, MaterialTable.getShared().size());
+    }
+
+    // tests for: MaterialIntersection
+
+    @Test
+    public void sphereIntersectionTest_ReadsTable() {
+        Sphere sphere = new Sphere(new Point3D(0, 0, 0), 1, 0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 7);
+        RayIntersection intersection = sphere.findClosestRayIntersection(
+                Ray.fromPoints(new Point3D(10, 0, 0), new Point3D(0, 0, 0)));
+
+        assertEquals(0.1, intersection.getKdr(), 1E-9);
+        assertEquals(0.3, intersection.getKdb(), 1E-9);
+        assertEquals(0.5, intersection.getKrg(), 1E-9);
+        assertEquals(7, intersection.getKrn(), 1E-9);
+    }
+}
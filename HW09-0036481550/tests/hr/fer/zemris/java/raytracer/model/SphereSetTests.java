@@ -0,0 +1,169 @@
+package hr.fer.zemris.java.raytracer.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link SphereSet} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code SphereSet} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see SphereSet
+ */
+@SuppressWarnings("javadoc")
+public class SphereSetTests {
+
+    static final double DELTA = 1E-9;
+
+    static SphereSet set() {
+        return new SphereSet(1)
+                .add(0, 0, 0, 1, 1, 1, 1, 0.5, 0.5, 0.5, 10)
+                .add(-5, 0, 0, 2, 0.2, 0.3, 0.4, 0.1, 0.1, 0.1, 4)
+                .add(0, 5, 0, 1, 1, 1, 1, 0.5, 0.5, 0.5, 10);
+    }
+
+    // tests for: add(double...): SphereSet
+
+    @Test
+    public void addTest_SharesMaterials() {
+        SphereSet set = set();
+        Ray first = Ray.fromPoints(new Point3D(10, 0, 0), new Point3D(0, 0, 0));
+        Ray third = Ray.fromPoints(new Point3D(0, 5, 10), new Point3D(0, 5, 0));
+
+        assertEquals(3, set.size());
+        assertEquals(((MaterialIntersection) set.findClosestRayIntersection(first)).getMaterial(),
+                ((MaterialIntersection) set.findClosestRayIntersection(third)).getMaterial());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addTest_FailRadius() {
+        new SphereSet().add(0, 0, 0, 0, 1, 1, 1, 1, 1, 1, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addTest_FailMaterial() {
+        new SphereSet().add(0, 0, 0, 1, 2, 1, 1, 1, 1, 1, 1);
+    }
+
+    // tests for: findClosestRayIntersection(Ray): RayIntersection
+
+    @Test
+    public void findClosestRayIntersectionTest_Nearest() {
+        Ray ray = Ray.fromPoints(new Point3D(10, 0, 0), new Point3D(0, 0, 0));
+        RayIntersection intersection = set().findClosestRayIntersection(ray);
+
+        assertEquals(9, intersection.getDistance(), DELTA);
+        assertTrue(intersection.isOuter());
+        assertEquals(1, intersection.getNormal().x, DELTA);
+        assertEquals(0.5, intersection.getKrr(), DELTA);
+        assertEquals(10, intersection.getKrn(), DELTA);
+    }
+
+    @Test
+    public void findClosestRayIntersectionTest_MatchesSphere() {
+        Sphere sphere = new Sphere(new Point3D(-5, 0, 0), 2, 0.2, 0.3, 0.4, 0.1, 0.1, 0.1, 4);
+        Ray ray = Ray.fromPoints(new Point3D(10, 0.5, 3), new Point3D(-5, 0.2, 0.3));
+
+        RayIntersection expected = sphere.findClosestRayIntersection(ray);
+        RayIntersection actual = set().findClosestRayIntersection(ray);
+
+        assertEquals(expected.getDistance(), actual.getDistance(), DELTA);
+        assertEquals(expected.getPoint().z, actual.getPoint().z, DELTA);
+        assertEquals(expected.getKdb(), actual.getKdb(), DELTA);
+    }
+
+    @Test
+    public void findClosestRayIntersectionTest_Inside() {
+        Ray ray = Ray.fromPoints(new Point3D(0, 0, 0), new Point3D(0, 0, 1));
+        RayIntersection intersection = set().findClosestRayIntersection(ray);
+
+        assertEquals(1, intersection.getDistance(), DELTA);
+        assertFalse(intersection.isOuter());
+    }
+
+    @Test
+    public void findClosestRayIntersectionTest_Miss() {
+        Ray behind = Ray.fromPoints(new Point3D(10, 0, 0), new Point3D(20, 0, 0));
+        Ray aside = Ray.fromPoints(new Point3D(10, 0, 3), new Point3D(0, 0, 3));
+
+        assertNull(set().findClosestRayIntersection(behind));
+        assertNull(set().findClosestRayIntersection(aside));
+    }
+
+    // tests for: findClosestRayIntersection(Ray, TraceCounter): RayIntersection
+
+    @Test
+    public void findClosestRayIntersectionTest_CountsSpheres() {
+        TraceCounter counter = new TraceCounter();
+
+        set().findClosestRayIntersection(Ray.fromPoints(new Point3D(10, 0, 0), new Point3D(0, 0, 0)), counter);
+
+        assertEquals(3, counter.getIntersectionTests());
+        assertEquals(0, counter.getRays());
+    }
+
+    // tests for: intersect(RayPacket)
+
+    @Test
+    public void intersectTest_MatchesScalar() {
+        SphereSet set = set();
+        RayPacket packet = new RayPacket(4);
+        packet.reset(new Point3D(10, 0, 0));
+        for (Point3D direction : new Point3D[] { new Point3D(-1, 0, 0), new Point3D(-1, 0.5, 0.01),
+                new Point3D(-1, 0, 0.5) }) {
+            direction.modifyNormalize();
+            packet.add(direction.x, direction.y, direction.z);
+        }
+        packet.seal();
+
+        set.intersect(packet);
+
+        for (int i = 0; i < packet.size(); i++) {
+            RayIntersection intersection = set.findClosestRayIntersection(packet.getRay(i));
+            if (intersection == null) {
+                assertNull(packet.getClosestObject(i));
+            } else {
+                assertSame(set, packet.getClosestObject(i));
+                assertEquals(intersection.getDistance(), packet.distance[i], DELTA);
+            }
+        }
+    }
+
+    // tests for: getIntersection(Ray, int, double): RayIntersection
+
+    @Test
+    public void getIntersectionTest_MatchesScalar() {
+        SphereSet set = set();
+        RayPacket packet = new RayPacket(2);
+
+        // the first packet enters the middle sphere, the second leaves it
+        for (Point3D start : new Point3D[] { new Point3D(-8, 0, 0), new Point3D(-5, 0, 0) }) {
+            packet.reset(start);
+            packet.add(1, 0, 0);
+            packet.add(0, 0.6, 0.8);
+            packet.seal();
+
+            set.intersect(packet);
+
+            for (int i = 0; i < packet.size(); i++) {
+                RayIntersection expected = set.findClosestRayIntersection(packet.getRay(i));
+                RayIntersection actual = packet.getClosestIntersection(i);
+
+                if (expected == null) {
+                    assertNull(actual);
+                    continue;
+                }
+                assertEquals(expected.getDistance(), actual.getDistance(), DELTA);
+                assertEquals(expected.isOuter(), actual.isOuter());
+                assertEquals(expected.getNormal().x, actual.getNormal().x, DELTA);
+                assertEquals(((MaterialIntersection) expected).getMaterial(),
+                        ((MaterialIntersection) actual).getMaterial());
+            }
+            assertEquals(start.x < -7, packet.getClosestIntersection(0).isOuter());
+        }
+    }
+}
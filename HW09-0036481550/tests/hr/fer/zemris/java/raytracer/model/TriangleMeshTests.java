@@ -0,0 +1,207 @@
+package hr.fer.zemris.java.raytracer.model;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link TriangleMesh} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code TriangleMesh} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TriangleMesh
+ */
+@SuppressWarnings("javadoc")
+public class TriangleMeshTests {
+
+    static final double DELTA = 1E-9;
+
+    /** Unit square in the plane x = 0 split along its diagonal. */
+    static TriangleMesh square() {
+        double[] vertices = { 0, -1, -1, 0, 1, -1, 0, 1, 1, 0, -1, 1 };
+        int[] indices = { 0, 1, 2, 0, 2, 3 };
+
+        return new TriangleMesh(vertices, indices, 1, 1, 1, 0.5, 0.5, 0.5, 10);
+    }
+
+    // tests for: TriangleMesh(double[], int[], double...)
+
+    @Test
+    public void constructorTest_Counts() {
+        TriangleMesh mesh = square();
+
+        assertEquals(4, mesh.getVertexCount());
+        assertEquals(2, mesh.getTriangleCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_FailIndex() {
+        new TriangleMesh(new double[] { 0, 0, 0, 1, 0, 0, 0, 1, 0 }, new int[] { 0, 1, 3 }, 1, 1, 1, 1, 1, 1, 1);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorTest_FailNull() {
+        new TriangleMesh(null, new int[0], 1, 1, 1, 1, 1, 1, 1);
+    }
+
+    // tests for: findClosestRayIntersection(Ray): RayIntersection
+
+    @Test
+    public void findClosestRayIntersectionTest_Hit() {
+        RayIntersection intersection = square().findClosestRayIntersection(
+                Ray.fromPoints(new Point3D(10, 0.3, -0.2), new Point3D(0, 0.3, -0.2)));
+
+        assertEquals(10, intersection.getDistance(), DELTA);
+        assertEquals(0.3, intersection.getPoint().y, DELTA);
+        assertEquals(1, intersection.getNormal().x, DELTA);
+        assertEquals(0.5, intersection.getKrb(), DELTA);
+    }
+
+    @Test
+    public void findClosestRayIntersectionTest_BackSide() {
+        RayIntersection intersection = square().findClosestRayIntersection(
+                Ray.fromPoints(new Point3D(-10, 0.3, -0.2), new Point3D(0, 0.3, -0.2)));
+
+        assertEquals(10, intersection.getDistance(), DELTA);
+        assertEquals(-1, intersection.getNormal().x, DELTA);
+    }
+
+    @Test
+    public void findClosestRayIntersectionTest_Watertight() {
+        TriangleMesh mesh = square();
+
+        // rays through the shared diagonal and the shared vertex
+        assertNotNull(mesh.findClosestRayIntersection(
+                Ray.fromPoints(new Point3D(10, 0.25, 0.25), new Point3D(0, 0.25, 0.25))));
+        assertNotNull(mesh.findClosestRayIntersection(
+                Ray.fromPoints(new Point3D(3, 0.7, 0.9), new Point3D(0, 1.0 / 3, 1.0 / 3))));
+        assertNotNull(mesh.findClosestRayIntersection(
+                Ray.fromPoints(new Point3D(5, 1, 2), new Point3D(0, 1, 1))));
+    }
+
+    @Test
+    public void findClosestRayIntersectionTest_Miss() {
+        TriangleMesh mesh = square();
+
+        assertNull(mesh.findClosestRayIntersection(
+                Ray.fromPoints(new Point3D(10, 2, 0), new Point3D(0, 2, 0))));
+        assertNull(mesh.findClosestRayIntersection(
+                Ray.fromPoints(new Point3D(10, 0, 0), new Point3D(20, 0, 0))));
+        assertNull(new TriangleMesh(new double[0], new int[0], 1, 1, 1, 1, 1, 1, 1)
+                .findClosestRayIntersection(Ray.fromPoints(new Point3D(10, 0, 0), new Point3D(0, 0, 0))));
+    }
+
+    @Test
+    public void findClosestRayIntersectionTest_CountsTestedTriangles() {
+        TriangleMesh mesh = square();
+        TraceCounter counter = new TraceCounter();
+
+        mesh.findClosestRayIntersection(Ray.fromPoints(new Point3D(10, 0.3, -0.2), new Point3D(0, 0.3, -0.2)),
+                counter);
+        assertEquals(2, counter.getIntersectionTests());
+
+        // the ray misses the bounds of the hierarchy, so no triangle is tested
+        mesh.findClosestRayIntersection(Ray.fromPoints(new Point3D(10, 2, 0), new Point3D(0, 2, 0)), counter);
+        assertEquals(2, counter.getIntersectionTests());
+    }
+
+    @Test
+    public void findClosestRayIntersectionTest_MatchesBruteForce() {
+        Random random = new Random(42);
+        int triangles = 2000;
+        double[] vertices = new double[triangles * 9];
+        int[] indices = new int[triangles * 3];
+
+        for (int i = 0; i < triangles; i++) {
+            double x = random.nextDouble() * 10 - 5;
+            double y = random.nextDouble() * 10 - 5;
+            double z = random.nextDouble() * 10 - 5;
+            for (int j = 0; j < 3; j++) {
+                vertices[i * 9 + j * 3] = x + random.nextDouble() - 0.5;
+                vertices[i * 9 + j * 3 + 1] = y + random.nextDouble() - 0.5;
+                vertices[i * 9 + j * 3 + 2] = z + random.nextDouble() - 0.5;
+                indices[i * 3 + j] = i * 3 + j;
+            }
+        }
+
+        TriangleMesh mesh = new TriangleMesh(vertices, indices, 1, 1, 1, 1, 1, 1, 1);
+        TriangleMesh[] single = new TriangleMesh[triangles];
+        for (int i = 0; i < triangles; i++) {
+            single[i] = new TriangleMesh(vertices, new int[] { i * 3, i * 3 + 1, i * 3 + 2 }, 1, 1, 1, 1, 1, 1, 1);
+        }
+
+        for (int r = 0; r < 200; r++) {
+            Ray ray = Ray.fromPoints(new Point3D(20, random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5),
+                    new Point3D(-5, random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5));
+
+            double expected = Double.POSITIVE_INFINITY;
+            for (TriangleMesh triangle : single) {
+                RayIntersection intersection = triangle.findClosestRayIntersection(ray);
+                if (intersection != null)
+                    expected = Math.min(expected, intersection.getDistance());
+            }
+
+            RayIntersection actual = mesh.findClosestRayIntersection(ray);
+            if (expected == Double.POSITIVE_INFINITY) {
+                assertNull(actual);
+            } else {
+                assertEquals(expected, actual.getDistance(), DELTA);
+            }
+        }
+    }
+
+    // tests for: intersect(RayPacket)
+
+    @Test
+    public void intersectTest_MatchesScalar() {
+        TriangleMesh mesh = square();
+        RayPacket packet = new RayPacket(3);
+        packet.reset(new Point3D(10, 0, 0));
+        for (Point3D direction : new Point3D[] { new Point3D(-1, 0, 0), new Point3D(-10, 0.5, 0.5),
+                new Point3D(-1, 0.5, 0) }) {
+            direction.modifyNormalize();
+            packet.add(direction.x, direction.y, direction.z);
+        }
+        packet.seal();
+
+        mesh.intersect(packet);
+
+        for (int i = 0; i < packet.size(); i++) {
+            RayIntersection intersection = mesh.findClosestRayIntersection(packet.getRay(i));
+            if (intersection == null) {
+                assertNull(packet.getClosestObject(i));
+            } else {
+                assertSame(mesh, packet.getClosestObject(i));
+                assertEquals(intersection.getDistance(), packet.distance[i], DELTA);
+            }
+        }
+    }
+
+    // tests for: getIntersection(Ray, int, double): RayIntersection
+
+    @Test
+    public void getIntersectionTest_MatchesScalar() {
+        TriangleMesh mesh = square();
+        RayPacket packet = new RayPacket(2);
+        packet.reset(new Point3D(10, 0.3, -0.2));
+        packet.add(-1, 0, 0);
+        packet.add(1, 0, 0);
+        packet.seal();
+
+        mesh.intersect(packet);
+
+        RayIntersection expected = mesh.findClosestRayIntersection(packet.getRay(0));
+        RayIntersection actual = packet.getClosestIntersection(0);
+
+        assertEquals(expected.getDistance(), actual.getDistance(), DELTA);
+        assertEquals(expected.isOuter(), actual.isOuter());
+        assertEquals(expected.getNormal().x, actual.getNormal().x, DELTA);
+        assertEquals(expected.getPoint().y, actual.getPoint().y, DELTA);
+        assertNull(packet.getClosestIntersection(1));
+    }
+}
@@ -0,0 +1,292 @@
+package hr.fer.zemris.java.raytracer.remote;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.Camera;
+import hr.fer.zemris.java.raytracer.CompiledScene;
+import hr.fer.zemris.java.raytracer.Tracer;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.scene.PackedSceneBuilder;
+import hr.fer.zemris.java.raytracer.scene.SceneReader;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+/**
+ * Test class for {@link RenderCoordinator} and {@link RenderWorker} classes.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code RenderCoordinator} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see RenderCoordinator
+ */
+@SuppressWarnings("javadoc")
+public class RenderCoordinatorTests {
+
+    static final int WIDTH = 70;
+    static final int HEIGHT = 50;
+
+    static final String SCENE = "light 10.0 5.0 5.0 100 100 100\n"
+            + "sphere 0.0 0.0 0.0 2.0 1.0 0.5 0.5 0.5 0.5 0.5 10.0\n"
+            + "sphere 0.0 3.0 1.0 1.0 0.3 1.0 0.3 0.2 0.2 0.2 4.0\n";
+
+    List<RenderWorker> workers = new ArrayList<>();
+    List<ServerSocket> fakes = new ArrayList<>();
+    RenderCoordinator coordinator;
+
+    @Before
+    public void setUp() throws IOException {
+        for (int i = 0; i < 2; i++) {
+            RenderWorker worker = new RenderWorker(0);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (coordinator != null)
+            coordinator.close();
+        for (RenderWorker worker : workers) {
+            worker.close();
+        }
+        for (ServerSocket fake : fakes) {
+            fake.close();
+        }
+    }
+
+    List<InetSocketAddress> addresses() {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (RenderWorker worker : workers) {
+            addresses.add(new InetSocketAddress("localhost", worker.getPort()));
+        }
+        return addresses;
+    }
+
+    /** Starts a fake worker that reads {@code bytes} bytes and then hangs or closes the connection. */
+    InetSocketAddress fake(int bytes, boolean hang) throws IOException {
+        ServerSocket server = new ServerSocket(0);
+        fakes.add(server);
+
+        Thread thread = new Thread(() -> {
+            try (Socket socket = server.accept()) {
+                InputStream in = socket.getInputStream();
+                for (int i = 0; i < bytes && in.read() >= 0; i++) {
+                }
+                while (hang && in.read() >= 0) {
+                }
+            } catch (IOException ignorable) {
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+
+        return new InetSocketAddress("localhost", server.getLocalPort());
+    }
+
+    /** Starts a fake worker that answers its first tile with a result one row too short. */
+    InetSocketAddress lying() throws IOException {
+        ServerSocket server = new ServerSocket(0);
+        fakes.add(server);
+
+        Thread thread = new Thread(() -> {
+            try (Socket socket = server.accept()) {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                in.readByte();
+                in.readFully(new byte[in.readInt()]);
+                in.readByte();
+                long frameNo = in.readLong();
+                in.readFully(new byte[11 * Double.BYTES + 2 * Integer.BYTES]);
+                in.readByte();
+                int index = in.readInt();
+                in.readInt();
+                in.readInt();
+                int width = in.readInt();
+                int height = in.readInt() - 1;
+
+                out.writeByte(TileProtocol.RESULT);
+                out.writeLong(frameNo);
+                out.writeInt(index);
+                out.writeInt(width);
+                out.writeInt(height);
+                for (int i = 0; i < 3 * width * height; i++) {
+                    out.writeShort(0);
+                }
+                out.flush();
+                while (in.read() >= 0) {
+                }
+            } catch (IOException ignorable) {
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+
+        return new InetSocketAddress("localhost", server.getLocalPort());
+    }
+
+    static Camera camera() {
+        return new Camera(new Point3D(10, 0, 0), new Point3D(), new Point3D(0, 0, 10), 20, 20, WIDTH, HEIGHT);
+    }
+
+    static short[][] render(RenderCoordinator coordinator) throws IOException, InterruptedException {
+        short[][] rgb = new short[3][WIDTH * HEIGHT];
+        coordinator.render(new Point3D(10, 0, 0), new Point3D(), new Point3D(0, 0, 10), 20, 20, WIDTH, HEIGHT,
+                rgb[0], rgb[1], rgb[2]);
+        return rgb;
+    }
+
+    static void assertTraced(CompiledScene scene, short[][] rgb) {
+        short[][] expected = new short[3][WIDTH * HEIGHT];
+        Tracer.trace(scene, camera(), 0, 0, WIDTH - 1, HEIGHT - 1, expected[0], expected[1], expected[2], 0, WIDTH,
+                null, null);
+
+        for (int c = 0; c < 3; c++) {
+            assertArrayEquals(expected[c], rgb[c]);
+        }
+    }
+
+    static CompiledScene predefined() {
+        return CompiledScene.compile(RayTracerViewer.createPredefinedScene());
+    }
+
+    // tests for: constructor
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_FailNoWorkers() {
+        new RenderCoordinator("", new ArrayList<>());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorTest_FailNull() {
+        new RenderCoordinator(null, addresses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_FailFrameTimeout() {
+        new RenderCoordinator("", addresses(), 16, 4, 100, 0);
+    }
+
+    // tests for: render(...)
+
+    @Test
+    public void renderTest_PredefinedScene() throws IOException, InterruptedException {
+        coordinator = new RenderCoordinator("", addresses(), 16, 4, 60_000);
+
+        assertTraced(predefined(), render(coordinator));
+        assertEquals(2, coordinator.getLiveWorkerCount());
+    }
+
+    @Test
+    public void renderTest_TextScene() throws IOException, InterruptedException {
+        coordinator = new RenderCoordinator(SCENE, addresses(), 16, 4, 60_000);
+
+        PackedSceneBuilder builder = new PackedSceneBuilder();
+        SceneReader.readText(new StringReader(SCENE), builder);
+        assertTraced(CompiledScene.compile(builder.getScene()), render(coordinator));
+    }
+
+    @Test
+    public void renderTest_ReusesConnections() throws IOException, InterruptedException {
+        coordinator = new RenderCoordinator("", addresses(), 16, 4, 60_000);
+
+        short[][] first = render(coordinator);
+        short[][] second = render(coordinator);
+
+        assertTrue(Arrays.equals(first[0], second[0]));
+        assertEquals(2, coordinator.getLiveWorkerCount());
+    }
+
+    @Test
+    public void renderTest_SkipsUnreachableWorker() throws IOException, InterruptedException {
+        ServerSocket closed = new ServerSocket(0);
+        int port = closed.getLocalPort();
+        closed.close();
+
+        List<InetSocketAddress> addresses = addresses();
+        addresses.add(new InetSocketAddress("localhost", port));
+        coordinator = new RenderCoordinator("", addresses, 16, 4, 60_000);
+
+        assertTraced(predefined(), render(coordinator));
+        assertEquals(2, coordinator.getLiveWorkerCount());
+    }
+
+    @Test
+    public void renderTest_ReassignsTilesOfDeadWorker() throws IOException, InterruptedException {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        addresses.add(fake(10, false));
+        addresses.add(addresses().get(0));
+        coordinator = new RenderCoordinator("", addresses, 16, 4, 60_000);
+
+        assertTraced(predefined(), render(coordinator));
+    }
+
+    @Test
+    public void renderTest_ReassignsTilesOfHungWorker() throws IOException, InterruptedException {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        addresses.add(fake(0, true));
+        addresses.add(addresses().get(0));
+        coordinator = new RenderCoordinator("", addresses, 16, 4, 100);
+
+        assertTraced(predefined(), render(coordinator));
+        assertEquals(2, coordinator.getLiveWorkerCount());
+    }
+
+    @Test
+    public void renderTest_RejectsWrongTileSize() throws IOException, InterruptedException {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        addresses.add(lying());
+        addresses.add(addresses().get(0));
+        coordinator = new RenderCoordinator("", addresses, 16, 4, 60_000);
+
+        assertTraced(predefined(), render(coordinator));
+        assertEquals(1, coordinator.getLiveWorkerCount());
+    }
+
+    @Test(timeout = 10_000, expected = IOException.class)
+    public void renderTest_FailFrameTimeout() throws IOException, InterruptedException {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        addresses.add(fake(0, true));
+        coordinator = new RenderCoordinator("", addresses, 16, 4, 100, 500);
+
+        render(coordinator);
+    }
+
+    @Test(expected = IOException.class)
+    public void renderTest_FailNoWorkerAvailable() throws IOException, InterruptedException {
+        for (RenderWorker worker : workers) {
+            worker.close();
+        }
+
+        coordinator = new RenderCoordinator("", addresses(), 16, 4, 60_000);
+        render(coordinator);
+    }
+
+    // tests for: TileProtocol
+
+    @Test(expected = IOException.class)
+    public void readSceneTest_FailTooLarge() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeInt(TileProtocol.MAX_SCENE_BYTES + 1);
+
+        TileProtocol.readScene(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
@@ -0,0 +1,73 @@
+package hr.fer.zemris.java.raytracer.scene;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.TriangleMesh;
+
+/**
+ * Test class for {@link ObjReader} class.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code ObjReader} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see ObjReader
+ */
+@SuppressWarnings("javadoc")
+public class ObjReaderTests {
+
+    static final String SQUARE = "# square\n"
+            + "o square\n"
+            + "v 0 -1 -1\n"
+            + "v 0 1 -1\n"
+            + "vt 0 0\n"
+            + "v 0 1 1\n"
+            + "  v 0 -1 1  \n"
+            + "vn 1 0 0\n"
+            + "\n"
+            + "f 1/1/1 2/1/1 -2//1 -1\n";
+
+    static TriangleMesh read(String obj) throws IOException {
+        return ObjReader.read(new StringReader(obj), 1, 1, 1, 0.5, 0.5, 0.5, 10);
+    }
+
+    // tests for: read(Reader, double...): TriangleMesh
+
+    @Test
+    public void readTest_Success() throws IOException {
+        TriangleMesh mesh = read(SQUARE);
+
+        assertEquals(4, mesh.getVertexCount());
+        assertEquals(2, mesh.getTriangleCount());
+        assertNotNull(mesh.findClosestRayIntersection(
+                Ray.fromPoints(new Point3D(10, -0.5, 0.5), new Point3D(0, -0.5, 0.5))));
+    }
+
+    @Test(expected = IOException.class)
+    public void readTest_FailUnknownVertex() throws IOException {
+        read("v 0 0 0\nv 1 0 0\nf 1 2 3\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void readTest_FailShortFace() throws IOException {
+        read("v 0 0 0\nv 1 0 0\nf 1 2\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void readTest_FailNumber() throws IOException {
+        read("v 0 x 0\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void readTest_FailShortVertex() throws IOException {
+        read("v 0 0\n");
+    }
+}
@@ -0,0 +1,163 @@
+package hr.fer.zemris.java.raytracer.scene;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.Scene;
+
+/**
+ * Test class for {@link SceneReader} class and scene writers.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code SceneReader} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see SceneReader
+ */
+@SuppressWarnings("javadoc")
+public class SceneReaderTests {
+
+    static final String SCENE = "# test scene\n"
+            + "light 10.0 5.0 5.0 100 0 0\n"
+            + "\n"
+            + "sphere -2.0 -2.0 2.0 5.0 1.0 1.0 1.0 0.5 0.5 0.5 10.0\n"
+            + "  sphere -5.0 0.5 1.5 0.5 1.0 0.9 0.8 0.5 0.4 0.3 4.0  \n"
+            + "light 2.0 5.0 -1.0 80 80 0\n";
+
+    static final String NORMALIZED = "light 10.0 5.0 5.0 100 0 0\n"
+            + "light 2.0 5.0 -1.0 80 80 0\n"
+            + "sphere -2.0 -2.0 2.0 5.0 1.0 1.0 1.0 0.5 0.5 0.5 10.0\n"
+            + "sphere -5.0 0.5 1.5 0.5 1.0 0.9 0.8 0.5 0.4 0.3 4.0\n";
+
+    Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("scene", ".rtb");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // tests for: readText(Reader, SceneHandler)
+
+    @Test
+    public void readTextTest_Success() throws IOException {
+        SceneBuilder builder = new SceneBuilder();
+        SceneReader.readText(new StringReader(SCENE), builder);
+
+        Scene scene = builder.getScene();
+        assertEquals(2, scene.getLights().size());
+        assertEquals(2, scene.getObjects().size());
+        assertEquals(80, scene.getLights().get(1).getG());
+    }
+
+    @Test(expected = IOException.class)
+    public void readTextTest_FailUnknownElement() throws IOException {
+        SceneReader.readText(new StringReader("cube 1 2 3\n"), new SceneBuilder());
+    }
+
+    @Test(expected = IOException.class)
+    public void readTextTest_FailNumber() throws IOException {
+        SceneReader.readText(new StringReader("light 1 2 x 1 1 1\n"), new SceneBuilder());
+    }
+
+    @Test(expected = IOException.class)
+    public void readTextTest_FailInvalidSphere() throws IOException {
+        SceneReader.readText(new StringReader("sphere 0 0 0 -1 1 1 1 1 1 1 1\n"), new SceneBuilder());
+    }
+
+    // tests for: readBinary(Path, SceneHandler)
+
+    @Test
+    public void readBinaryTest_RoundTrip() throws IOException {
+        try (BinarySceneWriter writer = new BinarySceneWriter(file)) {
+            SceneReader.readText(new StringReader(SCENE), writer);
+        }
+
+        StringWriter text = new StringWriter();
+        try (TextSceneWriter writer = new TextSceneWriter(text)) {
+            SceneReader.read(file, writer);
+        }
+
+        assertEquals(NORMALIZED, text.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    public void readBinaryTest_Empty() throws IOException {
+        new BinarySceneWriter(file).close();
+
+        SceneBuilder builder = new SceneBuilder();
+        SceneReader.readBinary(file, builder);
+
+        assertTrue(builder.getScene().getObjects().isEmpty());
+        assertTrue(builder.getScene().getLights().isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void readBinaryTest_FailTruncated() throws IOException {
+        try (BinarySceneWriter writer = new BinarySceneWriter(file)) {
+            SceneReader.readText(new StringReader(SCENE), writer);
+        }
+
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 1));
+
+        SceneReader.readBinary(file, new SceneBuilder());
+    }
+
+    @Test(expected = IOException.class)
+    public void readBinaryTest_FailInvalidSphere() throws IOException {
+        try (BinarySceneWriter writer = new BinarySceneWriter(file)) {
+            writer.sphere(0, 0, 0, -1, 1, 1, 1, 1, 1, 1, 1);
+        }
+
+        SceneReader.readBinary(file, new SceneBuilder());
+    }
+
+    @Test(expected = IOException.class)
+    public void readBinaryTest_FailOverflowingCounts() throws IOException {
+        new BinarySceneWriter(file).close();
+
+        // 2^61 spheres of 88 bytes overflow to a size of zero
+        byte[] content = Files.readAllBytes(file);
+        ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN).putLong(16, 1L << 61);
+        Files.write(file, content);
+
+        SceneReader.readBinary(file, new SceneBuilder());
+    }
+
+    @Test(expected = IOException.class)
+    public void readBinaryTest_FailNotBinary() throws IOException {
+        Files.write(file, SCENE.getBytes("UTF-8"));
+
+        SceneReader.readBinary(file, new SceneBuilder());
+    }
+
+    // tests for: read(Path, SceneHandler)
+
+    @Test
+    public void readTest_DetectsText() throws IOException {
+        Files.write(file, SCENE.getBytes("UTF-8"));
+
+        SceneBuilder builder = new SceneBuilder();
+        SceneReader.read(file, builder);
+
+        assertEquals(2, builder.getScene().getObjects().size());
+    }
+}
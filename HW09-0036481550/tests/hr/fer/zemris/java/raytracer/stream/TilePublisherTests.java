@@ -0,0 +1,197 @@
+package hr.fer.zemris.java.raytracer.stream;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.Camera;
+import hr.fer.zemris.java.raytracer.CompiledScene;
+import hr.fer.zemris.java.raytracer.Tracer;
+import hr.fer.zemris.java.raytracer.model.LightSource;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+
+/**
+ * Test class for {@link TilePublisher} and {@link FrameAssembler} classes.
+ * <p>
+ * <b>Note:</b>These tests aren't complete so full functionality of
+ * {@code TilePublisher} class isn't guaranteed.
+ *
+ * @author Karlo Vrbić
+ * @version 1.0
+ * @see TilePublisher
+ */
+@SuppressWarnings("javadoc")
+public class TilePublisherTests {
+
+    static final int WIDTH = 45;
+    static final int HEIGHT = 31;
+    static final int TILE = 10;
+
+    static CompiledScene scene() {
+        return CompiledScene.compile(new Scene()
+                .add(new Sphere(new Point3D(0, 0, 0), 3, 1, 0.5, 0.2, 0.5, 0.5, 0.5, 10))
+                .add(new LightSource(new Point3D(10, 5, 5), 100, 100, 100)));
+    }
+
+    static Camera camera() {
+        return new Camera(new Point3D(10, 0, 0), new Point3D(0, 0, 0), new Point3D(0, 0, 10), 20, 20, WIDTH,
+                HEIGHT);
+    }
+
+    static class Recorder implements TileSubscriber {
+        TileSubscription subscription;
+        List<Tile> tiles = new ArrayList<>();
+        Throwable error;
+        boolean complete;
+
+        @Override
+        public void onSubscribe(TileSubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Tile tile) {
+            tiles.add(tile);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            complete = true;
+        }
+    }
+
+    // tests for: subscribe(TileSubscriber)
+
+    @Test
+    public void subscribeTest_AssemblesFrame() throws InterruptedException {
+        CompiledScene scene = scene();
+        Camera camera = camera();
+        short[] red = new short[WIDTH * HEIGHT];
+        short[] green = new short[WIDTH * HEIGHT];
+        short[] blue = new short[WIDTH * HEIGHT];
+        Tracer.trace(scene, camera, 0, 0, WIDTH - 1, HEIGHT - 1, red, green, blue, 0, WIDTH, null, null);
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        short[][] frame = new short[3][];
+        FrameAssembler assembler = new FrameAssembler(WIDTH, HEIGHT, 7, (r, g, b, requestNo) -> {
+            assertEquals(7, requestNo);
+            frame[0] = r;
+            frame[1] = g;
+            frame[2] = b;
+        }, 4);
+
+        TilePublisher publisher = new TilePublisher(scene, camera, 7, TILE, pool, 3);
+        publisher.subscribe(assembler);
+        assembler.await();
+        pool.shutdown();
+
+        assertNull(assembler.getError());
+        assertEquals(20, publisher.getTileCount());
+        assertArrayEquals(red, frame[0]);
+        assertArrayEquals(green, frame[1]);
+        assertArrayEquals(blue, frame[2]);
+    }
+
+    @Test(timeout = 10000)
+    public void subscribeTest_FailingObserver() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        FrameAssembler assembler = new FrameAssembler(WIDTH, HEIGHT, 7, (r, g, b, requestNo) -> {
+            throw new IllegalStateException("Viewer is closed!");
+        }, 4);
+
+        new TilePublisher(scene(), camera(), 7, TILE, pool, 3).subscribe(assembler);
+        assembler.await();
+        pool.shutdown();
+
+        assertTrue(assembler.getError() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void subscribeTest_RendersOnlyRequestedTiles() {
+        AtomicInteger started = new AtomicInteger();
+        TilePublisher publisher = new TilePublisher(scene(), camera(), 1, TILE, r -> {
+            started.incrementAndGet();
+            r.run();
+        }, 2);
+        Recorder recorder = new Recorder();
+
+        publisher.subscribe(recorder);
+        assertEquals(0, started.get());
+
+        recorder.subscription.request(3);
+        assertEquals(3, started.get());
+        assertEquals(3, recorder.tiles.size());
+        assertFalse(recorder.complete);
+
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(20, started.get());
+        assertEquals(20, recorder.tiles.size());
+        assertTrue(recorder.complete);
+        assertNull(recorder.error);
+
+        Tile last = recorder.tiles.get(19);
+        assertEquals(40, last.getX());
+        assertEquals(30, last.getY());
+        assertEquals(5, last.getWidth());
+        assertEquals(1, last.getHeight());
+    }
+
+    @Test
+    public void subscribeTest_Cancel() {
+        AtomicInteger started = new AtomicInteger();
+        TilePublisher publisher = new TilePublisher(scene(), camera(), 1, TILE, r -> {
+            started.incrementAndGet();
+            r.run();
+        }, 1);
+        Recorder recorder = new Recorder();
+
+        publisher.subscribe(recorder);
+        recorder.subscription.request(2);
+        recorder.subscription.cancel();
+        recorder.subscription.request(10);
+
+        assertEquals(2, started.get());
+        assertEquals(2, recorder.tiles.size());
+        assertFalse(recorder.complete);
+    }
+
+    @Test
+    public void subscribeTest_FailRequest() {
+        TilePublisher publisher = new TilePublisher(scene(), camera(), 1, TILE, Runnable::run, 1);
+        Recorder recorder = new Recorder();
+
+        publisher.subscribe(recorder);
+        recorder.subscription.request(0);
+
+        assertTrue(recorder.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void subscribeTest_FailSecondSubscriber() {
+        TilePublisher publisher = new TilePublisher(scene(), camera(), 1, TILE, Runnable::run, 1);
+        Recorder second = new Recorder();
+
+        publisher.subscribe(new Recorder());
+        publisher.subscribe(second);
+
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTest_FailTileSize() {
+        new TilePublisher(scene(), camera(), 1, 0, Runnable::run, 1);
+    }
+}